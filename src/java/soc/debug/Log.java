@@ -0,0 +1,422 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.debug;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+
+/**
+ * A named, leveled log for one part of the program, such as
+ * "server" or "robot.brain".  Messages below the log's level
+ * are thrown away after a single compare, and messages that are
+ * kept are handed to the LogWriter, which writes them on its own
+ * thread.
+ *
+ * Messages can have up to two "{}" slots, which are only filled
+ * in with the arguments if the message is kept, so
+ *
+ *   log.debug("putting {} for {}", piece, player);
+ *
+ * costs nothing more than the call when debugging is off.  When
+ * the arguments are ints or have to be worked out, check the
+ * level first instead:
+ *
+ *   if (log.isDebugEnabled())
+ *   {
+ *       log.debug("eta = " + tracker.getWinGameETA());
+ *   }
+ *
+ * A log's level comes from the system property soc.log.name,
+ * or failing that the property for the part of the name before
+ * the last dot, and so on up to soc.log, and is WARN if none are
+ * set.  Levels can also be changed while running with setLevel.
+ *
+ * @author agent
+ */
+public class Log
+{
+    /**
+     * levels, from least to most verbose
+     */
+    public static final int OFF = 0;
+    public static final int ERROR = 1;
+    public static final int WARN = 2;
+    public static final int INFO = 3;
+    public static final int DEBUG = 4;
+    public static final int TRACE = 5;
+
+    /**
+     * the names of the levels, by level
+     */
+    static final String[] LEVEL_NAMES = { "OFF", "ERROR", "WARN", "INFO", "DEBUG", "TRACE" };
+
+    /**
+     * the level a log has if nothing sets it
+     */
+    public static final int DEFAULT_LEVEL = WARN;
+
+    /**
+     * the logs that have been made, by name
+     */
+    protected static Hashtable logs = new Hashtable();
+
+    /**
+     * the levels set with setLevel, as Integers, by name
+     */
+    protected static Hashtable levels = new Hashtable();
+
+    /**
+     * the name of this log
+     */
+    protected String name;
+
+    /**
+     * the most verbose level this log keeps
+     */
+    protected volatile int level;
+
+    /**
+     * make a log; use getLog to get one
+     *
+     * @param n  the name of the log
+     */
+    protected Log(String n)
+    {
+        name = n;
+        level = findLevel(n);
+    }
+
+    /**
+     * @return the log with a given name, making it if need be
+     *
+     * @param name  the name, with dots between its parts
+     */
+    public static synchronized Log getLog(String name)
+    {
+        Log log = (Log) logs.get(name);
+
+        if (log == null)
+        {
+            log = new Log(name);
+            logs.put(name, log);
+        }
+
+        return log;
+    }
+
+    /**
+     * set the level of a log and the logs below it, such as
+     * "robot" for "robot.brain" and "robot.tracker"
+     *
+     * @param name  the name of the log
+     * @param l     the level
+     */
+    public static synchronized void setLevel(String name, int l)
+    {
+        levels.put(name, new Integer(l));
+
+        Enumeration logEnum = logs.elements();
+
+        while (logEnum.hasMoreElements())
+        {
+            Log log = (Log) logEnum.nextElement();
+            log.level = findLevel(log.name);
+        }
+    }
+
+    /**
+     * @return the level a log with a given name should have
+     *
+     * @param n  the name of the log
+     */
+    protected static int findLevel(String n)
+    {
+        //
+        // setLevel wins over the system properties, and a
+        // setting for a longer name wins over a shorter one
+        //
+        for (String part = n; part != null; part = parent(part))
+        {
+            Integer set = (Integer) levels.get(part);
+
+            if (set != null)
+            {
+                return set.intValue();
+            }
+        }
+
+        for (String part = n; part != null; part = parent(part))
+        {
+            String prop = getProperty("soc.log." + part);
+
+            if (prop != null)
+            {
+                return parseLevel(prop, DEFAULT_LEVEL);
+            }
+        }
+
+        return parseLevel(getProperty("soc.log"), DEFAULT_LEVEL);
+    }
+
+    /**
+     * @return the part of a log's name before the last dot,
+     *         or null if there's no dot
+     *
+     * @param n  the name
+     */
+    protected static String parent(String n)
+    {
+        int dot = n.lastIndexOf('.');
+
+        return (dot < 0) ? null : n.substring(0, dot);
+    }
+
+    /**
+     * @return a system property, or null if it isn't set or
+     *         we aren't allowed to look
+     *
+     * @param key  the name of the property
+     */
+    static String getProperty(String key)
+    {
+        try
+        {
+            return System.getProperty(key);
+        }
+        catch (SecurityException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return the level with a given name, such as "debug"
+     *
+     * @param s    the name, or null
+     * @param def  what to return if the name isn't a level
+     */
+    public static int parseLevel(String s, int def)
+    {
+        if (s != null)
+        {
+            for (int l = OFF; l <= TRACE; l++)
+            {
+                if (LEVEL_NAMES[l].equalsIgnoreCase(s.trim()))
+                {
+                    return l;
+                }
+            }
+        }
+
+        return def;
+    }
+
+    /**
+     * @return the name of this log
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the most verbose level this log keeps
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * @return true if this log keeps messages at a level
+     *
+     * @param l  the level
+     */
+    public boolean isEnabled(int l)
+    {
+        return l <= level;
+    }
+
+    /**
+     * @return true if this log keeps TRACE messages
+     */
+    public boolean isTraceEnabled()
+    {
+        return TRACE <= level;
+    }
+
+    /**
+     * @return true if this log keeps DEBUG messages
+     */
+    public boolean isDebugEnabled()
+    {
+        return DEBUG <= level;
+    }
+
+    /**
+     * @return true if this log keeps INFO messages
+     */
+    public boolean isInfoEnabled()
+    {
+        return INFO <= level;
+    }
+
+    /**
+     * log a message.  An exception passed on its own to a
+     * message with a "{}" slot goes in the slot; otherwise it's
+     * logged with its stack trace.
+     *
+     * @param l    the level
+     * @param msg  the message, with up to two "{}" slots
+     * @param a    what goes in the first slot
+     * @param b    what goes in the second slot
+     * @param t    an exception to log with the message, or null
+     */
+    public void log(int l, String msg, Object a, Object b, Throwable t)
+    {
+        if (l > level)
+        {
+            return;
+        }
+
+        if (msg.indexOf("{}") >= 0)
+        {
+            if ((a == null) && (t != null))
+            {
+                a = t;
+                t = null;
+            }
+
+            msg = format(msg, a, b);
+        }
+
+        LogWriter.getWriter().put(l, name, msg, t);
+    }
+
+    /**
+     * @return a message with its "{}" slots filled in
+     *
+     * @param msg  the message
+     * @param a    what goes in the first slot
+     * @param b    what goes in the second slot
+     */
+    public static String format(String msg, Object a, Object b)
+    {
+        StringBuffer sb = new StringBuffer(msg.length() + 32);
+        int from = 0;
+        int arg = 0;
+        int slot;
+
+        while ((arg < 2) && ((slot = msg.indexOf("{}", from)) >= 0))
+        {
+            sb.append(msg.substring(from, slot));
+            sb.append((arg == 0) ? a : b);
+            from = slot + 2;
+            arg++;
+        }
+
+        sb.append(msg.substring(from));
+
+        return sb.toString();
+    }
+
+    //
+    // shorthands for log() at each level
+    //
+    public void trace(String msg)
+    {
+        log(TRACE, msg, null, null, null);
+    }
+
+    public void trace(String msg, Object a)
+    {
+        log(TRACE, msg, a, null, null);
+    }
+
+    public void trace(String msg, Object a, Object b)
+    {
+        log(TRACE, msg, a, b, null);
+    }
+
+    public void debug(String msg)
+    {
+        log(DEBUG, msg, null, null, null);
+    }
+
+    public void debug(String msg, Object a)
+    {
+        log(DEBUG, msg, a, null, null);
+    }
+
+    public void debug(String msg, Object a, Object b)
+    {
+        log(DEBUG, msg, a, b, null);
+    }
+
+    public void debug(String msg, Throwable t)
+    {
+        log(DEBUG, msg, null, null, t);
+    }
+
+    public void info(String msg)
+    {
+        log(INFO, msg, null, null, null);
+    }
+
+    public void info(String msg, Object a)
+    {
+        log(INFO, msg, a, null, null);
+    }
+
+    public void info(String msg, Object a, Object b)
+    {
+        log(INFO, msg, a, b, null);
+    }
+
+    public void warn(String msg)
+    {
+        log(WARN, msg, null, null, null);
+    }
+
+    public void warn(String msg, Object a)
+    {
+        log(WARN, msg, a, null, null);
+    }
+
+    public void warn(String msg, Throwable t)
+    {
+        log(WARN, msg, null, null, t);
+    }
+
+    public void error(String msg)
+    {
+        log(ERROR, msg, null, null, null);
+    }
+
+    public void error(String msg, Object a)
+    {
+        log(ERROR, msg, a, null, null);
+    }
+
+    public void error(String msg, Throwable t)
+    {
+        log(ERROR, msg, null, null, t);
+    }
+}
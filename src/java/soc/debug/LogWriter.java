@@ -0,0 +1,285 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.debug;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.text.SimpleDateFormat;
+
+import java.util.Date;
+import java.util.Vector;
+
+
+/**
+ * Writes log messages on its own thread, so the threads doing
+ * the logging only pay for adding a message to a queue.  The
+ * queue has a limit; if it fills up, messages are dropped and
+ * counted rather than holding up the program.
+ *
+ * Messages go to System.out, or to the end of the file named
+ * by the soc.log.file system property.  Whatever is still in
+ * the queue is written when the program exits.
+ *
+ * @author agent
+ */
+public class LogWriter extends Thread
+{
+    /**
+     * the most messages that can wait to be written
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * the writer all the logs use
+     */
+    protected static LogWriter writer = null;
+
+    /**
+     * the messages waiting to be written, as Entry objects
+     */
+    protected Vector queue;
+
+    /**
+     * the most messages that can wait to be written
+     */
+    protected int capacity;
+
+    /**
+     * the number of messages dropped since the last
+     * time we said so
+     */
+    protected int numDropped;
+
+    /**
+     * where the messages go
+     */
+    protected PrintStream out;
+
+    /**
+     * for the time at the start of each line; only
+     * used on this thread
+     */
+    protected SimpleDateFormat timeFormat;
+
+    boolean alive;
+
+    /**
+     * make a log writer
+     *
+     * @param o    where the messages go
+     * @param cap  the most messages that can wait to be written
+     */
+    public LogWriter(PrintStream o, int cap)
+    {
+        out = o;
+        capacity = cap;
+        queue = new Vector();
+        numDropped = 0;
+        timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        alive = true;
+        setName("logWriter");
+        setDaemon(true);
+    }
+
+    /**
+     * @return the writer all the logs use, starting it
+     *         if it hasn't been
+     */
+    public static synchronized LogWriter getWriter()
+    {
+        if (writer == null)
+        {
+            PrintStream o = System.out;
+            String file = Log.getProperty("soc.log.file");
+
+            if (file != null)
+            {
+                try
+                {
+                    o = new PrintStream(new FileOutputStream(file, true));
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Unable to log to " + file + ": " + e);
+                }
+            }
+
+            writer = new LogWriter(o, DEFAULT_CAPACITY);
+            writer.start();
+
+            try
+            {
+                Runtime.getRuntime().addShutdownHook(new Flusher(writer));
+            }
+            catch (SecurityException e) {}
+        }
+
+        return writer;
+    }
+
+    /**
+     * add a message to the queue, or drop it if the
+     * queue is full
+     *
+     * @param level  the message's level
+     * @param name   the name of the log
+     * @param msg    the message
+     * @param t      an exception to go with it, or null
+     */
+    public void put(int level, String name, String msg, Throwable t)
+    {
+        Entry e = new Entry(System.currentTimeMillis(), level, name, msg, t);
+
+        synchronized (this)
+        {
+            if (queue.size() >= capacity)
+            {
+                numDropped++;
+
+                return;
+            }
+
+            queue.addElement(e);
+
+            if (queue.size() == 1)
+            {
+                notify();
+            }
+        }
+    }
+
+    /**
+     * write messages until we're stopped, and then
+     * write what's left
+     */
+    public void run()
+    {
+        boolean more = true;
+
+        while (more)
+        {
+            Vector batch;
+            int dropped;
+
+            synchronized (this)
+            {
+                while (alive && queue.isEmpty())
+                {
+                    try
+                    {
+                        wait(1000);
+                    }
+                    catch (InterruptedException e) {}
+                }
+
+                more = alive;
+                batch = queue;
+                queue = new Vector();
+                dropped = numDropped;
+                numDropped = 0;
+            }
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                write((Entry) batch.elementAt(i));
+            }
+
+            if (dropped > 0)
+            {
+                out.println(timeFormat.format(new Date()) + " WARN log: " + dropped + " messages dropped");
+            }
+
+            out.flush();
+        }
+    }
+
+    /**
+     * write one message
+     *
+     * @param e  the message
+     */
+    protected void write(Entry e)
+    {
+        out.println(timeFormat.format(new Date(e.time)) + " " + Log.LEVEL_NAMES[e.level] + " " + e.name + ": " + e.msg);
+
+        if (e.t != null)
+        {
+            e.t.printStackTrace(out);
+        }
+    }
+
+    /**
+     * write what's in the queue and stop
+     */
+    public void stopWriting()
+    {
+        synchronized (this)
+        {
+            alive = false;
+            notify();
+        }
+
+        try
+        {
+            join(2000);
+        }
+        catch (InterruptedException e) {}
+    }
+
+    /**
+     * a message waiting to be written
+     */
+    static class Entry
+    {
+        long time;
+        int level;
+        String name;
+        String msg;
+        Throwable t;
+
+        Entry(long tm, int l, String n, String m, Throwable th)
+        {
+            time = tm;
+            level = l;
+            name = n;
+            msg = m;
+            t = th;
+        }
+    }
+
+    /**
+     * writes what's left in the queue when the program exits
+     */
+    static class Flusher extends Thread
+    {
+        LogWriter lw;
+
+        Flusher(LogWriter w)
+        {
+            lw = w;
+        }
+
+        public void run()
+        {
+            lw.stopWriting();
+        }
+    }
+}
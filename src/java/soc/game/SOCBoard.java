@@ -207,6 +207,12 @@ public class SOCBoard implements Serializable, Cloneable
      */
     private int robberHex;
 
+    /**
+     * the hash of the pieces on the board and where the robber is,
+     * kept up to date as they change.  see {@link SOCZobristKeys}.
+     */
+    private long pieceHash;
+
     /**
      * where the ports are
      */
@@ -248,6 +254,7 @@ public class SOCBoard implements Serializable, Cloneable
     public SOCBoard()
     {
         robberHex = -1;
+        pieceHash = 0L;
 
         /**
          * generic counter
@@ -329,6 +336,35 @@ public class SOCBoard implements Serializable, Cloneable
         }
     }
 
+    /**
+     * copy constructor.  The layout, robber, ports and the lists
+     * of pieces are copied, so pieces can be put on the copy
+     * without changing the original.  The tables that never change
+     * after the board is made are shared.
+     *
+     * @param bd  the board to copy
+     */
+    public SOCBoard(SOCBoard bd)
+    {
+        hexLayout = (int[]) bd.hexLayout.clone();
+        numberLayout = (int[]) bd.numberLayout.clone();
+        hexIDtoNum = bd.hexIDtoNum;
+        nodesOnBoard = bd.nodesOnBoard;
+        robberHex = bd.robberHex;
+        pieceHash = bd.pieceHash;
+        ports = new Vector[6];
+
+        for (int i = MISC_PORT; i <= WOOD_PORT; i++)
+        {
+            ports[i] = (Vector) bd.ports[i].clone();
+        }
+
+        pieces = (Vector) bd.pieces.clone();
+        roads = (Vector) bd.roads.clone();
+        settlements = (Vector) bd.settlements.clone();
+        cities = (Vector) bd.cities.clone();
+    }
+
     /**
      * Auxillery method for initializing the hexIDtoNum array
      */
@@ -343,6 +379,16 @@ public class SOCBoard implements Serializable, Cloneable
         }
     }
 
+    /**
+     * seed the random numbers used to lay out the board
+     *
+     * @param s  the seed
+     */
+    public void setSeed(long s)
+    {
+        rand = new Random(s);
+    }
+
     /**
      * Shuffle the hex tiles and layout a board
      */
@@ -380,7 +426,7 @@ public class SOCBoard implements Serializable, Cloneable
             // place the robber
             if (landHex[i] == 0)
             {
-                robberHex = numToHexID[numPath[i]];
+                setRobberHex(numToHexID[numPath[i]]);
                 numberLayout[numPath[i]] = -1;
             }
             else
@@ -569,9 +615,19 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public void setRobberHex(int rh)
     {
+        pieceHash ^= (SOCZobristKeys.getRobberKey(robberHex) ^ SOCZobristKeys.getRobberKey(rh));
         robberHex = rh;
     }
 
+    /**
+     * @return the hash of the pieces on the board and where
+     *         the robber is
+     */
+    public long getPieceHash()
+    {
+        return pieceHash;
+    }
+
     /**
      * @return the list of coordinates for a type of port
      *
@@ -670,12 +726,31 @@ public class SOCBoard implements Serializable, Cloneable
         return -1;
     }
 
+    /**
+     * @return the number of hexes on the board, counting water
+     */
+    public int getNumHexes()
+    {
+        return numToHexID.length;
+    }
+
+    /**
+     * @return the coordinates of a hex
+     *
+     * @param hex  the number of the hex
+     */
+    public int getHexCoordFromNumber(int hex)
+    {
+        return numToHexID[hex];
+    }
+
     /**
      * put a piece on the board
      */
     public void putPiece(SOCPlayingPiece pp)
     {
         pieces.addElement(pp);
+        pieceHash ^= SOCZobristKeys.getPieceKey(pp);
 
         switch (pp.getType())
         {
@@ -710,6 +785,7 @@ public class SOCBoard implements Serializable, Cloneable
             if ((piece.getType() == p.getType()) && (piece.getCoordinates() == p.getCoordinates()))
             {
                 pieces.removeElement(p);
+                pieceHash ^= SOCZobristKeys.getPieceKey(p);
 
                 switch (piece.getType())
                 {
@@ -41,6 +41,12 @@ public class SOCDevCardSet implements Serializable, Cloneable
      */
     private int[][] devCards;
 
+    /**
+     * the hash of the amounts, kept up to date as they
+     * change.  see {@link SOCZobristKeys}.
+     */
+    private long hash;
+
     /**
      * Make an empty development card set
      */
@@ -65,6 +71,8 @@ public class SOCDevCardSet implements Serializable, Cloneable
             devCards[OLD][i] = set.devCards[OLD][i];
             devCards[NEW][i] = set.devCards[NEW][i];
         }
+
+        hash = set.hash;
     }
 
     /**
@@ -78,6 +86,17 @@ public class SOCDevCardSet implements Serializable, Cloneable
             devCards[OLD][i] = 0;
             devCards[NEW][i] = 0;
         }
+
+        hash = 0L;
+    }
+
+    /**
+     * @return a hash of the amounts in this set.  two sets
+     *         with the same amounts have the same hash.
+     */
+    public long getStateHash()
+    {
+        return hash;
     }
 
     /**
@@ -118,6 +137,7 @@ public class SOCDevCardSet implements Serializable, Cloneable
      */
     public void setAmount(int amt, int age, int ctype)
     {
+        hash += ((amt - devCards[age][ctype]) * SOCZobristKeys.getDevCardKey(age, ctype));
         devCards[age][ctype] = amt;
     }
 
@@ -131,6 +151,7 @@ public class SOCDevCardSet implements Serializable, Cloneable
     public void add(int amt, int age, int ctype)
     {
         devCards[age][ctype] += amt;
+        hash += (amt * SOCZobristKeys.getDevCardKey(age, ctype));
     }
 
     /**
@@ -145,9 +166,12 @@ public class SOCDevCardSet implements Serializable, Cloneable
         if (amt <= devCards[age][ctype])
         {
             devCards[age][ctype] -= amt;
+            hash -= (amt * SOCZobristKeys.getDevCardKey(age, ctype));
         }
         else
         {
+            hash -= (devCards[age][ctype] * SOCZobristKeys.getDevCardKey(age, ctype));
+            hash -= (amt * SOCZobristKeys.getDevCardKey(age, SOCDevCardConstants.UNKNOWN));
             devCards[age][ctype] = 0;
             devCards[age][SOCDevCardConstants.UNKNOWN] -= amt;
         }
@@ -183,6 +207,7 @@ public class SOCDevCardSet implements Serializable, Cloneable
         for (int i = SOCDevCardConstants.MIN;
                 i < SOCDevCardConstants.MAXPLUSONE; i++)
         {
+            hash += (devCards[NEW][i] * (SOCZobristKeys.getDevCardKey(OLD, i) - SOCZobristKeys.getDevCardKey(NEW, i)));
             devCards[OLD][i] += devCards[NEW][i];
             devCards[NEW][i] = 0;
         }
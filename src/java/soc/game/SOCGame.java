@@ -24,6 +24,9 @@ import soc.disableDebug.D;
 
 import soc.util.IntPair;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 
 import java.util.Date;
@@ -101,6 +104,24 @@ public class SOCGame implements Serializable, Cloneable
      */
     public static final SOCResourceSet CARD_SET = new SOCResourceSet(0, 1, 1, 1, 0, 0);
 
+    /**
+     * types of records in the temp journal
+     */
+    private static final int UNDO_PIECE = 1;
+    private static final int UNDO_LONGEST_ROAD = 2;
+    private static final int UNDO_RESOURCE = 3;
+    private static final int UNDO_DEV_CARD = 4;
+    private static final int UNDO_NUM_DEV_CARDS = 5;
+    private static final int UNDO_KNIGHTS = 6;
+    private static final int UNDO_ROBBER = 7;
+    private static final int UNDO_LARGEST_ARMY = 8;
+    private static final int UNDO_STATE = 9;
+
+    /**
+     * add to a hex's coordinates to get the nodes on its corners
+     */
+    private static final int[] HEX_NODE_OFFSETS = { 0x01, 0x12, 0x21, 0x10, -0x01, -0x10 };
+
     /**
      * monitor for synchronization
      */
@@ -192,6 +213,16 @@ public class SOCGame implements Serializable, Cloneable
      */
     private Random rand = new Random();
 
+    /**
+     * the seed for the random numbers, if one was set
+     */
+    private long seed;
+
+    /**
+     * how many random numbers have been used since the seed was set
+     */
+    private int numRandomDraws;
+
     /**
      * used to track if there were any player subs
      */
@@ -202,6 +233,12 @@ public class SOCGame implements Serializable, Cloneable
      */
     Stack oldPlayerWithLongestRoad;
 
+    /**
+     * the undo records for the doTemp methods,
+     * made the first time one is used
+     */
+    private SOCUndoJournal tempJournal;
+
     /**
      * when this game was created
      */
@@ -276,6 +313,58 @@ public class SOCGame implements Serializable, Cloneable
         oldPlayerWithLongestRoad = new Stack();
     }
 
+    /**
+     * make an inactive copy of a game to try things out on,
+     * for example from another thread.  The board and players
+     * are copied, so temporary pieces can be put on the copy
+     * without changing the original.  Make the copy when there
+     * aren't any temporary pieces on the original.
+     *
+     * @param ga  the game to copy
+     */
+    public SOCGame(SOCGame ga)
+    {
+        active = false;
+        inUse = false;
+        name = ga.name;
+        board = new SOCBoard(ga.board);
+        players = new SOCPlayer[MAXPLAYERS];
+        seats = new int[MAXPLAYERS];
+        seatLocks = new boolean[MAXPLAYERS];
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            players[i] = new SOCPlayer(ga.players[i], this);
+            seats[i] = ga.seats[i];
+
+            if (ga.seatLocks != null)
+            {
+                seatLocks[i] = ga.seatLocks[i];
+            }
+        }
+
+        currentPlayerNumber = ga.currentPlayerNumber;
+        firstPlayerNumber = ga.firstPlayerNumber;
+        lastPlayerNumber = ga.lastPlayerNumber;
+        currentDice = ga.currentDice;
+        gameState = ga.gameState;
+        oldGameState = ga.oldGameState;
+        playerWithLargestArmy = ga.playerWithLargestArmy;
+        oldPlayerWithLargestArmy = ga.oldPlayerWithLargestArmy;
+        playerWithLongestRoad = ga.playerWithLongestRoad;
+        numDevCards = ga.numDevCards;
+
+        if (ga.devCardDeck != null)
+        {
+            devCardDeck = (int[]) ga.devCardDeck.clone();
+        }
+
+        allOriginalPlayers = ga.allOriginalPlayers;
+        oldPlayerWithLongestRoad = new Stack();
+        startTime = ga.startTime;
+        expiration = ga.expiration;
+    }
+
     /**
      * take the monitor for this game
      */
@@ -444,6 +533,41 @@ public class SOCGame implements Serializable, Cloneable
         return null;
     }
 
+    /**
+     * Seed the random numbers used for the board, the development
+     * cards, the dice and robbing.  Two games with the same seed
+     * that get the same actions in the same order come out the
+     * same.  Call this before the game is started.
+     *
+     * @param s  the seed
+     */
+    public void setSeed(long s)
+    {
+        seed = s;
+        rand = new Random(s);
+        board.setSeed(rand.nextLong());
+        numRandomDraws = 0;
+    }
+
+    /**
+     * @return the seed set with setSeed, or 0 if none was set
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * @return the next random number for the game, counting
+     *         it so a snapshot can carry on from the same place
+     */
+    private int nextRandom()
+    {
+        numRandomDraws++;
+
+        return rand.nextInt();
+    }
+
     /**
      * @return the name of the game
      */
@@ -562,6 +686,31 @@ public class SOCGame implements Serializable, Cloneable
         numDevCards = nd;
     }
 
+    /**
+     * @return a 64 bit hash of the state of the game: the pieces
+     *         on the board, where the robber is, each player's
+     *         resources and dev cards, the game state, the current
+     *         player, and the number of dev cards left.
+     *
+     * The board and the resource and dev card sets keep their
+     * parts of the hash up to date as they change, so this
+     * is cheap enough to call after every action.  Two games
+     * with the same state have the same hash, even if they got
+     * there in a different order.  The keys are the same in
+     * every copy of the program, see {@link SOCZobristKeys}.
+     */
+    public long getStateHash()
+    {
+        long hash = board.getPieceHash();
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            hash += SOCZobristKeys.getPlayerHash(i, players[i].getResources().getStateHash(), players[i].getDevCards().getStateHash());
+        }
+
+        return hash ^ SOCZobristKeys.getStateHash(gameState, currentPlayerNumber, numDevCards);
+    }
+
     /**
      * @return the player with the largest army
      */
@@ -906,6 +1055,17 @@ public class SOCGame implements Serializable, Cloneable
          */
         oldPlayerWithLongestRoad.push(new SOCOldLRStats(this));
 
+        putTempPieceAux(pp);
+    }
+
+    /**
+     * put a temporary piece on the board without
+     * saving the longest road stats
+     *
+     * @param pp the piece to put on the board
+     */
+    private void putTempPieceAux(SOCPlayingPiece pp)
+    {
         /**
          * call putPiece() on every player so that each
          * player's updatePotentials() function gets called
@@ -1007,6 +1167,23 @@ public class SOCGame implements Serializable, Cloneable
     public void undoPutTempPiece(SOCPlayingPiece pp)
     {
         //D.ebugPrintln("@@@ undoPutTempPiece "+pp);
+        undoPutTempPieceAux(pp);
+
+        //
+        // update which player has longest road
+        //
+        SOCOldLRStats oldLRStats = (SOCOldLRStats) oldPlayerWithLongestRoad.pop();
+        oldLRStats.restoreOldStats(this);
+    }
+
+    /**
+     * take a temporary piece off the board without
+     * restoring the longest road stats
+     *
+     * @param pp the piece to take off the board
+     */
+    private void undoPutTempPieceAux(SOCPlayingPiece pp)
+    {
         board.removePiece(pp);
 
         //
@@ -1032,12 +1209,341 @@ public class SOCGame implements Serializable, Cloneable
 
             board.putPiece(se);
         }
+    }
 
-        //
-        // update which player has longest road
-        //
-        SOCOldLRStats oldLRStats = (SOCOldLRStats) oldPlayerWithLongestRoad.pop();
-        oldLRStats.restoreOldStats(this);
+    /**
+     * @return a mark for the current position in the temp action
+     *         journal.  pass this to {@link #undoTempToMark(int)}
+     *         to undo everything done with the doTemp methods since.
+     */
+    public int getTempMark()
+    {
+        if (tempJournal == null)
+        {
+            return 0;
+        }
+
+        return tempJournal.size();
+    }
+
+    /**
+     * undo the temp actions done since a mark was taken,
+     * most recent first
+     *
+     * @param mark  a mark from {@link #getTempMark()}
+     */
+    public void undoTempToMark(int mark)
+    {
+        if (tempJournal == null)
+        {
+            return;
+        }
+
+        while (tempJournal.size() > mark)
+        {
+            undoTempRecord();
+        }
+    }
+
+    /**
+     * undo the most recent record in the temp journal
+     */
+    private void undoTempRecord()
+    {
+        SOCUndoJournal j = tempJournal;
+        int off = j.top();
+
+        switch (j.get(off))
+        {
+        case UNDO_PIECE:
+            undoPutTempPieceAux((SOCPlayingPiece) j.topObject());
+            restoreTempLongestRoad(off);
+
+            break;
+
+        case UNDO_LONGEST_ROAD:
+            restoreTempLongestRoad(off);
+
+            break;
+
+        case UNDO_RESOURCE:
+            players[j.get(off + 1)].getResources().setAmount(j.get(off + 3), j.get(off + 2));
+
+            break;
+
+        case UNDO_DEV_CARD:
+            players[j.get(off + 1)].getDevCards().setAmount(j.get(off + 4), j.get(off + 2), j.get(off + 3));
+
+            break;
+
+        case UNDO_NUM_DEV_CARDS:
+            numDevCards = j.get(off + 1);
+
+            break;
+
+        case UNDO_KNIGHTS:
+            players[j.get(off + 1)].setNumKnights(j.get(off + 2));
+            players[j.get(off + 1)].setPlayedDevCard(j.get(off + 3) != 0);
+
+            break;
+
+        case UNDO_ROBBER:
+            board.setRobberHex(j.get(off + 1));
+
+            break;
+
+        case UNDO_LARGEST_ARMY:
+            playerWithLargestArmy = j.get(off + 1);
+
+            break;
+
+        case UNDO_STATE:
+            gameState = j.get(off + 1);
+            oldGameState = j.get(off + 2);
+            currentPlayerNumber = j.get(off + 3);
+
+            break;
+        }
+
+        j.pop();
+    }
+
+    /**
+     * @return the temp journal, making it if we don't have one yet
+     */
+    private SOCUndoJournal getTempJournal()
+    {
+        if (tempJournal == null)
+        {
+            tempJournal = new SOCUndoJournal();
+        }
+
+        return tempJournal;
+    }
+
+    /**
+     * save the longest road stats in a journal record
+     *
+     * @param off  the offset of the record
+     */
+    private void saveTempLongestRoad(int off)
+    {
+        tempJournal.set(off + 1, playerWithLongestRoad);
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            tempJournal.set(off + 2 + i, players[i].getLongestRoadLength());
+        }
+    }
+
+    /**
+     * restore the longest road stats from a journal record.
+     * like undoPutTempPiece(), this doesn't restore the lr paths.
+     *
+     * @param off  the offset of the record
+     */
+    private void restoreTempLongestRoad(int off)
+    {
+        playerWithLongestRoad = tempJournal.get(off + 1);
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            players[i].setLongestRoadLength(tempJournal.get(off + 2 + i));
+        }
+    }
+
+    /**
+     * put a temporary piece on the board, and journal it
+     * so that it can be taken back with {@link #undoTempToMark(int)}.
+     * longest road is updated the same as in putTempPiece().
+     *
+     * @param pp  the piece to put on the board
+     */
+    public void doTempPutPiece(SOCPlayingPiece pp)
+    {
+        int off = getTempJournal().push(UNDO_PIECE, pp);
+        saveTempLongestRoad(off);
+        putTempPieceAux(pp);
+    }
+
+    /**
+     * recalculate longest road for a player, and journal
+     * the old longest road stats
+     *
+     * @param pn  the number of the player
+     */
+    public void doTempUpdateLongestRoad(int pn)
+    {
+        int off = getTempJournal().push(UNDO_LONGEST_ROAD, null);
+        saveTempLongestRoad(off);
+        updateLongestRoad(pn);
+    }
+
+    /**
+     * change the amount of a resource a player has, and journal it
+     *
+     * @param pn     the number of the player
+     * @param rtype  the type of resource
+     * @param amt    the amount to add, or subtract if negative
+     */
+    public void doTempResourceChange(int pn, int rtype, int amt)
+    {
+        SOCResourceSet resources = players[pn].getResources();
+        int off = getTempJournal().push(UNDO_RESOURCE, null);
+        tempJournal.set(off + 1, pn);
+        tempJournal.set(off + 2, rtype);
+        tempJournal.set(off + 3, resources.getAmount(rtype));
+        resources.setAmount(resources.getAmount(rtype) + amt, rtype);
+    }
+
+    /**
+     * give a player a set of resources, and journal it
+     *
+     * @param pn  the number of the player
+     * @param rs  the resources to add
+     */
+    public void doTempAddResources(int pn, SOCResourceSet rs)
+    {
+        for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
+                i++)
+        {
+            if (rs.getAmount(i) != 0)
+            {
+                doTempResourceChange(pn, i, rs.getAmount(i));
+            }
+        }
+    }
+
+    /**
+     * take a set of resources from a player, and journal it
+     *
+     * @param pn  the number of the player
+     * @param rs  the resources to take
+     */
+    public void doTempSubtractResources(int pn, SOCResourceSet rs)
+    {
+        for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
+                i++)
+        {
+            if (rs.getAmount(i) != 0)
+            {
+                doTempResourceChange(pn, i, -rs.getAmount(i));
+            }
+        }
+    }
+
+    /**
+     * change the number of dev cards a player has, and journal it
+     *
+     * @param pn     the number of the player
+     * @param age    SOCDevCardSet.OLD or SOCDevCardSet.NEW
+     * @param ctype  the type of card
+     * @param amt    the amount to add, or subtract if negative
+     */
+    public void doTempDevCardChange(int pn, int age, int ctype, int amt)
+    {
+        SOCDevCardSet devCards = players[pn].getDevCards();
+        int off = getTempJournal().push(UNDO_DEV_CARD, null);
+        tempJournal.set(off + 1, pn);
+        tempJournal.set(off + 2, age);
+        tempJournal.set(off + 3, ctype);
+        tempJournal.set(off + 4, devCards.getAmount(age, ctype));
+        devCards.setAmount(devCards.getAmount(age, ctype) + amt, age, ctype);
+    }
+
+    /**
+     * have a player buy a dev card, and journal it.
+     * the caller says which card it is, since the robots
+     * don't know what's in the deck.
+     *
+     * @param pn     the number of the player
+     * @param ctype  the type of card bought
+     */
+    public void doTempBuyDevCard(int pn, int ctype)
+    {
+        int off = getTempJournal().push(UNDO_NUM_DEV_CARDS, null);
+        tempJournal.set(off + 1, numDevCards);
+        numDevCards--;
+        doTempSubtractResources(pn, CARD_SET);
+        doTempDevCardChange(pn, SOCDevCardSet.NEW, ctype, 1);
+    }
+
+    /**
+     * have a player play a knight card, and journal it.
+     * this updates largest army, but doesn't move the robber
+     * or change the game state; use {@link #doTempMoveRobber(int)}
+     * and {@link #doTempSetGameState(int)} for that.
+     *
+     * @param pn  the number of the player
+     */
+    public void doTempPlayKnight(int pn)
+    {
+        doTempDevCardChange(pn, SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT, -1);
+
+        int off = getTempJournal().push(UNDO_KNIGHTS, null);
+        tempJournal.set(off + 1, pn);
+        tempJournal.set(off + 2, players[pn].getNumKnights());
+        tempJournal.set(off + 3, players[pn].hasPlayedDevCard() ? 1 : 0);
+        players[pn].incrementNumKnights();
+        players[pn].setPlayedDevCard(true);
+        doTempUpdateLargestArmy();
+    }
+
+    /**
+     * move the robber, and journal it.  nothing is stolen;
+     * use {@link #doTempResourceChange(int, int, int)} for that.
+     *
+     * @param co  the coordinates of the hex
+     */
+    public void doTempMoveRobber(int co)
+    {
+        int off = getTempJournal().push(UNDO_ROBBER, null);
+        tempJournal.set(off + 1, board.getRobberHex());
+        board.setRobberHex(co);
+    }
+
+    /**
+     * update which player has largest army, and journal it
+     */
+    public void doTempUpdateLargestArmy()
+    {
+        int off = getTempJournal().push(UNDO_LARGEST_ARMY, null);
+        tempJournal.set(off + 1, playerWithLargestArmy);
+        updateLargestArmy();
+    }
+
+    /**
+     * set the game state, and journal it
+     *
+     * @param gs  the new game state
+     */
+    public void doTempSetGameState(int gs)
+    {
+        saveTempState();
+        oldGameState = gameState;
+        gameState = gs;
+    }
+
+    /**
+     * set the current player, and journal it
+     *
+     * @param pn  the number of the new current player
+     */
+    public void doTempSetCurrentPlayer(int pn)
+    {
+        saveTempState();
+        currentPlayerNumber = pn;
+    }
+
+    /**
+     * journal the game state and current player
+     */
+    private void saveTempState()
+    {
+        int off = getTempJournal().push(UNDO_STATE, null);
+        tempJournal.set(off + 1, gameState);
+        tempJournal.set(off + 2, oldGameState);
+        tempJournal.set(off + 3, currentPlayerNumber);
     }
 
     /**
@@ -1088,7 +1594,7 @@ public class SOCGame implements Serializable, Cloneable
             for (i = 1; i < devCardDeck.length; i++) // don't swap 0 with 0!
             {
                 // Swap a random card below the ith card with the ith card
-                int idx = Math.abs(rand.nextInt() % (devCardDeck.length - 1));
+                int idx = Math.abs(nextRandom() % (devCardDeck.length - 1));
                 int tmp = devCardDeck[idx];
                 devCardDeck[idx] = devCardDeck[i];
                 devCardDeck[i] = tmp;
@@ -1101,7 +1607,7 @@ public class SOCGame implements Serializable, Cloneable
         /**
          * choose to goes first
          */
-        currentPlayerNumber = Math.abs(rand.nextInt() % MAXPLAYERS);
+        currentPlayerNumber = Math.abs(nextRandom() % MAXPLAYERS);
         setFirstPlayer(currentPlayerNumber);
     }
 
@@ -1188,8 +1694,8 @@ public class SOCGame implements Serializable, Cloneable
      */
     public IntPair rollDice()
     {
-        int die1 = Math.abs(rand.nextInt() % 6) + 1;
-        int die2 = Math.abs(rand.nextInt() % 6) + 1;
+        int die1 = Math.abs(nextRandom() % 6) + 1;
+        int die2 = Math.abs(nextRandom() % 6) + 1;
 
         currentDice = die1 + die2;
 
@@ -1793,7 +2299,7 @@ public class SOCGame implements Serializable, Cloneable
             }
         }
 
-        int pick = Math.abs(rand.nextInt() % cnt);
+        int pick = Math.abs(nextRandom() % cnt);
 
         /**
          * and transfer it to the current player
@@ -2365,6 +2871,299 @@ public class SOCGame implements Serializable, Cloneable
         }
     }
 
+    /**
+     * list the actions the current player can do right now.
+     * the actions are packed ints, see {@link SOCGameAction}.
+     * this follows the same steps the server does, so in PLAY1
+     * building is BUY_ROAD and so on, and the coordinates come
+     * with the PLACE_ROAD that follows it in PLACING_ROAD.
+     *
+     * trades with other players aren't listed, and neither
+     * are discards, since those are made by whoever has to
+     * discard and any half of their hand will do.  nothing
+     * is allocated, so this can be called as often as needed.
+     *
+     * @param actions  where to put the actions; if there are more
+     *                 than fit, the extra ones are left out.  an
+     *                 array of {@link SOCGameAction#MAX_ACTIONS}
+     *                 always has room.
+     * @return the number of legal actions
+     */
+    public int getLegalActions(int[] actions)
+    {
+        int n = 0;
+        int pn = currentPlayerNumber;
+
+        if (pn < 0)
+        {
+            return 0;
+        }
+
+        SOCPlayer player = players[pn];
+
+        switch (gameState)
+        {
+        case START1A:
+        case START2A:
+        case PLACING_SETTLEMENT:
+
+            for (int node = player.nextPotentialSettlement(SOCBoard.MINNODE);
+                    (node != -1) && (node <= SOCBoard.MAXNODE);
+                    node = player.nextPotentialSettlement(node + 1))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLACE_SETTLEMENT, node));
+            }
+
+            if (gameState == PLACING_SETTLEMENT)
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.CANCEL_BUILD));
+            }
+
+            break;
+
+        case START1B:
+        case START2B:
+        case PLACING_ROAD:
+        case PLACING_FREE_ROAD1:
+        case PLACING_FREE_ROAD2:
+
+            for (int edge = player.nextPotentialRoad(SOCBoard.MINEDGE);
+                    (edge != -1) && (edge <= SOCBoard.MAXEDGE);
+                    edge = player.nextPotentialRoad(edge + 1))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLACE_ROAD, edge));
+            }
+
+            if (gameState == PLACING_ROAD)
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.CANCEL_BUILD));
+            }
+
+            break;
+
+        case PLACING_CITY:
+
+            for (int node = player.nextPotentialCity(SOCBoard.MINNODE);
+                    (node != -1) && (node <= SOCBoard.MAXNODE);
+                    node = player.nextPotentialCity(node + 1))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLACE_CITY, node));
+            }
+
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.CANCEL_BUILD));
+
+            break;
+
+        case PLAY:
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.ROLL_DICE));
+            n = addDevCardActions(actions, n, pn);
+
+            break;
+
+        case PLAY1:
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.END_TURN));
+
+            if (couldBuildRoad(pn))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.BUY_ROAD));
+            }
+
+            if (couldBuildSettlement(pn))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.BUY_SETTLEMENT));
+            }
+
+            if (couldBuildCity(pn))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.BUY_CITY));
+            }
+
+            if (couldBuyDevCard(pn))
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.BUY_DEV_CARD));
+            }
+
+            n = addDevCardActions(actions, n, pn);
+
+            /**
+             * trade one resource for another at the
+             * best rate this player can get
+             */
+            SOCResourceSet resources = player.getResources();
+
+            for (int give = SOCResourceConstants.CLAY;
+                    give <= SOCResourceConstants.WOOD; give++)
+            {
+                int ratio = 4;
+
+                if (player.getPortFlag(give))
+                {
+                    ratio = 2;
+                }
+                else if (player.getPortFlag(SOCBoard.MISC_PORT))
+                {
+                    ratio = 3;
+                }
+
+                if (resources.getAmount(give) < ratio)
+                {
+                    continue;
+                }
+
+                for (int get = SOCResourceConstants.CLAY;
+                        get <= SOCResourceConstants.WOOD; get++)
+                {
+                    if (get != give)
+                    {
+                        n = addAction(actions, n, SOCGameAction.make(SOCGameAction.BANK_TRADE, give, get, ratio));
+                    }
+                }
+            }
+
+            break;
+
+        case PLACING_ROBBER:
+
+            for (int i = 0; i < board.getNumHexes(); i++)
+            {
+                int hex = board.getHexCoordFromNumber(i);
+
+                if (canMoveRobber(pn, hex))
+                {
+                    n = addAction(actions, n, SOCGameAction.make(SOCGameAction.MOVE_ROBBER, hex));
+                }
+            }
+
+            break;
+
+        case WAITING_FOR_CHOICE:
+
+            for (int i = 0; i < MAXPLAYERS; i++)
+            {
+                if ((i != pn) && (players[i].getResources().getTotal() > 0) && isTouchingHex(players[i], board.getRobberHex()))
+                {
+                    n = addAction(actions, n, SOCGameAction.make(SOCGameAction.CHOOSE_PLAYER, i));
+                }
+            }
+
+            break;
+
+        case WAITING_FOR_DISCOVERY:
+
+            for (int r1 = SOCResourceConstants.CLAY;
+                    r1 <= SOCResourceConstants.WOOD; r1++)
+            {
+                for (int r2 = r1; r2 <= SOCResourceConstants.WOOD; r2++)
+                {
+                    n = addAction(actions, n, SOCGameAction.make(SOCGameAction.DISCOVERY_PICK, r1, r2, 0));
+                }
+            }
+
+            break;
+
+        case WAITING_FOR_MONOPOLY:
+
+            for (int r = SOCResourceConstants.CLAY;
+                    r <= SOCResourceConstants.WOOD; r++)
+            {
+                n = addAction(actions, n, SOCGameAction.make(SOCGameAction.MONOPOLY_PICK, r));
+            }
+
+            break;
+        }
+
+        return n;
+    }
+
+    /**
+     * put an action in the list if there's room
+     *
+     * @param actions  the list of actions
+     * @param n        how many actions are in the list
+     * @param action   the action to add
+     * @return the new number of actions
+     */
+    private static int addAction(int[] actions, int n, int action)
+    {
+        if (n < actions.length)
+        {
+            actions[n] = action;
+        }
+
+        return n + 1;
+    }
+
+    /**
+     * add the dev cards a player can play to a list of actions
+     *
+     * @param actions  the list of actions
+     * @param n        how many actions are in the list
+     * @param pn       the number of the player
+     * @return the new number of actions
+     */
+    private int addDevCardActions(int[] actions, int n, int pn)
+    {
+        if (canPlayKnight(pn))
+        {
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLAY_KNIGHT));
+        }
+
+        if (canPlayRoadBuilding(pn))
+        {
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLAY_ROAD_BUILDING));
+        }
+
+        if (canPlayDiscovery(pn))
+        {
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLAY_DISCOVERY));
+        }
+
+        if (canPlayMonopoly(pn))
+        {
+            n = addAction(actions, n, SOCGameAction.make(SOCGameAction.PLAY_MONOPOLY));
+        }
+
+        return n;
+    }
+
+    /**
+     * @return true if a player has a settlement or city on
+     *         one of the corners of a hex.  this is the same
+     *         test as {@link #getPlayersOnHex(int)} without
+     *         making a list.
+     *
+     * @param pl   the player
+     * @param hex  the coordinates of the hex
+     */
+    private static boolean isTouchingHex(SOCPlayer pl, int hex)
+    {
+        Vector settlements = pl.getSettlements();
+        Vector cities = pl.getCities();
+
+        for (int i = 0; i < HEX_NODE_OFFSETS.length; i++)
+        {
+            int node = hex + HEX_NODE_OFFSETS[i];
+
+            for (int j = 0; j < settlements.size(); j++)
+            {
+                if (((SOCPlayingPiece) settlements.elementAt(j)).getCoordinates() == node)
+                {
+                    return true;
+                }
+            }
+
+            for (int j = 0; j < cities.size(); j++)
+            {
+                if (((SOCPlayingPiece) cities.elementAt(j)).getCoordinates() == node)
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     /**
      * perform the Discovery card action
      *
@@ -2525,6 +3324,203 @@ public class SOCGame implements Serializable, Cloneable
         }
     }
 
+    /**
+     * Write a compact snapshot of the game.  The board layout,
+     * the pieces in the order they were put down, the deck,
+     * each seat and player, and where the random numbers are
+     * up to are written, but nothing that putting the pieces
+     * back works out again.  Don't call this while there
+     * are temporary pieces on the board.
+     *
+     * @param out  where to write the snapshot
+     */
+    public void writeSnapshot(DataOutputStream out) throws IOException
+    {
+        out.writeUTF(name);
+        out.writeBoolean(active);
+        out.writeLong(seed);
+        out.writeInt(numRandomDraws);
+        out.writeLong(startTime.getTime());
+        out.writeLong(expiration);
+        out.writeBoolean(allOriginalPlayers);
+
+        out.writeShort(gameState);
+        out.writeShort(oldGameState);
+        out.writeByte(currentPlayerNumber);
+        out.writeByte(firstPlayerNumber);
+        out.writeByte(lastPlayerNumber);
+        out.writeByte(currentDice);
+        out.writeByte(playerWithLargestArmy);
+        out.writeByte(oldPlayerWithLargestArmy);
+        out.writeByte(playerWithLongestRoad);
+        out.writeShort(numDevCards);
+
+        if (devCardDeck == null)
+        {
+            out.writeShort(0);
+        }
+        else
+        {
+            out.writeShort(devCardDeck.length);
+
+            for (int i = 0; i < devCardDeck.length; i++)
+            {
+                out.writeByte(devCardDeck[i]);
+            }
+        }
+
+        int[] hexes = board.getHexLayout();
+        int[] numbers = board.getNumberLayout();
+
+        for (int i = 0; i < hexes.length; i++)
+        {
+            out.writeByte(hexes[i]);
+            out.writeByte(numbers[i]);
+        }
+
+        out.writeShort(board.getRobberHex());
+
+        Vector pieces = board.getPieces();
+        out.writeShort(pieces.size());
+
+        for (int i = 0; i < pieces.size(); i++)
+        {
+            SOCPlayingPiece pp = (SOCPlayingPiece) pieces.elementAt(i);
+            out.writeByte(pp.getType());
+            out.writeByte(pp.getPlayer().getPlayerNumber());
+            out.writeByte(pp.getCoordinates());
+        }
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            out.writeByte(seats[i]);
+            out.writeBoolean(seatLocks[i]);
+            players[i].writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Make a game from a snapshot written by writeSnapshot.
+     * The pieces are put back on the board in the order they
+     * were put down, then everything else is set the way it was.
+     * If the game was seeded, its random numbers carry on from
+     * where they were.
+     *
+     * @param in  where to read the snapshot from
+     * @return the game
+     */
+    public static SOCGame readSnapshot(DataInputStream in) throws IOException
+    {
+        SOCGame ga = new SOCGame(in.readUTF());
+        boolean act = in.readBoolean();
+        long sd = in.readLong();
+        int draws = in.readInt();
+
+        if (sd != 0)
+        {
+            ga.setSeed(sd);
+
+            for (int i = 0; i < draws; i++)
+            {
+                ga.nextRandom();
+            }
+        }
+
+        ga.startTime = new Date(in.readLong());
+        ga.expiration = in.readLong();
+        ga.allOriginalPlayers = in.readBoolean();
+
+        int gs = in.readShort();
+        int ogs = in.readShort();
+        int cpn = in.readByte();
+        int fpn = in.readByte();
+        int lpn = in.readByte();
+        int dice = in.readByte();
+        int la = in.readByte();
+        int oldLa = in.readByte();
+        int lr = in.readByte();
+        int ndc = in.readShort();
+        int deckLength = in.readShort();
+
+        if (deckLength > 0)
+        {
+            ga.devCardDeck = new int[deckLength];
+
+            for (int i = 0; i < deckLength; i++)
+            {
+                ga.devCardDeck[i] = in.readByte();
+            }
+        }
+
+        int[] hexes = new int[ga.board.getHexLayout().length];
+        int[] numbers = new int[hexes.length];
+
+        for (int i = 0; i < hexes.length; i++)
+        {
+            hexes[i] = in.readByte();
+            numbers[i] = in.readByte();
+        }
+
+        ga.board.setHexLayout(hexes);
+        ga.board.setNumberLayout(numbers);
+        ga.board.setRobberHex(in.readShort());
+
+        /**
+         * put the pieces back while the game is in a state
+         * where putting them down doesn't change anything else
+         */
+        ga.gameState = PLAY1;
+
+        int numPieces = in.readShort();
+
+        for (int i = 0; i < numPieces; i++)
+        {
+            int type = in.readByte();
+            SOCPlayer pl = ga.players[in.readByte()];
+            int coord = in.readUnsignedByte();
+
+            switch (type)
+            {
+            case SOCPlayingPiece.ROAD:
+                ga.putPiece(new SOCRoad(pl, coord));
+
+                break;
+
+            case SOCPlayingPiece.SETTLEMENT:
+                ga.putPiece(new SOCSettlement(pl, coord));
+
+                break;
+
+            case SOCPlayingPiece.CITY:
+                ga.putPiece(new SOCSettlement(pl, coord));
+                ga.putPiece(new SOCCity(pl, coord));
+
+                break;
+            }
+        }
+
+        for (int i = 0; i < MAXPLAYERS; i++)
+        {
+            ga.seats[i] = in.readByte();
+            ga.seatLocks[i] = in.readBoolean();
+            ga.players[i].readSnapshot(in);
+        }
+
+        ga.active = act;
+        ga.gameState = gs;
+        ga.oldGameState = ogs;
+        ga.currentPlayerNumber = cpn;
+        ga.firstPlayerNumber = fpn;
+        ga.lastPlayerNumber = lpn;
+        ga.currentDice = dice;
+        ga.playerWithLargestArmy = la;
+        ga.oldPlayerWithLargestArmy = oldLa;
+        ga.playerWithLongestRoad = lr;
+        ga.numDevCards = ndc;
+
+        return ga;
+    }
+
     /**
      * set vars to null so gc can clean up
      */
@@ -0,0 +1,172 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+
+/**
+ * Constants and helpers for the actions listed by
+ * {@link SOCGame#getLegalActions(int[])}.
+ *
+ * An action is packed into an int so a list of them can be
+ * kept in an int array without making any objects.  The top
+ * byte is the type of action, and the other three bytes are
+ * its arguments, which depend on the type:
+ *
+ * <pre>
+ *   PLACE_ROAD, PLACE_SETTLEMENT,
+ *   PLACE_CITY, MOVE_ROBBER     arg1 = coordinates
+ *   CHOOSE_PLAYER               arg1 = player number
+ *   BANK_TRADE                  arg1 = resource given
+ *                               arg2 = resource gotten
+ *                               arg3 = how many are given
+ *   DISCOVERY_PICK              arg1, arg2 = the resources picked
+ *   MONOPOLY_PICK               arg1 = the resource picked
+ * </pre>
+ *
+ * The other actions have no arguments.
+ *
+ * @author agent
+ */
+public class SOCGameAction
+{
+    /**
+     * action types
+     */
+    public static final int ROLL_DICE = 1;
+    public static final int END_TURN = 2;
+    public static final int BUY_ROAD = 3;
+    public static final int BUY_SETTLEMENT = 4;
+    public static final int BUY_CITY = 5;
+    public static final int BUY_DEV_CARD = 6;
+    public static final int CANCEL_BUILD = 7;
+    public static final int PLACE_ROAD = 8;
+    public static final int PLACE_SETTLEMENT = 9;
+    public static final int PLACE_CITY = 10;
+    public static final int PLAY_KNIGHT = 11;
+    public static final int PLAY_ROAD_BUILDING = 12;
+    public static final int PLAY_DISCOVERY = 13;
+    public static final int PLAY_MONOPOLY = 14;
+    public static final int MOVE_ROBBER = 15;
+    public static final int CHOOSE_PLAYER = 16;
+    public static final int BANK_TRADE = 17;
+    public static final int DISCOVERY_PICK = 18;
+    public static final int MONOPOLY_PICK = 19;
+
+    /**
+     * the most actions there can be at one time.  a buffer
+     * this big always holds all of the legal actions.
+     */
+    public static final int MAX_ACTIONS = 256;
+
+    /**
+     * @return an action with no arguments
+     *
+     * @param type  the type of action
+     */
+    public static int make(int type)
+    {
+        return type << 24;
+    }
+
+    /**
+     * @return an action with one argument
+     *
+     * @param type  the type of action
+     * @param arg1  the first argument
+     */
+    public static int make(int type, int arg1)
+    {
+        return (type << 24) | (arg1 << 16);
+    }
+
+    /**
+     * @return an action with three arguments
+     *
+     * @param type  the type of action
+     * @param arg1  the first argument
+     * @param arg2  the second argument
+     * @param arg3  the third argument
+     */
+    public static int make(int type, int arg1, int arg2, int arg3)
+    {
+        return (type << 24) | (arg1 << 16) | (arg2 << 8) | arg3;
+    }
+
+    /**
+     * @return the type of an action
+     *
+     * @param action  the action
+     */
+    public static int getType(int action)
+    {
+        return action >>> 24;
+    }
+
+    /**
+     * @return the first argument of an action
+     *
+     * @param action  the action
+     */
+    public static int getArg1(int action)
+    {
+        return (action >> 16) & 0xFF;
+    }
+
+    /**
+     * @return the second argument of an action
+     *
+     * @param action  the action
+     */
+    public static int getArg2(int action)
+    {
+        return (action >> 8) & 0xFF;
+    }
+
+    /**
+     * @return the third argument of an action
+     *
+     * @param action  the action
+     */
+    public static int getArg3(int action)
+    {
+        return action & 0xFF;
+    }
+
+    /**
+     * @return a human readable form of an action
+     *
+     * @param action  the action
+     */
+    public static String toString(int action)
+    {
+        String[] names = 
+        {
+            "NONE", "ROLL_DICE", "END_TURN", "BUY_ROAD", "BUY_SETTLEMENT",
+            "BUY_CITY", "BUY_DEV_CARD", "CANCEL_BUILD", "PLACE_ROAD",
+            "PLACE_SETTLEMENT", "PLACE_CITY", "PLAY_KNIGHT",
+            "PLAY_ROAD_BUILDING", "PLAY_DISCOVERY", "PLAY_MONOPOLY",
+            "MOVE_ROBBER", "CHOOSE_PLAYER", "BANK_TRADE", "DISCOVERY_PICK",
+            "MONOPOLY_PICK"
+        };
+        int type = getType(action);
+        String name = (type < names.length) ? names[type] : ("TYPE" + type);
+
+        return name + "(" + Integer.toHexString(getArg1(action)) + "," + getArg2(action) + "," + getArg3(action) + ")";
+    }
+}
@@ -0,0 +1,688 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+import soc.util.IntPair;
+
+import java.io.Serializable;
+
+import java.util.Vector;
+
+
+/**
+ * Incremental longest road calculator for one player.
+ *
+ * The player's roads are split into connected components.  The
+ * result for each component (its longest path and its longest
+ * path data) is kept along with the set of edges in the component
+ * and the set of its nodes that are blocked by other players'
+ * settlements and cities.  When the longest road is asked for,
+ * only components whose edges or blocks have changed since the
+ * last time are searched again.  Placing a road only touches the
+ * component it joins, and a blocking settlement only touches
+ * the component it sits in.
+ *
+ * The search itself is the same depth first search as before,
+ * but visited edges are kept as a bit mask over the player's roads
+ * and the pending stack is a set of int and long arrays, so nothing
+ * is allocated while searching.  New objects are only made for a
+ * component whose result changed.
+ *
+ * A player can't have more than {@link #MAXROADS} roads, which is
+ * far more than the 15 road pieces plus whatever temporary
+ * roads the robots put down.
+ *
+ * @author agent
+ */
+public class SOCLRCalculator implements Serializable
+{
+    /**
+     * the most roads we can handle, one bit of a long for each
+     */
+    public static final int MAXROADS = 64;
+
+    /**
+     * the number of words in a coordinate set
+     */
+    private static final int COORD_WORDS = 4;
+
+    /**
+     * the directions a road can leave a node in, in the
+     * order the search looks at them
+     */
+    private static final int[] NODE_DELTAS = { -0x11, 0x11, 0x0F, -0x0F };
+
+    /**
+     * the offset from a node to the edge between it and the
+     * node in the same position of NODE_DELTAS
+     */
+    private static final int[] EDGE_DELTAS = { -0x11, 0x00, -0x01, -0x10 };
+
+    /**
+     * the player whose roads we're looking at
+     */
+    private SOCPlayer player;
+
+    /**
+     * the components from the last calculation
+     */
+    private Component[] components;
+
+    /**
+     * scratch space: the components found by this calculation,
+     * and which of the old ones have been matched
+     */
+    private transient Component[] found;
+    private transient boolean[] used;
+
+    /**
+     * how many entries of components are in use
+     */
+    private int numComponents;
+
+    /**
+     * the longest road from the last calculation
+     */
+    private int longest;
+
+    /**
+     * scratch space: the coordinates of our roads,
+     * and the two nodes each one touches
+     */
+    private transient int[] edgeCoords;
+    private transient int[] edgeNodeA;
+    private transient int[] edgeNodeB;
+
+    /**
+     * scratch space: which component each road is in
+     */
+    private transient int[] edgeComp;
+
+    /**
+     * scratch space: index of our road at each edge coordinate, or -1
+     */
+    private transient int[] edgeIndex;
+
+    /**
+     * scratch space: component of each node, or -1
+     */
+    private transient int[] nodeComp;
+
+    /**
+     * scratch space: nodes with other players' settlements or cities
+     */
+    private transient long[] blocked;
+
+    /**
+     * scratch space: the key of the component being looked at
+     */
+    private transient long[] keyEdges;
+    private transient long[] keyBlocked;
+
+    /**
+     * scratch space: the pending search stack
+     */
+    private transient int[] stackNode;
+    private transient int[] stackLen;
+    private transient long[] stackVis;
+
+    /**
+     * scratch space: the longest paths found in a component
+     */
+    private transient int[] pathStart;
+    private transient int[] pathEndCoord;
+    private transient int[] pathLen;
+    private transient long[] pathVis;
+
+    /**
+     * make a new calculator
+     *
+     * @param pl  the player
+     */
+    public SOCLRCalculator(SOCPlayer pl)
+    {
+        player = pl;
+        components = new Component[MAXROADS];
+        numComponents = 0;
+        longest = 0;
+    }
+
+    /**
+     * make a copy of a calculator for a copy of a player.
+     * the component results are shared, since they never
+     * change once they've been made.
+     *
+     * @param pl    the copy of the player
+     * @param calc  the calculator to copy
+     */
+    public SOCLRCalculator(SOCPlayer pl, SOCLRCalculator calc)
+    {
+        player = pl;
+        components = new Component[MAXROADS];
+        System.arraycopy(calc.components, 0, components, 0, calc.numComponents);
+        numComponents = calc.numComponents;
+        longest = calc.longest;
+    }
+
+    /**
+     * make the scratch arrays if we don't have them yet
+     */
+    private void initScratch()
+    {
+        if (edgeCoords != null)
+        {
+            return;
+        }
+
+        edgeCoords = new int[MAXROADS];
+        edgeNodeA = new int[MAXROADS];
+        edgeNodeB = new int[MAXROADS];
+        edgeComp = new int[MAXROADS];
+        found = new Component[MAXROADS];
+        used = new boolean[MAXROADS];
+        edgeIndex = new int[COORD_WORDS * 64];
+        nodeComp = new int[COORD_WORDS * 64];
+
+        for (int i = 0; i < edgeIndex.length; i++)
+        {
+            edgeIndex[i] = -1;
+            nodeComp[i] = -1;
+        }
+
+        blocked = new long[COORD_WORDS];
+        keyEdges = new long[COORD_WORDS];
+        keyBlocked = new long[COORD_WORDS];
+
+        // each step pops one entry and pushes at most three
+        stackNode = new int[(3 * MAXROADS) + 1];
+        stackLen = new int[(3 * MAXROADS) + 1];
+        stackVis = new long[(3 * MAXROADS) + 1];
+
+        // saved paths never share an edge, so there can't be more than this
+        pathStart = new int[MAXROADS];
+        pathEndCoord = new int[MAXROADS];
+        pathLen = new int[MAXROADS];
+        pathVis = new long[MAXROADS];
+    }
+
+    /**
+     * @return the longest road from the last calculation
+     */
+    public int getLongest()
+    {
+        return longest;
+    }
+
+    /**
+     * Calculate the longest road for the player, only searching
+     * components that have changed, and fill in the longest
+     * path data.
+     *
+     * @param lrPaths  the player's longest path list; this will be
+     *                 cleared and filled with the paths
+     * @return the length of the longest road
+     */
+    public int calc(Vector lrPaths)
+    {
+        initScratch();
+
+        Vector roads = player.getRoads();
+        int numRoads = roads.size();
+
+        if (numRoads > MAXROADS)
+        {
+            throw new IllegalStateException("too many roads for longest road: " + numRoads);
+        }
+
+        /**
+         * find the nodes that other players are blocking
+         */
+        findBlockedNodes();
+
+        /**
+         * index our roads
+         */
+        for (int i = 0; i < numRoads; i++)
+        {
+            int edge = ((SOCPlayingPiece) roads.elementAt(i)).getCoordinates();
+            edgeCoords[i] = edge;
+            edgeIndex[edge] = i;
+            edgeComp[i] = -1;
+
+            if ((((edge & 0x0F) + (edge >> 4)) % 2) == 0)
+            {
+                // '|' road
+                edgeNodeA[i] = edge + 0x01;
+                edgeNodeB[i] = edge + 0x10;
+            }
+            else
+            {
+                // '/' or '\' road
+                edgeNodeA[i] = edge;
+                edgeNodeB[i] = edge + 0x11;
+            }
+        }
+
+        /**
+         * split the roads into connected components, and
+         * look up or calculate the result for each one
+         */
+        int numFound = 0;
+
+        for (int k = 0; k < numComponents; k++)
+        {
+            used[k] = false;
+        }
+
+        int comp = 0;
+
+        for (int i = 0; i < numRoads; i++)
+        {
+            if (edgeComp[i] != -1)
+            {
+                continue;
+            }
+
+            labelComponent(i, comp, numRoads);
+            makeKey(comp, numRoads);
+
+            Component c = null;
+
+            for (int k = 0; k < numComponents; k++)
+            {
+                if (!used[k] && components[k].matches(keyEdges, keyBlocked))
+                {
+                    c = components[k];
+                    used[k] = true;
+
+                    break;
+                }
+            }
+
+            if (c == null)
+            {
+                c = searchComponent(comp, numRoads);
+            }
+
+            found[numFound] = c;
+            numFound++;
+            comp++;
+        }
+
+        /**
+         * keep only the current components, and put together the answer
+         */
+        for (int k = 0; k < MAXROADS; k++)
+        {
+            components[k] = (k < numFound) ? found[k] : null;
+            found[k] = null;
+        }
+
+        numComponents = numFound;
+        longest = 0;
+        lrPaths.removeAllElements();
+
+        for (int k = 0; k < numComponents; k++)
+        {
+            Component c = components[k];
+
+            if (c.longest > longest)
+            {
+                longest = c.longest;
+            }
+
+            for (int p = 0; p < c.paths.length; p++)
+            {
+                lrPaths.addElement(c.paths[p]);
+            }
+        }
+
+        /**
+         * clean up the scratch tables for next time
+         */
+        for (int i = 0; i < numRoads; i++)
+        {
+            edgeIndex[edgeCoords[i]] = -1;
+            nodeComp[edgeNodeA[i]] = -1;
+            nodeComp[edgeNodeB[i]] = -1;
+        }
+
+        return longest;
+    }
+
+    /**
+     * fill in the blocked node set from the other
+     * players' settlements and cities on the board
+     */
+    private void findBlockedNodes()
+    {
+        for (int w = 0; w < COORD_WORDS; w++)
+        {
+            blocked[w] = 0L;
+        }
+
+        SOCBoard board = player.getGame().getBoard();
+        int pn = player.getPlayerNumber();
+        Vector settlements = board.getSettlements();
+
+        for (int i = settlements.size() - 1; i >= 0; i--)
+        {
+            SOCPlayingPiece p = (SOCPlayingPiece) settlements.elementAt(i);
+
+            if (p.getPlayer().getPlayerNumber() != pn)
+            {
+                int node = p.getCoordinates();
+                blocked[node >> 6] |= (1L << (node & 63));
+            }
+        }
+
+        Vector cities = board.getCities();
+
+        for (int i = cities.size() - 1; i >= 0; i--)
+        {
+            SOCPlayingPiece p = (SOCPlayingPiece) cities.elementAt(i);
+
+            if (p.getPlayer().getPlayerNumber() != pn)
+            {
+                int node = p.getCoordinates();
+                blocked[node >> 6] |= (1L << (node & 63));
+            }
+        }
+    }
+
+    /**
+     * mark all roads connected to a road as being in a component
+     *
+     * @param first     index of the first road
+     * @param comp      the component number
+     * @param numRoads  how many roads there are
+     */
+    private void labelComponent(int first, int comp, int numRoads)
+    {
+        edgeComp[first] = comp;
+
+        boolean changed = true;
+
+        while (changed)
+        {
+            changed = false;
+
+            for (int i = first; i < numRoads; i++)
+            {
+                if (edgeComp[i] != comp)
+                {
+                    continue;
+                }
+
+                for (int j = first + 1; j < numRoads; j++)
+                {
+                    if ((edgeComp[j] == -1) && ((edgeNodeA[j] == edgeNodeA[i]) || (edgeNodeA[j] == edgeNodeB[i]) || (edgeNodeB[j] == edgeNodeA[i]) || (edgeNodeB[j] == edgeNodeB[i])))
+                    {
+                        edgeComp[j] = comp;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (int i = first; i < numRoads; i++)
+        {
+            if (edgeComp[i] == comp)
+            {
+                nodeComp[edgeNodeA[i]] = comp;
+                nodeComp[edgeNodeB[i]] = comp;
+            }
+        }
+    }
+
+    /**
+     * fill in keyEdges and keyBlocked for a component
+     *
+     * @param comp      the component number
+     * @param numRoads  how many roads there are
+     */
+    private void makeKey(int comp, int numRoads)
+    {
+        for (int w = 0; w < COORD_WORDS; w++)
+        {
+            keyEdges[w] = 0L;
+            keyBlocked[w] = 0L;
+        }
+
+        for (int i = 0; i < numRoads; i++)
+        {
+            if (edgeComp[i] == comp)
+            {
+                int edge = edgeCoords[i];
+                keyEdges[edge >> 6] |= (1L << (edge & 63));
+
+                int node = edgeNodeA[i];
+                keyBlocked[node >> 6] |= (blocked[node >> 6] & (1L << (node & 63)));
+                node = edgeNodeB[i];
+                keyBlocked[node >> 6] |= (blocked[node >> 6] & (1L << (node & 63)));
+            }
+        }
+    }
+
+    /**
+     * Do a depth first search of all road paths in a component
+     * starting from each of its nodes, in the order the player
+     * got them.  Keep the longest path for each set of edges,
+     * the same way the full calculation always has.
+     *
+     * @param comp      the component number
+     * @param numRoads  how many roads there are
+     * @return the result for the component
+     */
+    private Component searchComponent(int comp, int numRoads)
+    {
+        int compLongest = 0;
+        int numPaths = 0;
+        Vector roadNodes = player.getRoadNodes();
+        int numRoadNodes = roadNodes.size();
+
+        for (int r = 0; r < numRoadNodes; r++)
+        {
+            int pathStartCoord = ((Integer) roadNodes.elementAt(r)).intValue();
+
+            if (nodeComp[pathStartCoord] != comp)
+            {
+                continue;
+            }
+
+            stackNode[0] = pathStartCoord;
+            stackLen[0] = 0;
+            stackVis[0] = 0L;
+
+            int top = 1;
+
+            while (top > 0)
+            {
+                top--;
+
+                int coord = stackNode[top];
+                int len = stackLen[top];
+                long visited = stackVis[top];
+                boolean pathEnd = false;
+
+                /**
+                 * check for road blocks
+                 */
+                if ((len > 0) && ((blocked[coord >> 6] & (1L << (coord & 63))) != 0L))
+                {
+                    pathEnd = true;
+                }
+
+                if (!pathEnd)
+                {
+                    pathEnd = true;
+
+                    for (int d = 0; d < NODE_DELTAS.length; d++)
+                    {
+                        int j = coord + NODE_DELTAS[d];
+                        int edge = coord + EDGE_DELTAS[d];
+
+                        if ((j < SOCBoard.MINNODE) || (j >= SOCBoard.MAXNODEPLUSONE) || (edge < 0))
+                        {
+                            continue;
+                        }
+
+                        int idx = edgeIndex[edge];
+
+                        if ((idx != -1) && ((visited & (1L << idx)) == 0L))
+                        {
+                            stackNode[top] = j;
+                            stackLen[top] = len + 1;
+                            stackVis[top] = visited | (1L << idx);
+                            top++;
+                            pathEnd = false;
+                        }
+                    }
+                }
+
+                if (pathEnd)
+                {
+                    if (len > compLongest)
+                    {
+                        compLongest = len;
+                    }
+
+                    //
+                    // we want to store the longest path for a single set of nodes
+                    // check to make sure that we don't save two paths that share a node
+                    //
+                    boolean addNewPath = true;
+                    int keep = 0;
+
+                    for (int p = 0; p < numPaths; p++)
+                    {
+                        boolean trash = false;
+
+                        if ((pathVis[p] & visited) != 0L)
+                        {
+                            //
+                            // only keep the longer of the two paths
+                            //
+                            if (pathLen[p] < len)
+                            {
+                                trash = true;
+                            }
+                            else
+                            {
+                                addNewPath = false;
+                            }
+                        }
+
+                        if (!trash)
+                        {
+                            pathStart[keep] = pathStart[p];
+                            pathEndCoord[keep] = pathEndCoord[p];
+                            pathLen[keep] = pathLen[p];
+                            pathVis[keep] = pathVis[p];
+                            keep++;
+                        }
+                    }
+
+                    numPaths = keep;
+
+                    if (addNewPath)
+                    {
+                        pathStart[numPaths] = pathStartCoord;
+                        pathEndCoord[numPaths] = coord;
+                        pathLen[numPaths] = len;
+                        pathVis[numPaths] = visited;
+                        numPaths++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * make the result
+         */
+        Component c = new Component();
+        System.arraycopy(keyEdges, 0, c.edges, 0, COORD_WORDS);
+        System.arraycopy(keyBlocked, 0, c.blocked, 0, COORD_WORDS);
+        c.longest = compLongest;
+        c.paths = new SOCLRPathData[numPaths];
+
+        for (int p = 0; p < numPaths; p++)
+        {
+            Vector nodePairs = new Vector(pathLen[p]);
+
+            for (int i = 0; i < numRoads; i++)
+            {
+                if ((pathVis[p] & (1L << i)) != 0L)
+                {
+                    nodePairs.addElement(new IntPair(edgeNodeA[i], edgeNodeB[i]));
+                }
+            }
+
+            c.paths[p] = new SOCLRPathData(pathStart[p], pathEndCoord[p], pathLen[p], nodePairs);
+        }
+
+        return c;
+    }
+
+    /**
+     * The longest road result for one connected set of roads.
+     * These don't change once they've been made.
+     */
+    private static class Component implements Serializable
+    {
+        /**
+         * the edges in this component
+         */
+        long[] edges = new long[COORD_WORDS];
+
+        /**
+         * the nodes in this component that are blocked
+         */
+        long[] blocked = new long[COORD_WORDS];
+
+        /**
+         * the longest road in this component
+         */
+        int longest;
+
+        /**
+         * the longest path data for this component
+         */
+        SOCLRPathData[] paths;
+
+        /**
+         * @return true if this result is for the given edges and blocks
+         *
+         * @param e  the edge set
+         * @param b  the blocked node set
+         */
+        boolean matches(long[] e, long[] b)
+        {
+            for (int w = 0; w < COORD_WORDS; w++)
+            {
+                if ((edges[w] != e[w]) || (blocked[w] != b[w]))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -22,13 +22,14 @@ package soc.game;
 
 import soc.disableDebug.D;
 
-import soc.util.IntPair;
-import soc.util.NodeLenVis;
+import soc.util.LongBitSet;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
 
 import java.util.Enumeration;
-import java.util.Stack;
 import java.util.Vector;
 
 
@@ -39,6 +40,22 @@ import java.util.Vector;
  */
 public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Serializable, Cloneable
 {
+    /**
+     * the number of bits in an edge set; edges are 0x22 to 0xCC
+     */
+    private static final int EDGE_BITS = 0xEF;
+
+    /**
+     * the number of bits in a node set; nodes are 0x23 to 0xDC
+     */
+    private static final int NODE_BITS = 0xFF;
+
+    /**
+     * the number of bits in the road node graph,
+     * four directions for each node
+     */
+    private static final int ROAD_NODE_GRAPH_BITS = SOCBoard.MAXNODEPLUSONE << 2;
+
     /**
      * the name of the player
      */
@@ -99,6 +116,12 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     private Vector lrPaths;
 
+    /**
+     * keeps the longest road results for each group of
+     * connected roads, so only changed ones are recalculated
+     */
+    private SOCLRCalculator lrCalc;
+
     /**
      * how many of each resource this player has
      */
@@ -137,41 +160,43 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
     /**
      * a graph of what nodes are connected by this
-     * player's roads
+     * player's roads.  each node has one bit for each
+     * of the four directions a road can leave it in,
+     * see {@link #roadNodeGraphBit(int, int)}.
      */
-    private boolean[][] roadNodeGraph;
+    private LongBitSet roadNodeGraph;
 
     /**
-     * a list of edges where it is legal to place a road.
+     * the set of edges where it is legal to place a road.
      * an edge is legal if a road could eventually be
      * placed there.
      */
-    private boolean[] legalRoads;
+    private LongBitSet legalRoads;
 
     /**
-     * a list of nodes where it is legal to place a
+     * the set of nodes where it is legal to place a
      * settlement.        a node is legal if a settlement
      * could eventually be placed there.
      */
-    private boolean[] legalSettlements;
+    private LongBitSet legalSettlements;
 
     /**
-     * a list of edges where a road could be placed
+     * the set of edges where a road could be placed
      * on the next turn.
      */
-    private boolean[] potentialRoads;
+    private LongBitSet potentialRoads;
 
     /**
-     * a list of nodes where a settlement could be
+     * the set of nodes where a settlement could be
      * placed on the next turn.
      */
-    private boolean[] potentialSettlements;
+    private LongBitSet potentialSettlements;
 
     /**
-     * a list of nodes where a city could be
+     * the set of nodes where a city could be
      * placed on the next turn.
      */
-    private boolean[] potentialCities;
+    private LongBitSet potentialCities;
 
     /**
      * a boolean array stating wheather this player is touching a
@@ -218,7 +243,6 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
     public SOCPlayer(SOCPlayer player)
     {
         int i;
-        int j;
         game = player.game;
         playerNumber = player.playerNumber;
         numPieces = new int[SOCPlayingPiece.MAXPLUSONE];
@@ -231,6 +255,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         cities = (Vector) player.cities.clone();
         longestRoadLength = player.longestRoadLength;
         lrPaths = (Vector) player.lrPaths.clone();
+        lrCalc = new SOCLRCalculator(this, player.lrCalc);
         resources = player.resources.copy();
         devCards = new SOCDevCardSet(player.devCards);
         numKnights = player.numKnights;
@@ -249,37 +274,16 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         }
 
         roadNodes = (Vector) player.roadNodes.clone();
-        roadNodeGraph = new boolean[SOCBoard.MAXNODEPLUSONE][SOCBoard.MAXNODEPLUSONE];
-
-        for (i = SOCBoard.MINNODE; i < SOCBoard.MAXNODEPLUSONE; i++)
-        {
-            for (j = SOCBoard.MINNODE; j < SOCBoard.MAXNODEPLUSONE; j++)
-            {
-                roadNodeGraph[i][j] = player.roadNodeGraph[i][j];
-            }
-        }
+        roadNodeGraph = new LongBitSet(player.roadNodeGraph);
 
         /**
-         * init legal and potential arrays
+         * copy legal and potential sets
          */
-        legalRoads = new boolean[0xEF];
-        legalSettlements = new boolean[0xFF];
-        potentialRoads = new boolean[0xEF];
-        potentialSettlements = new boolean[0xFF];
-        potentialCities = new boolean[0xFF];
-
-        for (i = 0; i < 0xEF; i++)
-        {
-            legalRoads[i] = player.legalRoads[i];
-            potentialRoads[i] = player.potentialRoads[i];
-        }
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            legalSettlements[i] = player.legalSettlements[i];
-            potentialSettlements[i] = player.potentialSettlements[i];
-            potentialCities[i] = player.potentialCities[i];
-        }
+        legalRoads = new LongBitSet(player.legalRoads);
+        legalSettlements = new LongBitSet(player.legalSettlements);
+        potentialRoads = new LongBitSet(player.potentialRoads);
+        potentialSettlements = new LongBitSet(player.potentialSettlements);
+        potentialCities = new LongBitSet(player.potentialCities);
 
         if (player.currentOffer != null)
         {
@@ -291,6 +295,20 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         }
     }
 
+    /**
+     * create a copy of the player that belongs to another game,
+     * such as a copy of the player's game
+     *
+     * @param player        the player to copy
+     * @param ga            the game that the copy is in
+     */
+    public SOCPlayer(SOCPlayer player, SOCGame ga)
+    {
+        this(player);
+        game = ga;
+        name = player.name;
+    }
+
     /**
      * create a new player
      *
@@ -300,7 +318,6 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
     public SOCPlayer(int pn, SOCGame ga)
     {
         int i;
-        int j;
 
         game = ga;
         playerNumber = pn;
@@ -314,6 +331,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         cities = new Vector(4);
         longestRoadLength = 0;
         lrPaths = new Vector();
+        lrCalc = new SOCLRCalculator(this);
         resources = new SOCResourceSet();
         devCards = new SOCDevCardSet();
         numKnights = 0;
@@ -334,37 +352,16 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         }
 
         roadNodes = new Vector(20);
-        roadNodeGraph = new boolean[SOCBoard.MAXNODEPLUSONE][SOCBoard.MAXNODEPLUSONE];
-
-        for (i = SOCBoard.MINNODE; i < SOCBoard.MAXNODEPLUSONE; i++)
-        {
-            for (j = SOCBoard.MINNODE; j < SOCBoard.MAXNODEPLUSONE; j++)
-            {
-                roadNodeGraph[i][j] = false;
-            }
-        }
+        roadNodeGraph = new LongBitSet(ROAD_NODE_GRAPH_BITS);
 
         /**
-         * init legal and potential arrays
+         * init legal and potential sets
          */
-        legalRoads = new boolean[0xEF];
-        legalSettlements = new boolean[0xFF];
-        potentialRoads = new boolean[0xEF];
-        potentialSettlements = new boolean[0xFF];
-        potentialCities = new boolean[0xFF];
-
-        for (i = 0; i < 0xEF; i++)
-        {
-            legalRoads[i] = false;
-            potentialRoads[i] = false;
-        }
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            legalSettlements[i] = false;
-            potentialSettlements[i] = false;
-            potentialCities[i] = false;
-        }
+        legalRoads = new LongBitSet(EDGE_BITS);
+        legalSettlements = new LongBitSet(NODE_BITS);
+        potentialRoads = new LongBitSet(EDGE_BITS);
+        potentialSettlements = new LongBitSet(NODE_BITS);
+        potentialCities = new LongBitSet(NODE_BITS);
 
         initLegalRoads();
         initLegalAndPotentialSettlements();
@@ -380,57 +377,57 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
         for (i = 0x27; i <= 0x7C; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x26; i <= 0x8C; i += 0x22)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x25; i <= 0x9C; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x24; i <= 0xAC; i += 0x22)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x23; i <= 0xBC; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x22; i <= 0xCC; i += 0x22)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x32; i <= 0xCB; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x42; i <= 0xCA; i += 0x22)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x52; i <= 0xC9; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x62; i <= 0xC8; i += 0x22)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
 
         for (i = 0x72; i <= 0xC7; i += 0x11)
         {
-            legalRoads[i] = true;
+            legalRoads.set(i);
         }
     }
 
@@ -443,38 +440,38 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
         for (i = 0x27; i <= 0x8D; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
 
         for (i = 0x25; i <= 0xAD; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
 
         for (i = 0x23; i <= 0xCD; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
 
         for (i = 0x32; i <= 0xDC; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
 
         for (i = 0x52; i <= 0xDA; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
 
         for (i = 0x72; i <= 0xD8; i += 0x11)
         {
-            potentialSettlements[i] = true;
-            legalSettlements[i] = true;
+            potentialSettlements.set(i);
+            legalSettlements.set(i);
         }
     }
 
@@ -483,12 +480,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public void clearPotentialSettlements()
     {
-        int i;
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            potentialSettlements[i] = false;
-        }
+        potentialSettlements.clear();
     }
 
     /**
@@ -865,8 +857,44 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean isConnectedByRoad(int node1, int node2)
     {
-        //D.ebugPrintln("isConnectedByRoad "+Integer.toHexString(node1)+", "+Integer.toHexString(node2)+" = "+roadNodeGraph[node1][node2]);
-        return roadNodeGraph[node1][node2];
+        int bit = roadNodeGraphBit(node1, node2);
+
+        //D.ebugPrintln("isConnectedByRoad "+Integer.toHexString(node1)+", "+Integer.toHexString(node2)+" = "+roadNodeGraph.get(bit));
+        return (bit != -1) && roadNodeGraph.get(bit);
+    }
+
+    /**
+     * @return the index of the bit in the road node graph for
+     *         the edge leaving node1 toward node2, or -1 if the
+     *         two nodes aren't next to each other
+     *
+     * @param node1         coordinates of first node
+     * @param node2         coordinates of second node
+     */
+    private static final int roadNodeGraphBit(int node1, int node2)
+    {
+        if ((node1 < 0) || (node1 >= SOCBoard.MAXNODEPLUSONE))
+        {
+            return -1;
+        }
+
+        switch (node2 - node1)
+        {
+        case -0x11:
+            return (node1 << 2);
+
+        case 0x11:
+            return (node1 << 2) + 1;
+
+        case 0x0F:
+            return (node1 << 2) + 2;
+
+        case -0x0F:
+            return (node1 << 2) + 3;
+
+        default:
+            return -1;
+        }
     }
 
     /**
@@ -923,8 +951,8 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                 /**
                  * update the graph of nodes connected by roads
                  */
-                roadNodeGraph[nodeCoords[0]][nodeCoords[1]] = true;
-                roadNodeGraph[nodeCoords[1]][nodeCoords[0]] = true;
+                roadNodeGraph.set(roadNodeGraphBit(nodeCoords[0], nodeCoords[1]));
+                roadNodeGraph.set(roadNodeGraphBit(nodeCoords[1], nodeCoords[0]));
 
                 //D.ebugPrintln("^^ roadNodeGraph["+Integer.toHexString(nodeCoords[0])+"]["+Integer.toHexString(nodeCoords[1])+"] = true");
                 //D.ebugPrintln("^^ roadNodeGraph["+Integer.toHexString(nodeCoords[1])+"]["+Integer.toHexString(nodeCoords[0])+"] = true");
@@ -1017,7 +1045,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                 //
                 // make it a legal space again
                 //
-                legalRoads[piece.getCoordinates()] = true;
+                legalRoads.set(piece.getCoordinates());
 
                 //
                 // call updatePotentials
@@ -1054,6 +1082,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
             if (ours)
             {
                 removePiece(piece);
+                potentialCities.clear(piece.getCoordinates());
                 ourNumbers.undoUpdateNumbers(piece, game.getBoard());
 
                 //
@@ -1143,7 +1172,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
             if (ours)
             {
                 removePiece(piece);
-                potentialCities[piece.getCoordinates()] = true;
+                potentialCities.set(piece.getCoordinates());
 
                 /**
                  * update what numbers we're touching
@@ -1232,7 +1261,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                 //
                 if (game.getBoard().isNodeOnBoard(settlementNode))
                 {
-                    legalSettlements[settlementNode] = true;
+                    legalSettlements.set(settlementNode);
 
                     //D.ebugPrintln(")))) legalSettlements["+Integer.toHexString(settlementNode)+"] = true");
                     //
@@ -1240,7 +1269,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                     //
                     if (game.getGameState() < SOCGame.PLAY)
                     {
-                        potentialSettlements[settlementNode] = true;
+                        potentialSettlements.set(settlementNode);
 
                         //D.ebugPrintln(")))) potentialSettlements["+Integer.toHexString(settlementNode)+"] = true");
                     }
@@ -1280,7 +1309,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
                         if (adjRoad)
                         {
-                            potentialSettlements[settlementNode] = true;
+                            potentialSettlements.set(settlementNode);
 
                             //D.ebugPrintln(")))) potentialSettlements["+Integer.toHexString(settlementNode)+"] = true");
                         }
@@ -1365,15 +1394,15 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                         if (!match)
                         {
                             roadNodes.removeElement(node);
-                            potentialSettlements[node.intValue()] = false;
+                            potentialSettlements.clear(node.intValue());
                         }
                     }
 
                     /**
                      * update the graph of nodes connected by roads
                      */
-                    roadNodeGraph[nodeCoords[0]][nodeCoords[1]] = false;
-                    roadNodeGraph[nodeCoords[1]][nodeCoords[0]] = false;
+                    roadNodeGraph.clear(roadNodeGraphBit(nodeCoords[0], nodeCoords[1]));
+                    roadNodeGraph.clear(roadNodeGraphBit(nodeCoords[1], nodeCoords[0]));
 
                     /**
                      * update the potential places to build roads
@@ -1381,8 +1410,8 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                      * NOTE: we're assuming that we could build a road here
                      * before, so we can make it a legal spot again
                      */
-                    potentialRoads[piece.getCoordinates()] = true;
-                    legalRoads[piece.getCoordinates()] = true;
+                    potentialRoads.set(piece.getCoordinates());
+                    legalRoads.set(piece.getCoordinates());
 
                     /**
                      * check each adjacent legal edge, if there are
@@ -1396,7 +1425,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                     {
                         Integer adjEdge = (Integer) adjEdgesEnum.nextElement();
 
-                        if (potentialRoads[adjEdge.intValue()])
+                        if (potentialRoads.get(adjEdge.intValue()))
                         {
                             boolean isPotentialRoad = false;
 
@@ -1458,7 +1487,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                                 }
                             }
 
-                            potentialRoads[adjEdge.intValue()] = isPotentialRoad;
+                            potentialRoads.set(adjEdge.intValue(), isPotentialRoad);
                         }
                     }
 
@@ -1521,8 +1550,8 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         case SOCPlayingPiece.ROAD:
 
             // remove non-potentials
-            potentialRoads[id] = false;
-            legalRoads[id] = false;
+            potentialRoads.clear(id);
+            legalRoads.clear(id);
 
             if (ours)
             {
@@ -1561,15 +1590,15 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                         {
                             Integer edge = (Integer) edges.nextElement();
 
-                            if (legalRoads[edge.intValue()])
+                            if (legalRoads.get(edge.intValue()))
                             {
-                                potentialRoads[edge.intValue()] = true;
+                                potentialRoads.set(edge.intValue());
                             }
                         }
 
-                        if (legalSettlements[node.intValue()])
+                        if (legalSettlements.get(node.intValue()))
                         {
-                            potentialSettlements[node.intValue()] = true;
+                            potentialSettlements.set(node.intValue());
                         }
                     }
                 }
@@ -1583,17 +1612,17 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         case SOCPlayingPiece.SETTLEMENT:
 
             // remove non-potentials
-            potentialSettlements[id] = false;
-            potentialSettlements[id - 0x11] = false;
-            potentialSettlements[id + 0x11] = false;
-            legalSettlements[id] = false;
-            legalSettlements[id - 0x11] = false;
-            legalSettlements[id + 0x11] = false;
+            potentialSettlements.clear(id);
+            potentialSettlements.clear(id - 0x11);
+            potentialSettlements.clear(id + 0x11);
+            legalSettlements.clear(id);
+            legalSettlements.clear(id - 0x11);
+            legalSettlements.clear(id + 0x11);
 
             if (((id >> 4) % 2) == 0)
             { // If first digit is even,
-                potentialSettlements[(id + 0x10) - 0x01] = false;
-                legalSettlements[(id + 0x10) - 0x01] = false;
+                potentialSettlements.clear((id + 0x10) - 0x01);
+                legalSettlements.clear((id + 0x10) - 0x01);
 
                 if (ours)
                 { // only add potentials if it's our piece
@@ -1601,22 +1630,22 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                     // add new potentials
                     tmp = id - 0x11; // upper left '\' edge
 
-                    if (legalRoads[tmp]) // make sure the potential road is legal
+                    if (legalRoads.get(tmp)) // make sure the potential road is legal
                     {
-                        potentialRoads[tmp] = true;
+                        potentialRoads.set(tmp);
                     }
 
                     // upper right '/' edge
-                    if (legalRoads[id]) // make sure the potential road is legal
+                    if (legalRoads.get(id)) // make sure the potential road is legal
                     {
-                        potentialRoads[id] = true;
+                        potentialRoads.set(id);
                     }
 
                     tmp = id - 0x01; // lower middle '|' edge
 
-                    if (legalRoads[tmp]) // make sure the potential road is legal
+                    if (legalRoads.get(tmp)) // make sure the potential road is legal
                     {
-                        potentialRoads[tmp] = true;
+                        potentialRoads.set(tmp);
                     }
                 }
                 else
@@ -1637,26 +1666,26 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
                     tmp = id - 0x11; // upper left '\' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp - 0x10)) || ourRoads.contains(new Integer(tmp - 0x11))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
 
                     tmp = id; // upper right '/' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp + 0x01)) || ourRoads.contains(new Integer(tmp + 0x11))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
 
                     tmp = id - 0x01; // lower middle '|' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp - 0x01)) || ourRoads.contains(new Integer(tmp + 0x10))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
                 }
             }
@@ -1664,8 +1693,8 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
             {
                 // we have an A node.
                 // continue removing non-potentials
-                potentialSettlements[id - 0x10 + 0x01] = false;
-                legalSettlements[id - 0x10 + 0x01] = false;
+                potentialSettlements.clear(id - 0x10 + 0x01);
+                legalSettlements.clear(id - 0x10 + 0x01);
 
                 if (ours)
                 { // only add potentials if it's our piece
@@ -1673,22 +1702,22 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
                     // add new potentials
                     tmp = id - 0x11; // lower left '/' edge
 
-                    if (legalRoads[tmp]) // make sure the potential road is legal
+                    if (legalRoads.get(tmp)) // make sure the potential road is legal
                     {
-                        potentialRoads[tmp] = true;
+                        potentialRoads.set(tmp);
                     }
 
                     // lower right '\' edge
-                    if (legalRoads[id]) // make sure the potential road is legal
+                    if (legalRoads.get(id)) // make sure the potential road is legal
                     {
-                        potentialRoads[id] = true;
+                        potentialRoads.set(id);
                     }
 
                     tmp = id - 0x10; // upper middle '|' edge
 
-                    if (legalRoads[tmp]) // make sure the potential road is legal
+                    if (legalRoads.get(tmp)) // make sure the potential road is legal
                     {
-                        potentialRoads[tmp] = true;
+                        potentialRoads.set(tmp);
                     }
                 }
                 else
@@ -1709,26 +1738,26 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
 
                     tmp = id - 0x11; // lower left '/' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp - 0x11)) || ourRoads.contains(new Integer(tmp - 0x01))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
 
                     tmp = id; // lower right '\' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp + 0x11)) || ourRoads.contains(new Integer(tmp + 0x10))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
 
                     tmp = id - 0x10; // upper middle '|' edge
 
-                    if ((potentialRoads[tmp]) && // make sure the pot. road is still connected
+                    if ((potentialRoads.get(tmp)) && // make sure the pot. road is still connected
                             !(ourRoads.contains(new Integer(tmp - 0x10)) || ourRoads.contains(new Integer(tmp + 0x01))))
                     {
-                        potentialRoads[tmp] = false;
+                        potentialRoads.clear(tmp);
                     }
                 }
             }
@@ -1737,7 +1766,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
             { // only add potentials if it's our piece
 
                 // continue adding new potentials
-                potentialCities[id] = true;
+                potentialCities.set(id);
             }
 
             break;
@@ -1748,7 +1777,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         case SOCPlayingPiece.CITY:
 
             // remove non-potentials
-            potentialCities[id] = false;
+            potentialCities.clear(id);
 
             break;
         }
@@ -1768,7 +1797,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         while (enum.hasMoreElements())
         {
             Integer number = (Integer) enum.nextElement();
-            potentialSettlements[number.intValue()] = true;
+            potentialSettlements.set(number.intValue());
         }
     }
 
@@ -1778,7 +1807,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean isPotentialSettlement(int node)
     {
-        return potentialSettlements[node];
+        return potentialSettlements.get(node);
     }
 
     /**
@@ -1787,7 +1816,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean isPotentialCity(int node)
     {
-        return potentialCities[node];
+        return potentialCities.get(node);
     }
 
     /**
@@ -1796,7 +1825,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean isPotentialRoad(int edge)
     {
-        return potentialRoads[edge];
+        return potentialRoads.get(edge);
     }
 
     /**
@@ -1805,7 +1834,37 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean isLegalRoad(int edge)
     {
-        return legalRoads[edge];
+        return legalRoads.get(edge);
+    }
+
+    /**
+     * @return the first potential road at or after an edge,
+     *         or -1 if there isn't one
+     * @param edge        where to start looking
+     */
+    public int nextPotentialRoad(int edge)
+    {
+        return potentialRoads.nextSetBit(edge);
+    }
+
+    /**
+     * @return the first potential settlement at or after a node,
+     *         or -1 if there isn't one
+     * @param node        where to start looking
+     */
+    public int nextPotentialSettlement(int node)
+    {
+        return potentialSettlements.nextSetBit(node);
+    }
+
+    /**
+     * @return the first potential city at or after a node,
+     *         or -1 if there isn't one
+     * @param node        where to start looking
+     */
+    public int nextPotentialCity(int node)
+    {
+        return potentialCities.nextSetBit(node);
     }
 
     /**
@@ -1813,15 +1872,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean hasPotentialRoad()
     {
-        for (int i = 0x22; i <= 0xCC; i++)
-        {
-            if (potentialRoads[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return potentialRoads.anySet(0x22, 0xCC);
     }
 
     /**
@@ -1829,15 +1880,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean hasPotentialSettlement()
     {
-        for (int i = 0x23; i <= 0xDC; i++)
-        {
-            if (potentialSettlements[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return potentialSettlements.anySet(0x23, 0xDC);
     }
 
     /**
@@ -1845,15 +1888,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public boolean hasPotentialCity()
     {
-        for (int i = 0x23; i <= 0xDC; i++)
-        {
-            if (potentialCities[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return potentialCities.anySet(0x23, 0xDC);
     }
 
     /**
@@ -1863,271 +1898,14 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
      */
     public int calcLongestRoad2()
     {
-        //Date startTime = new Date();
         //
-        // clear the lr paths vector so that we have an accurate
-        // representation.  if someone cut our longest path in two
-        // we won't catch it unless we clear the vector
+        // the calculator only searches the road components that
+        // have changed since last time, and refills the lr paths
+        // vector so that we have an accurate representation
         //
-        D.ebugPrintln("CLEARING PATH DATA");
-        lrPaths.removeAllElements();
-
-        /**
-         * we're doing a depth first search of all possible road paths
-         */
-        Stack pending = new Stack();
-        int longest = 0;
-
-        for (Enumeration e = roadNodes.elements(); e.hasMoreElements();)
-        {
-            Integer roadNode = (Integer) e.nextElement();
-            int pathStartCoord = roadNode.intValue();
-            int pathEndCoord;
-            int pathLength = 0;
-            pending.push(new NodeLenVis(pathStartCoord, 0, new Vector()));
-
-            while (!pending.isEmpty())
-            {
-                NodeLenVis curNode = (NodeLenVis) pending.pop();
-                int coord = curNode.node;
-                int len = curNode.len;
-                Vector visited = curNode.vis;
-                boolean pathEnd = false;
-
-                /**
-                 * check for road blocks
-                 */
-                Enumeration pEnum = game.getBoard().getPieces().elements();
+        longestRoadLength = lrCalc.calc(lrPaths);
 
-                while (pEnum.hasMoreElements())
-                {
-                    SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-
-                    if ((len > 0) && (p.getPlayer().getPlayerNumber() != this.getPlayerNumber()) && ((p.getType() == SOCPlayingPiece.SETTLEMENT) || (p.getType() == SOCPlayingPiece.CITY)) && (p.getCoordinates() == coord))
-                    {
-                        pathEnd = true;
-
-                        //D.ebugPrintln("^^^ path end at "+Integer.toHexString(coord));
-                        break;
-                    }
-                }
-
-                if (!pathEnd)
-                {
-                    pathEnd = true;
-
-                    int j;
-                    IntPair pair;
-                    boolean match;
-
-                    j = coord - 0x11;
-                    pair = new IntPair(coord, j);
-                    match = false;
-
-                    if ((j >= SOCBoard.MINNODE) && (j < SOCBoard.MAXNODEPLUSONE) && (isConnectedByRoad(coord, j)))
-                    {
-                        for (Enumeration ev = visited.elements();
-                                ev.hasMoreElements();)
-                        {
-                            IntPair vis = (IntPair) ev.nextElement();
-
-                            if (vis.equals(pair))
-                            {
-                                match = true;
-
-                                break;
-                            }
-                        }
-
-                        if (!match)
-                        {
-                            Vector newVis = (Vector) visited.clone();
-                            newVis.addElement(pair);
-                            pending.push(new NodeLenVis(j, len + 1, newVis));
-                            pathEnd = false;
-                        }
-                    }
-
-                    j = coord + 0x11;
-                    pair = new IntPair(coord, j);
-                    match = false;
-
-                    if ((j >= SOCBoard.MINNODE) && (j < SOCBoard.MAXNODEPLUSONE) && (isConnectedByRoad(coord, j)))
-                    {
-                        for (Enumeration ev = visited.elements();
-                                ev.hasMoreElements();)
-                        {
-                            IntPair vis = (IntPair) ev.nextElement();
-
-                            if (vis.equals(pair))
-                            {
-                                match = true;
-
-                                break;
-                            }
-                        }
-
-                        if (!match)
-                        {
-                            Vector newVis = (Vector) visited.clone();
-                            newVis.addElement(pair);
-                            pending.push(new NodeLenVis(j, len + 1, newVis));
-                            pathEnd = false;
-                        }
-                    }
-
-                    j = (coord + 0x10) - 0x01;
-                    pair = new IntPair(coord, j);
-                    match = false;
-
-                    if ((j >= SOCBoard.MINNODE) && (j < SOCBoard.MAXNODEPLUSONE) && (isConnectedByRoad(coord, j)))
-                    {
-                        for (Enumeration ev = visited.elements();
-                                ev.hasMoreElements();)
-                        {
-                            IntPair vis = (IntPair) ev.nextElement();
-
-                            if (vis.equals(pair))
-                            {
-                                match = true;
-
-                                break;
-                            }
-                        }
-
-                        if (!match)
-                        {
-                            Vector newVis = (Vector) visited.clone();
-                            newVis.addElement(pair);
-                            pending.push(new NodeLenVis(j, len + 1, newVis));
-                            pathEnd = false;
-                        }
-                    }
-
-                    j = coord - 0x10 + 0x01;
-                    pair = new IntPair(coord, j);
-                    match = false;
-
-                    if ((j >= SOCBoard.MINNODE) && (j < SOCBoard.MAXNODEPLUSONE) && (isConnectedByRoad(coord, j)))
-                    {
-                        for (Enumeration ev = visited.elements();
-                                ev.hasMoreElements();)
-                        {
-                            IntPair vis = (IntPair) ev.nextElement();
-
-                            if (vis.equals(pair))
-                            {
-                                match = true;
-
-                                break;
-                            }
-                        }
-
-                        if (!match)
-                        {
-                            Vector newVis = (Vector) visited.clone();
-                            newVis.addElement(pair);
-                            pending.push(new NodeLenVis(j, len + 1, newVis));
-                            pathEnd = false;
-                        }
-                    }
-                }
-
-                if (pathEnd)
-                {
-                    if (len > longest)
-                    {
-                        longest = len;
-                    }
-
-                    //
-                    // we want to store the longest path for a single set of nodes
-                    // check to make sure that we don't save two paths that share a node
-                    //
-                    boolean intersection;
-                    boolean addNewPath = true;
-                    Vector trash = new Vector();
-
-                    for (Enumeration pdEnum = lrPaths.elements();
-                            pdEnum.hasMoreElements();)
-                    {
-                        SOCLRPathData oldPathData = (SOCLRPathData) pdEnum.nextElement();
-                        D.ebugPrintln("oldPathData = " + oldPathData);
-
-                        Vector nodePairs = oldPathData.getNodePairs();
-                        intersection = false;
-
-                        for (Enumeration ev = visited.elements();
-                                ev.hasMoreElements();)
-                        {
-                            IntPair vis = (IntPair) ev.nextElement();
-                            D.ebugPrintln("vis = " + vis);
-
-                            for (Enumeration npev = nodePairs.elements();
-                                    npev.hasMoreElements();)
-                            {
-                                IntPair np = (IntPair) npev.nextElement();
-                                D.ebugPrintln("np = " + np);
-
-                                if (np.equals(vis))
-                                {
-                                    D.ebugPrintln("oldPathData.nodePairs.contains(vis)");
-                                    intersection = true;
-
-                                    break;
-                                }
-                            }
-
-                            if (intersection)
-                            {
-                                break;
-                            }
-                        }
-
-                        if (intersection)
-                        {
-                            //
-                            // only keep the longer of the two paths
-                            //
-                            if (oldPathData.getLength() < len)
-                            {
-                                D.ebugPrintln("REMOVING OLDPATHDATA");
-                                trash.addElement(oldPathData);
-                            }
-                            else
-                            {
-                                addNewPath = false;
-                                D.ebugPrintln("NOT ADDING NEW PATH");
-                            }
-                        }
-                    }
-
-                    if (!trash.isEmpty())
-                    {
-                        for (Enumeration trashEnum = trash.elements();
-                                trashEnum.hasMoreElements();)
-                        {
-                            SOCLRPathData oldPathData = (SOCLRPathData) trashEnum.nextElement();
-                            lrPaths.removeElement(oldPathData);
-                        }
-                    }
-
-                    if (addNewPath)
-                    {
-                        SOCLRPathData newPathData = new SOCLRPathData(pathStartCoord, coord, len, visited);
-                        D.ebugPrintln("ADDING PATH: " + newPathData);
-                        lrPaths.addElement(newPathData);
-                    }
-                }
-            }
-        }
-
-        longestRoadLength = longest;
-
-        //Date stopTime = new Date();
-        //long elapsed = stopTime.getTime() - startTime.getTime();
-        //System.out.println("LONGEST FOR "+name+" IS "+longest+" TIME = "+elapsed+"ms");
-        return longest;
+        return longestRoadLength;
     }
 
     /**
@@ -2307,6 +2085,136 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         return copy;
     }
 
+    /**
+     * Write the parts of this player that can't be worked out
+     * from the pieces on the board.  The legal and potential
+     * sets are written too, because they depend on the order
+     * things happened in.  See SOCGame.writeSnapshot.
+     *
+     * @param out  where to write the player
+     */
+    public void writeSnapshot(DataOutputStream out) throws IOException
+    {
+        out.writeBoolean(name != null);
+
+        if (name != null)
+        {
+            out.writeUTF(name);
+        }
+
+        out.writeBoolean(robotFlag);
+        out.writeShort(faceId);
+
+        for (int rtype = SOCResourceConstants.CLAY;
+                rtype <= SOCResourceConstants.UNKNOWN; rtype++)
+        {
+            out.writeShort(resources.getAmount(rtype));
+        }
+
+        for (int ctype = SOCDevCardConstants.MIN;
+                ctype < SOCDevCardConstants.MAXPLUSONE; ctype++)
+        {
+            out.writeShort(devCards.getAmount(SOCDevCardSet.OLD, ctype));
+            out.writeShort(devCards.getAmount(SOCDevCardSet.NEW, ctype));
+        }
+
+        out.writeShort(numKnights);
+        out.writeShort(devCardVP);
+        out.writeShort(longestRoadLength);
+        out.writeBoolean(needToDiscard);
+        out.writeBoolean(playedDevCard);
+        out.writeShort(lastSettlementCoord);
+        out.writeShort(lastRoadCoord);
+
+        legalRoads.writeTo(out);
+        legalSettlements.writeTo(out);
+        potentialRoads.writeTo(out);
+        potentialSettlements.writeTo(out);
+        potentialCities.writeTo(out);
+
+        out.writeBoolean(currentOffer != null);
+
+        if (currentOffer != null)
+        {
+            boolean[] to = currentOffer.getTo();
+
+            for (int i = 0; i < to.length; i++)
+            {
+                out.writeBoolean(to[i]);
+            }
+
+            for (int rtype = SOCResourceConstants.CLAY;
+                    rtype <= SOCResourceConstants.WOOD; rtype++)
+            {
+                out.writeShort(currentOffer.getGiveSet().getAmount(rtype));
+                out.writeShort(currentOffer.getGetSet().getAmount(rtype));
+            }
+        }
+    }
+
+    /**
+     * Read what writeSnapshot wrote.  The player's pieces should
+     * already have been put on the board.
+     *
+     * @param in  where to read the player from
+     */
+    public void readSnapshot(DataInputStream in) throws IOException
+    {
+        name = in.readBoolean() ? in.readUTF() : null;
+        robotFlag = in.readBoolean();
+        faceId = in.readShort();
+
+        for (int rtype = SOCResourceConstants.CLAY;
+                rtype <= SOCResourceConstants.UNKNOWN; rtype++)
+        {
+            resources.setAmount(in.readShort(), rtype);
+        }
+
+        for (int ctype = SOCDevCardConstants.MIN;
+                ctype < SOCDevCardConstants.MAXPLUSONE; ctype++)
+        {
+            devCards.setAmount(in.readShort(), SOCDevCardSet.OLD, ctype);
+            devCards.setAmount(in.readShort(), SOCDevCardSet.NEW, ctype);
+        }
+
+        numKnights = in.readShort();
+        devCardVP = in.readShort();
+        longestRoadLength = in.readShort();
+        needToDiscard = in.readBoolean();
+        playedDevCard = in.readBoolean();
+        lastSettlementCoord = in.readShort();
+        lastRoadCoord = in.readShort();
+
+        legalRoads.readFrom(in);
+        legalSettlements.readFrom(in);
+        potentialRoads.readFrom(in);
+        potentialSettlements.readFrom(in);
+        potentialCities.readFrom(in);
+
+        currentOffer = null;
+
+        if (in.readBoolean())
+        {
+            boolean[] to = new boolean[SOCGame.MAXPLAYERS];
+            SOCResourceSet give = new SOCResourceSet();
+            SOCResourceSet get = new SOCResourceSet();
+
+            for (int i = 0; i < to.length; i++)
+            {
+                to[i] = in.readBoolean();
+            }
+
+            for (int rtype = SOCResourceConstants.CLAY;
+                    rtype <= SOCResourceConstants.WOOD; rtype++)
+            {
+                give.setAmount(in.readShort(), rtype);
+                get.setAmount(in.readShort(), rtype);
+            }
+
+            currentOffer = new SOCTradeOffer(game.getName(), playerNumber, to, give, get);
+        }
+    }
+
     /**
      * set vars to null so gc can clean up
      */
@@ -2326,6 +2234,7 @@ public class SOCPlayer implements SOCResourceConstants, SOCDevCardConstants, Ser
         devCards = null;
         ourNumbers = null;
         ports = null;
+        lrCalc = null;
         roadNodes.removeAllElements();
         roadNodes = null;
         roadNodeGraph = null;
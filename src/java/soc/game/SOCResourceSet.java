@@ -36,6 +36,12 @@ public class SOCResourceSet implements Serializable, Cloneable
      */
     private int[] resources;
 
+    /**
+     * the hash of the amounts, kept up to date as they
+     * change.  see {@link SOCZobristKeys}.
+     */
+    private long hash;
+
     /**
      * Make an empty resource set
      */
@@ -65,6 +71,7 @@ public class SOCResourceSet implements Serializable, Cloneable
         resources[SOCResourceConstants.WHEAT] = wh;
         resources[SOCResourceConstants.WOOD] = wo;
         resources[SOCResourceConstants.UNKNOWN] = uk;
+        rehash();
     }
 
     /**
@@ -77,6 +84,31 @@ public class SOCResourceSet implements Serializable, Cloneable
         {
             resources[i] = 0;
         }
+
+        hash = 0L;
+    }
+
+    /**
+     * work out the hash from the amounts
+     */
+    private void rehash()
+    {
+        hash = 0L;
+
+        for (int i = SOCResourceConstants.MIN;
+                i < SOCResourceConstants.MAXPLUSONE; i++)
+        {
+            hash += (resources[i] * SOCZobristKeys.getResourceKey(i));
+        }
+    }
+
+    /**
+     * @return a hash of the amounts in this set.  two sets
+     *         with the same amounts have the same hash.
+     */
+    public long getStateHash()
+    {
+        return hash;
     }
 
     /**
@@ -113,6 +145,7 @@ public class SOCResourceSet implements Serializable, Cloneable
      */
     public void setAmount(int amt, int rtype)
     {
+        hash += ((amt - resources[rtype]) * SOCZobristKeys.getResourceKey(rtype));
         resources[rtype] = amt;
     }
 
@@ -125,6 +158,7 @@ public class SOCResourceSet implements Serializable, Cloneable
     public void add(int amt, int rtype)
     {
         resources[rtype] += amt;
+        hash += (amt * SOCZobristKeys.getResourceKey(rtype));
     }
 
     /**
@@ -145,10 +179,12 @@ public class SOCResourceSet implements Serializable, Cloneable
         {
             resources[SOCResourceConstants.UNKNOWN] -= (amt - resources[rtype]);
             resources[rtype] = 0;
+            rehash();
         }
         else
         {
             resources[rtype] -= amt;
+            hash -= (amt * SOCZobristKeys.getResourceKey(rtype));
         }
 
         if (resources[SOCResourceConstants.UNKNOWN] < 0)
@@ -170,6 +206,7 @@ public class SOCResourceSet implements Serializable, Cloneable
         resources[SOCResourceConstants.WHEAT] += rs.getAmount(SOCResourceConstants.WHEAT);
         resources[SOCResourceConstants.WOOD] += rs.getAmount(SOCResourceConstants.WOOD);
         resources[SOCResourceConstants.UNKNOWN] += rs.getAmount(SOCResourceConstants.UNKNOWN);
+        hash += rs.hash;
     }
 
     /**
@@ -220,6 +257,8 @@ public class SOCResourceSet implements Serializable, Cloneable
         {
             resources[SOCResourceConstants.UNKNOWN] = 0;
         }
+
+        rehash();
     }
 
     /**
@@ -323,5 +362,6 @@ public class SOCResourceSet implements Serializable, Cloneable
         resources[SOCResourceConstants.WHEAT] = set.getAmount(SOCResourceConstants.WHEAT);
         resources[SOCResourceConstants.WOOD] = set.getAmount(SOCResourceConstants.WOOD);
         resources[SOCResourceConstants.UNKNOWN] = set.getAmount(SOCResourceConstants.UNKNOWN);
+        hash = set.hash;
     }
 }
@@ -0,0 +1,161 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+import java.io.Serializable;
+
+
+/**
+ * A stack of undo records for the temporary actions in SOCGame.
+ *
+ * Each record is a fixed number of ints, plus an optional object
+ * (the piece, for piece placements).  The arrays only grow when
+ * the journal gets deeper than it has ever been, so applying and
+ * undoing actions over and over doesn't make any garbage.
+ *
+ * @author agent
+ */
+public class SOCUndoJournal implements Serializable
+{
+    /**
+     * the number of ints in each record
+     */
+    public static final int RECORD_SIZE = 8;
+
+    /**
+     * the records, RECORD_SIZE ints each.
+     * the first int of a record is its type.
+     */
+    private int[] records;
+
+    /**
+     * the object that goes with each record, or null
+     */
+    private Object[] objects;
+
+    /**
+     * how many records are on the stack
+     */
+    private int size;
+
+    /**
+     * make an empty journal
+     */
+    public SOCUndoJournal()
+    {
+        records = new int[32 * RECORD_SIZE];
+        objects = new Object[32];
+        size = 0;
+    }
+
+    /**
+     * @return the number of records on the stack
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * push a new record and return the offset of its
+     * first int in the record array.  the type is filled
+     * in; the caller fills in the rest with {@link #set(int, int)}.
+     *
+     * @param type  the type of record
+     * @param obj   the object for this record, or null
+     * @return the offset of the record
+     */
+    public int push(int type, Object obj)
+    {
+        if (size == objects.length)
+        {
+            int[] newRecords = new int[records.length * 2];
+            System.arraycopy(records, 0, newRecords, 0, records.length);
+            records = newRecords;
+
+            Object[] newObjects = new Object[objects.length * 2];
+            System.arraycopy(objects, 0, newObjects, 0, objects.length);
+            objects = newObjects;
+        }
+
+        int off = size * RECORD_SIZE;
+        records[off] = type;
+        objects[size] = obj;
+        size++;
+
+        return off;
+    }
+
+    /**
+     * set an int in the record array
+     *
+     * @param off  the offset
+     * @param val  the value
+     */
+    public final void set(int off, int val)
+    {
+        records[off] = val;
+    }
+
+    /**
+     * @return an int from the record array
+     *
+     * @param off  the offset
+     */
+    public final int get(int off)
+    {
+        return records[off];
+    }
+
+    /**
+     * @return the offset of the top record
+     */
+    public int top()
+    {
+        return (size - 1) * RECORD_SIZE;
+    }
+
+    /**
+     * @return the object of the top record
+     */
+    public Object topObject()
+    {
+        return objects[size - 1];
+    }
+
+    /**
+     * take the top record off the stack
+     */
+    public void pop()
+    {
+        size--;
+        objects[size] = null;
+    }
+
+    /**
+     * throw away all of the records
+     */
+    public void clear()
+    {
+        while (size > 0)
+        {
+            pop();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+import java.util.Random;
+
+
+/**
+ * The random keys used to hash the state of a game.
+ * Each thing that can be in the game, like a player's
+ * road on an edge, has its own 64 bit key, and the hash
+ * of a game is made by xor-ing or adding up the keys of
+ * what's in it.  That way the hash can be kept up to date
+ * as the game changes instead of being worked out again.
+ *
+ * The keys come from a Random with a fixed seed, so
+ * every copy of the program has the same keys and hashes
+ * can be compared between the server and the robots.
+ *
+ * @author agent
+ */
+public class SOCZobristKeys
+{
+    /**
+     * the seed for making the keys
+     */
+    private static final long SEED = 0x536574746c657273L;
+
+    /**
+     * keys for pieces, by [type][player][coordinates]
+     */
+    private static final long[][][] PIECE_KEYS;
+
+    /**
+     * keys for where the robber is, by hex coordinates
+     */
+    private static final long[] ROBBER_KEYS;
+
+    /**
+     * keys for resources, by resource type
+     */
+    private static final long[] RESOURCE_KEYS;
+
+    /**
+     * keys for dev cards, by [age][card type]
+     */
+    private static final long[][] DEV_CARD_KEYS;
+
+    /**
+     * keys for each player's resources and dev cards,
+     * by [player][0 for resources, 1 for dev cards].
+     * these are odd so that multiplying by them loses nothing.
+     */
+    private static final long[][] PLAYER_KEYS;
+
+    /**
+     * keys for the game state, current player and
+     * number of dev cards left
+     */
+    private static final long[] STATE_KEYS;
+
+    static
+    {
+        Random rand = new Random(SEED);
+
+        PIECE_KEYS = new long[SOCPlayingPiece.MAXPLUSONE][SOCGame.MAXPLAYERS][0x100];
+
+        for (int type = SOCPlayingPiece.MIN; type < SOCPlayingPiece.MAXPLUSONE;
+                type++)
+        {
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                for (int co = 0; co < 0x100; co++)
+                {
+                    PIECE_KEYS[type][pn][co] = rand.nextLong();
+                }
+            }
+        }
+
+        ROBBER_KEYS = new long[0x100];
+
+        for (int co = 0; co < 0x100; co++)
+        {
+            ROBBER_KEYS[co] = rand.nextLong();
+        }
+
+        RESOURCE_KEYS = new long[SOCResourceConstants.MAXPLUSONE];
+
+        for (int rtype = SOCResourceConstants.MIN;
+                rtype < SOCResourceConstants.MAXPLUSONE; rtype++)
+        {
+            RESOURCE_KEYS[rtype] = rand.nextLong();
+        }
+
+        DEV_CARD_KEYS = new long[2][SOCDevCardConstants.MAXPLUSONE];
+
+        for (int age = SOCDevCardSet.OLD; age <= SOCDevCardSet.NEW; age++)
+        {
+            for (int ctype = SOCDevCardConstants.MIN;
+                    ctype < SOCDevCardConstants.MAXPLUSONE; ctype++)
+            {
+                DEV_CARD_KEYS[age][ctype] = rand.nextLong();
+            }
+        }
+
+        PLAYER_KEYS = new long[SOCGame.MAXPLAYERS][2];
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            PLAYER_KEYS[pn][0] = rand.nextLong() | 1L;
+            PLAYER_KEYS[pn][1] = rand.nextLong() | 1L;
+        }
+
+        STATE_KEYS = new long[3];
+
+        for (int i = 0; i < STATE_KEYS.length; i++)
+        {
+            STATE_KEYS[i] = rand.nextLong() | 1L;
+        }
+    }
+
+    /**
+     * @return the key for a piece
+     *
+     * @param pp  the piece
+     */
+    public static long getPieceKey(SOCPlayingPiece pp)
+    {
+        return PIECE_KEYS[pp.getType()][pp.getPlayer().getPlayerNumber()][pp.getCoordinates() & 0xFF];
+    }
+
+    /**
+     * @return the key for the robber being on a hex,
+     *         or 0 if the robber isn't on the board
+     *
+     * @param co  the coordinates of the hex
+     */
+    public static long getRobberKey(int co)
+    {
+        if (co < 0)
+        {
+            return 0L;
+        }
+
+        return ROBBER_KEYS[co & 0xFF];
+    }
+
+    /**
+     * @return the key for one of a resource.  a resource set's
+     *         hash is the sum of these keys times the amounts.
+     *
+     * @param rtype  the type of resource
+     */
+    public static long getResourceKey(int rtype)
+    {
+        return RESOURCE_KEYS[rtype];
+    }
+
+    /**
+     * @return the key for one of a type of dev card.  a dev card
+     *         set's hash is the sum of these keys times the amounts.
+     *
+     * @param age    either OLD or NEW
+     * @param ctype  the type of dev card
+     */
+    public static long getDevCardKey(int age, int ctype)
+    {
+        return DEV_CARD_KEYS[age][ctype];
+    }
+
+    /**
+     * @return the hash of what a player has in their hand
+     *
+     * @param pn            the number of the player
+     * @param resourceHash  the hash of their resource set
+     * @param devCardHash   the hash of their dev card set
+     */
+    public static long getPlayerHash(int pn, long resourceHash, long devCardHash)
+    {
+        return (resourceHash * PLAYER_KEYS[pn][0]) + (devCardHash * PLAYER_KEYS[pn][1]);
+    }
+
+    /**
+     * @return the hash of whose turn it is and what they're doing
+     *
+     * @param gameState   the game state
+     * @param pn          the number of the current player
+     * @param numDevCards the number of dev cards left
+     */
+    public static long getStateHash(int gameState, int pn, int numDevCards)
+    {
+        return (gameState * STATE_KEYS[0]) ^ ((pn + 1) * STATE_KEYS[1]) ^ (numDevCards * STATE_KEYS[2]);
+    }
+}
@@ -55,7 +55,7 @@ public class SOCUpdateRobotParams extends SOCMessage
     }
 
     /**
-     * UPDATEROBOTPARAMS sep maxGameLength sep2 maxETA sep2 etaBonusFactor sep2 adversarialFactor sep2 leaderAdversarialFactor sep2 devCardMultiplier sep2 threatMultiplier sep2 strategyType sep2 tradeFlag
+     * UPDATEROBOTPARAMS sep maxGameLength sep2 maxETA sep2 etaBonusFactor sep2 adversarialFactor sep2 leaderAdversarialFactor sep2 devCardMultiplier sep2 threatMultiplier sep2 strategyType sep2 tradeFlag sep2 playoutTime sep2 playoutThreads sep2 decisionTime
      *
      * @return the command string
      */
@@ -65,14 +65,14 @@ public class SOCUpdateRobotParams extends SOCMessage
     }
 
     /**
-     * UPDATEROBOTPARAMS sep maxGameLength sep2 maxETA sep2 etaBonusFactor sep2 adversarialFactor sep2 leaderAdversarialFactor sep2 devCardMultiplier sep2 threatMultiplier sep2 strategyType sep2 tradeFlag
+     * UPDATEROBOTPARAMS sep maxGameLength sep2 maxETA sep2 etaBonusFactor sep2 adversarialFactor sep2 leaderAdversarialFactor sep2 devCardMultiplier sep2 threatMultiplier sep2 strategyType sep2 tradeFlag sep2 playoutTime sep2 playoutThreads sep2 decisionTime
      *
      * @param par  the robot parameters
      * @return the command string
      */
     public static String toCmd(SOCRobotParameters par)
     {
-        return UPDATEROBOTPARAMS + sep + par.getMaxGameLength() + sep2 + par.getMaxETA() + sep2 + par.getETABonusFactor() + sep2 + par.getAdversarialFactor() + sep2 + par.getLeaderAdversarialFactor() + sep2 + par.getDevCardMultiplier() + sep2 + par.getThreatMultiplier() + sep2 + par.getStrategyType() + sep2 + par.getTradeFlag();
+        return UPDATEROBOTPARAMS + sep + par.getMaxGameLength() + sep2 + par.getMaxETA() + sep2 + par.getETABonusFactor() + sep2 + par.getAdversarialFactor() + sep2 + par.getLeaderAdversarialFactor() + sep2 + par.getDevCardMultiplier() + sep2 + par.getThreatMultiplier() + sep2 + par.getStrategyType() + sep2 + par.getTradeFlag() + sep2 + par.getPlayoutTime() + sep2 + par.getPlayoutThreads() + sep2 + par.getDecisionTime();
     }
 
     /**
@@ -92,6 +92,9 @@ public class SOCUpdateRobotParams extends SOCMessage
         float tm; // threatMultiplier
         int st; // strategyType
         int tf; // trade flag
+        int pt = SOCRobotParameters.DEFAULT_PLAYOUT_TIME; // playoutTime
+        int pth = 0; // playoutThreads
+        int dt = SOCRobotParameters.DEFAULT_DECISION_TIME; // decisionTime
 
         StringTokenizer stok = new StringTokenizer(s, sep2);
 
@@ -106,13 +109,27 @@ public class SOCUpdateRobotParams extends SOCMessage
             tm = (Float.valueOf(stok.nextToken())).floatValue();
             st = Integer.parseInt(stok.nextToken());
             tf = Integer.parseInt(stok.nextToken());
+
+            /**
+             * older servers don't send these
+             */
+            if (stok.hasMoreTokens())
+            {
+                pt = Integer.parseInt(stok.nextToken());
+                pth = Integer.parseInt(stok.nextToken());
+            }
+
+            if (stok.hasMoreTokens())
+            {
+                dt = Integer.parseInt(stok.nextToken());
+            }
         }
         catch (Exception e)
         {
             return null;
         }
 
-        return new SOCUpdateRobotParams(new SOCRobotParameters(mgl, me, ebf, af, laf, dcm, tm, st, tf));
+        return new SOCUpdateRobotParams(new SOCRobotParameters(mgl, me, ebf, af, laf, dcm, tm, st, tf, pt, pth, dt));
     }
 
     /**
@@ -0,0 +1,390 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.game.SOCBoard;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+
+/**
+ * Plans a chain of trades with the bank or ports that
+ * leaves a player able to build the most.
+ *
+ * The search is breadth first over every hand the player
+ * can trade their way to.  A hand is packed into a long,
+ * twelve bits per resource, so hands are compared without
+ * making any objects.  A hand isn't looked at any further if
+ * it is no better than one we've already seen, which is what
+ * keeps the search small; there's no other limit on it, so it
+ * finds the same hands the old trade tree did.  The arrays
+ * for the search are kept and reused the next time.
+ *
+ * @author agent
+ */
+public class SOCBankTradePlanner
+{
+    /**
+     * the number of bits for each resource in a packed hand
+     */
+    protected static final int BITS = 12;
+
+    /**
+     * the most of one resource that fits in a packed hand
+     */
+    protected static final int MAX_AMOUNT = (1 << (BITS - 1)) - 1;
+
+    /**
+     * the top bit of each resource in a packed hand.  it is
+     * always clear in a hand and is used when comparing hands.
+     */
+    protected static final long GUARD_BITS = 0x800L | (0x800L << 12) | (0x800L << 24) | (0x800L << 36) | (0x800L << 48);
+
+    /**
+     * the hands in the order they were found.  this is
+     * both the queue for the search and the list of hands
+     * that have been seen.
+     */
+    protected long[] hands;
+
+    /**
+     * the index of the hand that each hand was traded from
+     */
+    protected int[] parents;
+
+    /**
+     * the number of hands found in the last search
+     */
+    protected int numHands;
+
+    /**
+     * the indexes of the hands on the way to the best hand,
+     * starting after the first hand
+     */
+    protected int[] path;
+
+    /**
+     * the number of trades to get to the best hand
+     */
+    protected int numTrades;
+
+    /**
+     * how many of each resource it takes to trade for one
+     */
+    protected int[] tradeRatios;
+
+    /**
+     * constructor
+     */
+    public SOCBankTradePlanner()
+    {
+        hands = new long[64];
+        parents = new int[64];
+        path = new int[16];
+        tradeRatios = new int[SOCResourceConstants.WOOD + 1];
+        numHands = 0;
+        numTrades = 0;
+    }
+
+    /**
+     * @return the amount of a resource in a packed hand
+     *
+     * @param hand      the packed hand
+     * @param resource  the resource
+     */
+    protected static int getAmount(long hand, int resource)
+    {
+        return (int) (hand >> ((resource - SOCResourceConstants.CLAY) * BITS)) & MAX_AMOUNT;
+    }
+
+    /**
+     * @return a packed hand with one resource changed
+     *
+     * @param hand      the packed hand
+     * @param resource  the resource
+     * @param amount    how much to add, can be negative
+     */
+    protected static long add(long hand, int resource, int amount)
+    {
+        return hand + ((long) amount << ((resource - SOCResourceConstants.CLAY) * BITS));
+    }
+
+    /**
+     * @return true if every resource in hand1 is no more than in hand2
+     *
+     * @param hand1  a packed hand
+     * @param hand2  a packed hand
+     */
+    protected static boolean lte(long hand1, long hand2)
+    {
+        return (((hand2 | GUARD_BITS) - hand1) & GUARD_BITS) == GUARD_BITS;
+    }
+
+    /**
+     * find the best hand the player can trade their way to,
+     * and the trades to get there.  the hand is scored the
+     * same way SOCRobotBrain used to score trade outcomes:
+     * 2 for each settlement, then 1 for each road, then 2
+     * for each city, counting only the pieces the player
+     * has and has somewhere to put.
+     *
+     * A hand with more than MAX_AMOUNT of a resource, far
+     * more than a game ever deals out, isn't planned for.
+     *
+     * @param player  the player
+     * @return the number of trades to make
+     */
+    public int planTrades(SOCPlayer player)
+    {
+        SOCResourceSet resources = player.getResources();
+        long start = 0;
+
+        for (int resource = SOCResourceConstants.CLAY;
+                resource <= SOCResourceConstants.WOOD; resource++)
+        {
+            if (resources.getAmount(resource) > MAX_AMOUNT)
+            {
+                numHands = 0;
+                numTrades = 0;
+
+                return 0;
+            }
+
+            start = add(start, resource, resources.getAmount(resource));
+        }
+
+        for (int resource = SOCResourceConstants.CLAY;
+                resource <= SOCResourceConstants.WOOD; resource++)
+        {
+            if (player.getPortFlag(resource))
+            {
+                tradeRatios[resource] = 2;
+            }
+            else if (player.getPortFlag(SOCBoard.MISC_PORT))
+            {
+                tradeRatios[resource] = 3;
+            }
+            else
+            {
+                tradeRatios[resource] = 4;
+            }
+        }
+
+        boolean settlements = (player.getNumPieces(SOCPlayingPiece.SETTLEMENT) >= 1) && player.hasPotentialSettlement();
+        boolean roads = (player.getNumPieces(SOCPlayingPiece.ROAD) >= 1) && player.hasPotentialRoad();
+        boolean cities = (player.getNumPieces(SOCPlayingPiece.CITY) >= 1) && player.hasPotentialCity();
+
+        /**
+         * search every hand we can trade our way to
+         */
+        hands[0] = start;
+        parents[0] = -1;
+        numHands = 1;
+
+        int bestHand = 0;
+        int bestScore = score(start, settlements, roads, cities);
+
+        for (int current = 0; current < numHands; current++)
+        {
+            long hand = hands[current];
+
+            for (int giveResource = SOCResourceConstants.CLAY;
+                    giveResource <= SOCResourceConstants.WOOD;
+                    giveResource++)
+            {
+                int tradeRatio = tradeRatios[giveResource];
+
+                if (getAmount(hand, giveResource) < tradeRatio)
+                {
+                    continue;
+                }
+
+                for (int getResource = SOCResourceConstants.CLAY;
+                        getResource <= SOCResourceConstants.WOOD;
+                        getResource++)
+                {
+                    if (getResource == giveResource)
+                    {
+                        continue;
+                    }
+
+                    if (getAmount(hand, getResource) == MAX_AMOUNT)
+                    {
+                        continue;
+                    }
+
+                    long newHand = add(add(hand, giveResource, -tradeRatio), getResource, 1);
+
+                    if (isCovered(newHand))
+                    {
+                        continue;
+                    }
+
+                    if (numHands == hands.length)
+                    {
+                        grow();
+                    }
+
+                    hands[numHands] = newHand;
+                    parents[numHands] = current;
+
+                    int newScore = score(newHand, settlements, roads, cities);
+
+                    if (newScore > bestScore)
+                    {
+                        bestHand = numHands;
+                        bestScore = newScore;
+                    }
+
+                    numHands++;
+                }
+            }
+        }
+
+        /**
+         * follow the parents back to the first hand
+         */
+        numTrades = 0;
+
+        for (int i = bestHand; i != 0; i = parents[i])
+        {
+            numTrades++;
+        }
+
+        if (path.length < numTrades)
+        {
+            path = new int[numTrades * 2];
+        }
+
+        int step = numTrades;
+
+        for (int i = bestHand; i != 0; i = parents[i])
+        {
+            step--;
+            path[step] = i;
+        }
+
+        return numTrades;
+    }
+
+    /**
+     * @return true if a hand is no better than one we've seen
+     *
+     * @param hand  the packed hand
+     */
+    protected boolean isCovered(long hand)
+    {
+        for (int i = 0; i < numHands; i++)
+        {
+            if (lte(hand, hands[i]))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * make the search arrays bigger
+     */
+    protected void grow()
+    {
+        long[] newHands = new long[hands.length * 2];
+        int[] newParents = new int[parents.length * 2];
+        System.arraycopy(hands, 0, newHands, 0, numHands);
+        System.arraycopy(parents, 0, newParents, 0, numHands);
+        hands = newHands;
+        parents = newParents;
+    }
+
+    /**
+     * @return how much a hand lets us build
+     *
+     * @param hand         the packed hand
+     * @param settlements  true if we can build settlements
+     * @param roads        true if we can build roads
+     * @param cities       true if we can build cities
+     */
+    protected static int score(long hand, boolean settlements, boolean roads, boolean cities)
+    {
+        int clay = getAmount(hand, SOCResourceConstants.CLAY);
+        int ore = getAmount(hand, SOCResourceConstants.ORE);
+        int sheep = getAmount(hand, SOCResourceConstants.SHEEP);
+        int wheat = getAmount(hand, SOCResourceConstants.WHEAT);
+        int wood = getAmount(hand, SOCResourceConstants.WOOD);
+        int score = 0;
+
+        if (settlements)
+        {
+            int n = Math.min(Math.min(clay, sheep), Math.min(wheat, wood));
+            score += (2 * n);
+            clay -= n;
+            sheep -= n;
+            wheat -= n;
+            wood -= n;
+        }
+
+        if (roads)
+        {
+            int n = Math.min(clay, wood);
+            score += n;
+        }
+
+        if (cities)
+        {
+            int n = Math.min(ore / 3, wheat / 2);
+            score += (2 * n);
+        }
+
+        return score;
+    }
+
+    /**
+     * get one of the trades from the last plan
+     *
+     * @param trade  which trade, starting at 0
+     * @param give   set to what we give the bank
+     * @param get    set to what we get from the bank
+     */
+    public void getTrade(int trade, SOCResourceSet give, SOCResourceSet get)
+    {
+        long hand = hands[path[trade]];
+        long prevHand = hands[parents[path[trade]]];
+        give.clear();
+        get.clear();
+
+        for (int resource = SOCResourceConstants.CLAY;
+                resource <= SOCResourceConstants.WOOD; resource++)
+        {
+            int diff = getAmount(hand, resource) - getAmount(prevHand, resource);
+
+            if (diff < 0)
+            {
+                give.setAmount(-diff, resource);
+            }
+            else if (diff > 0)
+            {
+                get.setAmount(diff, resource);
+            }
+        }
+    }
+}
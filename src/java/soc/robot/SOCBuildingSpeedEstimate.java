@@ -20,7 +20,7 @@
  **/
 package soc.robot;
 
-import soc.disableDebug.D;
+import soc.debug.Log;
 
 import soc.game.SOCBoard;
 import soc.game.SOCGame;
@@ -41,6 +41,11 @@ import java.util.Vector;
  */
 public class SOCBuildingSpeedEstimate
 {
+    /**
+     * the log for building speed estimates
+     */
+    static final Log log = Log.getLog("robot.estimate");
+
     public static final int ROAD = 0;
     public static final int SETTLEMENT = 1;
     public static final int CITY = 2;
@@ -301,9 +306,13 @@ public class SOCBuildingSpeedEstimate
      */
     public void recalculateRollsPerResource(SOCPlayerNumbers numbers, int robberHex)
     {
-        D.ebugPrintln("@@@@@@@@ recalculateRollsPerResource");
-        D.ebugPrintln("@@@@@@@@ numbers = " + numbers);
-        D.ebugPrintln("@@@@@@@@ robberHex = " + Integer.toHexString(robberHex));
+        if (log.isDebugEnabled())
+        {
+            log.debug("@@@@@@@@ recalculateRollsPerResource");
+            log.debug("@@@@@@@@ numbers = {}", numbers);
+            log.debug("@@@@@@@@ robberHex = " + Integer.toHexString(robberHex));
+        }
+
         recalc = true;
 
         /**
@@ -312,7 +321,10 @@ public class SOCBuildingSpeedEstimate
         for (int resource = SOCResourceConstants.CLAY;
                 resource <= SOCResourceConstants.WOOD; resource++)
         {
-            D.ebugPrintln("resource: " + resource);
+            if (log.isDebugEnabled())
+            {
+                log.debug("resource: " + resource);
+            }
 
             float totalProbability = 0.0f;
 
@@ -324,7 +336,10 @@ public class SOCBuildingSpeedEstimate
                 totalProbability += SOCNumberProbabilities.FLOAT_VALUES[number.intValue()];
             }
 
-            D.ebugPrintln("totalProbability: " + totalProbability);
+            if (log.isDebugEnabled())
+            {
+                log.debug("totalProbability: " + totalProbability);
+            }
 
             if (totalProbability != 0.0f)
             {
@@ -335,7 +350,10 @@ public class SOCBuildingSpeedEstimate
                 rollsPerResource[resource] = 55555;
             }
 
-            D.ebugPrintln("rollsPerResource: " + rollsPerResource[resource]);
+            if (log.isDebugEnabled())
+            {
+                log.debug("rollsPerResource: " + rollsPerResource[resource]);
+            }
         }
     }
 
@@ -436,6 +454,96 @@ public class SOCBuildingSpeedEstimate
         return rollsPerResource;
     }
 
+    /**
+     * set the rolls per resource from numbers that were
+     * worked out somewhere else.  only the fast calculations
+     * can be used after this, because the resources for
+     * each roll aren't updated.
+     *
+     * @param rolls  the rolls it takes to get each resource
+     */
+    public void setRollsPerResource(int[] rolls)
+    {
+        recalc = true;
+
+        for (int resource = SOCResourceConstants.CLAY;
+                resource <= SOCResourceConstants.WOOD; resource++)
+        {
+            rollsPerResource[resource] = rolls[resource];
+        }
+    }
+
+    /**
+     * this figures out the fewest rolls it could possibly take
+     * to get the target set of resources starting with nothing.
+     * each roll brings in at most one of each resource and every
+     * trade gives up at least one more card than it gets, so
+     * until the cards coming in cover the target plus what
+     * the trades will cost we know we can't be done.
+     * calculateRollsFast never returns fewer rolls than this.
+     *
+     * @param targetResources  the target resources
+     * @param cutoff           stop counting after this many rolls
+     * @param ports            a list of port flags
+     *
+     * @return the number of rolls, or cutoff + 1 if it is more
+     *         than the cutoff
+     */
+    public int getRollsLowerBound(SOCResourceSet targetResources, int cutoff, boolean[] ports)
+    {
+        int tradeCost;
+
+        if (ports[SOCBoard.CLAY_PORT] || ports[SOCBoard.ORE_PORT] || ports[SOCBoard.SHEEP_PORT] || ports[SOCBoard.WHEAT_PORT] || ports[SOCBoard.WOOD_PORT])
+        {
+            tradeCost = 1;
+        }
+        else if (ports[SOCBoard.MISC_PORT])
+        {
+            tradeCost = 2;
+        }
+        else
+        {
+            tradeCost = 3;
+        }
+
+        int target = targetResources.getTotal();
+
+        for (int rolls = 1; rolls <= cutoff; rolls++)
+        {
+            int total = 0;
+            int missing = 0;
+
+            for (int resource = SOCResourceConstants.CLAY;
+                    resource <= SOCResourceConstants.WOOD; resource++)
+            {
+                int amount;
+
+                if (rollsPerResource[resource] == 0)
+                {
+                    amount = rolls;
+                }
+                else
+                {
+                    amount = rolls / rollsPerResource[resource];
+                }
+
+                total += amount;
+
+                if (amount < targetResources.getAmount(resource))
+                {
+                    missing += (targetResources.getAmount(resource) - amount);
+                }
+            }
+
+            if ((total - (tradeCost * missing)) >= target)
+            {
+                return rolls;
+            }
+        }
+
+        return cutoff + 1;
+    }
+
     /**
      * this figures out how many rolls it would take this
      * player to get the target set of resources given
@@ -707,9 +815,9 @@ public class SOCBuildingSpeedEstimate
      */
     protected SOCResSetBuildTimePair calculateRollsAccurate(SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports) throws CutoffExceededException
     {
-        D.ebugPrintln("calculateRollsAccurate");
-        D.ebugPrintln("  start: " + startingResources);
-        D.ebugPrintln("  target: " + targetResources);
+        log.debug("calculateRollsAccurate");
+        log.debug("  start: {}", startingResources);
+        log.debug("  target: {}", targetResources);
 
         SOCResourceSet ourResources = startingResources.copy();
         int rolls = 0;
@@ -728,10 +836,10 @@ public class SOCBuildingSpeedEstimate
 
         while (!targetReached)
         {
-            if (D.ebugOn)
+            if (log.isDebugEnabled())
             {
-                D.ebugPrintln("roll: " + rolls);
-                D.ebugPrintln("resourcesOnRoll[lastRoll]:");
+                log.debug("roll: " + rolls);
+                log.debug("resourcesOnRoll[lastRoll]:");
 
                 Enumeration roltEnum = resourcesOnRoll[lastRoll].keys();
 
@@ -739,20 +847,23 @@ public class SOCBuildingSpeedEstimate
                 {
                     SOCResourceSet rs = (SOCResourceSet) roltEnum.nextElement();
                     Float prob = (Float) resourcesOnRoll[lastRoll].get(rs);
-                    D.ebugPrintln("---- prob:" + prob);
-                    D.ebugPrintln("---- rsrcs:" + rs);
-                    D.ebugPrintln();
+                    log.debug("---- prob:{}", prob);
+                    log.debug("---- rsrcs:{}", rs);
                 }
 
-                D.ebugPrintln("targetReachedProb: " + targetReachedProb);
-                D.ebugPrintln("===================================");
+                log.debug("targetReachedProb: " + targetReachedProb);
+                log.debug("===================================");
             }
 
             rolls++;
 
             if (rolls > cutoff)
             {
-                D.ebugPrintln("startingResources=" + startingResources + "\ntargetResources=" + targetResources + "\ncutoff=" + cutoff + "\nourResources=" + ourResources);
+                if (log.isDebugEnabled())
+                {
+                    log.debug("startingResources=" + startingResources + "\ntargetResources=" + targetResources + "\ncutoff=" + cutoff + "\nourResources=" + ourResources);
+                }
+
                 throw new CutoffExceededException();
             }
 
@@ -904,9 +1015,13 @@ public class SOCBuildingSpeedEstimate
                     //
                     if (newResources.contains(targetResources))
                     {
-                        D.ebugPrintln("-----> TARGET HIT *");
-                        D.ebugPrintln("newResources: " + newResources);
-                        D.ebugPrintln("newProb: " + newProb);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("-----> TARGET HIT *");
+                            log.debug("newResources: {}", newResources);
+                            log.debug("newProb: " + newProb);
+                        }
+
                         targetReachedProb += newProb;
 
                         if (targetReachedResources == null)
@@ -937,14 +1052,14 @@ public class SOCBuildingSpeedEstimate
             resourcesOnRoll[thisRoll].clear();
         }
 
-        if (D.ebugOn)
+        if (log.isDebugEnabled())
         {
             float probSum = (float) 0.0;
-            D.ebugPrintln("**************** TARGET REACHED ************");
-            D.ebugPrintln("targetReachedResources: " + targetReachedResources);
-            D.ebugPrintln("targetReachedProb: " + targetReachedProb);
-            D.ebugPrintln("roll: " + rolls);
-            D.ebugPrintln("resourcesOnRoll[lastRoll]:");
+            log.debug("**************** TARGET REACHED ************");
+            log.debug("targetReachedResources: {}", targetReachedResources);
+            log.debug("targetReachedProb: " + targetReachedProb);
+            log.debug("roll: " + rolls);
+            log.debug("resourcesOnRoll[lastRoll]:");
 
             Enumeration roltEnum = resourcesOnRoll[lastRoll].keys();
 
@@ -953,13 +1068,12 @@ public class SOCBuildingSpeedEstimate
                 SOCResourceSet rs = (SOCResourceSet) roltEnum.nextElement();
                 Float prob = (Float) resourcesOnRoll[lastRoll].get(rs);
                 probSum += prob.floatValue();
-                D.ebugPrintln("---- prob:" + prob);
-                D.ebugPrintln("---- rsrcs:" + rs);
-                D.ebugPrintln();
+                log.debug("---- prob:{}", prob);
+                log.debug("---- rsrcs:{}", rs);
             }
 
-            D.ebugPrintln("probSum = " + probSum);
-            D.ebugPrintln("===================================");
+            log.debug("probSum = " + probSum);
+            log.debug("===================================");
         }
 
         return (new SOCResSetBuildTimePair(targetReachedResources, rolls));
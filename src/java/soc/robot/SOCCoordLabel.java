@@ -0,0 +1,112 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.game.SOCBoard;
+
+
+/**
+ * A node or edge on the board, to be shown the way players
+ * see it ("5/9/-" and so on) only when it's turned into a
+ * string.  Handed to the DebugRecorder so that recording
+ * where a piece is doesn't cost the board lookups unless
+ * someone asks to see the recording.
+ *
+ * @author agent
+ */
+public class SOCCoordLabel
+{
+    protected SOCBoard board;
+    protected int coord;
+    protected boolean isNode;
+
+    /**
+     * a second label shown after this one, and
+     * what goes between them; null for none
+     */
+    protected String between;
+    protected SOCCoordLabel then;
+
+    /**
+     * constructor
+     *
+     * @param b   the board
+     * @param c   the coordinates
+     * @param n   true for a node, false for an edge
+     */
+    protected SOCCoordLabel(SOCBoard b, int c, boolean n)
+    {
+        board = b;
+        coord = c;
+        isNode = n;
+    }
+
+    /**
+     * @return a label for a node
+     *
+     * @param b  the board
+     * @param c  the node's coordinates
+     */
+    public static SOCCoordLabel node(SOCBoard b, int c)
+    {
+        return new SOCCoordLabel(b, c, true);
+    }
+
+    /**
+     * @return a label for an edge
+     *
+     * @param b  the board
+     * @param c  the edge's coordinates
+     */
+    public static SOCCoordLabel edge(SOCBoard b, int c)
+    {
+        return new SOCCoordLabel(b, c, false);
+    }
+
+    /**
+     * @return a label that shows two labels, one after the other
+     *
+     * @param a   the first label
+     * @param s   what goes between them
+     * @param b   the second label
+     */
+    public static SOCCoordLabel pair(SOCCoordLabel a, String s, SOCCoordLabel b)
+    {
+        SOCCoordLabel p = new SOCCoordLabel(a.board, a.coord, a.isNode);
+        p.between = s;
+        p.then = b;
+
+        return p;
+    }
+
+    /**
+     * @return the coordinates as the board shows them
+     */
+    public String toString()
+    {
+        String s = isNode ? board.nodeCoordToString(coord) : board.edgeCoordToString(coord);
+
+        if (then != null)
+        {
+            s = s + between + then;
+        }
+
+        return s;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.game.SOCGame;
+
+import java.util.Hashtable;
+
+
+/**
+ * Results of the player trackers' analysis that every brain
+ * in a game can share, so robots on the same host sitting in
+ * the same game don't each work them out again.
+ *
+ * Only results that are kept by a key holding everything
+ * they depend on are shared: the win game ETAs and the
+ * longest road ETAs.  Each brain still has its own trackers,
+ * since their possible pieces are tied to the brain's own
+ * copy of the game.
+ *
+ * There is one cache for each game on this host.  A brain
+ * gets it with join() when it sits down, and gives it back
+ * with leave() when it's done; the cache goes away when the
+ * last brain leaves.
+ *
+ * @author agent
+ */
+public class SOCGameAnalysisCache
+{
+    /**
+     * the caches for each game, by game name
+     */
+    protected static Hashtable caches = new Hashtable();
+
+    /**
+     * how many brains are using this cache
+     */
+    protected int numBrains;
+
+    /**
+     * the win game ETA results for each player
+     */
+    protected Hashtable[] winGameETAMemos;
+
+    /**
+     * the longest road ETA results for each player
+     */
+    protected Hashtable[] longestRoadETAMemos;
+
+    /**
+     * constructor
+     */
+    protected SOCGameAnalysisCache()
+    {
+        numBrains = 0;
+        winGameETAMemos = new Hashtable[SOCGame.MAXPLAYERS];
+        longestRoadETAMemos = new Hashtable[SOCGame.MAXPLAYERS];
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            winGameETAMemos[pn] = new Hashtable();
+            longestRoadETAMemos[pn] = new Hashtable();
+        }
+    }
+
+    /**
+     * get the cache for a game, making it if it isn't there
+     *
+     * @param gameName  the name of the game
+     * @return the cache
+     */
+    public static synchronized SOCGameAnalysisCache join(String gameName)
+    {
+        SOCGameAnalysisCache cache = (SOCGameAnalysisCache) caches.get(gameName);
+
+        if (cache == null)
+        {
+            cache = new SOCGameAnalysisCache();
+            caches.put(gameName, cache);
+        }
+
+        cache.numBrains++;
+
+        return cache;
+    }
+
+    /**
+     * give back the cache for a game
+     *
+     * @param gameName  the name of the game
+     */
+    public static synchronized void leave(String gameName)
+    {
+        SOCGameAnalysisCache cache = (SOCGameAnalysisCache) caches.get(gameName);
+
+        if (cache != null)
+        {
+            cache.numBrains--;
+
+            if (cache.numBrains <= 0)
+            {
+                caches.remove(gameName);
+            }
+        }
+    }
+
+    /**
+     * @return the number of games with caches
+     */
+    public static synchronized int getNumCaches()
+    {
+        return caches.size();
+    }
+
+    /**
+     * @return the win game ETA results for a player
+     *
+     * @param pn  the player number
+     */
+    public Hashtable getWinGameETAMemo(int pn)
+    {
+        return winGameETAMemos[pn];
+    }
+
+    /**
+     * @return the longest road ETA results for a player
+     *
+     * @param pn  the player number
+     */
+    public Hashtable getLongestRoadETAMemo(int pn)
+    {
+        return longestRoadETAMemos[pn];
+    }
+}
@@ -0,0 +1,526 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.debug.Log;
+import soc.disableDebug.D;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+import soc.util.CutoffExceededException;
+
+import java.util.Enumeration;
+import java.util.Vector;
+
+
+/**
+ * Works out where a robot should put its two initial settlements.
+ *
+ * The numbers, resources and ports around every node are looked
+ * up once when the planner is made, so scoring a pair of nodes
+ * doesn't have to go back to the board.  Pairs are scored on the
+ * robot worker pool, and a pair is dropped as soon as we know it
+ * can't beat the best pair found so far.  The pair that is picked
+ * is the same one the old one-pair-at-a-time scan picked.
+ *
+ * @author agent
+ */
+public class SOCInitialPlacementPlanner
+{
+    static final Log log = Log.getLog("robot.placement");
+
+    /**
+     * the board the tables are for
+     */
+    protected SOCBoard board;
+
+    /**
+     * the resources of the land hexes touching each node
+     */
+    protected int[][] hexResources;
+
+    /**
+     * the probabilities of the numbers on the land hexes
+     * touching each node, in the same order as hexResources
+     */
+    protected float[][] hexProbs;
+
+    /**
+     * the sum of the int probabilities of the numbers
+     * touching each node
+     */
+    protected int[] probTotals;
+
+    /**
+     * the port flags for each node
+     */
+    protected boolean[][] portFlags;
+
+    /**
+     * the nodes next to each node
+     */
+    protected int[][] adjacentNodes;
+
+    /**
+     * make the tables for a board.  the board's numbers
+     * and ports must already be set.
+     *
+     * @param bd  the board
+     */
+    public SOCInitialPlacementPlanner(SOCBoard bd)
+    {
+        board = bd;
+        hexResources = new int[SOCBoard.MAXNODEPLUSONE][];
+        hexProbs = new float[SOCBoard.MAXNODEPLUSONE][];
+        probTotals = new int[SOCBoard.MAXNODEPLUSONE];
+        portFlags = new boolean[SOCBoard.MAXNODEPLUSONE][];
+        adjacentNodes = new int[SOCBoard.MAXNODEPLUSONE][];
+
+        for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+        {
+            if (!board.isNodeOnBoard(node))
+            {
+                continue;
+            }
+
+            Vector hexes = SOCBoard.getAdjacentHexesToNode(node);
+            int[] resources = new int[hexes.size()];
+            float[] probs = new float[hexes.size()];
+            int numLand = 0;
+            int probTotal = 0;
+            Enumeration hexesEnum = hexes.elements();
+
+            while (hexesEnum.hasMoreElements())
+            {
+                int hex = ((Integer) hexesEnum.nextElement()).intValue();
+                int number = board.getNumberOnHexFromCoord(hex);
+                int resource = board.getHexTypeFromCoord(hex);
+                probTotal += SOCNumberProbabilities.INT_VALUES[number];
+
+                if ((resource >= SOCResourceConstants.CLAY) && (resource <= SOCResourceConstants.WOOD))
+                {
+                    resources[numLand] = resource;
+                    probs[numLand] = SOCNumberProbabilities.FLOAT_VALUES[number];
+                    numLand++;
+                }
+            }
+
+            hexResources[node] = new int[numLand];
+            hexProbs[node] = new float[numLand];
+            System.arraycopy(resources, 0, hexResources[node], 0, numLand);
+            System.arraycopy(probs, 0, hexProbs[node], 0, numLand);
+            probTotals[node] = probTotal;
+
+            Integer nodeInt = new Integer(node);
+            portFlags[node] = new boolean[SOCBoard.WOOD_PORT + 1];
+
+            for (int portType = SOCBoard.MISC_PORT;
+                    portType <= SOCBoard.WOOD_PORT; portType++)
+            {
+                portFlags[node][portType] = board.getPortCoordinates(portType).contains(nodeInt);
+            }
+
+            Vector nodes = SOCBoard.getAdjacentNodesToNode(node);
+            adjacentNodes[node] = new int[nodes.size()];
+
+            for (int i = 0; i < nodes.size(); i++)
+            {
+                adjacentNodes[node][i] = ((Integer) nodes.elementAt(i)).intValue();
+            }
+        }
+    }
+
+    /**
+     * @return the board the tables are for
+     */
+    public SOCBoard getBoard()
+    {
+        return board;
+    }
+
+    /**
+     * @return true if the node is in the tables
+     *
+     * @param node  the node coordinates
+     */
+    protected boolean isInTables(int node)
+    {
+        return (node >= 0) && (node < SOCBoard.MAXNODEPLUSONE) && (hexResources[node] != null);
+    }
+
+    /**
+     * @return true if two nodes are next to each other
+     *
+     * @param node1  the first node
+     * @param node2  the second node
+     */
+    public boolean isAdjacent(int node1, int node2)
+    {
+        if (!isInTables(node1))
+        {
+            return false;
+        }
+
+        for (int i = 0; i < adjacentNodes[node1].length; i++)
+        {
+            if (adjacentNodes[node1][i] == node2)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the sum of the int probabilities of the numbers
+     * touching settlements on one or two nodes
+     *
+     * @param node1  the first node
+     * @param node2  the second node, or -1 for just the first
+     */
+    public int getProbTotal(int node1, int node2)
+    {
+        int probTotal = 0;
+
+        if (isInTables(node1))
+        {
+            probTotal += probTotals[node1];
+        }
+
+        if (isInTables(node2))
+        {
+            probTotal += probTotals[node2];
+        }
+
+        return probTotal;
+    }
+
+    /**
+     * fill in the port flags for settlements on one or two nodes
+     *
+     * @param ports  the port flags to fill in
+     * @param node1  the first node
+     * @param node2  the second node, or -1 for just the first
+     */
+    public void getPorts(boolean[] ports, int node1, int node2)
+    {
+        for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT;
+                portType++)
+        {
+            ports[portType] = (isInTables(node1) && portFlags[node1][portType]) || (isInTables(node2) && portFlags[node2][portType]);
+        }
+    }
+
+    /**
+     * fill in the rolls per resource for settlements on one
+     * or two nodes.  this comes out the same as calling
+     * SOCBuildingSpeedEstimate.recalculateRollsPerResource
+     * with the numbers for the nodes.
+     *
+     * @param rolls  the rolls per resource to fill in
+     * @param node1  the first node
+     * @param node2  the second node, or -1 for just the first
+     */
+    public void getRollsPerResource(int[] rolls, int node1, int node2)
+    {
+        for (int resource = SOCResourceConstants.CLAY;
+                resource <= SOCResourceConstants.WOOD; resource++)
+        {
+            float totalProbability = 0.0f;
+
+            if (isInTables(node1))
+            {
+                for (int i = 0; i < hexResources[node1].length; i++)
+                {
+                    if (hexResources[node1][i] == resource)
+                    {
+                        totalProbability += hexProbs[node1][i];
+                    }
+                }
+            }
+
+            if (isInTables(node2))
+            {
+                for (int i = 0; i < hexResources[node2].length; i++)
+                {
+                    if (hexResources[node2][i] == resource)
+                    {
+                        totalProbability += hexProbs[node2][i];
+                    }
+                }
+            }
+
+            if (totalProbability != 0.0f)
+            {
+                rolls[resource] = Math.round(1.0f / totalProbability);
+            }
+            else
+            {
+                rolls[resource] = 55555;
+            }
+        }
+    }
+
+    /**
+     * find the pair of nodes where two settlements would
+     * let the player build the fastest.  ties go to the pair
+     * touching the more likely numbers, and then to the pair
+     * that comes first.
+     *
+     * @param player  the player
+     * @return the first node, the second node, and the speed
+     *         of the pair.  the nodes are 0 if no pair is
+     *         faster than 4 * DEFAULT_ROLL_LIMIT.
+     */
+    public int[] planSettlementPair(SOCPlayer player)
+    {
+        Vector legalNodes = new Vector();
+
+        for (int node = SOCBoard.MINNODE; node < SOCBoard.MAXNODE; node++)
+        {
+            if (player.isPotentialSettlement(node) && isInTables(node))
+            {
+                legalNodes.addElement(new Integer(node));
+            }
+        }
+
+        int[] nodes = new int[legalNodes.size()];
+
+        for (int i = 0; i < nodes.length; i++)
+        {
+            nodes[i] = ((Integer) legalNodes.elementAt(i)).intValue();
+        }
+
+        /**
+         * best is the speed, prob total, first node and second
+         * node of the best pair so far.  the second node starts
+         * out at -1 so that a tie with the starting speed and
+         * prob total doesn't count as a better pair.
+         */
+        int[] best = { 4 * SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT, 0, 0, -1 };
+        int[] next = new int[1];
+        int numTasks = Math.max(1, Math.min(SOCRobotWorkerPool.getMaxThreads(), nodes.length));
+        Runnable[] tasks = new Runnable[numTasks];
+
+        for (int i = 0; i < numTasks; i++)
+        {
+            tasks[i] = new PairTask(nodes, next, best);
+        }
+
+        try
+        {
+            SOCRobotWorkerPool.getPool().runAll(tasks);
+        }
+        catch (RuntimeException e)
+        {
+            /**
+             * some pairs may not have been scored, so go
+             * through them all again on this thread.  isBetterPair
+             * doesn't depend on the order pairs are tried in.
+             */
+            log.warn("pairing on the worker pool failed, pairing on this thread", e);
+            next[0] = 0;
+            new PairTask(nodes, next, best).run();
+        }
+
+        int[] result = new int[3];
+
+        if (best[3] < 0)
+        {
+            result[0] = 0;
+            result[1] = 0;
+        }
+        else
+        {
+            result[0] = best[2];
+            result[1] = best[3];
+        }
+
+        result[2] = best[0];
+        D.ebugPrintln("firstSettlement = " + Integer.toHexString(result[0]));
+        D.ebugPrintln("secondSettlement = " + Integer.toHexString(result[1]));
+        D.ebugPrintln("bestSpeed = " + best[0]);
+        D.ebugPrintln("bestProbTotal = " + best[1]);
+
+        return result;
+    }
+
+    /**
+     * @return true if a pair is better than the best pair so far
+     *
+     * @param best        the best pair so far
+     * @param speed       the speed of the pair
+     * @param probTotal   the prob total of the pair
+     * @param firstNode   the first node of the pair
+     * @param secondNode  the second node of the pair
+     */
+    protected static boolean isBetterPair(int[] best, int speed, int probTotal, int firstNode, int secondNode)
+    {
+        if (speed != best[0])
+        {
+            return speed < best[0];
+        }
+
+        if (probTotal != best[1])
+        {
+            return probTotal > best[1];
+        }
+
+        if (firstNode != best[2])
+        {
+            return firstNode < best[2];
+        }
+
+        return secondNode < best[3];
+    }
+
+    /**
+     * scores pairs until the first nodes run out.  All of the
+     * tasks in a batch share the list of nodes and the best pair.
+     */
+    class PairTask implements Runnable
+    {
+        int[] nodes;
+        int[] next;
+        int[] best;
+
+        PairTask(int[] nd, int[] nx, int[] bt)
+        {
+            nodes = nd;
+            next = nx;
+            best = bt;
+        }
+
+        public void run()
+        {
+            SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate();
+            SOCResourceSet emptySet = new SOCResourceSet();
+            boolean[] ports = new boolean[SOCBoard.WOOD_PORT + 1];
+            int[] rolls = new int[SOCResourceConstants.WOOD + 1];
+
+            while (true)
+            {
+                int i;
+
+                synchronized (next)
+                {
+                    i = next[0];
+
+                    if (i >= nodes.length)
+                    {
+                        return;
+                    }
+
+                    next[0]++;
+                }
+
+                int firstNode = nodes[i];
+
+                for (int j = i + 1; j < nodes.length; j++)
+                {
+                    int secondNode = nodes[j];
+
+                    if (isAdjacent(secondNode, firstNode))
+                    {
+                        continue;
+                    }
+
+                    int probTotal = getProbTotal(firstNode, secondNode);
+                    int limit;
+
+                    synchronized (best)
+                    {
+                        limit = best[0];
+
+                        if (!isBetterPair(best, limit, probTotal, firstNode, secondNode))
+                        {
+                            limit--;
+                        }
+                    }
+
+                    getRollsPerResource(rolls, firstNode, secondNode);
+                    getPorts(ports, firstNode, secondNode);
+                    estimate.setRollsPerResource(rolls);
+
+                    int speed = getSpeed(estimate, emptySet, ports, limit);
+
+                    if (speed <= limit)
+                    {
+                        synchronized (best)
+                        {
+                            if (isBetterPair(best, speed, probTotal, firstNode, secondNode))
+                            {
+                                best[0] = speed;
+                                best[1] = probTotal;
+                                best[2] = firstNode;
+                                best[3] = secondNode;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * figure out the total rolls it takes to build a settlement,
+     * a city, a card and a road from nothing.  the cheap lower
+     * bound is tried first, so most pairs that can't be under
+     * the limit never get the full calculation.
+     *
+     * @param estimate  the estimate with the rolls per resource set
+     * @param emptySet  an empty resource set
+     * @param ports     the port flags
+     * @param limit     the most rolls that matter
+     * @return the total rolls, or more than the limit
+     */
+    protected static int getSpeed(SOCBuildingSpeedEstimate estimate, SOCResourceSet emptySet, boolean[] ports, int limit)
+    {
+        int lowerBound = estimate.getRollsLowerBound(SOCGame.SETTLEMENT_SET, limit, ports);
+        lowerBound += estimate.getRollsLowerBound(SOCGame.CITY_SET, limit - lowerBound, ports);
+        lowerBound += estimate.getRollsLowerBound(SOCGame.CARD_SET, limit - lowerBound, ports);
+        lowerBound += estimate.getRollsLowerBound(SOCGame.ROAD_SET, limit - lowerBound, ports);
+
+        if (lowerBound > limit)
+        {
+            return limit + 1;
+        }
+
+        int speed = 0;
+
+        try
+        {
+            speed += estimate.calculateRollsFast(emptySet, SOCGame.SETTLEMENT_SET, limit - speed, ports).getRolls();
+            speed += estimate.calculateRollsFast(emptySet, SOCGame.CITY_SET, limit - speed, ports).getRolls();
+            speed += estimate.calculateRollsFast(emptySet, SOCGame.CARD_SET, limit - speed, ports).getRolls();
+            speed += estimate.calculateRollsFast(emptySet, SOCGame.ROAD_SET, limit - speed, ports).getRolls();
+        }
+        catch (CutoffExceededException e)
+        {
+            return limit + 1;
+        }
+
+        return speed;
+    }
+}
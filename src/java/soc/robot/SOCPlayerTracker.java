@@ -20,7 +20,7 @@
  **/
 package soc.robot;
 
-import soc.disableDebug.D;
+import soc.debug.Log;
 
 import soc.game.SOCBoard;
 import soc.game.SOCCity;
@@ -35,6 +35,7 @@ import soc.game.SOCRoad;
 import soc.game.SOCSettlement;
 
 import soc.util.CutoffExceededException;
+import soc.util.IntArrayKey;
 import soc.util.NodeLenVis;
 import soc.util.Pair;
 import soc.util.Queue;
@@ -43,6 +44,8 @@ import java.text.DecimalFormat;
 
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.TreeMap;
@@ -57,9 +60,16 @@ import java.util.Vector;
  */
 public class SOCPlayerTracker
 {
+    /**
+     * the log for player trackers
+     */
+    static final Log log = Log.getLog("robot.tracker");
+
     protected static final DecimalFormat df1 = new DecimalFormat("###0.00");
     static protected int EXPAND_LEVEL = 1;
     static protected int LR_CALC_LEVEL = 2;
+    static protected int WGETA_MEMO_SIZE = 2000;
+    static protected int LR_MEMO_SIZE = 2000;
     protected SOCRobotBrain brain;
     protected SOCPlayer player;
     protected TreeMap possibleSettlements;
@@ -78,6 +88,61 @@ public class SOCPlayerTracker
      */
     boolean inUse;
 
+    /**
+     * results of recalcWinGameETA, keyed by everything the
+     * result depends on (see getWinGameETAKey).  Shared with
+     * the copies and snapshots made from this tracker.
+     */
+    protected Hashtable wgetaMemo;
+
+    /**
+     * results of recalcLongestRoadETA, keyed by everything the
+     * result depends on (see getLongestRoadETAKey).  Shared the
+     * same way as wgetaMemo.
+     */
+    protected Hashtable lrMemo;
+
+    /**
+     * the part of the win game ETA key that comes from our
+     * possible pieces, or null if it needs to be made again.
+     * Cleared by piecesChanged whenever a possible city, settlement
+     * or road is added or removed, or its links change.
+     */
+    protected IntArrayKey wgetaPiecesKey;
+
+    /**
+     * true if the last win game ETA calculation set knightsToBuy
+     */
+    protected boolean wgetaSetKnightsToBuy;
+
+    /**
+     * if this tracker is part of a snapshot made by
+     * snapshotPlayerTrackers, this is the tracker it was made from
+     */
+    protected SOCPlayerTracker cowSource;
+
+    /**
+     * the trackers in the same snapshot as this one, or null
+     */
+    protected HashMap cowTrackers;
+
+    /**
+     * maps the source's possible roads and settlements
+     * to our copies of them, once we've made them
+     */
+    protected IdentityHashMap cowCopies;
+
+    /**
+     * true if our possible roads and settlements still
+     * belong to the source tracker
+     */
+    protected boolean cowShared;
+
+    /**
+     * true if our possible cities map still belongs to the source tracker
+     */
+    protected boolean cowCitiesShared;
+
     /**
      * constructor
      *
@@ -96,6 +161,8 @@ public class SOCPlayerTracker
         roadsToGo = 20;
         largestArmyETA = 500;
         knightsToBuy = 0;
+        wgetaMemo = new Hashtable();
+        lrMemo = new Hashtable();
     }
 
     /**
@@ -117,6 +184,8 @@ public class SOCPlayerTracker
         roadsToGo = pt.getRoadsToGo();
         largestArmyETA = pt.getLargestArmyETA();
         knightsToBuy = pt.getKnightsToBuy();
+        wgetaMemo = pt.wgetaMemo;
+        lrMemo = pt.lrMemo;
 
         //D.ebugPrintln(">>>>> Copying SOCPlayerTracker for player number "+player.getPlayerNumber());
         //
@@ -152,6 +221,18 @@ public class SOCPlayerTracker
         }
     }
 
+    /**
+     * share our win game and longest road ETA results
+     * with the other brains in the game
+     *
+     * @param cache  the cache for the game
+     */
+    public void useAnalysisCache(SOCGameAnalysisCache cache)
+    {
+        wgetaMemo = cache.getWinGameETAMemo(player.getPlayerNumber());
+        lrMemo = cache.getLongestRoadETAMemo(player.getPlayerNumber());
+    }
+
     /**
      * make copies of player trackers and then
      * make connections between copied pieces
@@ -220,7 +301,7 @@ public class SOCPlayerTracker
                     }
                     else
                     {
-                        D.ebugPrintln("*** ERROR in copyPlayerTrackers : necRoadCopy == null");
+                        log.debug("*** ERROR in copyPlayerTrackers : necRoadCopy == null");
                     }
                 }
 
@@ -247,7 +328,7 @@ public class SOCPlayerTracker
                         }
                         else
                         {
-                            D.ebugPrintln("*** ERROR in copyPlayerTrackers : newPosRoadCopy == null");
+                            log.debug("*** ERROR in copyPlayerTrackers : newPosRoadCopy == null");
                         }
 
                         break;
@@ -262,7 +343,7 @@ public class SOCPlayerTracker
                         }
                         else
                         {
-                            D.ebugPrintln("*** ERROR in copyPlayerTrackers : newPosSettlementCopy == null");
+                            log.debug("*** ERROR in copyPlayerTrackers : newPosSettlementCopy == null");
                         }
 
                         break;
@@ -298,7 +379,7 @@ public class SOCPlayerTracker
                     }
                     else
                     {
-                        D.ebugPrintln("*** ERROR in copyPlayerTrackers : necRoadCopy == null");
+                        log.debug("*** ERROR in copyPlayerTrackers : necRoadCopy == null");
                     }
                 }
 
@@ -317,7 +398,7 @@ public class SOCPlayerTracker
 
                     if (trackerCopy2 == null)
                     {
-                        D.ebugPrintln("*** ERROR in copyPlayerTrackers : trackerCopy2 == null");
+                        log.debug("*** ERROR in copyPlayerTrackers : trackerCopy2 == null");
                     }
                     else
                     {
@@ -325,7 +406,7 @@ public class SOCPlayerTracker
 
                         if (conflictCopy == null)
                         {
-                            D.ebugPrintln("*** ERROR in copyPlayerTrackers : conflictCopy == null");
+                            log.debug("*** ERROR in copyPlayerTrackers : conflictCopy == null");
                         }
                         else
                         {
@@ -339,6 +420,376 @@ public class SOCPlayerTracker
         return trackersCopy;
     }
 
+    /**
+     * snapshot constructor.  The new tracker shares the possible
+     * pieces of pt until it has to change them.
+     *
+     * @param pt        the player tracker
+     * @param snapshot  the trackers in the snapshot this one belongs to
+     */
+    protected SOCPlayerTracker(SOCPlayerTracker pt, HashMap snapshot)
+    {
+        inUse = false;
+        brain = pt.getBrain();
+        player = pt.getPlayer();
+        possibleRoads = pt.getPossibleRoads();
+        possibleSettlements = pt.getPossibleSettlements();
+        possibleCities = pt.getPossibleCities();
+        longestRoadETA = pt.getLongestRoadETA();
+        roadsToGo = pt.getRoadsToGo();
+        largestArmyETA = pt.getLargestArmyETA();
+        knightsToBuy = pt.getKnightsToBuy();
+        wgetaMemo = pt.wgetaMemo;
+        lrMemo = pt.lrMemo;
+        cowSource = pt;
+        cowTrackers = snapshot;
+        cowCopies = null;
+        cowShared = true;
+        cowCitiesShared = true;
+    }
+
+    /**
+     * make a copy-on-write snapshot of the player trackers.
+     *
+     * The snapshot starts out sharing all of the possible pieces
+     * of the original trackers.  A tracker in the snapshot only
+     * copies its pieces the first time something is about to change
+     * them, so trying out a piece only copies the trackers that the
+     * piece touches.  The result is the same as copyPlayerTrackers.
+     *
+     * The original trackers must not change while the snapshot is
+     * in use.
+     *
+     * Note: not copying threats
+     *
+     * @param trackers  player trackers for each player
+     * @return the snapshot
+     */
+    public static HashMap snapshotPlayerTrackers(HashMap trackers)
+    {
+        HashMap trackersCopy = new HashMap(SOCGame.MAXPLAYERS);
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker pt = (SOCPlayerTracker) trackersIter.next();
+            trackersCopy.put(new Integer(pt.getPlayer().getPlayerNumber()), new SOCPlayerTracker(pt, trackersCopy));
+        }
+
+        return trackersCopy;
+    }
+
+    /**
+     * make a copy-on-write snapshot of the player trackers
+     * for the players in a copy of the game, so that pieces can
+     * be tried out on the copy while other threads use the
+     * original trackers and game.  The win game ETAs are kept,
+     * so the snapshot can stand in for the original trackers.
+     *
+     * The original trackers must not change while the snapshot is
+     * in use.
+     *
+     * @param trackers  player trackers for each player
+     * @param ga        a copy of the game the trackers are for
+     * @return the snapshot
+     */
+    public static HashMap snapshotPlayerTrackers(HashMap trackers, SOCGame ga)
+    {
+        HashMap trackersCopy = new HashMap(SOCGame.MAXPLAYERS);
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker pt = (SOCPlayerTracker) trackersIter.next();
+            SOCPlayerTracker ptCopy = new SOCPlayerTracker(pt, trackersCopy);
+            ptCopy.player = ga.getPlayer(pt.getPlayer().getPlayerNumber());
+            ptCopy.winGameETA = pt.winGameETA;
+            ptCopy.needLR = pt.needLR;
+            ptCopy.needLA = pt.needLA;
+            trackersCopy.put(new Integer(pt.getPlayer().getPlayerNumber()), ptCopy);
+        }
+
+        return trackersCopy;
+    }
+
+    /**
+     * if this tracker is sharing its possible roads and settlements
+     * with the tracker it was made from, copy them so that we can
+     * change them.  Conflicts with settlements in other trackers
+     * in the snapshot are connected to their current copies.
+     */
+    protected void makeWritable()
+    {
+        if (!cowShared)
+        {
+            return;
+        }
+
+        cowShared = false;
+        cowCopies = new IdentityHashMap();
+
+        TreeMap possibleRoadsCopy = new TreeMap();
+        TreeMap possibleSettlementsCopy = new TreeMap();
+        Iterator posRoadsIter = possibleRoads.values().iterator();
+
+        while (posRoadsIter.hasNext())
+        {
+            SOCPossibleRoad posRoad = (SOCPossibleRoad) posRoadsIter.next();
+            SOCPossibleRoad posRoadCopy = new SOCPossibleRoad(posRoad);
+            possibleRoadsCopy.put(new Integer(posRoadCopy.getCoordinates()), posRoadCopy);
+            cowCopies.put(posRoad, posRoadCopy);
+        }
+
+        Iterator posSettlementsIter = possibleSettlements.values().iterator();
+
+        while (posSettlementsIter.hasNext())
+        {
+            SOCPossibleSettlement posSet = (SOCPossibleSettlement) posSettlementsIter.next();
+            SOCPossibleSettlement posSetCopy = new SOCPossibleSettlement(posSet);
+            possibleSettlementsCopy.put(new Integer(posSetCopy.getCoordinates()), posSetCopy);
+            cowCopies.put(posSet, posSetCopy);
+        }
+
+        //
+        // make the connections between our pieces
+        //
+        posRoadsIter = possibleRoads.values().iterator();
+
+        while (posRoadsIter.hasNext())
+        {
+            SOCPossibleRoad posRoad = (SOCPossibleRoad) posRoadsIter.next();
+            SOCPossibleRoad posRoadCopy = (SOCPossibleRoad) cowCopies.get(posRoad);
+            Enumeration necRoadsEnum = posRoad.getNecessaryRoads().elements();
+
+            while (necRoadsEnum.hasMoreElements())
+            {
+                SOCPossibleRoad necRoadCopy = (SOCPossibleRoad) cowCopies.get(necRoadsEnum.nextElement());
+
+                if (necRoadCopy != null)
+                {
+                    posRoadCopy.addNecessaryRoad(necRoadCopy);
+                }
+                else
+                {
+                    log.debug("*** ERROR in makeWritable : necRoadCopy == null");
+                }
+            }
+
+            Enumeration newPosEnum = posRoad.getNewPossibilities().elements();
+
+            while (newPosEnum.hasMoreElements())
+            {
+                SOCPossiblePiece newPosCopy = (SOCPossiblePiece) cowCopies.get(newPosEnum.nextElement());
+
+                if (newPosCopy != null)
+                {
+                    posRoadCopy.addNewPossibility(newPosCopy);
+                }
+                else
+                {
+                    log.debug("*** ERROR in makeWritable : newPosCopy == null");
+                }
+            }
+        }
+
+        posSettlementsIter = possibleSettlements.values().iterator();
+
+        while (posSettlementsIter.hasNext())
+        {
+            SOCPossibleSettlement posSet = (SOCPossibleSettlement) posSettlementsIter.next();
+            SOCPossibleSettlement posSetCopy = (SOCPossibleSettlement) cowCopies.get(posSet);
+            Enumeration necRoadsEnum = posSet.getNecessaryRoads().elements();
+
+            while (necRoadsEnum.hasMoreElements())
+            {
+                SOCPossibleRoad necRoadCopy = (SOCPossibleRoad) cowCopies.get(necRoadsEnum.nextElement());
+
+                if (necRoadCopy != null)
+                {
+                    posSetCopy.addNecessaryRoad(necRoadCopy);
+                }
+                else
+                {
+                    log.debug("*** ERROR in makeWritable : necRoadCopy == null");
+                }
+            }
+
+            //
+            // conflicts with our own settlements go to our copies,
+            // conflicts with other trackers go to whatever is current
+            // in the snapshot.  if the other tracker already made
+            // its copies, point them at our copy instead of the
+            // settlement we just replaced.
+            //
+            Enumeration conflictEnum = posSet.getConflicts().elements();
+
+            while (conflictEnum.hasMoreElements())
+            {
+                SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
+                SOCPossibleSettlement conflictCopy = (SOCPossibleSettlement) cowCopies.get(conflict);
+
+                if (conflictCopy == null)
+                {
+                    SOCPlayerTracker tracker = (SOCPlayerTracker) cowTrackers.get(new Integer(conflict.getPlayer().getPlayerNumber()));
+
+                    if ((tracker == null) || (tracker == this))
+                    {
+                        log.debug("*** ERROR in makeWritable : conflictCopy == null");
+
+                        continue;
+                    }
+
+                    Object current = conflict;
+
+                    if (tracker.cowSource != null)
+                    {
+                        current = tracker.cowSource.resolve(conflict);
+                    }
+
+                    conflictCopy = null;
+
+                    if (tracker.cowCopies != null)
+                    {
+                        conflictCopy = (SOCPossibleSettlement) tracker.cowCopies.get(current);
+                    }
+
+                    if (conflictCopy == null)
+                    {
+                        conflictCopy = (SOCPossibleSettlement) current;
+                    }
+                    else
+                    {
+                        Vector otherConflicts = conflictCopy.getConflicts();
+
+                        for (int i = otherConflicts.size() - 1; i >= 0; i--)
+                        {
+                            if (otherConflicts.elementAt(i) == posSet)
+                            {
+                                otherConflicts.setElementAt(posSetCopy, i);
+                            }
+                        }
+                    }
+                }
+
+                posSetCopy.addConflict(conflictCopy);
+            }
+        }
+
+        possibleRoads = possibleRoadsCopy;
+        possibleSettlements = possibleSettlementsCopy;
+    }
+
+    /**
+     * if this tracker is sharing its map of possible cities
+     * with the tracker it was made from, copy the map
+     */
+    protected void makeCitiesWritable()
+    {
+        if (cowCitiesShared)
+        {
+            cowCitiesShared = false;
+            possibleCities = new TreeMap(possibleCities);
+        }
+    }
+
+    /**
+     * @return the piece that stands for pp in this tracker,
+     *         following the copies made by this tracker and
+     *         the trackers it was made from
+     *
+     * @param pp  a possible road or settlement owned by our player
+     */
+    protected Object resolve(Object pp)
+    {
+        if (cowSource != null)
+        {
+            pp = cowSource.resolve(pp);
+        }
+
+        if (cowCopies != null)
+        {
+            Object copy = cowCopies.get(pp);
+
+            if (copy != null)
+            {
+                return copy;
+            }
+        }
+
+        return pp;
+    }
+
+    /**
+     * @return true if we have a possible settlement on a node
+     *         or on any of a list of other nodes
+     *
+     * @param node      the node
+     * @param adjNodes  the other nodes, as Integers
+     */
+    protected boolean hasPossibleSettlementAt(Integer node, Vector adjNodes)
+    {
+        if (possibleSettlements.containsKey(node))
+        {
+            return true;
+        }
+
+        Enumeration adjNodeEnum = adjNodes.elements();
+
+        while (adjNodeEnum.hasMoreElements())
+        {
+            if (possibleSettlements.containsKey(adjNodeEnum.nextElement()))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * mark our possible pieces as changed, so that the
+     * win game ETA pieces key is made again the next time
+     * it is needed
+     */
+    protected void piecesChanged()
+    {
+        wgetaPiecesKey = null;
+    }
+
+    /**
+     * get a possible settlement from another tracker ready to be
+     * changed, and mark that tracker's pieces as changed.
+     * In a snapshot the snapshot's trackers are used.
+     *
+     * @param ps        the possible settlement
+     * @param trackers  player trackers for all players, or null
+     * @return the current copy of ps, owned by a writable tracker
+     */
+    protected SOCPossibleSettlement writable(SOCPossibleSettlement ps, HashMap trackers)
+    {
+        if (cowTrackers != null)
+        {
+            trackers = cowTrackers;
+        }
+
+        if (trackers == null)
+        {
+            return ps;
+        }
+
+        SOCPlayerTracker tracker = (SOCPlayerTracker) trackers.get(new Integer(ps.getPlayer().getPlayerNumber()));
+
+        if (tracker == null)
+        {
+            return ps;
+        }
+
+        tracker.makeWritable();
+        tracker.piecesChanged();
+
+        return (SOCPossibleSettlement) tracker.resolve(ps);
+    }
+
     /**
      * take the monitor for this tracker
      */
@@ -453,7 +904,7 @@ public class SOCPlayerTracker
         }
         else
         {
-            addTheirNewRoad(road);
+            addTheirNewRoad(road, trackers);
         }
     }
 
@@ -467,6 +918,9 @@ public class SOCPlayerTracker
     public void addOurNewRoad(SOCRoad road, HashMap trackers, int expandLevel)
     {
         //D.ebugPrintln("$$$ addOurNewRoad : "+road);
+        makeWritable();
+        piecesChanged();
+
         //
         // see if the new road was a possible road
         //
@@ -635,6 +1089,9 @@ public class SOCPlayerTracker
     public void expandRoad(SOCPossibleRoad targetRoad, SOCPlayer player, SOCPlayer dummy, HashMap trackers, int level)
     {
         //D.ebugPrintln("$$$ expandRoad at "+Integer.toHexString(targetRoad.getCoordinates())+" level="+level);
+        makeWritable();
+        piecesChanged();
+
         SOCRoad dummyRoad = new SOCRoad(dummy, targetRoad.getCoordinates());
         dummy.putPiece(dummyRoad);
 
@@ -812,9 +1269,10 @@ public class SOCPlayerTracker
     /**
      * add another player's new road
      *
-     * @param road  the new road
+     * @param road      the new road
+     * @param trackers  player trackers for the players
      */
-    public void addTheirNewRoad(SOCRoad road)
+    public void addTheirNewRoad(SOCRoad road, HashMap trackers)
     {
         /**
          * see if another player's road interferes with our possible roads
@@ -824,17 +1282,21 @@ public class SOCPlayerTracker
          * if another player's road is on one of our possible
          * roads, then remove it
          */
-        D.ebugPrintln("$$$ addTheirNewRoad : " + road);
+        log.debug("$$$ addTheirNewRoad : {}", road);
 
         Integer roadCoordinates = new Integer(road.getCoordinates());
         SOCPossibleRoad pr = (SOCPossibleRoad) possibleRoads.get(roadCoordinates);
 
         if (pr != null)
         {
+            makeWritable();
+            piecesChanged();
+            pr = (SOCPossibleRoad) possibleRoads.get(roadCoordinates);
+
             //D.ebugPrintln("$$$ removing road at "+Integer.toHexString(pr.getCoordinates()));
             possibleRoads.remove(roadCoordinates);
             removeFromNecessaryRoads(pr);
-            removeDependents(pr);
+            removeDependents(pr, trackers);
         }
     }
 
@@ -870,6 +1332,7 @@ public class SOCPlayerTracker
                 if (posSet != null)
                 {
                     //D.ebugPrintln("$$$ add conflict "+Integer.toHexString(posSet.getCoordinates()));
+                    posSet = writable(posSet, trackers);
                     ps.addConflict(posSet);
                     posSet.addConflict(ps);
                 }
@@ -888,6 +1351,7 @@ public class SOCPlayerTracker
                 if (posSet != null)
                 {
                     //D.ebugPrintln("$$$ add conflict "+Integer.toHexString(posSet.getCoordinates()));
+                    posSet = writable(posSet, trackers);
                     ps.addConflict(posSet);
                     posSet.addConflict(ps);
                 }
@@ -911,7 +1375,7 @@ public class SOCPlayerTracker
         }
         else
         {
-            addTheirNewSettlement(settlement);
+            addTheirNewSettlement(settlement, trackers);
         }
     }
 
@@ -924,7 +1388,10 @@ public class SOCPlayerTracker
     public synchronized void addOurNewSettlement(SOCSettlement settlement, HashMap trackers)
     {
         //D.ebugPrintln();
-        D.ebugPrintln("$$$ addOurNewSettlement : " + settlement);
+        log.debug("$$$ addOurNewSettlement : {}", settlement);
+        makeWritable();
+        makeCitiesWritable();
+        piecesChanged();
 
         Integer settlementCoords = new Integer(settlement.getCoordinates());
 
@@ -941,7 +1408,7 @@ public class SOCPlayerTracker
 
         if (ps != null)
         {
-            D.ebugPrintln("$$$ was a possible settlement");
+            log.debug("$$$ was a possible settlement");
 
             /**
              * copy a list of all the conflicting settlements
@@ -951,7 +1418,11 @@ public class SOCPlayerTracker
             /**
              * remove the possible settlement that is now a real settlement
              */
-            D.ebugPrintln("$$$ removing " + Integer.toHexString(settlement.getCoordinates()));
+            if (log.isDebugEnabled())
+            {
+                log.debug("$$$ removing " + Integer.toHexString(settlement.getCoordinates()));
+            }
+
             possibleSettlements.remove(settlementCoords);
             removeFromNecessaryRoads(ps);
 
@@ -963,13 +1434,23 @@ public class SOCPlayerTracker
             while (conflictEnum.hasMoreElements())
             {
                 SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
-                D.ebugPrintln("$$$ checking conflict with " + conflict.getPlayer().getPlayerNumber() + ":" + Integer.toHexString(conflict.getCoordinates()));
+
+                if (log.isDebugEnabled())
+                {
+                    log.debug("$$$ checking conflict with " + conflict.getPlayer().getPlayerNumber() + ":" + Integer.toHexString(conflict.getCoordinates()));
+                }
 
                 SOCPlayerTracker tracker = (SOCPlayerTracker) trackers.get(new Integer(conflict.getPlayer().getPlayerNumber()));
 
                 if (tracker != null)
                 {
-                    D.ebugPrintln("$$$ removing " + Integer.toHexString(conflict.getCoordinates()));
+                    conflict = writable(conflict, trackers);
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("$$$ removing " + Integer.toHexString(conflict.getCoordinates()));
+                    }
+
                     tracker.getPossibleSettlements().remove(new Integer(conflict.getCoordinates()));
                     removeFromNecessaryRoads(conflict);
 
@@ -980,8 +1461,13 @@ public class SOCPlayerTracker
 
                     while (otherConflictEnum.hasMoreElements())
                     {
-                        SOCPossibleSettlement otherConflict = (SOCPossibleSettlement) otherConflictEnum.nextElement();
-                        D.ebugPrintln("$$$ removing conflict " + Integer.toHexString(conflict.getCoordinates()) + " from " + Integer.toHexString(otherConflict.getCoordinates()));
+                        SOCPossibleSettlement otherConflict = writable((SOCPossibleSettlement) otherConflictEnum.nextElement(), trackers);
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("$$$ removing conflict " + Integer.toHexString(conflict.getCoordinates()) + " from " + Integer.toHexString(otherConflict.getCoordinates()));
+                        }
+
                         otherConflict.removeConflict(conflict);
                     }
                 }
@@ -993,7 +1479,7 @@ public class SOCPlayerTracker
              * if the new settlement wasn't a possible settlement,
              * we still need to cancel out other players possible settlements
              */
-            D.ebugPrintln("$$$ wasn't possible settlement");
+            log.debug("$$$ wasn't possible settlement");
 
             Vector trash = new Vector();
             Vector adjNodes = SOCBoard.getAdjacentNodesToNode(settlement.getCoordinates());
@@ -1003,16 +1489,34 @@ public class SOCPlayerTracker
             {
                 SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
                 SOCPossibleSettlement posSet = (SOCPossibleSettlement) tracker.getPossibleSettlements().get(settlementCoords);
-                D.ebugPrintln("$$$ tracker for player " + tracker.getPlayer().getPlayerNumber());
+
+                if (log.isDebugEnabled())
+                {
+                    log.debug("$$$ tracker for player " + tracker.getPlayer().getPlayerNumber());
+                }
+
+                if (tracker.hasPossibleSettlementAt(settlementCoords, adjNodes))
+                {
+                    tracker.makeWritable();
+                    tracker.piecesChanged();
+                    posSet = (SOCPossibleSettlement) tracker.getPossibleSettlements().get(settlementCoords);
+                }
 
                 /**
                  * check the node that the settlement is on
                  */
-                D.ebugPrintln("$$$ checking node " + Integer.toHexString(settlement.getCoordinates()));
+                if (log.isDebugEnabled())
+                {
+                    log.debug("$$$ checking node " + Integer.toHexString(settlement.getCoordinates()));
+                }
 
                 if (posSet != null)
                 {
-                    D.ebugPrintln("$$$ trashing " + Integer.toHexString(posSet.getCoordinates()));
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("$$$ trashing " + Integer.toHexString(posSet.getCoordinates()));
+                    }
+
                     trash.addElement(posSet);
 
                     /**
@@ -1022,8 +1526,13 @@ public class SOCPlayerTracker
 
                     while (conflictEnum.hasMoreElements())
                     {
-                        SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
-                        D.ebugPrintln("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                        SOCPossibleSettlement conflict = writable((SOCPossibleSettlement) conflictEnum.nextElement(), trackers);
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                        }
+
                         conflict.removeConflict(posSet);
                     }
                 }
@@ -1036,12 +1545,21 @@ public class SOCPlayerTracker
                 while (adjNodeEnum.hasMoreElements())
                 {
                     Integer adjNode = (Integer) adjNodeEnum.nextElement();
-                    D.ebugPrintln("$$$ checking node " + Integer.toHexString(adjNode.intValue()));
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("$$$ checking node " + Integer.toHexString(adjNode.intValue()));
+                    }
+
                     posSet = (SOCPossibleSettlement) tracker.getPossibleSettlements().get(adjNode);
 
                     if (posSet != null)
                     {
-                        D.ebugPrintln("$$$ trashing " + Integer.toHexString(posSet.getCoordinates()));
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("$$$ trashing " + Integer.toHexString(posSet.getCoordinates()));
+                        }
+
                         trash.addElement(posSet);
 
                         /**
@@ -1051,8 +1569,13 @@ public class SOCPlayerTracker
 
                         while (conflictEnum.hasMoreElements())
                         {
-                            SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
-                            D.ebugPrintln("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                            SOCPossibleSettlement conflict = writable((SOCPossibleSettlement) conflictEnum.nextElement(), trackers);
+
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                            }
+
                             conflict.removeConflict(posSet);
                         }
                     }
@@ -1061,14 +1584,22 @@ public class SOCPlayerTracker
                 /**
                  * take out the trash
                  */
-                D.ebugPrintln("$$$ removing trash for " + tracker.getPlayer().getPlayerNumber());
+                if (log.isDebugEnabled())
+                {
+                    log.debug("$$$ removing trash for " + tracker.getPlayer().getPlayerNumber());
+                }
 
                 Enumeration trashEnum = trash.elements();
 
                 while (trashEnum.hasMoreElements())
                 {
                     SOCPossibleSettlement pset = (SOCPossibleSettlement) trashEnum.nextElement();
-                    D.ebugPrintln("$$$ removing " + Integer.toHexString(pset.getCoordinates()) + " owned by " + pset.getPlayer().getPlayerNumber());
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("$$$ removing " + Integer.toHexString(pset.getCoordinates()) + " owned by " + pset.getPlayer().getPlayerNumber());
+                    }
+
                     tracker.getPossibleSettlements().remove(new Integer(pset.getCoordinates()));
                     removeFromNecessaryRoads(pset);
                 }
@@ -1082,8 +1613,9 @@ public class SOCPlayerTracker
      * add  another player's new settlement
      *
      * @param settlement  the new settlement
+     * @param trackers    player trackers for the players
      */
-    public void addTheirNewSettlement(SOCSettlement settlement)
+    public void addTheirNewSettlement(SOCSettlement settlement, HashMap trackers)
     {
         /**
          * this doesn't need to remove conflicts between settlements
@@ -1098,13 +1630,26 @@ public class SOCPlayerTracker
          */
 
         //D.ebugPrintln();
-        D.ebugPrintln("$$$ addTheirNewSettlement : " + settlement);
+        log.debug("$$$ addTheirNewSettlement : {}", settlement);
 
         Vector prTrash = new Vector();
         Vector nrTrash = new Vector();
         Vector adjEdges = SOCBoard.getAdjacentEdgesToNode(settlement.getCoordinates());
         Enumeration edge1Enum = adjEdges.elements();
 
+        while (edge1Enum.hasMoreElements())
+        {
+            if (possibleRoads.containsKey(edge1Enum.nextElement()))
+            {
+                makeWritable();
+                piecesChanged();
+
+                break;
+            }
+        }
+
+        edge1Enum = adjEdges.elements();
+
         while (edge1Enum.hasMoreElements())
         {
             prTrash.removeAllElements();
@@ -1129,7 +1674,11 @@ public class SOCPlayerTracker
 
                         if ((threat.getType() == SOCPossiblePiece.SETTLEMENT) && (threat.getCoordinates() == settlement.getCoordinates()) && (threat.getPlayer().getPlayerNumber() == settlement.getPlayer().getPlayerNumber()))
                         {
-                            D.ebugPrintln("$$$ new settlement cuts off road at " + Integer.toHexString(pr.getCoordinates()));
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("$$$ new settlement cuts off road at " + Integer.toHexString(pr.getCoordinates()));
+                            }
+
                             prTrash.addElement(pr);
 
                             break;
@@ -1153,7 +1702,11 @@ public class SOCPlayerTracker
 
                             if (nr.getCoordinates() == edge2.intValue())
                             {
-                                D.ebugPrintln("$$$ removing dependency " + Integer.toHexString(nr.getCoordinates()) + " from " + Integer.toHexString(pr.getCoordinates()));
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("$$$ removing dependency " + Integer.toHexString(nr.getCoordinates()) + " from " + Integer.toHexString(pr.getCoordinates()));
+                                }
+
                                 nrTrash.addElement(nr);
 
                                 break;
@@ -1177,7 +1730,11 @@ public class SOCPlayerTracker
 
                         if (pr.getNecessaryRoads().isEmpty())
                         {
-                            D.ebugPrintln("$$$ no more dependencies, removing " + Integer.toHexString(pr.getCoordinates()));
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("$$$ no more dependencies, removing " + Integer.toHexString(pr.getCoordinates()));
+                            }
+
                             prTrash.addElement(pr);
                         }
                     }
@@ -1194,7 +1751,7 @@ public class SOCPlayerTracker
                 SOCPossibleRoad prt = (SOCPossibleRoad) prTrashEnum.nextElement();
                 possibleRoads.remove(new Integer(prt.getCoordinates()));
                 removeFromNecessaryRoads(prt);
-                removeDependents(prt);
+                removeDependents(prt, trackers);
             }
         }
     }
@@ -1202,9 +1759,10 @@ public class SOCPlayerTracker
     /**
      * remove everything that depends on this road being built
      *
-     * @param road  the road
+     * @param road      the road
+     * @param trackers  player trackers for the players
      */
-    protected void removeDependents(SOCPossibleRoad road)
+    protected void removeDependents(SOCPossibleRoad road, HashMap trackers)
     {
         /**
          * look at all of the pieces that this one
@@ -1240,7 +1798,7 @@ public class SOCPlayerTracker
                         //D.ebugPrintln("$$$ removing this road");
                         possibleRoads.remove(new Integer(newPos.getCoordinates()));
                         removeFromNecessaryRoads((SOCPossibleRoad) newPos);
-                        removeDependents((SOCPossibleRoad) newPos);
+                        removeDependents((SOCPossibleRoad) newPos, trackers);
                     }
                     else
                     {
@@ -1290,7 +1848,7 @@ public class SOCPlayerTracker
 
                         while (conflictEnum.hasMoreElements())
                         {
-                            SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
+                            SOCPossibleSettlement conflict = writable((SOCPossibleSettlement) conflictEnum.nextElement(), trackers);
                             conflict.removeConflict((SOCPossibleSettlement) newPos);
                         }
                     }
@@ -1371,6 +1929,8 @@ public class SOCPlayerTracker
         /**
          * remove the possible city from the list
          */
+        makeCitiesWritable();
+        piecesChanged();
         possibleCities.remove(new Integer(city.getCoordinates()));
     }
 
@@ -1384,6 +1944,8 @@ public class SOCPlayerTracker
         /**
          * add the possible city to the list
          */
+        makeCitiesWritable();
+        piecesChanged();
         possibleCities.put(new Integer(city.getCoordinates()), city);
     }
 
@@ -1395,6 +1957,7 @@ public class SOCPlayerTracker
     public void updateThreats(HashMap trackers)
     {
         //D.ebugPrintln("&&&& updateThreats");
+        makeWritable();
 
         /**
          * check roads that need updating and don't have necessary roads
@@ -1755,12 +2318,100 @@ public class SOCPlayerTracker
     }
 
     /**
-     * calculate the longest road ETA
+     * calculate the longest road ETA.  If everything it depends
+     * on is the same as for an earlier calculation, by this
+     * tracker or another one sharing its results, that result
+     * is used again.  While the debug recorder or debug logging
+     * is on it is always calculated, so the trace is made.
      */
     public void recalcLongestRoadETA()
     {
-        D.ebugPrintln("===  recalcLongestRoadETA for player " + player.getPlayerNumber());
+        if (log.isDebugEnabled())
+        {
+            log.debug("===  recalcLongestRoadETA for player " + player.getPlayerNumber());
+            computeLongestRoadETA();
+
+            return;
+        }
+
+        if ((brain != null) && brain.getDRecorder().isOn())
+        {
+            computeLongestRoadETA();
+
+            return;
+        }
+
+        IntArrayKey key = getLongestRoadETAKey();
+        int[] result = (int[]) lrMemo.get(key);
+
+        if (result != null)
+        {
+            longestRoadETA = result[0];
+            roadsToGo = result[1];
+
+            return;
+        }
+
+        computeLongestRoadETA();
+        result = new int[2];
+        result[0] = longestRoadETA;
+        result[1] = roadsToGo;
+
+        if (lrMemo.size() >= LR_MEMO_SIZE)
+        {
+            lrMemo.clear();
+        }
+
+        lrMemo.put(key, result);
+    }
+
+    /**
+     * @return a key that holds everything that recalcLongestRoadETA
+     *         depends on: the pieces on the board, which also
+     *         decide our numbers, ports and legal roads, our road
+     *         paths, and who has longest road
+     */
+    protected IntArrayKey getLongestRoadETAKey()
+    {
+        SOCGame game = player.getGame();
+        SOCPlayer lrPlayer = game.getPlayerWithLongestRoad();
+        Vector lrPaths = player.getLRPaths();
+        IntArrayKey key = new IntArrayKey(8 + (3 * lrPaths.size()));
+        long pieceHash = game.getBoard().getPieceHash();
+        key.add((int) (pieceHash >>> 32));
+        key.add((int) pieceHash);
+
+        if (lrPlayer == null)
+        {
+            key.add(-1);
+            key.add(0);
+        }
+        else
+        {
+            key.add(lrPlayer.getPlayerNumber());
+            key.add(lrPlayer.getLongestRoadLength());
+        }
+
+        key.add(player.getLongestRoadLength());
+        key.add(player.getNumPieces(SOCPlayingPiece.ROAD));
+        key.add(lrPaths.size());
+
+        for (int i = 0; i < lrPaths.size(); i++)
+        {
+            SOCLRPathData pathData = (SOCLRPathData) lrPaths.elementAt(i);
+            key.add(pathData.getBeginning());
+            key.add(pathData.getEnd());
+            key.add(pathData.getLength());
+        }
+
+        return key;
+    }
 
+    /**
+     * work out the longest road ETA
+     */
+    protected void computeLongestRoadETA()
+    {
         int roadETA;
         SOCBuildingSpeedEstimate bse = new SOCBuildingSpeedEstimate(player.getNumbers());
 
@@ -1817,7 +2468,11 @@ public class SOCPlayerTracker
             }
         }
 
-        D.ebugPrintln("--- roadsToGo = " + roadsToGo);
+        if (log.isDebugEnabled())
+        {
+            log.debug("--- roadsToGo = " + roadsToGo);
+        }
+
         longestRoadETA = roadsToGo * roadETA;
     }
 
@@ -1835,7 +2490,10 @@ public class SOCPlayerTracker
      */
     private int recalcLongestRoadETAAux(int startNode, int pathLength, int lrLength, int searchDepth)
     {
-        D.ebugPrintln("=== recalcLongestRoadETAAux(" + Integer.toHexString(startNode) + "," + pathLength + "," + lrLength + "," + searchDepth + ")");
+        if (log.isDebugEnabled())
+        {
+            log.debug("=== recalcLongestRoadETAAux(" + Integer.toHexString(startNode) + "," + pathLength + "," + lrLength + "," + searchDepth + ")");
+        }
 
         //
         // we're doing a depth first search of all possible road paths 
@@ -1848,7 +2506,7 @@ public class SOCPlayerTracker
         while (!pending.empty())
         {
             NodeLenVis curNode = (NodeLenVis) pending.pop();
-            D.ebugPrintln("curNode = " + curNode);
+            log.debug("curNode = {}", curNode);
 
             int coord = curNode.node;
             int len = curNode.len;
@@ -1888,8 +2546,12 @@ public class SOCPlayerTracker
                     {
                         pathEnd = true;
                         len += pathData.getLength();
-                        D.ebugPrintln("connecting to another path: " + pathData);
-                        D.ebugPrintln("len = " + len);
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("connecting to another path: {}", pathData);
+                            log.debug("len = " + len);
+                        }
 
                         break;
                     }
@@ -2135,6 +2797,8 @@ public class SOCPlayerTracker
      */
     public void updateLRValues()
     {
+        makeWritable();
+
         SOCPlayer dummy = new SOCPlayer(player);
         int lrLength = player.getLongestRoadLength();
 
@@ -2287,9 +2951,229 @@ public class SOCPlayerTracker
     }
 
     /**
-     * recalculate the ETA for winning the game
+     * recalculate the ETA for winning the game.
+     *
+     * The result only depends on our player's pieces, ports,
+     * victory points and knights, on who has longest road and
+     * largest army, and on our possible pieces.  If all of those
+     * are the same as for an earlier calculation by this tracker
+     * or one it was copied from, that result is used again.
      */
     public void recalcWinGameETA()
+    {
+        if ((brain != null) && brain.getDRecorder().isOn())
+        {
+            recalcWinGameETAAux();
+
+            return;
+        }
+
+        IntArrayKey key = getWinGameETAKey();
+        int[] result = (int[]) wgetaMemo.get(key);
+
+        if (result != null)
+        {
+            winGameETA = result[0];
+            needLR = (result[1] != 0);
+            needLA = (result[2] != 0);
+
+            if (result[3] != -1)
+            {
+                knightsToBuy = result[3];
+            }
+
+            return;
+        }
+
+        wgetaSetKnightsToBuy = false;
+
+        if (recalcWinGameETAAux())
+        {
+            result = new int[4];
+            result[0] = winGameETA;
+            result[1] = needLR ? 1 : 0;
+            result[2] = needLA ? 1 : 0;
+            result[3] = wgetaSetKnightsToBuy ? knightsToBuy : -1;
+
+            if (wgetaMemo.size() >= WGETA_MEMO_SIZE)
+            {
+                wgetaMemo.clear();
+            }
+
+            wgetaMemo.put(key, result);
+        }
+    }
+
+    /**
+     * @return a key that holds everything that recalcWinGameETA
+     *         depends on, so two calls with equal keys get the
+     *         same result
+     */
+    protected IntArrayKey getWinGameETAKey()
+    {
+        IntArrayKey piecesKey = getWinGameETAPiecesKey();
+        IntArrayKey key = new IntArrayKey(piecesKey.size() + 48);
+        SOCGame game = player.getGame();
+        SOCPlayer laPlayer = game.getPlayerWithLargestArmy();
+        SOCPlayer lrPlayer = game.getPlayerWithLongestRoad();
+
+        key.add(player.getTotalVP());
+        key.add(player.getNumPieces(SOCPlayingPiece.SETTLEMENT));
+        key.add(player.getNumPieces(SOCPlayingPiece.CITY));
+
+        for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT;
+                portType++)
+        {
+            key.add(player.getPortFlag(portType) ? 1 : 0);
+        }
+
+        key.add(player.getNumKnights());
+        key.add(player.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT));
+        key.add(player.getDevCards().getAmount(SOCDevCardSet.NEW, SOCDevCardConstants.KNIGHT));
+        key.add(game.getNumDevCards());
+
+        if (laPlayer == null)
+        {
+            key.add(-1);
+            key.add(0);
+        }
+        else
+        {
+            key.add(laPlayer.getPlayerNumber());
+            key.add(laPlayer.getNumKnights());
+        }
+
+        key.add((lrPlayer == null) ? -1 : lrPlayer.getPlayerNumber());
+        key.add(largestArmyETA);
+        key.add(longestRoadETA);
+        key.add(roadsToGo);
+
+        //
+        // our numbers come from where our settlements and cities are
+        //
+        Vector settlements = player.getSettlements();
+        key.add(settlements.size());
+
+        for (int i = 0; i < settlements.size(); i++)
+        {
+            key.add(((SOCSettlement) settlements.elementAt(i)).getCoordinates());
+        }
+
+        Vector cities = player.getCities();
+        key.add(cities.size());
+
+        for (int i = 0; i < cities.size(); i++)
+        {
+            key.add(((SOCCity) cities.elementAt(i)).getCoordinates());
+        }
+
+        key.addAll(piecesKey);
+
+        return key;
+    }
+
+    /**
+     * @return the part of the win game ETA key that comes from
+     *         our possible cities and settlements, and the roads
+     *         the settlements need
+     */
+    protected IntArrayKey getWinGameETAPiecesKey()
+    {
+        if (wgetaPiecesKey != null)
+        {
+            return wgetaPiecesKey;
+        }
+
+        IntArrayKey key;
+
+        if ((cowSource != null) && cowShared && cowCitiesShared)
+        {
+            key = cowSource.getWinGameETAPiecesKey();
+        }
+        else
+        {
+            key = new IntArrayKey(256);
+            key.add(possibleCities.size());
+
+            Iterator posCitiesIter = possibleCities.values().iterator();
+
+            while (posCitiesIter.hasNext())
+            {
+                key.add(((SOCPossibleCity) posCitiesIter.next()).getCoordinates());
+            }
+
+            //
+            // the roads are numbered in the order we come to them
+            //
+            IdentityHashMap roadNums = new IdentityHashMap();
+            Vector roads = new Vector();
+            key.add(possibleSettlements.size());
+
+            Iterator posSetsIter = possibleSettlements.values().iterator();
+
+            while (posSetsIter.hasNext())
+            {
+                SOCPossibleSettlement posSet = (SOCPossibleSettlement) posSetsIter.next();
+                key.add(posSet.getCoordinates());
+                key.add(posSet.getNumberOfNecessaryRoads());
+                addRoadsToKey(key, posSet.getNecessaryRoads(), roadNums, roads);
+
+                Vector conflicts = posSet.getConflicts();
+                key.add(conflicts.size());
+
+                for (int i = 0; i < conflicts.size(); i++)
+                {
+                    key.add(((SOCPossibleSettlement) conflicts.elementAt(i)).getCoordinates());
+                }
+            }
+
+            for (int i = 0; i < roads.size(); i++)
+            {
+                SOCPossibleRoad road = (SOCPossibleRoad) roads.elementAt(i);
+                key.add(road.getCoordinates());
+                addRoadsToKey(key, road.getNecessaryRoads(), roadNums, roads);
+            }
+        }
+
+        wgetaPiecesKey = key;
+
+        return key;
+    }
+
+    /**
+     * add a list of necessary roads to a key by number
+     *
+     * @param key       the key
+     * @param necRoads  the roads
+     * @param roadNums  the numbers given to roads so far
+     * @param roads     the roads in number order, new roads are added
+     */
+    private static void addRoadsToKey(IntArrayKey key, Vector necRoads, IdentityHashMap roadNums, Vector roads)
+    {
+        key.add(necRoads.size());
+
+        for (int i = 0; i < necRoads.size(); i++)
+        {
+            Object road = necRoads.elementAt(i);
+            Integer num = (Integer) roadNums.get(road);
+
+            if (num == null)
+            {
+                num = new Integer(roads.size());
+                roadNums.put(road, num);
+                roads.addElement(road);
+            }
+
+            key.add(num.intValue());
+        }
+    }
+
+    /**
+     * recalculate the ETA for winning the game
+     *
+     * @return false if something went wrong
+     */
+    protected boolean recalcWinGameETAAux()
     {
         int oldWGETA = winGameETA;
 
@@ -2347,24 +3231,24 @@ public class SOCPlayerTracker
 
             SOCBoard board = player.getGame().getBoard();
 
-            if (D.ebugOn)
+            if (log.isDebugEnabled())
             {
                 if (laPlayer != null)
                 {
-                    D.ebugPrintln("laPlayer # = " + laPlayer.getPlayerNumber());
+                    log.debug("laPlayer # = " + laPlayer.getPlayerNumber());
                 }
                 else
                 {
-                    D.ebugPrintln("laPlayer = null");
+                    log.debug("laPlayer = null");
                 }
 
                 if (lrPlayer != null)
                 {
-                    D.ebugPrintln("lrPlayer # = " + lrPlayer.getPlayerNumber());
+                    log.debug("lrPlayer # = " + lrPlayer.getPlayerNumber());
                 }
                 else
                 {
-                    D.ebugPrintln("lrPlayer = null");
+                    log.debug("lrPlayer = null");
                 }
             }
 
@@ -2388,29 +3272,35 @@ public class SOCPlayerTracker
 
             while (points < 10)
             {
-                D.ebugPrintln("WWW points = " + points);
-                D.ebugPrintln("WWW settlementPiecesLeft = " + settlementPiecesLeft);
-                D.ebugPrintln("WWW cityPiecesLeft = " + cityPiecesLeft);
-                D.ebugPrintln("WWW settlementSpotsLeft = " + posSetsCopy.size());
-                D.ebugPrintln("WWW citySpotsLeft = " + posCitiesCopy.size());
+                if (log.isDebugEnabled())
+                {
+                    log.debug("WWW points = " + points);
+                    log.debug("WWW settlementPiecesLeft = " + settlementPiecesLeft);
+                    log.debug("WWW cityPiecesLeft = " + cityPiecesLeft);
+                    log.debug("WWW settlementSpotsLeft = " + posSetsCopy.size());
+                    log.debug("WWW citySpotsLeft = " + posCitiesCopy.size());
+                }
 
-                if (D.ebugOn)
+                if (log.isDebugEnabled())
                 {
-                    D.ebugPrint("WWW tempPortFlags: ");
+                    StringBuffer sb = new StringBuffer("WWW tempPortFlags: ");
 
                     for (int portType = SOCBoard.MISC_PORT;
                             portType <= SOCBoard.WOOD_PORT; portType++)
                     {
-                        D.ebugPrint(tempPortFlags[portType] + " ");
+                        sb.append(tempPortFlags[portType] + " ");
                     }
 
-                    D.ebugPrintln();
+                    log.debug(sb.toString());
                 }
 
-                D.ebugPrintln("WWW settlementETA = " + settlementETA);
-                D.ebugPrintln("WWW cityETA = " + cityETA);
-                D.ebugPrintln("WWW roadETA = " + roadETA);
-                D.ebugPrintln("WWW cardETA = " + cardETA);
+                if (log.isDebugEnabled())
+                {
+                    log.debug("WWW settlementETA = " + settlementETA);
+                    log.debug("WWW cityETA = " + cityETA);
+                    log.debug("WWW roadETA = " + roadETA);
+                    log.debug("WWW cardETA = " + cardETA);
+                }
 
                 if (points == 9)
                 {
@@ -2475,10 +3365,14 @@ public class SOCPlayerTracker
                             }
 
                             fastestETA = (settlementETA + (totalNecRoads * roadETA));
-                            D.ebugPrintln("WWW # necesesary roads = " + totalNecRoads);
-                            D.ebugPrintln("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
-                            D.ebugPrintln("WWW settlement is " + chosenSet);
-                            D.ebugPrintln("WWW settlement eta = " + fastestETA);
+
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("WWW # necesesary roads = " + totalNecRoads);
+                                log.debug("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
+                                log.debug("WWW settlement is {}", chosenSet);
+                                log.debug("WWW settlement eta = " + fastestETA);
+                            }
                         }
                         else
                         {
@@ -2488,19 +3382,31 @@ public class SOCPlayerTracker
 
                     if ((cityPiecesLeft > 0) && (citySpotsLeft > 0) && (cityETA <= fastestETA))
                     {
-                        D.ebugPrintln("WWW city eta = " + cityETA);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW city eta = " + cityETA);
+                        }
+
                         fastestETA = cityETA;
                     }
 
                     if (!haveLA && !needLA && (tempLargestArmyETA < fastestETA))
                     {
-                        D.ebugPrintln("WWW LA eta = " + tempLargestArmyETA);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW LA eta = " + tempLargestArmyETA);
+                        }
+
                         fastestETA = tempLargestArmyETA;
                     }
 
                     if (!haveLR && !needLR && (tempLongestRoadETA < fastestETA))
                     {
-                        D.ebugPrintln("WWW LR eta = " + tempLongestRoadETA);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW LR eta = " + tempLongestRoadETA);
+                        }
+
                         fastestETA = tempLongestRoadETA;
                     }
 
@@ -2510,7 +3416,7 @@ public class SOCPlayerTracker
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Longest Road");
+                            brain.getDRecorder().record("{}: Longest Road", new Integer(fastestETA));
                         }
                     }
                     else if (!haveLA && !needLA && (fastestETA == tempLargestArmyETA))
@@ -2519,25 +3425,29 @@ public class SOCPlayerTracker
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Largest Army");
+                            brain.getDRecorder().record("{}: Largest Army", new Integer(fastestETA));
                         }
                     }
                     else if ((cityPiecesLeft > 0) && (citySpotsLeft > 0) && (cityETA == fastestETA))
                     {
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": City");
+                            brain.getDRecorder().record("{}: City", new Integer(fastestETA));
                         }
                     }
                     else if (chosenSet != null)
                     {
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Stlmt at " + board.nodeCoordToString(chosenSet.getCoordinates()));
+                            brain.getDRecorder().record("{}: Stlmt at {}", new Integer(fastestETA), SOCCoordLabel.node(board, chosenSet.getCoordinates()));
                         }
                     }
 
-                    D.ebugPrintln("WWW Adding " + fastestETA + " to win eta");
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("WWW Adding " + fastestETA + " to win eta");
+                    }
+
                     winGameETA += fastestETA;
                     points += 2;
                 }
@@ -2608,7 +3518,11 @@ public class SOCPlayerTracker
 
                         if (twoCities <= fastestETA)
                         {
-                            D.ebugPrintln("WWW twoCities = " + twoCities);
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("WWW twoCities = " + twoCities);
+                            }
+
                             fastestETA = twoCities;
                         }
                     }
@@ -2794,8 +3708,11 @@ public class SOCPlayerTracker
                                     }
                                 }
 
-                                D.ebugPrintln("WWW # necesesary roads = " + totalNecRoads);
-                                D.ebugPrintln("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("WWW # necesesary roads = " + totalNecRoads);
+                                    log.debug("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
+                                }
 
                                 if ((i == 0) && (chosenSet[0] != null))
                                 {
@@ -2844,7 +3761,11 @@ public class SOCPlayerTracker
 
                         if (canBuild2Settlements && (twoSettlements <= fastestETA))
                         {
-                            D.ebugPrintln("WWW 2 * settlement = " + twoSettlements);
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("WWW 2 * settlement = " + twoSettlements);
+                            }
+
                             fastestETA = twoSettlements;
                         }
                     }
@@ -3090,8 +4011,11 @@ public class SOCPlayerTracker
                             }
                         }
 
-                        D.ebugPrintln("WWW # necesesary roads = " + totalNecRoads);
-                        D.ebugPrintln("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW # necesesary roads = " + totalNecRoads);
+                            log.debug("WWW this settlement eta = " + (settlementETA + (totalNecRoads * roadETA)));
+                        }
 
                         // 
                         // get a more accurate estimate by taking the
@@ -3121,7 +4045,11 @@ public class SOCPlayerTracker
 
                         if (oneOfEach <= fastestETA)
                         {
-                            D.ebugPrintln("WWW one of each = " + oneOfEach);
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("WWW one of each = " + oneOfEach);
+                            }
+
                             fastestETA = oneOfEach;
                         }
                     }
@@ -3148,7 +4076,7 @@ public class SOCPlayerTracker
                             ///
                             /// we have largest army
                             ///
-                            D.ebugPrintln("WWW ERROR CALCULATING LA ETA");
+                            log.debug("WWW ERROR CALCULATING LA ETA");
                         }
                         else
                         {
@@ -3159,6 +4087,7 @@ public class SOCPlayerTracker
                         /// figure out how many knights we need to buy
                         ///
                         knightsToBuy = 0;
+                        wgetaSetKnightsToBuy = true;
 
                         if ((player.getNumKnights() + player.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) + player.getDevCards().getAmount(SOCDevCardSet.NEW, SOCDevCardConstants.KNIGHT)) < laSize)
                         {
@@ -3177,7 +4106,10 @@ public class SOCPlayerTracker
                             tempLargestArmyETA = 500;
                         }
 
-                        D.ebugPrintln("WWW LA eta = " + tempLargestArmyETA);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW LA eta = " + tempLargestArmyETA);
+                        }
 
                         if (tempLargestArmyETA < fastestETA)
                         {
@@ -3194,7 +4126,11 @@ public class SOCPlayerTracker
                     if (!haveLR && !needLR && (points > 5))
                     {
                         tempLongestRoadETA = roadETA * roadsToGo;
-                        D.ebugPrintln("WWW LR eta = " + tempLongestRoadETA);
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW LR eta = " + tempLongestRoadETA);
+                        }
 
                         if (tempLongestRoadETA < fastestETA)
                         {
@@ -3205,10 +4141,18 @@ public class SOCPlayerTracker
                     ///
                     /// implement the fastest scenario
                     ///
-                    D.ebugPrintln("WWW Adding " + fastestETA + " to win eta");
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("WWW Adding " + fastestETA + " to win eta");
+                    }
+
                     points += 2;
                     winGameETA += fastestETA;
-                    D.ebugPrintln("WWW WGETA SO FAR FOR PLAYER " + player.getPlayerNumber() + " = " + winGameETA);
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("WWW WGETA SO FAR FOR PLAYER " + player.getPlayerNumber() + " = " + winGameETA);
+                    }
 
                     if ((settlementPiecesLeft > 1) && (posSetsCopy.size() > 1) && (canBuild2Settlements) && (fastestETA == twoSettlements))
                     {
@@ -3272,13 +4216,17 @@ public class SOCPlayerTracker
                         roadETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.ROAD];
                         cityETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CITY];
                         cardETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CARD];
-                        D.ebugPrintln("WWW  * build two settlements");
-                        D.ebugPrintln("WWW    settlement 1: " + board.nodeCoordToString(chosenSet[0].getCoordinates()));
-                        D.ebugPrintln("WWW    settlement 2: " + board.nodeCoordToString(chosenSet[1].getCoordinates()));
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW  * build two settlements");
+                            log.debug("WWW    settlement 1: " + board.nodeCoordToString(chosenSet[0].getCoordinates()));
+                            log.debug("WWW    settlement 2: " + board.nodeCoordToString(chosenSet[1].getCoordinates()));
+                        }
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Stlmt at " + board.nodeCoordToString(chosenSet[0].getCoordinates()) + "; Stlmt at " + board.nodeCoordToString(chosenSet[1].getCoordinates()));
+                            brain.getDRecorder().record("{}: Stlmt at {}", new Integer(fastestETA), SOCCoordLabel.pair(SOCCoordLabel.node(board, chosenSet[0].getCoordinates()), "; Stlmt at ", SOCCoordLabel.node(board, chosenSet[1].getCoordinates())));
                         }
                     }
                     else if (((cityPiecesLeft > 0) && (((settlementPiecesLeft > 0) && (citySpotsLeft >= 0)) || ((settlementPiecesLeft >= 0) && (citySpotsLeft > 0))) && !posSetsCopy.isEmpty()) && (fastestETA == oneOfEach))
@@ -3329,19 +4277,23 @@ public class SOCPlayerTracker
                         roadETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.ROAD];
                         cityETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CITY];
                         cardETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CARD];
-                        D.ebugPrintln("WWW  * build a settlement and a city");
-                        D.ebugPrintln("WWW    settlement at " + board.nodeCoordToString(chosenSet[0].getCoordinates()));
-                        D.ebugPrintln("WWW    city at " + board.nodeCoordToString(chosenCity[0].getCoordinates()));
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW  * build a settlement and a city");
+                            log.debug("WWW    settlement at " + board.nodeCoordToString(chosenSet[0].getCoordinates()));
+                            log.debug("WWW    city at " + board.nodeCoordToString(chosenCity[0].getCoordinates()));
+                        }
 
                         if (brain.getDRecorder().isOn())
                         {
                             if (fastestETA == settlementBeforeCity)
                             {
-                                brain.getDRecorder().record(fastestETA + ": Stlmt at " + board.nodeCoordToString(chosenSet[0].getCoordinates()) + "; City at " + board.nodeCoordToString(chosenCity[0].getCoordinates()));
+                                brain.getDRecorder().record("{}: Stlmt at {}", new Integer(fastestETA), SOCCoordLabel.pair(SOCCoordLabel.node(board, chosenSet[0].getCoordinates()), "; City at ", SOCCoordLabel.node(board, chosenCity[0].getCoordinates())));
                             }
                             else
                             {
-                                brain.getDRecorder().record(fastestETA + ": City at " + board.nodeCoordToString(chosenCity[0].getCoordinates()) + "; Stlmt at " + board.nodeCoordToString(chosenSet[0].getCoordinates()));
+                                brain.getDRecorder().record("{}: City at {}", new Integer(fastestETA), SOCCoordLabel.pair(SOCCoordLabel.node(board, chosenCity[0].getCoordinates()), "; Stlmt at ", SOCCoordLabel.node(board, chosenSet[0].getCoordinates())));
                             }
                         }
                     }
@@ -3364,7 +4316,7 @@ public class SOCPlayerTracker
                         {
                             SOCPossibleCity posCity1 = (SOCPossibleCity) posCities1Iter.next();
                             tempPlayerNumbers.updateNumbers(posCity1.getCoordinates(), player.getGame().getBoard());
-                            D.ebugPrintln("tempPlayerNumbers = " + tempPlayerNumbers);
+                            log.debug("tempPlayerNumbers = {}", tempPlayerNumbers);
                             tempBSE.recalculateEstimates(tempPlayerNumbers);
 
                             int[] tempBuildingSpeed = tempBSE.getEstimatesFromNothingFast(tempPortFlags);
@@ -3375,8 +4327,11 @@ public class SOCPlayerTracker
                                     buildingType < SOCBuildingSpeedEstimate.MAXPLUSONE;
                                     buildingType++)
                             {
-                                D.ebugPrintln("ourBuildingSpeed[" + buildingType + "] = " + ourBuildingSpeed[buildingType]);
-                                D.ebugPrintln("tempBuildingSpeed[" + buildingType + "] = " + tempBuildingSpeed[buildingType]);
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("ourBuildingSpeed[" + buildingType + "] = " + ourBuildingSpeed[buildingType]);
+                                    log.debug("tempBuildingSpeed[" + buildingType + "] = " + tempBuildingSpeed[buildingType]);
+                                }
 
                                 if ((ourBuildingSpeed[buildingType] - tempBuildingSpeed[buildingType]) >= 0)
                                 {
@@ -3403,8 +4358,12 @@ public class SOCPlayerTracker
                             //	System.out.println();
                             //      }
                             tempPlayerNumbers.undoUpdateNumbers(posCity1.getCoordinates(), player.getGame().getBoard());
-                            D.ebugPrintln("tempPlayerNumbers = " + tempPlayerNumbers);
-                            D.ebugPrintln("WWW City at " + board.nodeCoordToString(posCity1.getCoordinates()) + " has tempSpeedupTotal = " + tempSpeedupTotal);
+
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("tempPlayerNumbers = {}", tempPlayerNumbers);
+                                log.debug("WWW City at " + board.nodeCoordToString(posCity1.getCoordinates()) + " has tempSpeedupTotal = " + tempSpeedupTotal);
+                            }
 
                             if (tempSpeedupTotal >= bestCitySpeedupTotal)
                             {
@@ -3433,43 +4392,50 @@ public class SOCPlayerTracker
                         roadETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.ROAD];
                         cityETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CITY];
                         cardETA = ourBuildingSpeed[SOCBuildingSpeedEstimate.CARD];
-                        D.ebugPrintln("WWW  * build 2 cities");
-                        D.ebugPrintln("WWW    city 1: " + board.nodeCoordToString(chosenCity[0].getCoordinates()));
-                        D.ebugPrintln("WWW    city 2: " + board.nodeCoordToString(chosenCity[1].getCoordinates()));
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("WWW  * build 2 cities");
+                            log.debug("WWW    city 1: " + board.nodeCoordToString(chosenCity[0].getCoordinates()));
+                            log.debug("WWW    city 2: " + board.nodeCoordToString(chosenCity[1].getCoordinates()));
+                        }
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": City at " + board.nodeCoordToString(chosenCity[0].getCoordinates()) + "; City at " + board.nodeCoordToString(chosenCity[1].getCoordinates()));
+                            brain.getDRecorder().record("{}: City at {}", new Integer(fastestETA), SOCCoordLabel.pair(SOCCoordLabel.node(board, chosenCity[0].getCoordinates()), "; City at ", SOCCoordLabel.node(board, chosenCity[1].getCoordinates())));
                         }
                     }
                     else if (!haveLR && !needLR && (points > 5) && (fastestETA == tempLongestRoadETA))
                     {
                         needLR = true;
-                        D.ebugPrintln("WWW  * take longest road");
+                        log.debug("WWW  * take longest road");
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Longest Road");
+                            brain.getDRecorder().record("{}: Longest Road", new Integer(fastestETA));
                         }
                     }
                     else if (!haveLA && !needLA && (points > 5) && (fastestETA == tempLargestArmyETA))
                     {
                         needLA = true;
-                        D.ebugPrintln("WWW  * take largest army");
+                        log.debug("WWW  * take largest army");
 
                         if (brain.getDRecorder().isOn())
                         {
-                            brain.getDRecorder().record(fastestETA + ": Largest Army");
+                            brain.getDRecorder().record("{}: Largest Army", new Integer(fastestETA));
                         }
                     }
                 }
             }
 
-            D.ebugPrintln("WWW TOTAL WGETA FOR PLAYER " + player.getPlayerNumber() + " = " + winGameETA);
+            if (log.isDebugEnabled())
+            {
+                log.debug("WWW TOTAL WGETA FOR PLAYER " + player.getPlayerNumber() + " = " + winGameETA);
+            }
 
             if (brain.getDRecorder().isOn())
             {
-                brain.getDRecorder().record("Total WGETA for " + player.getName() + " = " + winGameETA);
+                brain.getDRecorder().record("Total WGETA for {} = {}", player.getName(), new Integer(winGameETA));
                 brain.getDRecorder().record("--------------------");
             }
         }
@@ -3478,10 +4444,13 @@ public class SOCPlayerTracker
             winGameETA = oldWGETA;
             System.out.println("Exception in recalcWinGameETA - " + e);
             e.printStackTrace();
+
+            return false;
         }
 
         //System.out.println("good = "+good+" bad = "+bad);
         //System.out.println();
+        return true;
     }
 
     /**
@@ -3495,7 +4464,7 @@ public class SOCPlayerTracker
      */
     public static HashMap tryPutPiece(SOCPlayingPiece piece, SOCGame game, HashMap trackers)
     {
-        HashMap trackersCopy = SOCPlayerTracker.copyPlayerTrackers(trackers);
+        HashMap trackersCopy = SOCPlayerTracker.snapshotPlayerTrackers(trackers);
 
         if (piece != null)
         {
@@ -3593,56 +4562,55 @@ public class SOCPlayerTracker
      */
     public static void playerTrackersDebug(HashMap playerTrackers)
     {
-        if (D.ebugOn)
+        if (log.isDebugEnabled())
         {
             Iterator trackersIter = playerTrackers.values().iterator();
 
             while (trackersIter.hasNext())
             {
                 SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
-                D.ebugPrintln("%%%%%%%%% TRACKER FOR PLAYER " + tracker.getPlayer().getPlayerNumber());
-                D.ebugPrintln("   LONGEST ROAD ETA = " + tracker.getLongestRoadETA());
-                D.ebugPrintln("   LARGEST ARMY ETA = " + tracker.getLargestArmyETA());
+                log.debug("%%%%%%%%% TRACKER FOR PLAYER " + tracker.getPlayer().getPlayerNumber());
+                log.debug("   LONGEST ROAD ETA = " + tracker.getLongestRoadETA());
+                log.debug("   LARGEST ARMY ETA = " + tracker.getLargestArmyETA());
 
                 Iterator prIter = tracker.getPossibleRoads().values().iterator();
 
                 while (prIter.hasNext())
                 {
                     SOCPossibleRoad pr = (SOCPossibleRoad) prIter.next();
-                    D.ebugPrintln("%%% possible road at " + Integer.toHexString(pr.getCoordinates()));
-                    D.ebugPrint("   eta:" + pr.getETA());
-                    D.ebugPrint("   this road needs:");
+                    log.debug("%%% possible road at " + Integer.toHexString(pr.getCoordinates()));
+                    StringBuffer sb = new StringBuffer("   eta:" + pr.getETA() + "   this road needs:");
 
                     Enumeration nrEnum = pr.getNecessaryRoads().elements();
 
                     while (nrEnum.hasMoreElements())
                     {
-                        D.ebugPrint(" " + Integer.toHexString(((SOCPossiblePiece) nrEnum.nextElement()).getCoordinates()));
+                        sb.append(" " + Integer.toHexString(((SOCPossiblePiece) nrEnum.nextElement()).getCoordinates()));
                     }
 
-                    D.ebugPrintln();
-                    D.ebugPrint("   this road supports:");
+                    log.debug(sb.toString());
+                    sb = new StringBuffer("   this road supports:");
 
                     Enumeration newPosEnum = pr.getNewPossibilities().elements();
 
                     while (newPosEnum.hasMoreElements())
                     {
-                        D.ebugPrint(" " + Integer.toHexString(((SOCPossiblePiece) newPosEnum.nextElement()).getCoordinates()));
+                        sb.append(" " + Integer.toHexString(((SOCPossiblePiece) newPosEnum.nextElement()).getCoordinates()));
                     }
 
-                    D.ebugPrintln();
-                    D.ebugPrint("   threats:");
+                    log.debug(sb.toString());
+                    sb = new StringBuffer("   threats:");
 
                     Enumeration threatEnum = pr.getThreats().elements();
 
                     while (threatEnum.hasMoreElements())
                     {
                         SOCPossiblePiece threat = (SOCPossiblePiece) threatEnum.nextElement();
-                        D.ebugPrint(" " + threat.getPlayer().getPlayerNumber() + ":" + threat.getType() + ":" + Integer.toHexString(threat.getCoordinates()));
+                        sb.append(" " + threat.getPlayer().getPlayerNumber() + ":" + threat.getType() + ":" + Integer.toHexString(threat.getCoordinates()));
                     }
 
-                    D.ebugPrintln();
-                    D.ebugPrintln("   LR value=" + pr.getLRValue() + " LR Potential=" + pr.getLRPotential());
+                    log.debug(sb.toString());
+                    log.debug("   LR value=" + pr.getLRValue() + " LR Potential=" + pr.getLRPotential());
                 }
 
                 Iterator psIter = tracker.getPossibleSettlements().values().iterator();
@@ -3650,41 +4618,40 @@ public class SOCPlayerTracker
                 while (psIter.hasNext())
                 {
                     SOCPossibleSettlement ps = (SOCPossibleSettlement) psIter.next();
-                    D.ebugPrintln("%%% possible settlement at " + Integer.toHexString(ps.getCoordinates()));
-                    D.ebugPrint("   eta:" + ps.getETA());
-                    D.ebugPrint("%%%   conflicts");
+                    log.debug("%%% possible settlement at " + Integer.toHexString(ps.getCoordinates()));
+                    StringBuffer sb = new StringBuffer("   eta:" + ps.getETA() + "%%%   conflicts");
 
                     Enumeration conflictEnum = ps.getConflicts().elements();
 
                     while (conflictEnum.hasMoreElements())
                     {
                         SOCPossibleSettlement conflict = (SOCPossibleSettlement) conflictEnum.nextElement();
-                        D.ebugPrint(" " + conflict.getPlayer().getPlayerNumber() + ":" + Integer.toHexString(conflict.getCoordinates()));
+                        sb.append(" " + conflict.getPlayer().getPlayerNumber() + ":" + Integer.toHexString(conflict.getCoordinates()));
                     }
 
-                    D.ebugPrintln();
-                    D.ebugPrint("%%%   necessary roads");
+                    log.debug(sb.toString());
+                    sb = new StringBuffer("%%%   necessary roads");
 
                     Enumeration nrEnum = ps.getNecessaryRoads().elements();
 
                     while (nrEnum.hasMoreElements())
                     {
                         SOCPossibleRoad nr = (SOCPossibleRoad) nrEnum.nextElement();
-                        D.ebugPrint(" " + Integer.toHexString(nr.getCoordinates()));
+                        sb.append(" " + Integer.toHexString(nr.getCoordinates()));
                     }
 
-                    D.ebugPrintln();
-                    D.ebugPrint("   threats:");
+                    log.debug(sb.toString());
+                    sb = new StringBuffer("   threats:");
 
                     Enumeration threatEnum = ps.getThreats().elements();
 
                     while (threatEnum.hasMoreElements())
                     {
                         SOCPossiblePiece threat = (SOCPossiblePiece) threatEnum.nextElement();
-                        D.ebugPrint(" " + threat.getPlayer().getPlayerNumber() + ":" + threat.getType() + ":" + Integer.toHexString(threat.getCoordinates()));
+                        sb.append(" " + threat.getPlayer().getPlayerNumber() + ":" + threat.getType() + ":" + Integer.toHexString(threat.getCoordinates()));
                     }
 
-                    D.ebugPrintln();
+                    log.debug(sb.toString());
                 }
 
                 Iterator pcIter = tracker.getPossibleCities().values().iterator();
@@ -3692,8 +4659,8 @@ public class SOCPlayerTracker
                 while (pcIter.hasNext())
                 {
                     SOCPossibleCity pc = (SOCPossibleCity) pcIter.next();
-                    D.ebugPrintln("%%% possible city at " + Integer.toHexString(pc.getCoordinates()));
-                    D.ebugPrintln("   eta:" + pc.getETA());
+                    log.debug("%%% possible city at " + Integer.toHexString(pc.getCoordinates()));
+                    log.debug("   eta:" + pc.getETA());
                 }
             }
         }
@@ -0,0 +1,902 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.game.SOCBoard;
+import soc.game.SOCCity;
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCDevCardSet;
+import soc.game.SOCGame;
+import soc.game.SOCGameAction;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+
+import java.util.Random;
+import java.util.Vector;
+
+
+/**
+ * Plays quick made up games from a position to see who wins.
+ * The decision maker uses it to try out what to build next.
+ *
+ * The simulator has its own copy of the game.  Each playout
+ * changes the copy with the doTemp methods in SOCGame and takes
+ * it all back with undoTempToMark() at the end, so the copy is
+ * only made once.  What each player gets from each hex is kept
+ * in a table, so rolling the dice doesn't look at the board.
+ *
+ * The players in a playout follow simple rules: build a city if
+ * they can, then a settlement on the best spot, then a road if
+ * there's nowhere to put a settlement, and sometimes buy a dev
+ * card.  They trade with the bank to get a city or settlement.
+ * Unknown resources are made into random ones at the start of
+ * each playout.
+ *
+ * A simulator is only used by one thread at a time.
+ *
+ * @author agent
+ */
+public class SOCPlayoutSimulator
+{
+    /**
+     * the most turns in a playout.  if nobody has won by
+     * then, the player with the most VP wins.
+     */
+    public static final int MAX_TURNS = 200;
+
+    /**
+     * the chances of rolling each number, out of 36
+     */
+    protected static final int[] DICE_CHANCES = { 0, 0, 1, 2, 3, 4, 5, 6, 5, 4, 3, 2, 1 };
+
+    /**
+     * the dev cards in a new deck, one entry for each card
+     */
+    protected static final int[] DEV_CARD_DECK;
+
+    static
+    {
+        DEV_CARD_DECK = new int[25];
+
+        int i = 0;
+
+        for (int j = 0; j < 14; j++)
+        {
+            DEV_CARD_DECK[i++] = SOCDevCardConstants.KNIGHT;
+        }
+
+        for (int j = 0; j < 2; j++)
+        {
+            DEV_CARD_DECK[i++] = SOCDevCardConstants.ROADS;
+            DEV_CARD_DECK[i++] = SOCDevCardConstants.DISC;
+            DEV_CARD_DECK[i++] = SOCDevCardConstants.MONO;
+        }
+
+        DEV_CARD_DECK[i++] = SOCDevCardConstants.CAP;
+        DEV_CARD_DECK[i++] = SOCDevCardConstants.LIB;
+        DEV_CARD_DECK[i++] = SOCDevCardConstants.UNIV;
+        DEV_CARD_DECK[i++] = SOCDevCardConstants.TEMP;
+        DEV_CARD_DECK[i++] = SOCDevCardConstants.TOW;
+    }
+
+    /**
+     * add to a hex's coordinates to get the nodes on its corners
+     */
+    protected static final int[] HEX_NODE_OFFSETS = { 0x01, 0x12, 0x21, 0x10, -0x01, -0x10 };
+
+    /**
+     * our copy of the game
+     */
+    protected SOCGame game;
+
+    /**
+     * the player we're playing for
+     */
+    protected int ourPlayerNumber;
+
+    /**
+     * random numbers for the dice and the players
+     */
+    protected Random rand;
+
+    /**
+     * the buffer for legal actions
+     */
+    protected int[] actions;
+
+    /**
+     * the land hexes, by index: their coordinates, the
+     * resource they make, and the chances of their number
+     */
+    protected int numHexes;
+    protected int[] hexCoords;
+    protected int[] hexResources;
+    protected int[] hexNumbers;
+
+    /**
+     * the indexes of the land hexes touching each node
+     */
+    protected int[][] nodeHexes;
+
+    /**
+     * the chances of each node making something, out of 36
+     */
+    protected int[] nodeChances;
+
+    /**
+     * how many resources each player gets from each hex,
+     * by [player][hex index], at the start of a playout
+     * and during it
+     */
+    protected int[][] startProduction;
+    protected int[][] production;
+
+    /**
+     * constructor.  this copies the game, so make the
+     * simulator on the thread that owns the game.
+     *
+     * @param ga    the game
+     * @param pn    the number of the player we're playing for
+     * @param seed  the seed for the random numbers
+     */
+    public SOCPlayoutSimulator(SOCGame ga, int pn, long seed)
+    {
+        game = new SOCGame(ga);
+        ourPlayerNumber = pn;
+        rand = new Random(seed);
+        actions = new int[SOCGameAction.MAX_ACTIONS];
+
+        SOCBoard board = game.getBoard();
+        int[] coords = new int[board.getNumHexes()];
+        int[] resources = new int[board.getNumHexes()];
+        int[] numbers = new int[board.getNumHexes()];
+        numHexes = 0;
+
+        for (int i = 0; i < board.getNumHexes(); i++)
+        {
+            int hexType = board.getHexTypeFromNumber(i);
+
+            if ((hexType >= SOCBoard.DESERT_HEX) && (hexType <= SOCBoard.WOOD_HEX))
+            {
+                coords[numHexes] = board.getHexCoordFromNumber(i);
+
+                /**
+                 * the land hex types are the same numbers
+                 * as the resources they make
+                 */
+                resources[numHexes] = hexType;
+                numbers[numHexes] = board.getNumberOnHexFromNumber(i);
+                numHexes++;
+            }
+        }
+
+        hexCoords = coords;
+        hexResources = resources;
+        hexNumbers = numbers;
+
+        int[] numNodeHexes = new int[0x100];
+        nodeHexes = new int[0x100][3];
+        nodeChances = new int[0x100];
+
+        for (int h = 0; h < numHexes; h++)
+        {
+            for (int i = 0; i < HEX_NODE_OFFSETS.length; i++)
+            {
+                int node = hexCoords[h] + HEX_NODE_OFFSETS[i];
+                nodeHexes[node][numNodeHexes[node]] = h;
+                numNodeHexes[node]++;
+                nodeChances[node] += DICE_CHANCES[hexNumbers[h]];
+            }
+        }
+
+        for (int node = 0; node < 0x100; node++)
+        {
+            if (numNodeHexes[node] < 3)
+            {
+                int[] hexes = new int[numNodeHexes[node]];
+                System.arraycopy(nodeHexes[node], 0, hexes, 0, hexes.length);
+                nodeHexes[node] = hexes;
+            }
+        }
+
+        startProduction = new int[SOCGame.MAXPLAYERS][numHexes];
+        production = new int[SOCGame.MAXPLAYERS][numHexes];
+
+        for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+        {
+            SOCPlayer player = game.getPlayer(p);
+            Vector settlements = player.getSettlements();
+            Vector cities = player.getCities();
+
+            for (int i = 0; i < settlements.size(); i++)
+            {
+                addProduction(startProduction[p], ((SOCPlayingPiece) settlements.elementAt(i)).getCoordinates());
+            }
+
+            for (int i = 0; i < cities.size(); i++)
+            {
+                addProduction(startProduction[p], ((SOCPlayingPiece) cities.elementAt(i)).getCoordinates());
+                addProduction(startProduction[p], ((SOCPlayingPiece) cities.elementAt(i)).getCoordinates());
+            }
+        }
+    }
+
+    /**
+     * add one of each resource made around a node
+     * to a production table
+     *
+     * @param prod  the production for a player
+     * @param node  the node
+     */
+    protected void addProduction(int[] prod, int node)
+    {
+        int[] hexes = nodeHexes[node];
+
+        for (int i = 0; i < hexes.length; i++)
+        {
+            prod[hexes[i]]++;
+        }
+    }
+
+    /**
+     * @return our copy of the game
+     */
+    public SOCGame getGame()
+    {
+        return game;
+    }
+
+    /**
+     * play a game out from the position the simulator
+     * was made with, and put the game back the way it was.
+     * the game starts partway through our turn, after we've
+     * rolled, and we save up for one piece before building
+     * anything else.
+     *
+     * @param firstType   the type of the first piece we build,
+     *                    a SOCPossiblePiece type, or -1 for none
+     * @param firstCoord  where we build it
+     * @return the number of the player who won, or -1 if
+     *         nobody did
+     */
+    public int playout(int firstType, int firstCoord)
+    {
+        int mark = game.getTempMark();
+
+        for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+        {
+            System.arraycopy(startProduction[p], 0, production[p], 0, numHexes);
+        }
+
+        guessUnknownResources();
+
+        boolean firstDone = (firstType < 0);
+        int winner = -1;
+        int pn = ourPlayerNumber;
+
+        for (int turn = 0; turn < MAX_TURNS; turn++)
+        {
+            game.doTempSetCurrentPlayer(pn);
+            game.doTempSetGameState(SOCGame.PLAY1);
+
+            if (turn > 0)
+            {
+                maybePlayKnight(pn);
+                rollDice(pn);
+            }
+
+            if ((pn == ourPlayerNumber) && !firstDone)
+            {
+                firstDone = buildFirst(firstType, firstCoord);
+            }
+
+            if ((pn != ourPlayerNumber) || firstDone)
+            {
+                buildStuff(pn);
+            }
+
+            if (game.getPlayer(pn).getTotalVP() >= 10)
+            {
+                winner = pn;
+
+                break;
+            }
+
+            endTurn(pn);
+            pn = (pn + 1) % SOCGame.MAXPLAYERS;
+        }
+
+        if (winner == -1)
+        {
+            winner = getLeader();
+        }
+
+        game.undoTempToMark(mark);
+
+        return winner;
+    }
+
+    /**
+     * @return the player with the most VP, or -1 if there's a tie
+     */
+    protected int getLeader()
+    {
+        int leader = -1;
+        int bestVP = -1;
+
+        for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+        {
+            int vp = game.getPlayer(p).getTotalVP();
+
+            if (vp > bestVP)
+            {
+                leader = p;
+                bestVP = vp;
+            }
+            else if (vp == bestVP)
+            {
+                leader = -1;
+            }
+        }
+
+        return leader;
+    }
+
+    /**
+     * change everyone's unknown resources into random ones
+     */
+    protected void guessUnknownResources()
+    {
+        for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+        {
+            int unknown = game.getPlayer(p).getResources().getAmount(SOCResourceConstants.UNKNOWN);
+
+            if (unknown > 0)
+            {
+                game.doTempResourceChange(p, SOCResourceConstants.UNKNOWN, -unknown);
+
+                for (int i = 0; i < unknown; i++)
+                {
+                    game.doTempResourceChange(p, SOCResourceConstants.CLAY + rand.nextInt(5), 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * roll the dice and hand out resources, or
+     * move the robber if it's a 7
+     *
+     * @param pn  the player rolling
+     */
+    protected void rollDice(int pn)
+    {
+        int roll = rand.nextInt(6) + rand.nextInt(6) + 2;
+
+        if (roll == 7)
+        {
+            for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+            {
+                int total = game.getPlayer(p).getResources().getTotal();
+
+                if (total > 7)
+                {
+                    for (int i = total / 2; i > 0; i--)
+                    {
+                        game.doTempResourceChange(p, pickRandomResource(p), -1);
+                    }
+                }
+            }
+
+            moveRobber(pn);
+
+            return;
+        }
+
+        int robberHex = game.getBoard().getRobberHex();
+
+        for (int h = 0; h < numHexes; h++)
+        {
+            if ((hexNumbers[h] != roll) || (hexCoords[h] == robberHex))
+            {
+                continue;
+            }
+
+            for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+            {
+                if (production[p][h] > 0)
+                {
+                    game.doTempResourceChange(p, hexResources[h], production[p][h]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a random resource from a player's hand, counting
+     *         each card once, or -1 if they don't have any
+     *
+     * @param p  the player
+     */
+    protected int pickRandomResource(int p)
+    {
+        SOCResourceSet resources = game.getPlayer(p).getResources();
+        int total = 0;
+
+        for (int r = SOCResourceConstants.CLAY; r <= SOCResourceConstants.WOOD;
+                r++)
+        {
+            total += resources.getAmount(r);
+        }
+
+        if (total == 0)
+        {
+            return -1;
+        }
+
+        int pick = rand.nextInt(total);
+
+        for (int r = SOCResourceConstants.CLAY; r <= SOCResourceConstants.WOOD;
+                r++)
+        {
+            pick -= resources.getAmount(r);
+
+            if (pick < 0)
+            {
+                return r;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * move the robber to the hex that hurts the other players
+     * the most and doesn't touch us, and steal from someone there
+     *
+     * @param pn  the player moving the robber
+     */
+    protected void moveRobber(int pn)
+    {
+        int robberHex = game.getBoard().getRobberHex();
+        int bestHex = -1;
+        int bestScore = Integer.MIN_VALUE;
+
+        for (int h = 0; h < numHexes; h++)
+        {
+            if (hexCoords[h] == robberHex)
+            {
+                continue;
+            }
+
+            int score = 0;
+
+            for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+            {
+                if (p == pn)
+                {
+                    score -= (production[p][h] * 100);
+                }
+                else
+                {
+                    score += (production[p][h] * DICE_CHANCES[hexNumbers[h]]);
+                }
+            }
+
+            if ((score > bestScore) || ((score == bestScore) && rand.nextBoolean()))
+            {
+                bestHex = h;
+                bestScore = score;
+            }
+        }
+
+        if (bestHex == -1)
+        {
+            return;
+        }
+
+        game.doTempMoveRobber(hexCoords[bestHex]);
+
+        int victim = -1;
+        int numVictims = 0;
+
+        for (int p = 0; p < SOCGame.MAXPLAYERS; p++)
+        {
+            if ((p != pn) && (production[p][bestHex] > 0) && (game.getPlayer(p).getResources().getTotal() > 0))
+            {
+                numVictims++;
+
+                if (rand.nextInt(numVictims) == 0)
+                {
+                    victim = p;
+                }
+            }
+        }
+
+        if (victim != -1)
+        {
+            int loot = pickRandomResource(victim);
+
+            if (loot != -1)
+            {
+                game.doTempResourceChange(victim, loot, -1);
+                game.doTempResourceChange(pn, loot, 1);
+            }
+        }
+    }
+
+    /**
+     * play a knight at the start of a turn, half the time,
+     * or always if the robber is on one of our hexes
+     *
+     * @param pn  the player
+     */
+    protected void maybePlayKnight(int pn)
+    {
+        if (game.getPlayer(pn).getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) == 0)
+        {
+            return;
+        }
+
+        boolean robbed = false;
+        int robberHex = game.getBoard().getRobberHex();
+
+        for (int h = 0; h < numHexes; h++)
+        {
+            if ((hexCoords[h] == robberHex) && (production[pn][h] > 0))
+            {
+                robbed = true;
+            }
+        }
+
+        if (robbed || rand.nextBoolean())
+        {
+            game.doTempPlayKnight(pn);
+            moveRobber(pn);
+        }
+    }
+
+    /**
+     * save up for and build the first piece in our plan
+     *
+     * @param type   the type of the piece, a SOCPossiblePiece type
+     * @param coord  where it goes
+     * @return true if it was built, or it can't be built anymore
+     */
+    protected boolean buildFirst(int type, int coord)
+    {
+        SOCPlayer player = game.getPlayer(ourPlayerNumber);
+
+        switch (type)
+        {
+        case SOCPossiblePiece.CITY:
+
+            if (!player.isPotentialCity(coord))
+            {
+                return true;
+            }
+
+            if (tradeFor(ourPlayerNumber, SOCGame.CITY_SET))
+            {
+                buildCity(ourPlayerNumber, coord);
+
+                return true;
+            }
+
+            return false;
+
+        case SOCPossiblePiece.SETTLEMENT:
+
+            if (!player.isPotentialSettlement(coord))
+            {
+                return true;
+            }
+
+            if (tradeFor(ourPlayerNumber, SOCGame.SETTLEMENT_SET))
+            {
+                buildSettlement(ourPlayerNumber, coord);
+
+                return true;
+            }
+
+            return false;
+
+        case SOCPossiblePiece.ROAD:
+
+            if (!player.isPotentialRoad(coord))
+            {
+                return true;
+            }
+
+            if (tradeFor(ourPlayerNumber, SOCGame.ROAD_SET))
+            {
+                buildRoad(ourPlayerNumber, coord);
+
+                return true;
+            }
+
+            return false;
+
+        case SOCPossiblePiece.CARD:
+
+            if (game.getNumDevCards() == 0)
+            {
+                return true;
+            }
+
+            if (tradeFor(ourPlayerNumber, SOCGame.CARD_SET))
+            {
+                buyDevCard(ourPlayerNumber);
+
+                return true;
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * build what the simple rules say to build
+     *
+     * @param pn  the player
+     */
+    protected void buildStuff(int pn)
+    {
+        SOCPlayer player = game.getPlayer(pn);
+
+        while (true)
+        {
+            if ((player.getNumPieces(SOCPlayingPiece.CITY) > 0) && player.hasPotentialCity() && tradeFor(pn, SOCGame.CITY_SET))
+            {
+                buildCity(pn, pickBestNode(player, SOCPlayingPiece.CITY));
+            }
+            else if ((player.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0) && player.hasPotentialSettlement() && tradeFor(pn, SOCGame.SETTLEMENT_SET))
+            {
+                buildSettlement(pn, pickBestNode(player, SOCPlayingPiece.SETTLEMENT));
+            }
+            else if (!player.hasPotentialSettlement() && game.couldBuildRoad(pn))
+            {
+                buildRoad(pn, pickRandomRoad(player));
+            }
+            else if (game.couldBuyDevCard(pn) && rand.nextBoolean())
+            {
+                buyDevCard(pn);
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * make bank trades until a player can pay for something,
+     * trading away what they have the most extra of first
+     *
+     * @param pn    the player
+     * @param cost  what it costs
+     * @return true if the player can pay for it
+     */
+    protected boolean tradeFor(int pn, SOCResourceSet cost)
+    {
+        SOCResourceSet resources = game.getPlayer(pn).getResources();
+
+        while (true)
+        {
+            int missing = 0;
+
+            for (int r = SOCResourceConstants.CLAY;
+                    r <= SOCResourceConstants.WOOD; r++)
+            {
+                missing += Math.max(0, cost.getAmount(r) - resources.getAmount(r));
+            }
+
+            if (missing == 0)
+            {
+                return true;
+            }
+
+            int n = Math.min(game.getLegalActions(actions), actions.length);
+            int bestAction = -1;
+            int bestExtra = 0;
+
+            for (int i = 0; i < n; i++)
+            {
+                if (SOCGameAction.getType(actions[i]) != SOCGameAction.BANK_TRADE)
+                {
+                    continue;
+                }
+
+                int give = SOCGameAction.getArg1(actions[i]);
+                int get = SOCGameAction.getArg2(actions[i]);
+                int extra = resources.getAmount(give) - SOCGameAction.getArg3(actions[i]) - cost.getAmount(give);
+
+                if ((resources.getAmount(get) < cost.getAmount(get)) && (extra >= 0) && ((bestAction == -1) || (extra > bestExtra)))
+                {
+                    bestAction = actions[i];
+                    bestExtra = extra;
+                }
+            }
+
+            if (bestAction == -1)
+            {
+                return false;
+            }
+
+            game.doTempResourceChange(pn, SOCGameAction.getArg1(bestAction), -SOCGameAction.getArg3(bestAction));
+            game.doTempResourceChange(pn, SOCGameAction.getArg2(bestAction), 1);
+        }
+    }
+
+    /**
+     * @return the potential settlement or city for a player
+     *         that makes the most, picking at random from ties
+     *
+     * @param player  the player
+     * @param type    SOCPlayingPiece.SETTLEMENT or CITY
+     */
+    protected int pickBestNode(SOCPlayer player, int type)
+    {
+        int best = -1;
+        int numBest = 0;
+
+        for (int node = nextNode(player, type, SOCBoard.MINNODE);
+                (node != -1) && (node <= SOCBoard.MAXNODE);
+                node = nextNode(player, type, node + 1))
+        {
+            if ((best == -1) || (nodeChances[node] > nodeChances[best]))
+            {
+                best = node;
+                numBest = 1;
+            }
+            else if (nodeChances[node] == nodeChances[best])
+            {
+                numBest++;
+
+                if (rand.nextInt(numBest) == 0)
+                {
+                    best = node;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @return the next potential settlement or city
+     *
+     * @param player  the player
+     * @param type    SOCPlayingPiece.SETTLEMENT or CITY
+     * @param node    where to start looking
+     */
+    protected static int nextNode(SOCPlayer player, int type, int node)
+    {
+        if (type == SOCPlayingPiece.CITY)
+        {
+            return player.nextPotentialCity(node);
+        }
+        else
+        {
+            return player.nextPotentialSettlement(node);
+        }
+    }
+
+    /**
+     * @return a random potential road for a player
+     *
+     * @param player  the player
+     */
+    protected int pickRandomRoad(SOCPlayer player)
+    {
+        int pick = -1;
+        int count = 0;
+
+        for (int edge = player.nextPotentialRoad(SOCBoard.MINEDGE);
+                (edge != -1) && (edge <= SOCBoard.MAXEDGE);
+                edge = player.nextPotentialRoad(edge + 1))
+        {
+            count++;
+
+            if (rand.nextInt(count) == 0)
+            {
+                pick = edge;
+            }
+        }
+
+        return pick;
+    }
+
+    /**
+     * pay for and put down a road
+     *
+     * @param pn     the player
+     * @param coord  the edge
+     */
+    protected void buildRoad(int pn, int coord)
+    {
+        game.doTempSubtractResources(pn, SOCGame.ROAD_SET);
+        game.doTempPutPiece(new SOCRoad(game.getPlayer(pn), coord));
+    }
+
+    /**
+     * pay for and put down a settlement
+     *
+     * @param pn     the player
+     * @param coord  the node
+     */
+    protected void buildSettlement(int pn, int coord)
+    {
+        game.doTempSubtractResources(pn, SOCGame.SETTLEMENT_SET);
+        game.doTempPutPiece(new SOCSettlement(game.getPlayer(pn), coord));
+        addProduction(production[pn], coord);
+    }
+
+    /**
+     * pay for and put down a city
+     *
+     * @param pn     the player
+     * @param coord  the node
+     */
+    protected void buildCity(int pn, int coord)
+    {
+        game.doTempSubtractResources(pn, SOCGame.CITY_SET);
+        game.doTempPutPiece(new SOCCity(game.getPlayer(pn), coord));
+        addProduction(production[pn], coord);
+    }
+
+    /**
+     * buy a dev card, drawn at random from a full deck
+     * since we don't know what's left
+     *
+     * @param pn  the player
+     */
+    protected void buyDevCard(int pn)
+    {
+        game.doTempBuyDevCard(pn, DEV_CARD_DECK[rand.nextInt(DEV_CARD_DECK.length)]);
+    }
+
+    /**
+     * end a player's turn: the dev cards they bought
+     * can be played from now on
+     *
+     * @param pn  the player
+     */
+    protected void endTurn(int pn)
+    {
+        SOCDevCardSet devCards = game.getPlayer(pn).getDevCards();
+
+        for (int ctype = SOCDevCardConstants.MIN; ctype < SOCDevCardConstants.MAXPLUSONE; ctype++)
+        {
+            int newCards = devCards.getAmount(SOCDevCardSet.NEW, ctype);
+
+            if (newCards > 0)
+            {
+                game.doTempDevCardChange(pn, SOCDevCardSet.NEW, ctype, -newCards);
+                game.doTempDevCardChange(pn, SOCDevCardSet.OLD, ctype, newCards);
+            }
+        }
+    }
+}
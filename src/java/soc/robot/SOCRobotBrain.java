@@ -20,7 +20,7 @@
  **/
 package soc.robot;
 
-import soc.disableDebug.D;
+import soc.debug.Log;
 
 import soc.game.SOCBoard;
 import soc.game.SOCCity;
@@ -63,7 +63,6 @@ import soc.server.SOCServer;
 import soc.util.CappedQueue;
 import soc.util.CutoffExceededException;
 import soc.util.DebugRecorder;
-import soc.util.Queue;
 import soc.util.SOCRobotParameters;
 
 import java.util.Enumeration;
@@ -82,11 +81,25 @@ import java.util.Vector;
  */
 public class SOCRobotBrain extends Thread
 {
+    /**
+     * the log for robot brains
+     */
+    static final Log log = Log.getLog("robot.brain");
+
     /**
      * The robot parameters
      */
     SOCRobotParameters robotParameters;
 
+    /**
+     * the strategy and time limits we're planning with.  these
+     * start out from the robot parameters, and the robot client's
+     * load monitor thread turns them down when it's busy.
+     */
+    protected volatile int strategyType;
+    protected volatile int decisionTime;
+    protected volatile int playoutTime;
+
     /**
      * Flag for wheather or not we're alive
      */
@@ -348,6 +361,21 @@ public class SOCRobotBrain extends Thread
      */
     protected int secondSettlement;
 
+    /**
+     * the tables used to plan our first and second settlements
+     */
+    protected SOCInitialPlacementPlanner placementPlanner;
+
+    /**
+     * plans our trades with the bank and ports
+     */
+    protected SOCBankTradePlanner bankTradePlanner;
+
+    /**
+     * the tracker results we share with other brains in this game
+     */
+    protected SOCGameAnalysisCache analysisCache;
+
     /**
      * a thread that sends ping messages to this one
      */
@@ -386,6 +414,9 @@ public class SOCRobotBrain extends Thread
     {
         client = rc;
         robotParameters = params;
+        strategyType = params.getStrategyType();
+        decisionTime = params.getDecisionTime();
+        playoutTime = params.getPlayoutTime();
         game = ga;
         gameEventQ = mq;
         alive = true;
@@ -428,6 +459,7 @@ public class SOCRobotBrain extends Thread
         }
 
         buildingPlan = new Stack();
+        bankTradePlanner = new SOCBankTradePlanner();
         resourceChoices = new SOCResourceSet();
         resourceChoices.add(2, SOCResourceConstants.CLAY);
         monopolyChoice = SOCResourceConstants.SHEEP;
@@ -502,6 +534,46 @@ public class SOCRobotBrain extends Thread
         return decisionMaker;
     }
 
+    /**
+     * change the strategy and time limits we plan with
+     *
+     * @param st  the strategy type
+     * @param dt  the time for a smart strategy decision, or 0 for no limit
+     * @param pt  the time for a Monte Carlo strategy decision
+     */
+    public void setStrategy(int st, int dt, int pt)
+    {
+        strategyType = st;
+        decisionTime = dt;
+        playoutTime = pt;
+    }
+
+    /**
+     * @return the strategy type we plan with
+     */
+    public int getStrategyType()
+    {
+        return strategyType;
+    }
+
+    /**
+     * @return the number of messages waiting for us
+     */
+    public int getQueueSize()
+    {
+        return gameEventQ.size();
+    }
+
+    /**
+     * make a building plan with the strategy and
+     * time limits we're using now
+     */
+    protected void planStuff()
+    {
+        decisionMaker.setTimeLimits(decisionTime, playoutTime);
+        decisionMaker.planStuff(strategyType);
+    }
+
     /**
      * turns the debug recorders on
      */
@@ -571,6 +643,18 @@ public class SOCRobotBrain extends Thread
             }
         }
 
+        if (analysisCache == null)
+        {
+            analysisCache = SOCGameAnalysisCache.join(game.getName());
+        }
+
+        Iterator trackersIter = playerTrackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            ((SOCPlayerTracker) trackersIter.next()).useAnalysisCache(analysisCache);
+        }
+
         decisionMaker = new SOCRobotDM(this);
         negotiator = new SOCRobotNegotiator(this);
     }
@@ -602,7 +686,7 @@ public class SOCRobotBrain extends Thread
                     if (mes != null)
                     {
                         mesType = mes.getType();
-                        D.ebugPrintln("mes - " + mes);
+                        log.debug("mes - {}", mes);
                     }
                     else
                     {
@@ -726,6 +810,7 @@ public class SOCRobotBrain extends Thread
                         waitingForTradeResponse = false;
                         negotiator.resetIsSelling();
                         negotiator.resetOffersMade();
+                        negotiator.resetEstimates();
 
                         //
                         // reset any plans we had
@@ -850,7 +935,7 @@ public class SOCRobotBrain extends Thread
                             {
                             case SOCPlayerElement.SET:
 
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.CLAY))
                                     {
@@ -881,7 +966,7 @@ public class SOCRobotBrain extends Thread
                             {
                             case SOCPlayerElement.SET:
 
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.ORE))
                                     {
@@ -912,7 +997,7 @@ public class SOCRobotBrain extends Thread
                             {
                             case SOCPlayerElement.SET:
 
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.SHEEP))
                                     {
@@ -943,7 +1028,7 @@ public class SOCRobotBrain extends Thread
                             {
                             case SOCPlayerElement.SET:
 
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.WHEAT))
                                     {
@@ -974,7 +1059,7 @@ public class SOCRobotBrain extends Thread
                             {
                             case SOCPlayerElement.SET:
 
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.WOOD))
                                     {
@@ -1008,7 +1093,7 @@ public class SOCRobotBrain extends Thread
                                 /**
                                  * set the ammount of unknown resources
                                  */
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     if (((SOCPlayerElement) mes).getValue() != ourPlayerData.getResources().getAmount(SOCResourceConstants.UNKNOWN))
                                     {
@@ -1071,7 +1156,7 @@ public class SOCRobotBrain extends Thread
                         {
                             SOCResourceSet rsrcs = pl.getResources();
 
-                            if (D.ebugOn)
+                            if (log.isDebugEnabled())
                             {
                                 client.sendText(game, ">>> RESOURCE COUNT ERROR FOR PLAYER " + pl.getPlayerNumber() + ": " + ((SOCResourceCount) mes).getCount() + " != " + rsrcs.getTotal());
                             }
@@ -1094,7 +1179,7 @@ public class SOCRobotBrain extends Thread
 
                     else if (mesType == SOCMessage.PUTPIECE)
                     {
-                        D.ebugPrintln("*** PUTPIECE for game ***");
+                        log.debug("*** PUTPIECE for game ***");
 
                         SOCPlayer pl = game.getPlayer(((SOCPutPiece) mes).getPlayerNumber());
 
@@ -1156,7 +1241,11 @@ public class SOCRobotBrain extends Thread
                             {
                                 if (giveSet.getAmount(rsrcType) > 0)
                                 {
-                                    D.ebugPrintln("%%% player " + offer.getFrom() + " wants to sell " + rsrcType);
+                                    if (log.isDebugEnabled())
+                                    {
+                                        log.debug("%%% player " + offer.getFrom() + " wants to sell " + rsrcType);
+                                    }
+
                                     negotiator.markAsWantsAnotherOffer(offer.getFrom(), rsrcType);
                                 }
                             }
@@ -1173,7 +1262,11 @@ public class SOCRobotBrain extends Thread
                             {
                                 if (getSet.getAmount(rsrcType) > 0)
                                 {
-                                    D.ebugPrintln("%%% player " + offer.getFrom() + " wants to buy " + rsrcType + " and therefore does not want to sell it");
+                                    if (log.isDebugEnabled())
+                                    {
+                                        log.debug("%%% player " + offer.getFrom() + " wants to buy " + rsrcType + " and therefore does not want to sell it");
+                                    }
+
                                     negotiator.markAsNotSelling(offer.getFrom(), rsrcType);
                                 }
                             }
@@ -1183,7 +1276,11 @@ public class SOCRobotBrain extends Thread
                                 offerRejections[offer.getFrom()] = true;
 
                                 boolean everyoneRejected = true;
-                                D.ebugPrintln("ourPlayerData.getCurrentOffer() = " + ourPlayerData.getCurrentOffer());
+
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("ourPlayerData.getCurrentOffer() = " + ourPlayerData.getCurrentOffer());
+                                }
 
                                 if (ourPlayerData.getCurrentOffer() != null)
                                 {
@@ -1192,7 +1289,10 @@ public class SOCRobotBrain extends Thread
                                     for (int i = 0; i < SOCGame.MAXPLAYERS;
                                             i++)
                                     {
-                                        D.ebugPrintln("offerRejections[" + i + "]=" + offerRejections[i]);
+                                        if (log.isDebugEnabled())
+                                        {
+                                            log.debug("offerRejections[" + i + "]=" + offerRejections[i]);
+                                        }
 
                                         if (offeredTo[i] && !offerRejections[i])
                                         {
@@ -1201,7 +1301,10 @@ public class SOCRobotBrain extends Thread
                                     }
                                 }
 
-                                D.ebugPrintln("everyoneRejected=" + everyoneRejected);
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("everyoneRejected=" + everyoneRejected);
+                                }
 
                                 if (everyoneRejected)
                                 {
@@ -1216,7 +1319,10 @@ public class SOCRobotBrain extends Thread
                             ///
                             int ourResponseToOffer = considerOffer(offer);
 
-                            D.ebugPrintln("%%% ourResponseToOffer = " + ourResponseToOffer);
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("%%% ourResponseToOffer = " + ourResponseToOffer);
+                            }
 
                             if (ourResponseToOffer >= 0)
                             {
@@ -1280,7 +1386,7 @@ public class SOCRobotBrain extends Thread
 
                         if ((ourPlayerData.getCurrentOffer() != null) && (waitingForTradeResponse))
                         {
-                            D.ebugPrintln("%%%%%%%%% REJECT OFFER %%%%%%%%%%%%%");
+                            log.debug("%%%%%%%%% REJECT OFFER %%%%%%%%%%%%%");
 
                             ///
                             /// record which player said no
@@ -1300,13 +1406,20 @@ public class SOCRobotBrain extends Thread
                             offerRejections[((SOCRejectOffer) mes).getPlayerNumber()] = true;
 
                             boolean everyoneRejected = true;
-                            D.ebugPrintln("ourPlayerData.getCurrentOffer() = " + ourPlayerData.getCurrentOffer());
+
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("ourPlayerData.getCurrentOffer() = " + ourPlayerData.getCurrentOffer());
+                            }
 
                             boolean[] offeredTo = ourPlayerData.getCurrentOffer().getTo();
 
                             for (int i = 0; i < SOCGame.MAXPLAYERS; i++)
                             {
-                                D.ebugPrintln("offerRejections[" + i + "]=" + offerRejections[i]);
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("offerRejections[" + i + "]=" + offerRejections[i]);
+                                }
 
                                 if (offeredTo[i] && !offerRejections[i])
                                 {
@@ -1314,7 +1427,10 @@ public class SOCRobotBrain extends Thread
                                 }
                             }
 
-                            D.ebugPrintln("everyoneRejected=" + everyoneRejected);
+                            if (log.isDebugEnabled())
+                            {
+                                log.debug("everyoneRejected=" + everyoneRejected);
+                            }
 
                             if (everyoneRejected)
                             {
@@ -1328,7 +1444,7 @@ public class SOCRobotBrain extends Thread
                             ///
                             /// we also want to watch rejections of other players' offers
                             ///
-                            D.ebugPrintln("%%%% ALT REJECT OFFER %%%%");
+                            log.debug("%%%% ALT REJECT OFFER %%%%");
 
                             for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
                             {
@@ -1550,7 +1666,7 @@ public class SOCRobotBrain extends Thread
                                 counter = 0;
 
                                 //D.ebugPrintln("DOING PLAY1");
-                                if (D.ebugOn)
+                                if (log.isDebugEnabled())
                                 {
                                     client.sendText(game, "================================");
 
@@ -1566,7 +1682,7 @@ public class SOCRobotBrain extends Thread
                                         resourceMessage += (rsrcs.getAmount(SOCResourceConstants.WOOD) + " ");
                                         resourceMessage += (rsrcs.getAmount(SOCResourceConstants.UNKNOWN) + " ");
                                         client.sendText(game, resourceMessage);
-                                        D.ebugPrintln(resourceMessage);
+                                        log.debug(resourceMessage);
                                     }
                                 }
 
@@ -1611,7 +1727,7 @@ public class SOCRobotBrain extends Thread
                                  */
                                 if (!expectPLACING_ROBBER && (buildingPlan.empty()) && (ourPlayerData.getResources().getTotal() > 1))
                                 {
-                                    decisionMaker.planStuff(robotParameters.getStrategyType());
+                                    planStuff();
 
                                     if (!buildingPlan.empty())
                                     {
@@ -1783,7 +1899,7 @@ public class SOCRobotBrain extends Thread
                                                 if (!waitingForTradeMsg && !waitingForTradeResponse && ourPlayerData.getResources().contains(targetResources))
                                                 {
                                                     buildingPlan.pop();
-                                                    D.ebugPrintln("$ POPPED " + targetPiece);
+                                                    log.debug("$ POPPED {}", targetPiece);
                                                     lastMove = targetPiece;
                                                     currentDRecorder = (currentDRecorder + 1) % 2;
                                                     negotiator.setTargetPiece(ourPlayerData.getPlayerNumber(), targetPiece);
@@ -1801,7 +1917,12 @@ public class SOCRobotBrain extends Thread
                                                         counter = 0;
                                                         expectPLACING_ROAD = true;
                                                         whatWeWantToBuild = new SOCRoad(ourPlayerData, targetPiece.getCoordinates());
-                                                        D.ebugPrintln("!!! BUILD REQUEST FOR A ROAD AT " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+
+                                                        if (log.isDebugEnabled())
+                                                        {
+                                                            log.debug("!!! BUILD REQUEST FOR A ROAD AT " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+                                                        }
+
                                                         client.buildRequest(game, SOCPlayingPiece.ROAD);
 
                                                         break;
@@ -1811,7 +1932,12 @@ public class SOCRobotBrain extends Thread
                                                         counter = 0;
                                                         expectPLACING_SETTLEMENT = true;
                                                         whatWeWantToBuild = new SOCSettlement(ourPlayerData, targetPiece.getCoordinates());
-                                                        D.ebugPrintln("!!! BUILD REQUEST FOR A SETTLEMENT " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+
+                                                        if (log.isDebugEnabled())
+                                                        {
+                                                            log.debug("!!! BUILD REQUEST FOR A SETTLEMENT " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+                                                        }
+
                                                         client.buildRequest(game, SOCPlayingPiece.SETTLEMENT);
 
                                                         break;
@@ -1821,7 +1947,12 @@ public class SOCRobotBrain extends Thread
                                                         counter = 0;
                                                         expectPLACING_CITY = true;
                                                         whatWeWantToBuild = new SOCCity(ourPlayerData, targetPiece.getCoordinates());
-                                                        D.ebugPrintln("!!! BUILD REQUEST FOR A CITY " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+
+                                                        if (log.isDebugEnabled())
+                                                        {
+                                                            log.debug("!!! BUILD REQUEST FOR A CITY " + Integer.toHexString(targetPiece.getCoordinates()) + " !!!");
+                                                        }
+
                                                         client.buildRequest(game, SOCPlayingPiece.CITY);
 
                                                         break;
@@ -1854,6 +1985,7 @@ public class SOCRobotBrain extends Thread
                                     //D.ebugPrintln("!!! ENDING TURN !!!");
                                     negotiator.resetIsSelling();
                                     negotiator.resetOffersMade();
+                                    negotiator.resetEstimates();
                                     buildingPlan.clear();
                                     negotiator.resetTargetPieces();
                                     pause(1500);
@@ -1919,7 +2051,7 @@ public class SOCRobotBrain extends Thread
                             waitingForGameState = true;
                             counter = 0;
                             expectPLACING_FREE_ROAD2 = true;
-                            D.ebugPrintln("!!! PUTTING PIECE 1 " + whatWeWantToBuild + " !!!");
+                            log.debug("!!! PUTTING PIECE 1 {} !!!", whatWeWantToBuild);
                             pause(500);
                             client.putPiece(game, whatWeWantToBuild);
                             pause(1000);
@@ -1939,10 +2071,10 @@ public class SOCRobotBrain extends Thread
 
                             if (posPiece.getType() == SOCPossiblePiece.ROAD)
                             {
-                                D.ebugPrintln("posPiece = " + posPiece);
+                                log.debug("posPiece = {}", posPiece);
                                 whatWeWantToBuild = new SOCRoad(ourPlayerData, posPiece.getCoordinates());
-                                D.ebugPrintln("$ POPPED OFF");
-                                D.ebugPrintln("!!! PUTTING PIECE 2 " + whatWeWantToBuild + " !!!");
+                                log.debug("$ POPPED OFF");
+                                log.debug("!!! PUTTING PIECE 2 {} !!!", whatWeWantToBuild);
                                 pause(500);
                                 client.putPiece(game, whatWeWantToBuild);
                                 pause(1000);
@@ -2034,7 +2166,7 @@ public class SOCRobotBrain extends Thread
                      */
                     if (mesType == SOCMessage.PUTPIECE)
                     {
-                        D.ebugPrintln("*** PUTPIECE for playerTrackers ***");
+                        log.debug("*** PUTPIECE for playerTrackers ***");
 
                         switch (((SOCPutPiece) mes).getPieceType())
                         {
@@ -2325,7 +2457,7 @@ public class SOCRobotBrain extends Thread
                             break;
                         }
 
-                        if (D.ebugOn)
+                        if (log.isDebugEnabled())
                         {
                             SOCPlayerTracker.playerTrackersDebug(playerTrackers);
                         }
@@ -2439,7 +2571,7 @@ public class SOCRobotBrain extends Thread
             }
             catch (Exception e)
             {
-                D.ebugPrintln("*** Caught an exception - " + e);
+                log.debug("*** Caught an exception - {}", e);
                 System.out.println("*** Caught an exception - " + e);
                 e.printStackTrace();
             }
@@ -2453,6 +2585,13 @@ public class SOCRobotBrain extends Thread
         gameEventQ = null;
         client.addCleanKill();
         client = null;
+
+        if (analysisCache != null)
+        {
+            SOCGameAnalysisCache.leave(game.getName());
+            analysisCache = null;
+        }
+
         game = null;
         ourPlayerData = null;
         whatWeWantToBuild = null;
@@ -2492,269 +2631,49 @@ public class SOCRobotBrain extends Thread
         catch (InterruptedException exc) {}
     }
 
+    /**
+     * @return the planner for our initial settlements, with
+     * its tables made for the board we're playing on
+     */
+    protected SOCInitialPlacementPlanner getPlacementPlanner()
+    {
+        if ((placementPlanner == null) || (placementPlanner.getBoard() != game.getBoard()))
+        {
+            placementPlanner = new SOCInitialPlacementPlanner(game.getBoard());
+        }
+
+        return placementPlanner;
+    }
+
     /**
      * figure out where to place the two settlements
      */
     protected void planInitialSettlements()
     {
-        D.ebugPrintln("--- planInitialSettlements");
-
-        int[] rolls;
-        Enumeration hexes;
-        int speed;
-        boolean allTheWay;
-        firstSettlement = 0;
-        secondSettlement = 0;
+        log.debug("--- planInitialSettlements");
 
-        int bestSpeed = 4 * SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT;
         SOCBoard board = game.getBoard();
+        SOCInitialPlacementPlanner planner = getPlacementPlanner();
         SOCResourceSet emptySet = new SOCResourceSet();
-        SOCPlayerNumbers playerNumbers = new SOCPlayerNumbers();
-        int probTotal;
-        int bestProbTotal;
         boolean[] ports = new boolean[SOCBoard.WOOD_PORT + 1];
+        int[] rollsPerResource = new int[SOCResourceConstants.WOOD + 1];
         SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate();
-        int[] prob = SOCNumberProbabilities.INT_VALUES;
-
-        bestProbTotal = 0;
-
-        for (int firstNode = 0x23; firstNode < 0xDC; firstNode++)
-        {
-            if (ourPlayerData.isPotentialSettlement(firstNode))
-            {
-                Integer firstNodeInt = new Integer(firstNode);
-
-                //
-                // this is just for testing purposes
-                //
-                D.ebugPrintln("FIRST NODE -----------");
-                D.ebugPrintln("firstNode = " + board.nodeCoordToString(firstNode));
-                D.ebugPrint("numbers:[");
-                playerNumbers.clear();
-                probTotal = 0;
-                hexes = SOCBoard.getAdjacentHexesToNode(firstNode).elements();
-
-                while (hexes.hasMoreElements())
-                {
-                    Integer hex = (Integer) hexes.nextElement();
-                    int number = board.getNumberOnHexFromCoord(hex.intValue());
-                    int resource = board.getHexTypeFromCoord(hex.intValue());
-                    playerNumbers.addNumberForResource(number, resource, hex.intValue());
-                    probTotal += prob[number];
-                    D.ebugPrint(number + " ");
-                }
 
-                D.ebugPrintln("]");
-                D.ebugPrint("ports: ");
-
-                for (int portType = SOCBoard.MISC_PORT;
-                        portType <= SOCBoard.WOOD_PORT; portType++)
-                {
-                    if (board.getPortCoordinates(portType).contains(firstNodeInt))
-                    {
-                        ports[portType] = true;
-                    }
-                    else
-                    {
-                        ports[portType] = false;
-                    }
-
-                    D.ebugPrint(ports[portType] + "  ");
-                }
-
-                D.ebugPrintln();
-                D.ebugPrintln("probTotal = " + probTotal);
-                estimate.recalculateEstimates(playerNumbers);
-                speed = 0;
-                allTheWay = false;
-
-                try
-                {
-                    speed += estimate.calculateRollsFast(emptySet, SOCGame.SETTLEMENT_SET, 300, ports).getRolls();
-                    speed += estimate.calculateRollsFast(emptySet, SOCGame.CITY_SET, 300, ports).getRolls();
-                    speed += estimate.calculateRollsFast(emptySet, SOCGame.CARD_SET, 300, ports).getRolls();
-                    speed += estimate.calculateRollsFast(emptySet, SOCGame.ROAD_SET, 300, ports).getRolls();
-                }
-                catch (CutoffExceededException e) {}
-
-                rolls = estimate.getEstimatesFromNothingFast(ports, 300);
-                D.ebugPrint(" road: " + rolls[SOCBuildingSpeedEstimate.ROAD]);
-                D.ebugPrint(" stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT]);
-                D.ebugPrint(" city: " + rolls[SOCBuildingSpeedEstimate.CITY]);
-                D.ebugPrintln(" card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
-                D.ebugPrintln("speed = " + speed);
-
-                //
-                // end test
-                //
-                for (int secondNode = firstNode + 1; secondNode < 0xDC;
-                        secondNode++)
-                {
-                    if ((ourPlayerData.isPotentialSettlement(secondNode)) && (!SOCBoard.getAdjacentNodesToNode(secondNode).contains(firstNodeInt)))
-                    {
-                        D.ebugPrintln("firstNode = " + board.nodeCoordToString(firstNode));
-                        D.ebugPrintln("secondNode = " + board.nodeCoordToString(secondNode));
-
-                        Integer secondNodeInt = new Integer(secondNode);
-
-                        /**
-                         * get the numbers for these settlements
-                         */
-                        D.ebugPrint("numbers:[");
-                        playerNumbers.clear();
-                        probTotal = 0;
-                        hexes = SOCBoard.getAdjacentHexesToNode(firstNode).elements();
-
-                        while (hexes.hasMoreElements())
-                        {
-                            Integer hex = (Integer) hexes.nextElement();
-                            int number = board.getNumberOnHexFromCoord(hex.intValue());
-                            int resource = board.getHexTypeFromCoord(hex.intValue());
-                            playerNumbers.addNumberForResource(number, resource, hex.intValue());
-                            probTotal += prob[number];
-                            D.ebugPrint(number + " ");
-                        }
-
-                        D.ebugPrint("] [");
-                        hexes = SOCBoard.getAdjacentHexesToNode(secondNode).elements();
-
-                        while (hexes.hasMoreElements())
-                        {
-                            Integer hex = (Integer) hexes.nextElement();
-                            int number = board.getNumberOnHexFromCoord(hex.intValue());
-                            int resource = board.getHexTypeFromCoord(hex.intValue());
-                            playerNumbers.addNumberForResource(number, resource, hex.intValue());
-                            probTotal += prob[number];
-                            D.ebugPrint(number + " ");
-                        }
-
-                        D.ebugPrintln("]");
-
-                        /**
-                         * see if the settlements are on any ports
-                         */
-                        D.ebugPrint("ports: ");
-
-                        for (int portType = SOCBoard.MISC_PORT;
-                                portType <= SOCBoard.WOOD_PORT; portType++)
-                        {
-                            if ((board.getPortCoordinates(portType).contains(firstNodeInt)) || (board.getPortCoordinates(portType).contains(secondNodeInt)))
-                            {
-                                ports[portType] = true;
-                            }
-                            else
-                            {
-                                ports[portType] = false;
-                            }
-
-                            D.ebugPrint(ports[portType] + "  ");
-                        }
-
-                        D.ebugPrintln();
-                        D.ebugPrintln("probTotal = " + probTotal);
-
-                        /**
-                         * estimate the building speed for this pair
-                         */
-                        estimate.recalculateEstimates(playerNumbers);
-                        speed = 0;
-                        allTheWay = false;
-
-                        try
-                        {
-                            speed += estimate.calculateRollsFast(emptySet, SOCGame.SETTLEMENT_SET, bestSpeed, ports).getRolls();
-
-                            if (speed < bestSpeed)
-                            {
-                                speed += estimate.calculateRollsFast(emptySet, SOCGame.CITY_SET, bestSpeed, ports).getRolls();
-
-                                if (speed < bestSpeed)
-                                {
-                                    speed += estimate.calculateRollsFast(emptySet, SOCGame.CARD_SET, bestSpeed, ports).getRolls();
-
-                                    if (speed < bestSpeed)
-                                    {
-                                        speed += estimate.calculateRollsFast(emptySet, SOCGame.ROAD_SET, bestSpeed, ports).getRolls();
-                                        allTheWay = true;
-                                    }
-                                }
-                            }
-                        }
-                        catch (CutoffExceededException e)
-                        {
-                            speed = bestSpeed;
-                        }
+        /**
+         * find the pair of settlements with the best speed
+         */
+        int[] bestPair = planner.planSettlementPair(ourPlayerData);
+        firstSettlement = bestPair[0];
+        secondSettlement = bestPair[1];
 
-                        rolls = estimate.getEstimatesFromNothingFast(ports, bestSpeed);
-                        D.ebugPrint(" road: " + rolls[SOCBuildingSpeedEstimate.ROAD]);
-                        D.ebugPrint(" stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT]);
-                        D.ebugPrint(" city: " + rolls[SOCBuildingSpeedEstimate.CITY]);
-                        D.ebugPrintln(" card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
-                        D.ebugPrintln("allTheWay = " + allTheWay);
-                        D.ebugPrintln("speed = " + speed);
-
-                        /**
-                         * keep the settlements with the best speed
-                         */
-                        if (speed < bestSpeed)
-                        {
-                            firstSettlement = firstNode;
-                            secondSettlement = secondNode;
-                            bestSpeed = speed;
-                            bestProbTotal = probTotal;
-                            D.ebugPrintln("bestSpeed = " + bestSpeed);
-                            D.ebugPrintln("bestProbTotal = " + bestProbTotal);
-                        }
-                        else if ((speed == bestSpeed) && allTheWay)
-                        {
-                            if (probTotal > bestProbTotal)
-                            {
-                                D.ebugPrintln("Equal speed, better prob");
-                                firstSettlement = firstNode;
-                                secondSettlement = secondNode;
-                                bestSpeed = speed;
-                                bestProbTotal = probTotal;
-                                D.ebugPrintln("firstSettlement = " + Integer.toHexString(firstSettlement));
-                                D.ebugPrintln("secondSettlement = " + Integer.toHexString(secondSettlement));
-                                D.ebugPrintln("bestSpeed = " + bestSpeed);
-                                D.ebugPrintln("bestProbTotal = " + bestProbTotal);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        int bestSpeed = bestPair[2];
 
         /**
          * choose which settlement to place first
          */
-        playerNumbers.clear();
-        hexes = SOCBoard.getAdjacentHexesToNode(firstSettlement).elements();
-
-        while (hexes.hasMoreElements())
-        {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            playerNumbers.addNumberForResource(number, resource, hex.intValue());
-        }
-
-        Integer firstSettlementInt = new Integer(firstSettlement);
-
-        for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT;
-                portType++)
-        {
-            if (board.getPortCoordinates(portType).contains(firstSettlementInt))
-            {
-                ports[portType] = true;
-            }
-            else
-            {
-                ports[portType] = false;
-            }
-        }
-
-        estimate.recalculateEstimates(playerNumbers);
+        planner.getRollsPerResource(rollsPerResource, firstSettlement, -1);
+        planner.getPorts(ports, firstSettlement, -1);
+        estimate.setRollsPerResource(rollsPerResource);
 
         int firstSpeed = 0;
         int cutoff = 100;
@@ -2795,33 +2714,9 @@ public class SOCRobotBrain extends Thread
             firstSpeed += cutoff;
         }
 
-        playerNumbers.clear();
-        hexes = SOCBoard.getAdjacentHexesToNode(secondSettlement).elements();
-
-        while (hexes.hasMoreElements())
-        {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            playerNumbers.addNumberForResource(number, resource, hex.intValue());
-        }
-
-        Integer secondSettlementInt = new Integer(secondSettlement);
-
-        for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT;
-                portType++)
-        {
-            if (board.getPortCoordinates(portType).contains(secondSettlementInt))
-            {
-                ports[portType] = true;
-            }
-            else
-            {
-                ports[portType] = false;
-            }
-        }
-
-        estimate.recalculateEstimates(playerNumbers);
+        planner.getRollsPerResource(rollsPerResource, secondSettlement, -1);
+        planner.getPorts(ports, secondSettlement, -1);
+        estimate.setRollsPerResource(rollsPerResource);
 
         int secondSpeed = 0;
 
@@ -2868,7 +2763,10 @@ public class SOCRobotBrain extends Thread
             secondSettlement = tmp;
         }
 
-        D.ebugPrintln(board.nodeCoordToString(firstSettlement) + ":" + firstSpeed + ", " + board.nodeCoordToString(secondSettlement) + ":" + secondSpeed);
+        if (log.isDebugEnabled())
+        {
+            log.debug(board.nodeCoordToString(firstSettlement) + ":" + firstSpeed + ", " + board.nodeCoordToString(secondSettlement) + ":" + secondSpeed);
+        }
     }
 
     /**
@@ -2876,87 +2774,41 @@ public class SOCRobotBrain extends Thread
      */
     protected void planSecondSettlement()
     {
-        D.ebugPrintln("--- planSecondSettlement");
+        log.debug("--- planSecondSettlement");
 
         int bestSpeed = 4 * SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT;
-        SOCBoard board = game.getBoard();
+        SOCInitialPlacementPlanner planner = getPlacementPlanner();
         SOCResourceSet emptySet = new SOCResourceSet();
-        SOCPlayerNumbers playerNumbers = new SOCPlayerNumbers();
         boolean[] ports = new boolean[SOCBoard.WOOD_PORT + 1];
+        int[] rollsPerResource = new int[SOCResourceConstants.WOOD + 1];
         SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate();
         int probTotal;
         int bestProbTotal;
-        int[] prob = SOCNumberProbabilities.INT_VALUES;
         int firstNode = firstSettlement;
-        Integer firstNodeInt = new Integer(firstNode);
 
         bestProbTotal = 0;
         secondSettlement = -1;
 
         for (int secondNode = 0x23; secondNode < 0xDC; secondNode++)
         {
-            if ((ourPlayerData.isPotentialSettlement(secondNode)) && (!SOCBoard.getAdjacentNodesToNode(secondNode).contains(firstNodeInt)))
+            if ((ourPlayerData.isPotentialSettlement(secondNode)) && (!planner.isAdjacent(secondNode, firstNode)))
             {
-                Integer secondNodeInt = new Integer(secondNode);
-
                 /**
-                 * get the numbers for these settlements
+                 * get the numbers and ports for these settlements
                  */
-                D.ebugPrint("numbers: ");
-                playerNumbers.clear();
-                probTotal = 0;
+                probTotal = planner.getProbTotal(firstNode, secondNode);
+                planner.getRollsPerResource(rollsPerResource, firstNode, secondNode);
+                planner.getPorts(ports, firstNode, secondNode);
 
-                Enumeration hexes = SOCBoard.getAdjacentHexesToNode(firstNode).elements();
-
-                while (hexes.hasMoreElements())
-                {
-                    Integer hex = (Integer) hexes.nextElement();
-                    int number = board.getNumberOnHexFromCoord(hex.intValue());
-                    int resource = board.getHexTypeFromCoord(hex.intValue());
-                    playerNumbers.addNumberForResource(number, resource, hex.intValue());
-                    probTotal += prob[number];
-                    D.ebugPrint(number + " ");
-                }
-
-                hexes = SOCBoard.getAdjacentHexesToNode(secondNode).elements();
-
-                while (hexes.hasMoreElements())
-                {
-                    Integer hex = (Integer) hexes.nextElement();
-                    int number = board.getNumberOnHexFromCoord(hex.intValue());
-                    int resource = board.getHexTypeFromCoord(hex.intValue());
-                    playerNumbers.addNumberForResource(number, resource, hex.intValue());
-                    probTotal += prob[number];
-                    D.ebugPrint(number + " ");
-                }
-
-                /**
-                 * see if the settlements are on any ports
-                 */
-                D.ebugPrint("ports: ");
-
-                for (int portType = SOCBoard.MISC_PORT;
-                        portType <= SOCBoard.WOOD_PORT; portType++)
+                if (log.isDebugEnabled())
                 {
-                    if ((board.getPortCoordinates(portType).contains(firstNodeInt)) || (board.getPortCoordinates(portType).contains(secondNodeInt)))
-                    {
-                        ports[portType] = true;
-                    }
-                    else
-                    {
-                        ports[portType] = false;
-                    }
-
-                    D.ebugPrint(ports[portType] + "  ");
+                    log.debug("probTotal = " + probTotal);
                 }
 
-                D.ebugPrintln();
-                D.ebugPrintln("probTotal = " + probTotal);
-
                 /**
                  * estimate the building speed for this pair
                  */
-                estimate.recalculateEstimates(playerNumbers);
+                estimate.setRollsPerResource(rollsPerResource);
 
                 int speed = 0;
 
@@ -2984,7 +2836,10 @@ public class SOCRobotBrain extends Thread
                     speed = bestSpeed;
                 }
 
-                D.ebugPrintln(Integer.toHexString(firstNode) + ", " + Integer.toHexString(secondNode) + ":" + speed);
+                if (log.isDebugEnabled())
+                {
+                    log.debug(Integer.toHexString(firstNode) + ", " + Integer.toHexString(secondNode) + ":" + speed);
+                }
 
                 /**
                  * keep the settlements with the best speed
@@ -2995,15 +2850,16 @@ public class SOCRobotBrain extends Thread
                     secondSettlement = secondNode;
                     bestSpeed = speed;
                     bestProbTotal = probTotal;
-                    D.ebugPrintln("firstSettlement = " + Integer.toHexString(firstSettlement));
-                    D.ebugPrintln("secondSettlement = " + Integer.toHexString(secondSettlement));
-
-                    int[] rolls = estimate.getEstimatesFromNothingFast(ports);
-                    D.ebugPrint("road: " + rolls[SOCBuildingSpeedEstimate.ROAD]);
-                    D.ebugPrint(" stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT]);
-                    D.ebugPrint(" city: " + rolls[SOCBuildingSpeedEstimate.CITY]);
-                    D.ebugPrintln(" card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
-                    D.ebugPrintln("bestSpeed = " + bestSpeed);
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("firstSettlement = " + Integer.toHexString(firstSettlement));
+                        log.debug("secondSettlement = " + Integer.toHexString(secondSettlement));
+
+                        int[] rolls = estimate.getEstimatesFromNothingFast(ports);
+                        log.debug("road: " + rolls[SOCBuildingSpeedEstimate.ROAD] + " stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT] + " city: " + rolls[SOCBuildingSpeedEstimate.CITY] + " card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
+                        log.debug("bestSpeed = " + bestSpeed);
+                    }
                 }
                 else if (speed == bestSpeed)
                 {
@@ -3013,15 +2869,16 @@ public class SOCRobotBrain extends Thread
                         secondSettlement = secondNode;
                         bestSpeed = speed;
                         bestProbTotal = probTotal;
-                        D.ebugPrintln("firstSettlement = " + Integer.toHexString(firstSettlement));
-                        D.ebugPrintln("secondSettlement = " + Integer.toHexString(secondSettlement));
 
-                        int[] rolls = estimate.getEstimatesFromNothingFast(ports);
-                        D.ebugPrint("road: " + rolls[SOCBuildingSpeedEstimate.ROAD]);
-                        D.ebugPrint(" stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT]);
-                        D.ebugPrint(" city: " + rolls[SOCBuildingSpeedEstimate.CITY]);
-                        D.ebugPrintln(" card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
-                        D.ebugPrintln("bestSpeed = " + bestSpeed);
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("firstSettlement = " + Integer.toHexString(firstSettlement));
+                            log.debug("secondSettlement = " + Integer.toHexString(secondSettlement));
+
+                            int[] rolls = estimate.getEstimatesFromNothingFast(ports);
+                            log.debug("road: " + rolls[SOCBuildingSpeedEstimate.ROAD] + " stlmt: " + rolls[SOCBuildingSpeedEstimate.SETTLEMENT] + " city: " + rolls[SOCBuildingSpeedEstimate.CITY] + " card: " + rolls[SOCBuildingSpeedEstimate.CARD]);
+                            log.debug("bestSpeed = " + bestSpeed);
+                        }
                     }
                 }
             }
@@ -3058,7 +2915,7 @@ public class SOCRobotBrain extends Thread
         int settlementNode = ourPlayerData.getLastSettlementCoord();
         Hashtable twoAway = new Hashtable();
 
-        D.ebugPrintln("--- placeInitRoad");
+        log.debug("--- placeInitRoad");
 
         /**
          * look at all of the nodes that are 2 away from the
@@ -3110,7 +2967,10 @@ public class SOCRobotBrain extends Thread
 
         scoreNodesForSettlements(twoAway, 3, 5, 10);
 
-        D.ebugPrintln("Init Road for " + client.getNickname());
+        if (log.isDebugEnabled())
+        {
+            log.debug("Init Road for " + client.getNickname());
+        }
 
         /**
          * create a dummy player to calculate possible places to build
@@ -3126,7 +2986,11 @@ public class SOCRobotBrain extends Thread
              * where someone else will build first.
              */
             int numberOfBuilds = numberOfEnemyBuilds();
-            D.ebugPrintln("Other players will build " + numberOfBuilds + " settlements before I get to build again.");
+
+            if (log.isDebugEnabled())
+            {
+                log.debug("Other players will build " + numberOfBuilds + " settlements before I get to build again.");
+            }
 
             if (numberOfBuilds > 0)
             {
@@ -3139,7 +3003,11 @@ public class SOCRobotBrain extends Thread
                 {
                     if (ourPlayerData.isPotentialSettlement(i))
                     {
-                        D.ebugPrintln("-- potential settlement at " + Integer.toHexString(i));
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("-- potential settlement at " + Integer.toHexString(i));
+                        }
+
                         allNodes.put(new Integer(i), new Integer(0));
                     }
                 }
@@ -3186,7 +3054,11 @@ public class SOCRobotBrain extends Thread
                 {
                     if (ourPlayerData.isPotentialSettlement(j))
                     {
-                        D.ebugPrintln("- potential settlement at " + Integer.toHexString(j));
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("- potential settlement at " + Integer.toHexString(j));
+                        }
+
                         psList.addElement(new Integer(j));
                     }
                 }
@@ -3202,7 +3074,11 @@ public class SOCRobotBrain extends Thread
                     {
                         Integer nodeCoord = (Integer) nodesEnum.nextElement();
                         Integer score = (Integer) allNodes.get(nodeCoord);
-                        D.ebugPrintln("NODE = " + Integer.toHexString(nodeCoord.intValue()) + " SCORE = " + score);
+
+                        if (log.isDebugEnabled())
+                        {
+                            log.debug("NODE = " + Integer.toHexString(nodeCoord.intValue()) + " SCORE = " + score);
+                        }
 
                         if (bestNodePair.getScore() < score.intValue())
                         {
@@ -3235,7 +3111,10 @@ public class SOCRobotBrain extends Thread
             Integer coord = (Integer) enum.nextElement();
             Integer score = (Integer) twoAway.get(coord);
 
-            D.ebugPrintln("Considering " + Integer.toHexString(coord.intValue()) + " with a score of " + score);
+            if (log.isDebugEnabled())
+            {
+                log.debug("Considering " + Integer.toHexString(coord.intValue()) + " with a score of " + score);
+            }
 
             if (dummy.isPotentialSettlement(coord.intValue()))
             {
@@ -3247,7 +3126,7 @@ public class SOCRobotBrain extends Thread
             }
             else
             {
-                D.ebugPrintln("Someone is bound to ruin that spot.");
+                log.debug("Someone is bound to ruin that spot.");
             }
         }
 
@@ -3569,7 +3448,7 @@ public class SOCRobotBrain extends Thread
      */
     protected void moveRobber()
     {
-        D.ebugPrintln("%%% MOVEROBBER");
+        log.debug("%%% MOVEROBBER");
 
         int[] hexes = 
         {
@@ -3588,17 +3467,25 @@ public class SOCRobotBrain extends Thread
         while (trackersIter.hasNext())
         {
             SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
-            D.ebugPrintln("%%%%%%%%% TRACKER FOR PLAYER " + tracker.getPlayer().getPlayerNumber());
+
+            if (log.isDebugEnabled())
+            {
+                log.debug("%%%%%%%%% TRACKER FOR PLAYER " + tracker.getPlayer().getPlayerNumber());
+            }
 
             try
             {
                 tracker.recalcWinGameETA();
                 winGameETAs[tracker.getPlayer().getPlayerNumber()] = tracker.getWinGameETA();
-                D.ebugPrintln("winGameETA = " + tracker.getWinGameETA());
+
+                if (log.isDebugEnabled())
+                {
+                    log.debug("winGameETA = " + tracker.getWinGameETA());
+                }
             }
             catch (NullPointerException e)
             {
-                D.ebugPrintln("Null Pointer Exception calculating winGameETA");
+                log.debug("Null Pointer Exception calculating winGameETA");
                 winGameETAs[tracker.getPlayer().getPlayerNumber()] = 500;
             }
         }
@@ -3609,12 +3496,20 @@ public class SOCRobotBrain extends Thread
         {
             if ((victimNum < 0) && (pnum != ourPlayerData.getPlayerNumber()))
             {
-                D.ebugPrintln("Picking a robber victim: pnum=" + pnum);
+                if (log.isDebugEnabled())
+                {
+                    log.debug("Picking a robber victim: pnum=" + pnum);
+                }
+
                 victimNum = pnum;
             }
             else if ((pnum != ourPlayerData.getPlayerNumber()) && (winGameETAs[pnum] < winGameETAs[victimNum]))
             {
-                D.ebugPrintln("Picking a robber victim: pnum=" + pnum);
+                if (log.isDebugEnabled())
+                {
+                    log.debug("Picking a robber victim: pnum=" + pnum);
+                }
+
                 victimNum = pnum;
             }
         }
@@ -3646,19 +3541,29 @@ public class SOCRobotBrain extends Thread
                     totalSpeed += speeds[j];
                 }
 
-                D.ebugPrintln("total Speed = " + totalSpeed);
+                if (log.isDebugEnabled())
+                {
+                    log.debug("total Speed = " + totalSpeed);
+                }
 
                 if (totalSpeed > worstSpeed)
                 {
                     bestHex = hexes[i];
                     worstSpeed = totalSpeed;
-                    D.ebugPrintln("bestHex = " + Integer.toHexString(bestHex));
-                    D.ebugPrintln("worstSpeed = " + worstSpeed);
+
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("bestHex = " + Integer.toHexString(bestHex));
+                        log.debug("worstSpeed = " + worstSpeed);
+                    }
                 }
             }
         }
 
-        D.ebugPrintln("%%% bestHex = " + Integer.toHexString(bestHex));
+        if (log.isDebugEnabled())
+        {
+            log.debug("%%% bestHex = " + Integer.toHexString(bestHex));
+        }
 
         /**
          * pick a spot at random if we can't decide
@@ -3666,10 +3571,14 @@ public class SOCRobotBrain extends Thread
         while ((bestHex == robberHex) && (ourPlayerData.getNumbers().getNumberResourcePairsForHex(hexes[bestHex]).isEmpty()))
         {
             bestHex = hexes[Math.abs(rand.nextInt() % hexes.length)];
-            D.ebugPrintln("%%% random pick = " + Integer.toHexString(bestHex));
+
+            if (log.isDebugEnabled())
+            {
+                log.debug("%%% random pick = " + Integer.toHexString(bestHex));
+            }
         }
 
-        D.ebugPrintln("!!! MOVING ROBBER !!!");
+        log.debug("!!! MOVING ROBBER !!!");
         client.moveRobber(game, ourPlayerData, bestHex);
         pause(2000);
     }
@@ -3694,7 +3603,7 @@ public class SOCRobotBrain extends Thread
          */
         if (buildingPlan.empty())
         {
-            decisionMaker.planStuff(robotParameters.getStrategyType());
+            planStuff();
         }
 
         if (!buildingPlan.empty())
@@ -4054,247 +3963,25 @@ public class SOCRobotBrain extends Thread
     protected void tradeStuff()
     {
         /**
-         * make a tree of all the possible trades that we can
-         * make with the bank or ports
+         * find the best set of resources we can get by trading
+         * with the bank or ports, then make the trades to get it
          */
-        SOCTradeTree treeRoot = new SOCTradeTree(ourPlayerData.getResources(), (SOCTradeTree) null);
-        Hashtable treeNodes = new Hashtable();
-        treeNodes.put(treeRoot.getResourceSet(), treeRoot);
-
-        Queue queue = new Queue();
-        queue.put(treeRoot);
-
-        while (!queue.empty())
-        {
-            SOCTradeTree currentTreeNode = (SOCTradeTree) queue.get();
-
-            //D.ebugPrintln("%%% Expanding "+currentTreeNode.getResourceSet());
-            expandTradeTreeNode(currentTreeNode, treeNodes);
-
-            Enumeration childrenEnum = currentTreeNode.getChildren().elements();
-
-            while (childrenEnum.hasMoreElements())
-            {
-                SOCTradeTree child = (SOCTradeTree) childrenEnum.nextElement();
-
-                //D.ebugPrintln("%%% Child "+child.getResourceSet());
-                if (child.needsToBeExpanded())
-                {
-                    /**
-                     * make a new table entry
-                     */
-                    treeNodes.put(child.getResourceSet(), child);
-                    queue.put(child);
-                }
-            }
-        }
-
-        /**
-         * find the best trade result and then perform the trades
-         */
-        SOCResourceSet bestTradeOutcome = null;
-        int bestTradeScore = -1;
-        Enumeration possibleTrades = treeNodes.keys();
-
-        while (possibleTrades.hasMoreElements())
-        {
-            SOCResourceSet possibleTradeOutcome = (SOCResourceSet) possibleTrades.nextElement();
-
-            //D.ebugPrintln("%%% "+possibleTradeOutcome);
-            int score = scoreTradeOutcome(possibleTradeOutcome);
-
-            if (score > bestTradeScore)
-            {
-                bestTradeOutcome = possibleTradeOutcome;
-                bestTradeScore = score;
-            }
-        }
-
-        /**
-         * find the trade outcome in the tree, then follow
-         * the chain of parents until you get to the root
-         * all the while pushing the outcomes onto a stack.
-         * then pop outcomes off of the stack and perfoem
-         * the trade to get each outcome
-         */
-        Stack stack = new Stack();
-        SOCTradeTree cursor = (SOCTradeTree) treeNodes.get(bestTradeOutcome);
-
-        while (cursor != treeRoot)
-        {
-            stack.push(cursor);
-            cursor = cursor.getParent();
-        }
-
+        int numTrades = bankTradePlanner.planTrades(ourPlayerData);
         SOCResourceSet give = new SOCResourceSet();
         SOCResourceSet get = new SOCResourceSet();
-        SOCTradeTree currTreeNode;
-        SOCTradeTree prevTreeNode;
-        prevTreeNode = treeRoot;
 
-        while (!stack.empty())
+        for (int i = 0; i < numTrades; i++)
         {
-            currTreeNode = (SOCTradeTree) stack.pop();
-            give.setAmounts(prevTreeNode.getResourceSet());
-            give.subtract(currTreeNode.getResourceSet());
-            get.setAmounts(currTreeNode.getResourceSet());
-            get.subtract(prevTreeNode.getResourceSet());
-
-            /**
-             * get rid of the negative numbers
-             */
-            for (int rt = SOCResourceConstants.CLAY;
-                    rt <= SOCResourceConstants.WOOD; rt++)
-            {
-                if (give.getAmount(rt) < 0)
-                {
-                    give.setAmount(0, rt);
-                }
-
-                if (get.getAmount(rt) < 0)
-                {
-                    get.setAmount(0, rt);
-                }
-            }
+            bankTradePlanner.getTrade(i, give, get);
 
             //D.ebugPrintln("Making bank trade:");
             //D.ebugPrintln("give: "+give);
             //D.ebugPrintln("get: "+get);
             client.bankTrade(game, give, get);
             pause(2000);
-            prevTreeNode = currTreeNode;
         }
     }
 
-    /**
-     * expand a trade tree node
-     *
-     * @param currentTreeNode   the tree node that we're expanding
-     * @param table  the table of all of the nodes in the tree except this one
-     */
-    protected void expandTradeTreeNode(SOCTradeTree currentTreeNode, Hashtable table)
-    {
-        /**
-         * the resources that we have to work with
-         */
-        SOCResourceSet rSet = currentTreeNode.getResourceSet();
-
-        /**
-         * go through the resources one by one, and generate all possible
-         * resource sets that result from trading that type of resource
-         */
-        for (int giveResource = SOCResourceConstants.CLAY;
-                giveResource <= SOCResourceConstants.WOOD; giveResource++)
-        {
-            /**
-             * find the ratio at which we can trade
-             */
-            int tradeRatio;
-
-            if (ourPlayerData.getPortFlag(giveResource))
-            {
-                tradeRatio = 2;
-            }
-            else if (ourPlayerData.getPortFlag(SOCBoard.MISC_PORT))
-            {
-                tradeRatio = 3;
-            }
-            else
-            {
-                tradeRatio = 4;
-            }
-
-            /**
-             * make sure we have enough resources to trade
-             */
-            if (rSet.getAmount(giveResource) >= tradeRatio)
-            {
-                /**
-                 * trade the resource that we're looking at for one
-                 * of every other resource
-                 */
-                for (int getResource = SOCResourceConstants.CLAY;
-                        getResource <= SOCResourceConstants.WOOD;
-                        getResource++)
-                {
-                    if (getResource != giveResource)
-                    {
-                        SOCResourceSet newTradeResult = rSet.copy();
-                        newTradeResult.subtract(tradeRatio, giveResource);
-                        newTradeResult.add(1, getResource);
-
-                        SOCTradeTree newTree = new SOCTradeTree(newTradeResult, currentTreeNode);
-
-                        /**
-                         * if the trade results in a set of resources that is
-                         * equal to or worse than a trade we've already seen,
-                         * then we don't want to expand this tree node
-                         */
-                        Enumeration tableEnum = table.keys();
-
-                        while (tableEnum.hasMoreElements())
-                        {
-                            SOCResourceSet oldTradeResult = (SOCResourceSet) tableEnum.nextElement();
-
-                            /*
-                               //D.ebugPrintln("%%%     "+newTradeResult);
-                               //D.ebugPrintln("%%%  <= "+oldTradeResult+" : "+
-                               SOCResourceSet.lte(newTradeResult, oldTradeResult));
-                             */
-                            if (SOCResourceSet.lte(newTradeResult, oldTradeResult))
-                            {
-                                newTree.setNeedsToBeExpanded(false);
-
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * evaluate a trade outcome by calculating how much you could build with it
-     *
-     * @param tradeOutcome  a set of resources that would be the result of trading
-     */
-    protected int scoreTradeOutcome(SOCResourceSet tradeOutcome)
-    {
-        int score = 0;
-        SOCResourceSet tempTO = tradeOutcome.copy();
-
-        if ((ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) >= 1) && (ourPlayerData.hasPotentialSettlement()))
-        {
-            while (tempTO.contains(SOCGame.SETTLEMENT_SET))
-            {
-                score += 2;
-                tempTO.subtract(SOCGame.SETTLEMENT_SET);
-            }
-        }
-
-        if ((ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) >= 1) && (ourPlayerData.hasPotentialRoad()))
-        {
-            while (tempTO.contains(SOCGame.ROAD_SET))
-            {
-                score += 1;
-                tempTO.subtract(SOCGame.ROAD_SET);
-            }
-        }
-
-        if ((ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) >= 1) && (ourPlayerData.hasPotentialCity()))
-        {
-            while (tempTO.contains(SOCGame.CITY_SET))
-            {
-                score += 2;
-                tempTO.subtract(SOCGame.CITY_SET);
-            }
-        }
-
-        //D.ebugPrintln("Score for "+tradeOutcome+" : "+score);
-        return score;
-    }
-
     /**
      * make trades to get the target resources
      *
@@ -4611,7 +4298,7 @@ public class SOCRobotBrain extends Thread
 
     private void printResources()
     {
-        if (D.ebugOn)
+        if (log.isDebugEnabled())
         {
             for (int i = 0; i < SOCGame.MAXPLAYERS; i++)
             {
@@ -4623,7 +4310,7 @@ public class SOCRobotBrain extends Thread
                 resourceMessage += (rsrcs.getAmount(SOCResourceConstants.WHEAT) + " ");
                 resourceMessage += (rsrcs.getAmount(SOCResourceConstants.WOOD) + " ");
                 resourceMessage += (rsrcs.getAmount(SOCResourceConstants.UNKNOWN) + " ");
-                D.ebugPrintln(resourceMessage);
+                log.debug(resourceMessage);
             }
         }
     }
@@ -152,6 +152,11 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
      */
     SOCRobotResetThread resetThread;
 
+    /**
+     * turns the brains down when we're busy
+     */
+    volatile SOCRobotLoadMonitor loadMonitor;
+
     /**
      * Constructor for connecting to the specified host, on the specified port
      *
@@ -190,6 +195,8 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
 
             //resetThread = new SOCRobotResetThread(this);
             //resetThread.start();
+            loadMonitor = new SOCRobotLoadMonitor(this);
+            loadMonitor.start();
             put(SOCImARobot.toCmd(nickname));
         }
         catch (Exception e)
@@ -978,6 +985,15 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
             sendText(ga, "Clean brain kills:" + cleanBrainKills);
             sendText(ga, "Brains running: " + robotBrains.size());
 
+            SOCRobotLoadMonitor lm = loadMonitor;
+
+            if (lm != null)
+            {
+                sendText(ga, "Load: " + SOCRobotLoadMonitor.LEVEL_NAMES[lm.getLevel()]);
+            }
+
+            sendText(ga, "Decisions out of time: " + SOCRobotDM.getHostDeadlinesHit() + "/" + SOCRobotDM.getHostDecisions());
+
             Runtime rt = Runtime.getRuntime();
             sendText(ga, "Total Memory:" + rt.totalMemory());
             sendText(ga, "Free Memory:" + rt.freeMemory());
@@ -1621,6 +1637,14 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
         }
     }
 
+    /**
+     * @return the brains for the games we're in
+     */
+    public Enumeration getRobotBrains()
+    {
+        return robotBrains.elements();
+    }
+
     /**
      * add one the the number of clean brain kills
      */
@@ -1632,6 +1656,12 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
     /** destroy the applet */
     public void destroy()
     {
+        if (loadMonitor != null)
+        {
+            loadMonitor.stopLoadMonitor();
+            loadMonitor = null;
+        }
+
         SOCLeaveAll leaveAllMes = new SOCLeaveAll();
         put(leaveAllMes.toCmd());
         disconnectReconnect();
@@ -1644,12 +1674,37 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
     {
 		if (args.length < 4)
 		{
-			System.err.println("usage: java soc.robot.SOCRobotClient host port_number userid password");
+			System.err.println("usage: java soc.robot.SOCRobotClient host port_number userid password [threads [robots]]");
 
 			return;
 		}
+
+        //
+        //  the most threads the robots on this host can use to
+        //  score possible pieces at once
+        //
+        if (args.length > 4)
+        {
+            SOCRobotWorkerPool.setMaxThreads(Integer.parseInt(args[4]));
+        }
     	
-        SOCRobotClient ex1 = new SOCRobotClient(args[0], Integer.parseInt(args[1]), args[2], args[3]);
-        ex1.init();
+        //
+        //  more than one robot can run on this host, so robots
+        //  sitting in the same game can share their analysis.
+        //  the first is called userid, the next userid2, and so on.
+        //
+        int numRobots = 1;
+
+        if (args.length > 5)
+        {
+            numRobots = Integer.parseInt(args[5]);
+        }
+
+        for (int i = 1; i <= numRobots; i++)
+        {
+            String nickname = (i == 1) ? args[2] : (args[2] + i);
+            SOCRobotClient ex1 = new SOCRobotClient(args[0], Integer.parseInt(args[1]), nickname, args[3]);
+            ex1.init();
+        }
     }
 }
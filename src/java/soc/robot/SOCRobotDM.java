@@ -1,12 +1,14 @@
 package soc.robot;
 
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.Vector;
 
+import soc.debug.Log;
 import soc.disableDebug.D;
 import soc.game.SOCBoard;
 import soc.game.SOCCity;
@@ -39,6 +41,8 @@ public class SOCRobotDM {
 
   protected static final DecimalFormat df1 = new DecimalFormat("###0.00");
 
+  static final Log log = Log.getLog("robot.dm");
+
   protected int maxGameLength = 300;
 	
   protected int maxETA = 99;
@@ -72,6 +76,7 @@ public class SOCRobotDM {
    */
   public static final int SMART_STRATEGY = 0;
   public static final int FAST_STRATEGY = 1;
+  public static final int MONTE_CARLO_STRATEGY = 2;
 
   protected SOCRobotBrain brain;
   protected HashMap playerTrackers;
@@ -88,6 +93,48 @@ public class SOCRobotDM {
   protected SOCPossibleCity favoriteCity;
   protected SOCPossibleCard possibleCard;
 
+  /**
+   * the lr paths at the start of smartGameStrategy, so each
+   * piece can be scored starting from the same paths
+   */
+  protected Vector[] savedLRPaths;
+
+  /**
+   * how long the Monte Carlo strategy plays games out for,
+   * in milliseconds, and how many threads it uses
+   */
+  protected int playoutTime;
+  protected int playoutThreads;
+
+  /**
+   * how long the smart strategy has to make a decision, in
+   * milliseconds, or 0 for no limit, and when the current
+   * decision has to be made by
+   */
+  protected int decisionTime;
+  protected long deadline = Long.MAX_VALUE;
+
+  /**
+   * true if the current decision ran out of time
+   */
+  protected boolean deadlineHit;
+
+  /**
+   * how many decisions we've made, how many ran out of time,
+   * and how long the last one took in milliseconds
+   */
+  protected int numDecisions;
+  protected int numDeadlinesHit;
+  protected long lastDecisionTime;
+
+  /**
+   * the same counts for every decision maker on this host,
+   * and the total time they took in milliseconds
+   */
+  protected static int hostDecisions = 0;
+  protected static int hostDeadlinesHit = 0;
+  protected static long hostDecisionTime = 0;
+
 
   /**
    * constructor
@@ -114,6 +161,9 @@ public class SOCRobotDM {
     leaderAdversarialFactor = params.getLeaderAdversarialFactor();
     devCardMultiplier = params.getDevCardMultiplier();
     threatMultiplier = params.getThreatMultiplier();
+    playoutTime = params.getPlayoutTime();
+    playoutThreads = params.getPlayoutThreads();
+    decisionTime = params.getDecisionTime();
   }
 	
 	
@@ -147,6 +197,46 @@ public class SOCRobotDM {
     leaderAdversarialFactor = params.getLeaderAdversarialFactor();
     devCardMultiplier = params.getDevCardMultiplier();
     threatMultiplier = params.getThreatMultiplier();
+    playoutTime = params.getPlayoutTime();
+    playoutThreads = params.getPlayoutThreads();
+    decisionTime = params.getDecisionTime();
+
+    threatenedRoads = new Vector();
+    goodRoads = new Vector();
+    threatenedSettlements = new Vector();
+    goodSettlements = new Vector();
+  }
+
+
+  /**
+   * constructor
+   *
+   * this makes a decision maker that scores pieces on its
+   * own copy of dm's game and a snapshot of dm's trackers,
+   * so it can be used from another thread while dm waits
+   *
+   * @param dm  the decision maker to copy
+   */
+  protected SOCRobotDM(SOCRobotDM dm) {
+    brain = null;
+    game = new SOCGame(dm.game);
+    playerTrackers = SOCPlayerTracker.snapshotPlayerTrackers(dm.playerTrackers, game);
+    ourPlayerData = game.getPlayer(dm.ourPlayerData.getPlayerNumber());
+    ourPlayerTracker = (SOCPlayerTracker)playerTrackers.get(new Integer(ourPlayerData.getPlayerNumber()));
+    buildingPlan = new Stack();
+    savedLRPaths = dm.savedLRPaths;
+
+    maxGameLength = dm.maxGameLength;
+    maxETA = dm.maxETA;
+    etaBonusFactor = dm.etaBonusFactor;
+    adversarialFactor = dm.adversarialFactor;
+    leaderAdversarialFactor = dm.leaderAdversarialFactor;
+    devCardMultiplier = dm.devCardMultiplier;
+    threatMultiplier = dm.threatMultiplier;
+    playoutTime = dm.playoutTime;
+    playoutThreads = dm.playoutThreads;
+    decisionTime = dm.decisionTime;
+    deadline = dm.deadline;
 
     threatenedRoads = new Vector();
     goodRoads = new Vector();
@@ -183,14 +273,101 @@ public class SOCRobotDM {
     return possibleCard;
   }
 
+  /**
+   * @return how many decisions we've made
+   */
+  public int getNumDecisions() {
+    return numDecisions;
+  }
+
+  /**
+   * @return how many decisions ran out of time
+   */
+  public int getNumDeadlinesHit() {
+    return numDeadlinesHit;
+  }
+
+  /**
+   * @return how long the last decision took, in milliseconds
+   */
+  public long getLastDecisionTime() {
+    return lastDecisionTime;
+  }
+
+  /**
+   * @return how many decisions the decision makers
+   *         on this host have made
+   */
+  public static synchronized int getHostDecisions() {
+    return hostDecisions;
+  }
+
+  /**
+   * @return how many decisions on this host ran out of time
+   */
+  public static synchronized int getHostDeadlinesHit() {
+    return hostDeadlinesHit;
+  }
+
+  /**
+   * @return how long the decisions on this host took
+   *         altogether, in milliseconds
+   */
+  public static synchronized long getHostDecisionTime() {
+    return hostDecisionTime;
+  }
+
+  /**
+   * add a decision to the counts for this host
+   *
+   * @param time  how long it took
+   * @param hit   true if it ran out of time
+   */
+  protected static synchronized void addHostDecision(long time, boolean hit) {
+    hostDecisions++;
+    hostDecisionTime += time;
+    if (hit) {
+      hostDeadlinesHit++;
+    }
+  }
+
+  /**
+   * change how long decisions can take, for when the
+   * robot client is busy
+   *
+   * @param dt  the time for a smart strategy decision, or 0 for no limit
+   * @param pt  the time for a Monte Carlo strategy decision
+   */
+  public void setTimeLimits(int dt, int pt) {
+    decisionTime = dt;
+    playoutTime = pt;
+  }
+
+  /**
+   * @return true if the current decision is out of time.
+   *         once it is, it stays that way until the next one.
+   */
+  protected boolean isPastDeadline() {
+    if (!deadlineHit && (System.currentTimeMillis() > deadline)) {
+      deadlineHit = true;
+    }
+    return deadlineHit;
+  }
+
   /**
    * make some building plans
    *
-   * @param strategy  an integer that determines which strategy is used (SMART_STRATEGY | FAST_STRATEGY)
+   * @param strategy  an integer that determines which strategy is used (SMART_STRATEGY | FAST_STRATEGY | MONTE_CARLO_STRATEGY)
    */
   public void planStuff(int strategy) {
-      //long startTime = System.currentTimeMillis();
+    long startTime = System.currentTimeMillis();
     D.ebugPrintln("PLANSTUFF");
+    deadlineHit = false;
+    if ((strategy == SMART_STRATEGY) && (decisionTime > 0)) {
+      deadline = startTime + decisionTime;
+    } else {
+      deadline = Long.MAX_VALUE;
+    }
 	  
     SOCBuildingSpeedEstimate currentBSE = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
     int currentBuildingETAs[] = currentBSE.getEstimatesFromNowFast(ourPlayerData.getResources(), ourPlayerData.getPortFlags());
@@ -273,6 +450,10 @@ public class SOCRobotDM {
     case FAST_STRATEGY:
       dumbFastGameStrategy(currentBuildingETAs);
       break;
+
+    case MONTE_CARLO_STRATEGY:
+      monteCarloGameStrategy(currentBuildingETAs);
+      break;
     }
 
 
@@ -340,7 +521,7 @@ public class SOCRobotDM {
 	}
 				
 	threatenedRoadEnum = threatenedRoads.elements();
-	while (threatenedRoadEnum.hasMoreElements()) {
+	while (threatenedRoadEnum.hasMoreElements() && !isPastDeadline()) {
 	  SOCPossibleRoad threatenedRoad = (SOCPossibleRoad)threatenedRoadEnum.nextElement();
 	  D.ebugPrintln("$$$ threatened road at "+Integer.toHexString(threatenedRoad.getCoordinates()));
 					
@@ -363,7 +544,7 @@ public class SOCRobotDM {
 	  }
 	}
 	goodRoadEnum = goodRoads.elements();
-	while (goodRoadEnum.hasMoreElements()) {
+	while (goodRoadEnum.hasMoreElements() && !isPastDeadline()) {
 	  SOCPossibleRoad goodRoad = (SOCPossibleRoad)goodRoadEnum.nextElement();
 	  D.ebugPrintln("$$$ good road at "+Integer.toHexString(goodRoad.getCoordinates()));
 	  //
@@ -412,8 +593,14 @@ public class SOCRobotDM {
 	}     
       } 
     } 
-    //long endTime = System.currentTimeMillis();
-    //System.out.println("plan time: "+(endTime-startTime));
+
+    lastDecisionTime = System.currentTimeMillis() - startTime;
+    numDecisions++;
+    addHostDecision(lastDecisionTime, deadlineHit);
+    if (deadlineHit) {
+      numDeadlinesHit++;
+      D.ebugPrintln("### OUT OF TIME AFTER "+lastDecisionTime+" ms ("+numDeadlinesHit+" of "+numDecisions+")");
+    }
   }
   
   /**
@@ -444,9 +631,9 @@ public class SOCRobotDM {
 	  D.ebugPrintln("ETA = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
 	  if ((brain != null) && (brain.getDRecorder().isOn())) {
 	    brain.getDRecorder().startRecording("CITY"+posCity.getCoordinates());
-	    brain.getDRecorder().record("Estimate speedup of city at "+game.getBoard().nodeCoordToString(posCity.getCoordinates()));
-	    brain.getDRecorder().record("Speedup = "+posCity.getSpeedupTotal());
-	    brain.getDRecorder().record("ETA = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
+	    brain.getDRecorder().record("Estimate speedup of city at {}", SOCCoordLabel.node(game.getBoard(), posCity.getCoordinates()));
+	    brain.getDRecorder().record("Speedup = {}", new Integer(posCity.getSpeedupTotal()));
+	    brain.getDRecorder().record("ETA = {}", new Integer(buildingETAs[SOCBuildingSpeedEstimate.CITY]));
 	    brain.getDRecorder().stopRecording();
 	  }
 	  if ((favoriteCity == null) ||
@@ -470,16 +657,16 @@ public class SOCRobotDM {
 	SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSetsIter.next();
 	if ((brain != null) && (brain.getDRecorder().isOn())) {
 	  brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
-	  brain.getDRecorder().record("Estimate speedup of stlmt at "+game.getBoard().nodeCoordToString(posSet.getCoordinates()));
-	  brain.getDRecorder().record("Speedup = "+posSet.getSpeedupTotal());
-	  brain.getDRecorder().record("ETA = "+posSet.getETA());
+	  brain.getDRecorder().record("Estimate speedup of stlmt at {}", SOCCoordLabel.node(game.getBoard(), posSet.getCoordinates()));
+	  brain.getDRecorder().record("Speedup = {}", new Integer(posSet.getSpeedupTotal()));
+	  brain.getDRecorder().record("ETA = {}", new Integer(posSet.getETA()));
 	  Stack roadPath = posSet.getRoadPath();
 	  if (roadPath!= null) {
 	    brain.getDRecorder().record("Path:");
 	    Iterator rpIter = roadPath.iterator();
 	    while (rpIter.hasNext()) {
 	      SOCPossibleRoad posRoad = (SOCPossibleRoad)rpIter.next();
-	      brain.getDRecorder().record("Road at "+game.getBoard().edgeCoordToString(posRoad.getCoordinates()));
+	      brain.getDRecorder().record("Road at {}", SOCCoordLabel.edge(game.getBoard(), posRoad.getCoordinates()));
 	    }
 	  }
 	  brain.getDRecorder().stopRecording();
@@ -672,9 +859,9 @@ public class SOCRobotDM {
 	  SOCPossibleCity posCity = (SOCPossibleCity)posCitiesIter.next();
 	  if ((brain != null) && (brain.getDRecorder().isOn())) {
 	    brain.getDRecorder().startRecording("CITY"+posCity.getCoordinates());
-	    brain.getDRecorder().record("Estimate speedup of city at "+game.getBoard().nodeCoordToString(posCity.getCoordinates()));
-	    brain.getDRecorder().record("Speedup = "+posCity.getSpeedupTotal());
-	    brain.getDRecorder().record("ETA = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
+	    brain.getDRecorder().record("Estimate speedup of city at {}", SOCCoordLabel.node(game.getBoard(), posCity.getCoordinates()));
+	    brain.getDRecorder().record("Speedup = {}", new Integer(posCity.getSpeedupTotal()));
+	    brain.getDRecorder().record("ETA = {}", new Integer(buildingETAs[SOCBuildingSpeedEstimate.CITY]));
 	    brain.getDRecorder().stopRecording();
 	  }
 	  if ((favoriteCity == null) ||
@@ -696,16 +883,16 @@ public class SOCRobotDM {
 	  SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSetsIter.next();
 	  if ((brain != null) && (brain.getDRecorder().isOn())) {
 	    brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
-	    brain.getDRecorder().record("Estimate speedup of stlmt at "+game.getBoard().nodeCoordToString(posSet.getCoordinates()));
-	    brain.getDRecorder().record("Speedup = "+posSet.getSpeedupTotal());
-	    brain.getDRecorder().record("ETA = "+posSet.getETA());
+	    brain.getDRecorder().record("Estimate speedup of stlmt at {}", SOCCoordLabel.node(game.getBoard(), posSet.getCoordinates()));
+	    brain.getDRecorder().record("Speedup = {}", new Integer(posSet.getSpeedupTotal()));
+	    brain.getDRecorder().record("ETA = {}", new Integer(posSet.getETA()));
 	    Stack roadPath = posSet.getRoadPath();
 	    if (roadPath!= null) {
 	      brain.getDRecorder().record("Path:");
 	      Iterator rpIter = roadPath.iterator();
 	      while (rpIter.hasNext()) {
 		SOCPossibleRoad posRoad = (SOCPossibleRoad)rpIter.next();
-		brain.getDRecorder().record("Road at "+game.getBoard().edgeCoordToString(posRoad.getCoordinates()));
+		brain.getDRecorder().record("Road at {}", SOCCoordLabel.edge(game.getBoard(), posRoad.getCoordinates()));
 	      }
 	    }
 	    brain.getDRecorder().stopRecording();
@@ -1123,7 +1310,7 @@ public class SOCRobotDM {
     //
     // save the lr paths list to restore later
     //
-    Vector savedLRPaths[] = new Vector[SOCGame.MAXPLAYERS];
+    savedLRPaths = new Vector[SOCGame.MAXPLAYERS];
     for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
       savedLRPaths[pn] = (Vector)game.getPlayer(pn).getLRPaths().clone();
     }
@@ -1148,28 +1335,199 @@ public class SOCRobotDM {
       goingToPlayRB = true;
     }
 
+    scorePieces(buildingETAs, leadersCurrentWGETA);
+         
+    if (favoriteSettlement != null) {
+      D.ebugPrintln("### FAVORITE SETTLEMENT IS AT "+Integer.toHexString(favoriteSettlement.getCoordinates()));
+      D.ebugPrintln("###   WITH A SCORE OF "+favoriteSettlement.getScore());
+      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT]);
+      D.ebugPrintln("###   WITH A TOTAL SPEEDUP OF "+favoriteSettlement.getSpeedupTotal());
+    }
+
+    if (favoriteCity != null) {
+      D.ebugPrintln("### FAVORITE CITY IS AT "+Integer.toHexString(favoriteCity.getCoordinates()));
+      D.ebugPrintln("###   WITH A SCORE OF "+favoriteCity.getScore());
+      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
+      D.ebugPrintln("###   WITH A TOTAL SPEEDUP OF "+favoriteCity.getSpeedupTotal());
+    }
+
+    if (favoriteRoad != null) {
+      D.ebugPrintln("### FAVORITE ROAD IS AT "+Integer.toHexString(favoriteRoad.getCoordinates()));
+      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.ROAD]);
+      D.ebugPrintln("###   WITH A SCORE OF "+favoriteRoad.getScore());
+    }
+    int pick = -1;
     ///
-    /// score the possible settlements
+    /// if the best settlement can wait, and the best road can wait,
+    /// and the city is the best speedup and eta, then build the city
     ///
-    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0) {
-      scorePossibleSettlements(buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT], leadersCurrentWGETA);
+    if ((favoriteCity != null) &&
+	(ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) &&
+	(favoriteCity.getScore() > 0) &&
+	((favoriteSettlement == null) ||
+	 (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) == 0) || 
+	 (favoriteCity.getScore() > favoriteSettlement.getScore()) ||
+	 ((favoriteCity.getScore() == favoriteSettlement.getScore()) &&
+	  (buildingETAs[SOCBuildingSpeedEstimate.CITY] < buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT]))) &&
+	((favoriteRoad == null) ||
+	 (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) == 0) ||
+	 (favoriteCity.getScore() > favoriteRoad.getScore()) ||
+	 ((favoriteCity.getScore() == favoriteRoad.getScore()) &&
+	  (buildingETAs[SOCBuildingSpeedEstimate.CITY] < buildingETAs[SOCBuildingSpeedEstimate.ROAD])))) {
+      D.ebugPrintln("### PICKED FAVORITE CITY");
+      pick = SOCPlayingPiece.CITY;
+      D.ebugPrintln("$ PUSHING "+favoriteCity);
+      buildingPlan.push(favoriteCity);
+    } 
+    ///
+    /// if there is a road with a better score than
+    /// our favorite settlement, then build the road, 
+    /// else build the settlement
+    ///
+    else if ((favoriteRoad != null) &&
+	     (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) &&
+	     (favoriteRoad.getScore() > 0) &&
+	     ((favoriteSettlement == null) ||
+	      (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) == 0) ||
+	      (favoriteSettlement.getScore() < favoriteRoad.getScore()))) {
+      D.ebugPrintln("### PICKED FAVORITE ROAD");
+      pick = SOCPlayingPiece.ROAD;
+      D.ebugPrintln("$ PUSHING "+favoriteRoad);
+      buildingPlan.push(favoriteRoad);
+    } else if ((favoriteSettlement != null) &&
+	       (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)) {
+      D.ebugPrintln("### PICKED FAVORITE SETTLEMENT");
+      pick = SOCPlayingPiece.SETTLEMENT;
+      D.ebugPrintln("$ PUSHING "+favoriteSettlement);
+      buildingPlan.push(favoriteSettlement);
     }
-
     ///
-    /// collect roads that we can build now
+    /// if buying a card is better than building...
     ///
-    if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) {
-      Iterator posRoadsIter = ourPlayerTracker.getPossibleRoads().values().iterator();
-      while (posRoadsIter.hasNext()) {
-	SOCPossibleRoad posRoad = (SOCPossibleRoad)posRoadsIter.next();
-	if ((posRoad.getNecessaryRoads().isEmpty()) &&
-	    (!threatenedRoads.contains(posRoad)) &&
-	    (!goodRoads.contains(posRoad))) {
-	  goodRoads.addElement(posRoad);
+			
+    //
+    // see how buying a card improves our win game ETA.
+    // if we're out of time, only do this if we
+    // don't have anything else to build.
+    //
+    if ((game.getNumDevCards() > 0) &&
+	((pick == -1) || !isPastDeadline())) {
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+	brain.getDRecorder().startRecording("DEVCARD");
+	brain.getDRecorder().record("Estimate value of a dev card");
+      } 
+      
+      possibleCard = getDevCardScore(buildingETAs[SOCBuildingSpeedEstimate.CARD], leadersCurrentWGETA);
+      float devCardScore = possibleCard.getScore();
+      D.ebugPrintln("### DEV CARD SCORE: "+devCardScore);
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+	brain.getDRecorder().stopRecording();
+      } 
+      
+      if ((pick == -1) ||
+	  ((pick == SOCPlayingPiece.CITY) &&
+	   (devCardScore > favoriteCity.getScore())) ||
+	  ((pick == SOCPlayingPiece.ROAD) &&
+	   (devCardScore > favoriteRoad.getScore())) ||
+	  ((pick == SOCPlayingPiece.SETTLEMENT) &&
+	   (devCardScore > favoriteSettlement.getScore()))) {
+	D.ebugPrintln("### BUY DEV CARD");
+				
+	if (pick != -1) {
+	  buildingPlan.pop();
+	  D.ebugPrintln("$ POPPED OFF SOMETHING");
+	}
+		 
+	D.ebugPrintln("$ PUSHING "+possibleCard);
+	buildingPlan.push(possibleCard);
+      }
+    } else if ((pick == -1) && deadlineHit) {
+      //
+      // we ran out of time before scoring anything,
+      // so make a quick plan instead
+      //
+      D.ebugPrintln("### OUT OF TIME, USING dumbFastGameStrategy");
+      favoriteRoad = null;
+      favoriteSettlement = null;
+      favoriteCity = null;
+      dumbFastGameStrategy(buildingETAs);
+    }
+  }
+
+  /**
+   * score the pieces we could build for smartGameStrategy.
+   * cities are scored first because there are the fewest of them
+   * and they are the quickest to score, so if we run out of time
+   * we still have something to build.
+   */
+  protected void scorePieces(int[] buildingETAs, int leadersCurrentWGETA) {
+    scoreCities(buildingETAs, leadersCurrentWGETA);
+    scoreSettlements(buildingETAs, leadersCurrentWGETA);
+    scoreRoads(buildingETAs, leadersCurrentWGETA);
+  }
+
+  /**
+   * score the cities that can be built now and pick our favorite
+   */
+  protected void scoreCities(int[] buildingETAs, int leadersCurrentWGETA) {
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) {
+      Vector posCities = new Vector(ourPlayerTracker.getPossibleCities().values());
+      float[] scores = getWGETAScores(posCities);
+      for (int i = 0; i < posCities.size(); i++) {
+	if (isCutOff(scores, i)) {
+	  break;
+	}
+	SOCPossibleCity posCity = (SOCPossibleCity)posCities.elementAt(i);
+	if ((brain != null) && (brain.getDRecorder().isOn())) {
+	  brain.getDRecorder().startRecording("CITY"+posCity.getCoordinates());
+	  brain.getDRecorder().record("Estimate value of city at {}", SOCCoordLabel.node(game.getBoard(), posCity.getCoordinates()));
+	} 
+	
+	//
+	// see how building this piece impacts our winETA
+	//
+	float wgetaScore = (scores != null) ? scores[i] : getWGETAScore(posCity);
+
+	D.ebugPrintln("*** ETA for city = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
+	if ((brain != null) && (brain.getDRecorder().isOn())) {
+	  brain.getDRecorder().record("ETA = {}", new Integer(buildingETAs[SOCBuildingSpeedEstimate.CITY]));
+	} 	
+
+	float etaBonus = getETABonus(buildingETAs[SOCBuildingSpeedEstimate.CITY], leadersCurrentWGETA, wgetaScore);
+	D.ebugPrintln("etaBonus = "+etaBonus);
+	
+	posCity.addToScore(etaBonus);
+	//posCity.addToScore(wgetaScore);
+
+	if ((brain != null) && (brain.getDRecorder().isOn())) {
+	  brain.getDRecorder().record("WGETA score = {}", new Float(wgetaScore));
+	  brain.getDRecorder().record("Total city score = {}", new Float(etaBonus));
+	  brain.getDRecorder().stopRecording();
+	} 
+
+	D.ebugPrintln("$$$  final score = "+posCity.getScore());
+
+	D.ebugPrintln("$$$$$ possible city at "+Integer.toHexString(posCity.getCoordinates())+" has a score of "+posCity.getScore());
+
+	if ((favoriteCity == null) ||
+	    (posCity.getScore() > favoriteCity.getScore())) {
+	  favoriteCity = posCity;
 	}
       }
     }
 
+    restoreLRPaths();
+  }
+
+  /**
+   * score the possible settlements and pick our
+   * favorite of the ones that can be built now
+   */
+  protected void scoreSettlements(int[] buildingETAs, int leadersCurrentWGETA) {
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0) {
+      scorePossibleSettlements(buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT], leadersCurrentWGETA);
+    }
+
     /*
     ///
     /// check everything
@@ -1253,280 +1611,95 @@ public class SOCRobotDM {
       }
     }
 
-    //
-    // restore the LRPath list
-    //
-    D.ebugPrintln("%%% RESTORING LRPATH LIST %%%");
-    for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
-      game.getPlayer(pn).setLRPaths(savedLRPaths[pn]);
-    } 
-    
+    restoreLRPaths();
+  }
+
+  /**
+   * score the roads that can be built now and pick our favorite
+   */
+  protected void scoreRoads(int[] buildingETAs, int leadersCurrentWGETA) {
     ///
-    /// pick a road that can be built now
+    /// collect roads that we can build now
     ///
     if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) {
-      Iterator threatenedRoadIter = threatenedRoads.iterator();
-      while (threatenedRoadIter.hasNext()) {
-	SOCPossibleRoad threatenedRoad = (SOCPossibleRoad)threatenedRoadIter.next();
-	D.ebugPrintln("$$$$$ threatened road at "+Integer.toHexString(threatenedRoad.getCoordinates()));
-
-	if ((brain != null) && (brain.getDRecorder().isOn())) {	  
-	  brain.getDRecorder().startRecording("ROAD"+threatenedRoad.getCoordinates());
-	  brain.getDRecorder().record("Estimate value of road at "+game.getBoard().edgeCoordToString(threatenedRoad.getCoordinates()));
-	} 
-	
-	//
-	// see how building this piece impacts our winETA
-	//
-	threatenedRoad.resetScore();
-	float wgetaScore = getWinGameETABonusForRoad(threatenedRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {	  
-	  brain.getDRecorder().stopRecording();
-	} 
-		
-	D.ebugPrintln("wgetaScore = "+wgetaScore);
-
-	if (favoriteRoad == null) {
-	  favoriteRoad = threatenedRoad;
-	} else {
-	  if (threatenedRoad.getScore() > favoriteRoad.getScore()) {
-	    favoriteRoad = threatenedRoad;
-	  }
-	}
-      }
-      Iterator goodRoadIter = goodRoads.iterator();
-      while (goodRoadIter.hasNext()) {
-	SOCPossibleRoad goodRoad = (SOCPossibleRoad)goodRoadIter.next();
-	D.ebugPrintln("$$$$$ good road at "+Integer.toHexString(goodRoad.getCoordinates()));
-
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().startRecording("ROAD"+goodRoad.getCoordinates());
-	  brain.getDRecorder().record("Estimate value of road at "+game.getBoard().edgeCoordToString(goodRoad.getCoordinates()));
-	} 
-
-	//
-	// see how building this piece impacts our winETA
-	//
-	goodRoad.resetScore();
-	float wgetaScore = getWinGameETABonusForRoad(goodRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().stopRecording();
-	} 
-	
-	D.ebugPrintln("wgetaScore = "+wgetaScore);					
-
-	if (favoriteRoad == null) {
-	  favoriteRoad = goodRoad;
-	} else {
-	  if (goodRoad.getScore() > favoriteRoad.getScore()) {
-	    favoriteRoad = goodRoad;
-	  }
+      Iterator posRoadsIter = ourPlayerTracker.getPossibleRoads().values().iterator();
+      while (posRoadsIter.hasNext()) {
+	SOCPossibleRoad posRoad = (SOCPossibleRoad)posRoadsIter.next();
+	if ((posRoad.getNecessaryRoads().isEmpty()) &&
+	    (!threatenedRoads.contains(posRoad)) &&
+	    (!goodRoads.contains(posRoad))) {
+	  goodRoads.addElement(posRoad);
 	}
       }
     }
 
-    //
-    // restore the LRPath list
-    //
-    D.ebugPrintln("%%% RESTORING LRPATH LIST %%%");
-    for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
-      game.getPlayer(pn).setLRPaths(savedLRPaths[pn]);
-    }  
     
-    ///
-    /// pick a city that can be built now
-    ///
-    if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) {
-      HashMap trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
-      SOCPlayerTracker ourTrackerCopy = (SOCPlayerTracker)trackersCopy.get(new Integer(ourPlayerData.getPlayerNumber()));
-      int originalWGETAs[] = new int[SOCGame.MAXPLAYERS];	 
-      int WGETAdiffs[] = new int[SOCGame.MAXPLAYERS];	 
-      Vector leaders = new Vector();
-      int bestWGETA = 1000;
-      int bonus = 0;
-				
-      Iterator posCitiesIter = ourPlayerTracker.getPossibleCities().values().iterator();
-      while (posCitiesIter.hasNext()) {
-	SOCPossibleCity posCity = (SOCPossibleCity)posCitiesIter.next();
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().startRecording("CITY"+posCity.getCoordinates());
-	  brain.getDRecorder().record("Estimate value of city at "+game.getBoard().nodeCoordToString(posCity.getCoordinates()));
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) {
+      Vector posRoads = new Vector(threatenedRoads.size() + goodRoads.size());
+      posRoads.addAll(threatenedRoads);
+      posRoads.addAll(goodRoads);
+      float[] scores = getWGETAScores(posRoads);
+      for (int i = 0; i < posRoads.size(); i++) {
+	if (isCutOff(scores, i)) {
+	  break;
+	}
+	SOCPossibleRoad posRoad = (SOCPossibleRoad)posRoads.elementAt(i);
+	D.ebugPrintln("$$$$$ possible road at "+Integer.toHexString(posRoad.getCoordinates()));
+
+	if ((brain != null) && (brain.getDRecorder().isOn())) {	  
+	  brain.getDRecorder().startRecording("ROAD"+posRoad.getCoordinates());
+	  brain.getDRecorder().record("Estimate value of road at {}", SOCCoordLabel.edge(game.getBoard(), posRoad.getCoordinates()));
 	} 
 	
 	//
 	// see how building this piece impacts our winETA
 	//
-	leaders.clear();
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().suspend();
-	}
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-	Iterator trackersBeforeIter = trackersCopy.values().iterator();
-	while (trackersBeforeIter.hasNext()) {
-	  SOCPlayerTracker trackerBefore = (SOCPlayerTracker)trackersBeforeIter.next();
-	  D.ebugPrintln("$$$ win game ETA for player "+trackerBefore.getPlayer().getPlayerNumber()+" = "+trackerBefore.getWinGameETA());
-	  originalWGETAs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
-	  WGETAdiffs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
-	  if (trackerBefore.getWinGameETA() < bestWGETA) {
-	    bestWGETA = trackerBefore.getWinGameETA();
-	    leaders.removeAllElements();
-	    leaders.addElement(trackerBefore);
-	  } else if (trackerBefore.getWinGameETA() == bestWGETA) {
-	    leaders.addElement(trackerBefore);
-	  }
-	}		
-	D.ebugPrintln("^^^^ bestWGETA = "+bestWGETA);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().resume();
-	}
-	//
-	// place the city
-	//
-	SOCCity tmpCity = new SOCCity(ourPlayerData, posCity.getCoordinates());
-	game.putTempPiece(tmpCity);
-
-	ourTrackerCopy.addOurNewCity(tmpCity);
-				
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-	float wgetaScore = calcWGETABonusAux(originalWGETAs, trackersCopy, leaders);
-
-	//
-	// remove the city
-	//
-	ourTrackerCopy.undoAddOurNewCity(posCity);
-	game.undoPutTempPiece(tmpCity);
-
-	D.ebugPrintln("*** ETA for city = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().record("ETA = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
-	} 	
-
-	float etaBonus = getETABonus(buildingETAs[SOCBuildingSpeedEstimate.CITY], leadersCurrentWGETA, wgetaScore);
-	D.ebugPrintln("etaBonus = "+etaBonus);
-	
-	posCity.addToScore(etaBonus);
-	//posCity.addToScore(wgetaScore);
-
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().record("WGETA score = "+df1.format(wgetaScore));
-	  brain.getDRecorder().record("Total city score = "+df1.format(etaBonus));
+	posRoad.resetScore();
+	float score = (scores != null) ? scores[i] : getWGETAScore(posRoad);
+	float wgetaScore = addRoadScore(posRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, score);
+	if ((brain != null) && (brain.getDRecorder().isOn())) {	  
 	  brain.getDRecorder().stopRecording();
 	} 
+		
+	D.ebugPrintln("wgetaScore = "+wgetaScore);
 
-	D.ebugPrintln("$$$  final score = "+posCity.getScore());
-
-	D.ebugPrintln("$$$$$ possible city at "+Integer.toHexString(posCity.getCoordinates())+" has a score of "+posCity.getScore());
-
-	if ((favoriteCity == null) ||
-	    (posCity.getScore() > favoriteCity.getScore())) {
-	  favoriteCity = posCity;
+	if ((favoriteRoad == null) ||
+	    (posRoad.getScore() > favoriteRoad.getScore())) {
+	  favoriteRoad = posRoad;
 	}
       }
     }
-         
-    if (favoriteSettlement != null) {
-      D.ebugPrintln("### FAVORITE SETTLEMENT IS AT "+Integer.toHexString(favoriteSettlement.getCoordinates()));
-      D.ebugPrintln("###   WITH A SCORE OF "+favoriteSettlement.getScore());
-      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT]);
-      D.ebugPrintln("###   WITH A TOTAL SPEEDUP OF "+favoriteSettlement.getSpeedupTotal());
-    }
 
-    if (favoriteCity != null) {
-      D.ebugPrintln("### FAVORITE CITY IS AT "+Integer.toHexString(favoriteCity.getCoordinates()));
-      D.ebugPrintln("###   WITH A SCORE OF "+favoriteCity.getScore());
-      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
-      D.ebugPrintln("###   WITH A TOTAL SPEEDUP OF "+favoriteCity.getSpeedupTotal());
-    }
+    restoreLRPaths();
+  }
 
-    if (favoriteRoad != null) {
-      D.ebugPrintln("### FAVORITE ROAD IS AT "+Integer.toHexString(favoriteRoad.getCoordinates()));
-      D.ebugPrintln("###   WITH AN ETA OF "+buildingETAs[SOCBuildingSpeedEstimate.ROAD]);
-      D.ebugPrintln("###   WITH A SCORE OF "+favoriteRoad.getScore());
+  /**
+   * set the lr paths back to the ones saved
+   * at the start of smartGameStrategy
+   */
+  protected void restoreLRPaths() {
+    D.ebugPrintln("%%% RESTORING LRPATH LIST %%%");
+    for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
+      game.getPlayer(pn).setLRPaths(savedLRPaths[pn]);
     }
-    int pick = -1;
-    ///
-    /// if the best settlement can wait, and the best road can wait,
-    /// and the city is the best speedup and eta, then build the city
-    ///
-    if ((favoriteCity != null) &&
-	(ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) &&
-	(favoriteCity.getScore() > 0) &&
-	((favoriteSettlement == null) ||
-	 (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) == 0) || 
-	 (favoriteCity.getScore() > favoriteSettlement.getScore()) ||
-	 ((favoriteCity.getScore() == favoriteSettlement.getScore()) &&
-	  (buildingETAs[SOCBuildingSpeedEstimate.CITY] < buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT]))) &&
-	((favoriteRoad == null) ||
-	 (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) == 0) ||
-	 (favoriteCity.getScore() > favoriteRoad.getScore()) ||
-	 ((favoriteCity.getScore() == favoriteRoad.getScore()) &&
-	  (buildingETAs[SOCBuildingSpeedEstimate.CITY] < buildingETAs[SOCBuildingSpeedEstimate.ROAD])))) {
-      D.ebugPrintln("### PICKED FAVORITE CITY");
-      pick = SOCPlayingPiece.CITY;
-      D.ebugPrintln("$ PUSHING "+favoriteCity);
-      buildingPlan.push(favoriteCity);
-    } 
-    ///
-    /// if there is a road with a better score than
-    /// our favorite settlement, then build the road, 
-    /// else build the settlement
-    ///
-    else if ((favoriteRoad != null) &&
-	     (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) &&
-	     (favoriteRoad.getScore() > 0) &&
-	     ((favoriteSettlement == null) ||
-	      (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) == 0) ||
-	      (favoriteSettlement.getScore() < favoriteRoad.getScore()))) {
-      D.ebugPrintln("### PICKED FAVORITE ROAD");
-      pick = SOCPlayingPiece.ROAD;
-      D.ebugPrintln("$ PUSHING "+favoriteRoad);
-      buildingPlan.push(favoriteRoad);
-    } else if ((favoriteSettlement != null) &&
-	       (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)) {
-      D.ebugPrintln("### PICKED FAVORITE SETTLEMENT");
-      pick = SOCPlayingPiece.SETTLEMENT;
-      D.ebugPrintln("$ PUSHING "+favoriteSettlement);
-      buildingPlan.push(favoriteSettlement);
+  }
+
+  /**
+   * @return true if we're out of time to score a piece
+   *
+   * @param scores  the scores from getWGETAScores(), or null
+   *                if the pieces are being scored one at a time
+   * @param i       the index of the piece
+   */
+  protected boolean isCutOff(float[] scores, int i) {
+    if (scores == null) {
+      return isPastDeadline();
     }
-    ///
-    /// if buying a card is better than building...
-    ///
-			
-    //
-    // see how buying a card improves our win game ETA
-    //
-    if (game.getNumDevCards() > 0) {
-      if ((brain != null) && (brain.getDRecorder().isOn())) {
-	brain.getDRecorder().startRecording("DEVCARD");
-	brain.getDRecorder().record("Estimate value of a dev card");
-      } 
-      
-      possibleCard = getDevCardScore(buildingETAs[SOCBuildingSpeedEstimate.CARD], leadersCurrentWGETA);
-      float devCardScore = possibleCard.getScore();
-      D.ebugPrintln("### DEV CARD SCORE: "+devCardScore);
-      if ((brain != null) && (brain.getDRecorder().isOn())) {
-	brain.getDRecorder().stopRecording();
-      } 
-      
-      if ((pick == -1) ||
-	  ((pick == SOCPlayingPiece.CITY) &&
-	   (devCardScore > favoriteCity.getScore())) ||
-	  ((pick == SOCPlayingPiece.ROAD) &&
-	   (devCardScore > favoriteRoad.getScore())) ||
-	  ((pick == SOCPlayingPiece.SETTLEMENT) &&
-	   (devCardScore > favoriteSettlement.getScore()))) {
-	D.ebugPrintln("### BUY DEV CARD");
-				
-	if (pick != -1) {
-	  buildingPlan.pop();
-	  D.ebugPrintln("$ POPPED OFF SOMETHING");
-	}
-		 
-	D.ebugPrintln("$ PUSHING "+possibleCard);
-	buildingPlan.push(possibleCard);
-      }
+    if (Float.isNaN(scores[i])) {
+      deadlineHit = true;
+      return true;
     }
+    return false;
   }
 
 
@@ -1544,6 +1717,7 @@ public class SOCRobotDM {
       goingToPlayRB = true;
     }
 
+    Vector posSets = new Vector();
     Iterator posSetsIter = ourPlayerTracker.getPossibleSettlements().values().iterator();
     while (posSetsIter.hasNext()) {
       SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSetsIter.next();
@@ -1562,40 +1736,379 @@ public class SOCRobotDM {
 	//
 	//  no roads needed
 	//
+	posSets.addElement(posSet);
+      }
+    }
+
+    //
+    //  get wgeta scores
+    //
+    float[] scores = getWGETAScores(posSets);
+    for (int i = 0; i < posSets.size(); i++) {
+      SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSets.elementAt(i);
+      if (isCutOff(scores, i)) {
 	//
-	//  get wgeta score
+	// out of time, so don't pick from
+	// the settlements we haven't scored
 	//
-	SOCSettlement tmpSet = new SOCSettlement(ourPlayerData, posSet.getCoordinates());
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
-	  brain.getDRecorder().record("Estimate value of settlement at "+game.getBoard().nodeCoordToString(posSet.getCoordinates()));
-	} 
+	threatenedSettlements.removeElement(posSet);
+	goodSettlements.removeElement(posSet);
+	continue;
+      }
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+	brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
+	brain.getDRecorder().record("Estimate value of settlement at {}", SOCCoordLabel.node(game.getBoard(), posSet.getCoordinates()));
+      } 
 	
-	HashMap trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-	float wgetaScore = calcWGETABonus(playerTrackers, trackersCopy);
-	D.ebugPrintln("***  wgetaScore = "+wgetaScore);
+      float wgetaScore = (scores != null) ? scores[i] : getWGETAScore(posSet);
+      D.ebugPrintln("***  wgetaScore = "+wgetaScore);
 
-	D.ebugPrintln("*** ETA for settlement = "+settlementETA);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().record("ETA = "+settlementETA);
-	} 
+      D.ebugPrintln("*** ETA for settlement = "+settlementETA);
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+	brain.getDRecorder().record("ETA = {}", new Integer(settlementETA));
+      } 
 	
-	float etaBonus = getETABonus(settlementETA, leadersCurrentWGETA, wgetaScore);
-	D.ebugPrintln("etaBonus = "+etaBonus);
+      float etaBonus = getETABonus(settlementETA, leadersCurrentWGETA, wgetaScore);
+      D.ebugPrintln("etaBonus = "+etaBonus);
 	
-	//posSet.addToScore(wgetaScore);
-	posSet.addToScore(etaBonus);
+      //posSet.addToScore(wgetaScore);
+      posSet.addToScore(etaBonus);
 
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().record("WGETA score = "+df1.format(wgetaScore));
-	  brain.getDRecorder().record("Total settlement score = "+df1.format(etaBonus));
-	  brain.getDRecorder().stopRecording();
-	} 
-	
-	SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+	brain.getDRecorder().record("WGETA score = {}", new Float(wgetaScore));
+	brain.getDRecorder().record("Total settlement score = {}", new Float(etaBonus));
+	brain.getDRecorder().stopRecording();
+      } 
+    }
+  }
+
+  /**
+   * figure out how much putting down a possible piece
+   * changes the win game ETAs.  The lr paths are set back
+   * to the ones saved at the start of smartGameStrategy first,
+   * so the score doesn't depend on which pieces were tried
+   * before this one.
+   *
+   * @param posPiece  the possible piece that we're scoring
+   * @return the win game ETA score, before any ETA bonus
+   */
+  protected float getWGETAScore(SOCPossiblePiece posPiece) {
+    restoreLRPaths();
+
+    float score = 0;
+    switch (posPiece.getType()) {
+    case SOCPossiblePiece.SETTLEMENT:
+      SOCSettlement tmpSet = new SOCSettlement(ourPlayerData, posPiece.getCoordinates());
+      HashMap trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
+      SOCPlayerTracker.updateWinGameETAs(trackersCopy);
+      score = calcWGETABonus(playerTrackers, trackersCopy);
+      SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
+      break;
+
+    case SOCPossiblePiece.CITY:
+      score = getCityWGETAScore((SOCPossibleCity)posPiece);
+      break;
+
+    case SOCPossiblePiece.ROAD:
+      score = getRoadWGETAScore((SOCPossibleRoad)posPiece, playerTrackers);
+      break;
+    }
+
+    return score;
+  }
+
+  /**
+   * score a list of possible pieces with getWGETAScore using
+   * the robot worker pool.  Each thread scores pieces on its own
+   * copy of the game and a snapshot of the trackers, so the game
+   * and trackers are left alone.
+   *
+   * @param posPieces  the possible pieces
+   * @return the scores, or null if the pieces should be scored
+   *         one at a time on this thread (because the pool is
+   *         only one thread, we're recording what we do, or
+   *         scoring on the pool failed)
+   */
+  protected float[] getWGETAScores(Vector posPieces) {
+    int numTasks = Math.min(SOCRobotWorkerPool.getMaxThreads(), posPieces.size());
+    if ((numTasks <= 1) ||
+	((brain != null) && (brain.getDRecorder().isOn()))) {
+      return null;
+    }
+
+    float[] scores = new float[posPieces.size()];
+    Arrays.fill(scores, Float.NaN);
+    int[] next = new int[1];
+    Runnable[] tasks = new Runnable[numTasks];
+    for (int i = 0; i < numTasks; i++) {
+      tasks[i] = new ScoreTask(posPieces, scores, next);
+    }
+    try {
+      SOCRobotWorkerPool.getPool().runAll(tasks);
+    } catch (RuntimeException e) {
+      log.warn("scoring on the worker pool failed, scoring one at a time", e);
+      return null;
+    }
+
+    return scores;
+  }
+
+  /**
+   * scores pieces from a list on a copy of this decision
+   * maker until the list runs out.  All of the tasks
+   * in a batch share the list.
+   */
+  class ScoreTask implements Runnable {
+    Vector posPieces;
+    float[] scores;
+    int[] next;
+
+    ScoreTask(Vector pp, float[] sc, int[] nx) {
+      posPieces = pp;
+      scores = sc;
+      next = nx;
+    }
+
+    public void run() {
+      SOCRobotDM dmCopy = null;
+      while (true) {
+	int i;
+	synchronized (next) {
+	  i = next[0];
+	  if ((i >= posPieces.size()) ||
+	      (System.currentTimeMillis() > deadline)) {
+	    return;
+	  }
+	  next[0]++;
+	}
+	if (dmCopy == null) {
+	  dmCopy = new SOCRobotDM(SOCRobotDM.this);
+	}
+	scores[i] = dmCopy.getWGETAScore((SOCPossiblePiece)posPieces.elementAt(i));
+      }
+    }
+  }
+
+  /**
+   * pick the next thing to build by playing lots of quick
+   * games out from here with SOCPlayoutSimulator, starting with
+   * each thing we could build, and going with the one that wins
+   * the most.  Games are played out on the robot worker pool
+   * until playoutTime runs out.  Each time, the thing to try is
+   * picked with UCB1, so the ones that are winning get tried
+   * more and the one tried the most is the best.
+   *
+   * @param buildingETAs  the ETAs for building each piece type
+   */
+  protected void monteCarloGameStrategy(int[] buildingETAs) {
+    D.ebugPrintln("***** monteCarloGameStrategy *****");
+    Vector candidates = new Vector();
+
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) {
+      Iterator posCitiesIter = ourPlayerTracker.getPossibleCities().values().iterator();
+      while (posCitiesIter.hasNext()) {
+	candidates.addElement(posCitiesIter.next());
+      }
+    }
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0) {
+      Iterator posSetsIter = ourPlayerTracker.getPossibleSettlements().values().iterator();
+      while (posSetsIter.hasNext()) {
+	SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSetsIter.next();
+	if (posSet.getNecessaryRoads().isEmpty() &&
+	    ourPlayerData.isPotentialSettlement(posSet.getCoordinates())) {
+	  candidates.addElement(posSet);
+	}
+      }
+    }
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) {
+      Iterator posRoadsIter = ourPlayerTracker.getPossibleRoads().values().iterator();
+      while (posRoadsIter.hasNext()) {
+	SOCPossibleRoad posRoad = (SOCPossibleRoad)posRoadsIter.next();
+	if (ourPlayerData.isPotentialRoad(posRoad.getCoordinates())) {
+	  candidates.addElement(posRoad);
+	}
+      }
+    }
+    if (game.getNumDevCards() > 0) {
+      candidates.addElement(new SOCPossibleCard(ourPlayerData, buildingETAs[SOCBuildingSpeedEstimate.CARD]));
+    }
+
+    if (candidates.isEmpty()) {
+      dumbFastGameStrategy(buildingETAs);
+      return;
+    }
+
+    int best = 0;
+    if (candidates.size() > 1) {
+      int numTasks = SOCRobotWorkerPool.getMaxThreads();
+      if (playoutThreads > 0) {
+	numTasks = Math.min(playoutThreads, numTasks);
+      }
+      numTasks = Math.max(numTasks, 1);
+
+      int[] wins = new int[candidates.size()];
+      int[] plays = new int[candidates.size()];
+      long deadline = System.currentTimeMillis() + playoutTime;
+      long seed = System.currentTimeMillis();
+      Runnable[] tasks = new Runnable[numTasks];
+      for (int i = 0; i < numTasks; i++) {
+	SOCPlayoutSimulator sim = new SOCPlayoutSimulator(game, ourPlayerData.getPlayerNumber(), seed + i);
+	tasks[i] = new PlayoutTask(sim, candidates, wins, plays, deadline);
+      }
+      try {
+	SOCRobotWorkerPool.getPool().runAll(tasks);
+      } catch (RuntimeException e) {
+	log.warn("playouts on the worker pool failed, using the fast strategy", e);
+	dumbFastGameStrategy(buildingETAs);
+	return;
       }
+
+      for (int i = 1; i < candidates.size(); i++) {
+	if ((plays[i] > plays[best]) ||
+	    ((plays[i] == plays[best]) && (wins[i] > wins[best]))) {
+	  best = i;
+	}
+      }
+
+      if (log.isDebugEnabled()) {
+	for (int i = 0; i < candidates.size(); i++) {
+	  log.debug("$$$ "+candidates.elementAt(i)+" won "+wins[i]+" of "+plays[i]);
+	}
+      }
+    }
+
+    SOCPossiblePiece choice = (SOCPossiblePiece)candidates.elementAt(best);
+    switch (choice.getType()) {
+    case SOCPossiblePiece.CITY:
+      favoriteCity = (SOCPossibleCity)choice;
+      break;
+
+    case SOCPossiblePiece.SETTLEMENT:
+      favoriteSettlement = (SOCPossibleSettlement)choice;
+      break;
+
+    case SOCPossiblePiece.ROAD:
+      favoriteRoad = (SOCPossibleRoad)choice;
+      break;
+
+    case SOCPossiblePiece.CARD:
+      possibleCard = (SOCPossibleCard)choice;
+      break;
+    }
+    D.ebugPrintln("$$ PUSHING "+choice);
+    buildingPlan.push(choice);
+  }
+
+  /**
+   * plays games out on a simulator until the deadline,
+   * picking what to build first with UCB1.  All of the tasks
+   * in a batch share the win and play counts.
+   */
+  class PlayoutTask implements Runnable {
+    SOCPlayoutSimulator sim;
+    Vector candidates;
+    int[] wins;
+    int[] plays;
+    long deadline;
+
+    PlayoutTask(SOCPlayoutSimulator sm, Vector cs, int[] ws, int[] ps, long dl) {
+      sim = sm;
+      candidates = cs;
+      wins = ws;
+      plays = ps;
+      deadline = dl;
+    }
+
+    public void run() {
+      int ourPN = ourPlayerData.getPlayerNumber();
+      while (System.currentTimeMillis() < deadline) {
+	int i = -1;
+	synchronized (plays) {
+	  int total = 0;
+	  for (int j = 0; j < plays.length; j++) {
+	    total += plays[j];
+	  }
+	  double logTotal = Math.log(total + 1);
+	  double bestValue = -1;
+	  for (int j = 0; j < plays.length; j++) {
+	    if (plays[j] == 0) {
+	      i = j;
+	      break;
+	    }
+	    double value = ((double)wins[j] / plays[j]) + Math.sqrt(2 * logTotal / plays[j]);
+	    if (value > bestValue) {
+	      bestValue = value;
+	      i = j;
+	    }
+	  }
+	  plays[i]++;
+	}
+
+	SOCPossiblePiece posPiece = (SOCPossiblePiece)candidates.elementAt(i);
+	int winner = sim.playout(posPiece.getType(), posPiece.getCoordinates());
+	if (winner == ourPN) {
+	  synchronized (plays) {
+	    wins[i]++;
+	  }
+	}
+      }
+    }
+  }
+
+  /**
+   * figure out how much building a possible city
+   * changes the win game ETAs
+   *
+   * @param posCity  the possible city
+   */
+  protected float getCityWGETAScore(SOCPossibleCity posCity) {
+    HashMap trackersCopy = SOCPlayerTracker.snapshotPlayerTrackers(playerTrackers);
+    SOCPlayerTracker ourTrackerCopy = (SOCPlayerTracker)trackersCopy.get(new Integer(ourPlayerData.getPlayerNumber()));
+    int originalWGETAs[] = new int[SOCGame.MAXPLAYERS];	 
+    Vector leaders = new Vector();
+    int bestWGETA = 1000;
+
+    if ((brain != null) && (brain.getDRecorder().isOn())) {
+      brain.getDRecorder().suspend();
+    }
+    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
+    Iterator trackersBeforeIter = trackersCopy.values().iterator();
+    while (trackersBeforeIter.hasNext()) {
+      SOCPlayerTracker trackerBefore = (SOCPlayerTracker)trackersBeforeIter.next();
+      D.ebugPrintln("$$$ win game ETA for player "+trackerBefore.getPlayer().getPlayerNumber()+" = "+trackerBefore.getWinGameETA());
+      originalWGETAs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
+      if (trackerBefore.getWinGameETA() < bestWGETA) {
+	bestWGETA = trackerBefore.getWinGameETA();
+	leaders.removeAllElements();
+	leaders.addElement(trackerBefore);
+      } else if (trackerBefore.getWinGameETA() == bestWGETA) {
+	leaders.addElement(trackerBefore);
+      }
+    }		
+    D.ebugPrintln("^^^^ bestWGETA = "+bestWGETA);
+    if ((brain != null) && (brain.getDRecorder().isOn())) {
+      brain.getDRecorder().resume();
     }
+
+    //
+    // place the city
+    //
+    SOCCity tmpCity = new SOCCity(ourPlayerData, posCity.getCoordinates());
+    game.putTempPiece(tmpCity);
+
+    ourTrackerCopy.addOurNewCity(tmpCity);
+				
+    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
+
+    float wgetaScore = calcWGETABonusAux(originalWGETAs, trackersCopy, leaders);
+
+    //
+    // remove the city
+    //
+    ourTrackerCopy.undoAddOurNewCity(posCity);
+    game.undoPutTempPiece(tmpCity);
+
+    return wgetaScore;
   }
   
   /**
@@ -1624,7 +2137,7 @@ public class SOCRobotDM {
       break;
 
     case SOCPossiblePiece.CITY:
-      trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
+      trackersCopy = SOCPlayerTracker.snapshotPlayerTrackers(playerTrackers);
       tmpCity = new SOCCity(ourPlayerData, 
 			    posPiece.getCoordinates());
       game.putTempPiece(tmpCity);
@@ -1692,7 +2205,19 @@ public class SOCRobotDM {
     int ourCurrentWGETA = ourPlayerTracker.getWinGameETA();
     D.ebugPrintln("ourCurrentWGETA = "+ourCurrentWGETA);
 
+    float score = getRoadWGETAScore(posRoad, playerTrackers);
 
+    return addRoadScore(posRoad, roadETA, leadersCurrentWGETA, score);
+  }
+
+  /**
+   * figure out how much building a possible road
+   * changes the win game ETAs
+   *
+   * @param posRoad  the possible road
+   * @param playerTrackers  the player trackers
+   */
+  protected float getRoadWGETAScore(SOCPossibleRoad posRoad, HashMap playerTrackers) {
     HashMap trackersCopy = null;
     SOCRoad tmpRoad1 = null;
 
@@ -1713,6 +2238,25 @@ public class SOCRobotDM {
     SOCPlayerTracker.updateWinGameETAs(trackersCopy);
     float score = calcWGETABonus(playerTrackers, trackersCopy);
 
+    D.ebugPrintln("--- after [end] ---");
+    SOCPlayerTracker.undoTryPutPiece(tmpRoad1, game);
+    ourPlayerData.getResources().clear();
+    ourPlayerData.getResources().add(originalResources);
+    D.ebugPrintln("--- cleanup done ---");
+
+    return score;
+  }
+
+  /**
+   * add a bonus to the road score based on its
+   * win game ETA score
+   *
+   * @param posRoad  the possible road
+   * @param roadETA  the eta for the road
+   * @param leadersCurrentWGETA  the leaders current WGETA
+   * @param score  the win game ETA score from getRoadWGETAScore
+   */
+  protected float addRoadScore(SOCPossibleRoad posRoad, int roadETA, int leadersCurrentWGETA, float score) {
     if (!posRoad.getThreats().isEmpty()) {
       score *= threatMultiplier;
       D.ebugPrintln("***  (THREAT MULTIPLIER) score * "+threatMultiplier+" = "+score);
@@ -1724,17 +2268,11 @@ public class SOCRobotDM {
     posRoad.addToScore(etaBonus);
 
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("ETA = "+roadETA);
-      brain.getDRecorder().record("WGETA Score = "+df1.format(score));
-      brain.getDRecorder().record("Total road score = "+df1.format(etaBonus));
+      brain.getDRecorder().record("ETA = {}", new Integer(roadETA));
+      brain.getDRecorder().record("WGETA Score = {}", new Float(score));
+      brain.getDRecorder().record("Total road score = {}", new Float(etaBonus));
     } 
     
-    D.ebugPrintln("--- after [end] ---");
-    SOCPlayerTracker.undoTryPutPiece(tmpRoad1, game);
-    ourPlayerData.getResources().clear();
-    ourPlayerData.getResources().add(originalResources);
-    D.ebugPrintln("--- cleanup done ---");
-		
     return etaBonus;
   }
 
@@ -1807,7 +2345,7 @@ public class SOCRobotDM {
 	  D.ebugPrintln("$$$$ adding win game bonus : +"+(100 / SOCGame.MAXPLAYERS));
 	  bonus += (100.0f / (float)SOCGame.MAXPLAYERS);
 	  if ((brain != null) && (brain.getDRecorder().isOn())) {
-	    brain.getDRecorder().record("Adding Win Game bonus :"+df1.format(bonus));
+	    brain.getDRecorder().record("Adding Win Game bonus :{}", new Float(bonus));
 	  } 
 	}
       }
@@ -1828,7 +2366,7 @@ public class SOCRobotDM {
 		
     D.ebugPrintln("^^^^ our current bonus = "+bonus);
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("WGETA bonus for only myself = "+df1.format(bonus));
+      brain.getDRecorder().record("WGETA bonus for only myself = {}", new Float(bonus));
     } 
 		
     //
@@ -1846,14 +2384,14 @@ public class SOCRobotDM {
 	    bonus += takedownBonus;
 	    D.ebugPrintln("^^^^ added takedown bonus for player "+pn+" : "+takedownBonus);
 	    if (((brain != null) && (brain.getDRecorder().isOn())) && (takedownBonus != 0)) {
-	      brain.getDRecorder().record("Bonus for AI with "+pn+" : "+df1.format(takedownBonus));
+	      brain.getDRecorder().record("Bonus for AI with {} : {}", new Integer(pn), new Float(takedownBonus));
 	    } 
 	  } else if (WGETAdiffs[pn] < 0) {
 	    float takedownBonus = (100.0f / (float)SOCGame.MAXPLAYERS) * adversarialFactor;
 	    bonus += takedownBonus;
 	    D.ebugPrintln("^^^^ added takedown bonus for player "+pn+" : "+takedownBonus);
 	    if (((brain != null) && (brain.getDRecorder().isOn())) && (takedownBonus != 0)) {
-	      brain.getDRecorder().record("Bonus for AI with "+pn+" : "+df1.format(takedownBonus));
+	      brain.getDRecorder().record("Bonus for AI with {} : {}", new Integer(pn), new Float(takedownBonus));
 	    } 
 	  }
 	}
@@ -1872,7 +2410,7 @@ public class SOCRobotDM {
 	  bonus += takedownBonus;
 	  D.ebugPrintln("^^^^ added takedown bonus for leader "+leader.getPlayer().getPlayerNumber()+" : +"+takedownBonus);
 	  if (((brain != null) && (brain.getDRecorder().isOn())) && (takedownBonus != 0)){
-	    brain.getDRecorder().record("Bonus for LI with "+leader.getPlayer().getName()+" : +"+df1.format(takedownBonus));
+	    brain.getDRecorder().record("Bonus for LI with {} : +{}", leader.getPlayer().getName(), new Float(takedownBonus));
 	  } 
 	  
 	} else if (WGETAdiffs[leader.getPlayer().getPlayerNumber()] < 0) {
@@ -1880,13 +2418,13 @@ public class SOCRobotDM {
 	  bonus += takedownBonus;
 	  D.ebugPrintln("^^^^ added takedown bonus for leader "+leader.getPlayer().getPlayerNumber()+" : +"+takedownBonus);
 	  if (((brain != null) && (brain.getDRecorder().isOn())) && (takedownBonus != 0)) {
-	    brain.getDRecorder().record("Bonus for LI with "+leader.getPlayer().getName()+" : +"+df1.format(takedownBonus));
+	    brain.getDRecorder().record("Bonus for LI with {} : +{}", leader.getPlayer().getName(), new Float(takedownBonus));
 	  } 
 	}
       }
     }
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("WGETA bonus = "+df1.format(bonus));
+      brain.getDRecorder().record("WGETA bonus = {}", new Float(bonus));
     } 
     
     return bonus;
@@ -1942,7 +2480,7 @@ public class SOCRobotDM {
     bonus *= 0.58f;
     D.ebugPrintln("^^^^ adjusted bonus = "+bonus);
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("Bonus * 0.58 = "+df1.format(bonus));
+      brain.getDRecorder().record("Bonus * 0.58 = {}", new Float(bonus));
     } 
 
     D.ebugPrintln("^^^^ bonus for +1 knight = "+bonus);
@@ -1983,7 +2521,7 @@ public class SOCRobotDM {
     bonus *= 0.21f;
     D.ebugPrintln("^^^^ adjusted bonus = "+bonus);
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("Bonus * 0.21 = "+df1.format(bonus));
+      brain.getDRecorder().record("Bonus * 0.21 = {}", new Float(bonus));
     } 
     
     D.ebugPrintln("$$$ win game ETA bonus for +1 vp: "+bonus);
@@ -1999,7 +2537,7 @@ public class SOCRobotDM {
     devCardScore += devCardMultiplier;
     D.ebugPrintln("^^^^ misc bonus = "+devCardMultiplier);
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("Misc bonus = "+df1.format(devCardMultiplier));
+      brain.getDRecorder().record("Misc bonus = {}", new Float(devCardMultiplier));
     } 
 			
     float score = getETABonus(cardETA, leadersCurrentWGETA, devCardScore);
@@ -2009,9 +2547,9 @@ public class SOCRobotDM {
     D.ebugPrintln("$$$$$ final score = "+score);
 
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("ETA = "+cardETA);
-      brain.getDRecorder().record("dev card score = "+df1.format(devCardScore));
-      brain.getDRecorder().record("Total dev card score = "+df1.format(score));
+      brain.getDRecorder().record("ETA = {}", new Integer(cardETA));
+      brain.getDRecorder().record("dev card score = {}", new Float(devCardScore));
+      brain.getDRecorder().record("Total dev card score = {}", new Float(score));
     } 
     
     SOCPossibleCard posCard = new SOCPossibleCard(ourPlayerData, cardETA);
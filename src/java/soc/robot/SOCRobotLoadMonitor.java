@@ -0,0 +1,299 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.debug.Log;
+
+import soc.util.SOCRobotParameters;
+
+import java.util.Enumeration;
+
+
+/**
+ * Watches how busy a robot client is, and has its brains
+ * think less when it's too busy to keep up.
+ *
+ * Once a second it looks at how many messages are waiting
+ * for the brains, how long their decisions have been taking,
+ * and how late it woke up from sleeping, which goes up when
+ * the host is short of CPU.  If any of these is too high, the
+ * load is BUSY and the brains' time limits are cut, or it is
+ * OVERLOADED and the brains switch to the fast strategy.
+ * The load goes up right away, and comes back down one step
+ * at a time after it has been lower for a while.
+ *
+ * @author agent
+ */
+public class SOCRobotLoadMonitor extends Thread
+{
+    /**
+     * the load levels
+     */
+    public static final int NORMAL = 0;
+    public static final int BUSY = 1;
+    public static final int OVERLOADED = 2;
+    public static final String[] LEVEL_NAMES = { "NORMAL", "BUSY", "OVERLOADED" };
+
+    /**
+     * how long to sleep between looks, in milliseconds
+     */
+    public static final int SAMPLE_TIME = 1000;
+
+    /**
+     * the most messages waiting for one brain,
+     * for BUSY and OVERLOADED
+     */
+    public static final int BUSY_QUEUE = 50;
+    public static final int OVERLOADED_QUEUE = 200;
+
+    /**
+     * the average decision time in milliseconds,
+     * for BUSY and OVERLOADED
+     */
+    public static final int BUSY_DECISION_TIME = 1000;
+    public static final int OVERLOADED_DECISION_TIME = 3000;
+
+    /**
+     * how late we wake up in milliseconds, for BUSY and OVERLOADED
+     */
+    public static final int BUSY_LAG = 100;
+    public static final int OVERLOADED_LAG = 500;
+
+    /**
+     * how many looks in a row the load has to be lower
+     * before we go down a level
+     */
+    public static final int CALM_SAMPLES = 10;
+
+    /**
+     * when BUSY, time limits are divided by this
+     */
+    public static final int BUSY_DIVISOR = 4;
+
+    /**
+     * when BUSY, the time limit for a smart
+     * strategy decision that had no limit
+     */
+    public static final int BUSY_DEFAULT_TIME = 500;
+
+    static final Log log = Log.getLog("robot.load");
+
+    SOCRobotClient client;
+    volatile boolean alive;
+
+    /**
+     * the current load level
+     */
+    protected volatile int level;
+
+    /**
+     * how many looks in a row the load has been lower
+     */
+    protected int calmSamples;
+
+    /**
+     * the host decision counts at the last look
+     */
+    protected int lastDecisions;
+    protected long lastDecisionTime;
+
+    /**
+     * constructor
+     *
+     * @param cl  the robot client
+     */
+    public SOCRobotLoadMonitor(SOCRobotClient cl)
+    {
+        client = cl;
+        alive = true;
+        level = NORMAL;
+        calmSamples = 0;
+        lastDecisions = SOCRobotDM.getHostDecisions();
+        lastDecisionTime = SOCRobotDM.getHostDecisionTime();
+        setDaemon(true);
+    }
+
+    /**
+     * @return the current load level
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * look at the load once a second
+     */
+    public void run()
+    {
+        while (alive)
+        {
+            long sleepStart = System.currentTimeMillis();
+
+            try
+            {
+                sleep(SAMPLE_TIME);
+            }
+            catch (InterruptedException exc) {}
+
+            if (!alive)
+            {
+                break;
+            }
+
+            long lag = System.currentTimeMillis() - sleepStart - SAMPLE_TIME;
+            sample(Math.max(lag, 0));
+        }
+
+        client = null;
+    }
+
+    /**
+     * look at the load, change the level if we need to,
+     * and set the brains up for the level
+     *
+     * @param lag  how late we woke up, in milliseconds
+     */
+    protected void sample(long lag)
+    {
+        int maxQueue = 0;
+        Enumeration brainsEnum = client.getRobotBrains();
+
+        while (brainsEnum.hasMoreElements())
+        {
+            SOCRobotBrain brain = (SOCRobotBrain) brainsEnum.nextElement();
+            maxQueue = Math.max(maxQueue, brain.getQueueSize());
+        }
+
+        int decisions = SOCRobotDM.getHostDecisions();
+        long decisionTime = SOCRobotDM.getHostDecisionTime();
+        long avgDecisionTime = 0;
+
+        if (decisions > lastDecisions)
+        {
+            avgDecisionTime = (decisionTime - lastDecisionTime) / (decisions - lastDecisions);
+        }
+
+        lastDecisions = decisions;
+        lastDecisionTime = decisionTime;
+
+        int load;
+
+        if ((maxQueue >= OVERLOADED_QUEUE) || (avgDecisionTime >= OVERLOADED_DECISION_TIME) || (lag >= OVERLOADED_LAG))
+        {
+            load = OVERLOADED;
+        }
+        else if ((maxQueue >= BUSY_QUEUE) || (avgDecisionTime >= BUSY_DECISION_TIME) || (lag >= BUSY_LAG))
+        {
+            load = BUSY;
+        }
+        else
+        {
+            load = NORMAL;
+        }
+
+        int newLevel = level;
+
+        if (load > level)
+        {
+            newLevel = load;
+            calmSamples = 0;
+        }
+        else if (load < level)
+        {
+            calmSamples++;
+
+            if (calmSamples >= CALM_SAMPLES)
+            {
+                newLevel = level - 1;
+                calmSamples = 0;
+            }
+        }
+        else
+        {
+            calmSamples = 0;
+        }
+
+        if (newLevel != level)
+        {
+            if (log.isInfoEnabled())
+            {
+                log.info("robot " + client.getNickname() + " load " + LEVEL_NAMES[level] + " -> " + LEVEL_NAMES[newLevel] + " (queue=" + maxQueue + " decision=" + avgDecisionTime + "ms lag=" + lag + "ms deadlinesHit=" + SOCRobotDM.getHostDeadlinesHit() + "/" + decisions + ")");
+            }
+
+            level = newLevel;
+        }
+
+        /**
+         * set up every brain, so new ones
+         * get the current level too
+         */
+        brainsEnum = client.getRobotBrains();
+
+        while (brainsEnum.hasMoreElements())
+        {
+            setUpBrain((SOCRobotBrain) brainsEnum.nextElement());
+        }
+    }
+
+    /**
+     * set a brain's strategy and time limits for the current level
+     *
+     * @param brain  the brain
+     */
+    protected void setUpBrain(SOCRobotBrain brain)
+    {
+        SOCRobotParameters params = brain.getRobotParameters();
+
+        switch (level)
+        {
+        case NORMAL:
+            brain.setStrategy(params.getStrategyType(), params.getDecisionTime(), params.getPlayoutTime());
+
+            break;
+
+        case BUSY:
+
+            int dt = params.getDecisionTime() / BUSY_DIVISOR;
+
+            if (params.getDecisionTime() == 0)
+            {
+                dt = BUSY_DEFAULT_TIME;
+            }
+
+            brain.setStrategy(params.getStrategyType(), Math.max(dt, 1), Math.max(params.getPlayoutTime() / BUSY_DIVISOR, 1));
+
+            break;
+
+        case OVERLOADED:
+            brain.setStrategy(SOCRobotDM.FAST_STRATEGY, params.getDecisionTime(), params.getPlayoutTime());
+
+            break;
+        }
+    }
+
+    /**
+     * stop watching, without waiting for the next look
+     */
+    public void stopLoadMonitor()
+    {
+        alive = false;
+        interrupt();
+    }
+}
@@ -30,9 +30,11 @@ import soc.game.SOCResourceSet;
 import soc.game.SOCTradeOffer;
 
 import soc.util.CutoffExceededException;
+import soc.util.IntArrayKey;
 
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.Vector;
@@ -48,6 +50,12 @@ import java.util.Vector;
 public class SOCRobotNegotiator
 {
     protected static final int WIN_GAME_CUTOFF = 25;
+
+    /**
+     * the most ETAs we keep for one player before
+     * starting the cache over
+     */
+    protected static final int ETA_CACHE_SIZE = 1000;
     public static final int REJECT_OFFER = 0;
     public static final int ACCEPT_OFFER = 1;
     public static final int COUNTER_OFFER = 2;
@@ -64,6 +72,30 @@ public class SOCRobotNegotiator
     protected Vector offersMade;
     protected SOCPossiblePiece[] targetPieces;
 
+    /**
+     * a building speed estimate for each player, kept
+     * until the player's numbers change or the turn ends
+     */
+    protected SOCBuildingSpeedEstimate[] estimates;
+
+    /**
+     * the number of settlements and cities each player had
+     * when their estimate was made, or -1 if there's no estimate
+     */
+    protected int[] estimateSettlements;
+    protected int[] estimateCities;
+
+    /**
+     * for each player, the ETAs we've worked out this turn,
+     * keyed by the target and the resources after the trade
+     */
+    protected Hashtable[] etaCache;
+
+    /**
+     * used to work out the resources after a trade
+     */
+    protected SOCResourceSet etaResources;
+
     /**
      * constructor
      *
@@ -90,6 +122,65 @@ public class SOCRobotNegotiator
 
         targetPieces = new SOCPossiblePiece[SOCGame.MAXPLAYERS];
         resetTargetPieces();
+
+        estimates = new SOCBuildingSpeedEstimate[SOCGame.MAXPLAYERS];
+        estimateSettlements = new int[SOCGame.MAXPLAYERS];
+        estimateCities = new int[SOCGame.MAXPLAYERS];
+        etaCache = new Hashtable[SOCGame.MAXPLAYERS];
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            etaCache[pn] = new Hashtable();
+        }
+
+        etaResources = new SOCResourceSet();
+        resetEstimates();
+    }
+
+    /**
+     * forget the building speed estimates and ETAs
+     * so that they are worked out again
+     */
+    public void resetEstimates()
+    {
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            estimateSettlements[pn] = -1;
+            estimateCities[pn] = -1;
+            etaCache[pn].clear();
+        }
+    }
+
+    /**
+     * @return a building speed estimate for a player.  the same
+     * estimate is handed back until the player's numbers change
+     * or resetEstimates() is called.
+     *
+     * @param player  the player
+     */
+    protected SOCBuildingSpeedEstimate getEstimate(SOCPlayer player)
+    {
+        int pn = player.getPlayerNumber();
+        int numSettlements = player.getSettlements().size();
+        int numCities = player.getCities().size();
+
+        if ((estimates[pn] == null) || (estimateSettlements[pn] != numSettlements) || (estimateCities[pn] != numCities))
+        {
+            if (estimates[pn] == null)
+            {
+                estimates[pn] = new SOCBuildingSpeedEstimate(player.getNumbers());
+            }
+            else
+            {
+                estimates[pn].recalculateEstimates(player.getNumbers());
+            }
+
+            estimateSettlements[pn] = numSettlements;
+            estimateCities[pn] = numCities;
+            etaCache[pn].clear();
+        }
+
+        return estimates[pn];
     }
 
     /**
@@ -296,7 +387,7 @@ public class SOCRobotNegotiator
         SOCTradeOffer batna = getOfferToBank(targetResources);
         D.ebugPrintln("*** BATNA = " + batna);
 
-        SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = getEstimate(ourPlayerData);
 
         SOCResourceSet giveResourceSet = new SOCResourceSet();
         SOCResourceSet getResourceSet = new SOCResourceSet();
@@ -903,17 +994,44 @@ public class SOCRobotNegotiator
      */
     protected int getETAToTargetResources(SOCPlayer player, SOCResourceSet targetResources, SOCResourceSet giveSet, SOCResourceSet getSet, SOCBuildingSpeedEstimate estimate)
     {
-        SOCResourceSet ourResourcesCopy = player.getResources().copy();
+        etaResources.setAmounts(player.getResources());
         D.ebugPrintln("*** giveSet = " + giveSet);
         D.ebugPrintln("*** getSet = " + getSet);
-        ourResourcesCopy.subtract(giveSet);
-        ourResourcesCopy.add(getSet);
+        etaResources.subtract(giveSet);
+        etaResources.add(getSet);
+
+        ///
+        /// the ETA only depends on the target and the resources
+        /// after the trade, so look for it in the cache if this
+        /// is the player's own estimate
+        ///
+        int pn = player.getPlayerNumber();
+        IntArrayKey key = null;
+
+        if (estimate == estimates[pn])
+        {
+            key = new IntArrayKey(2 * SOCResourceConstants.MAXPLUSONE);
+
+            for (int rsrcType = SOCResourceConstants.CLAY;
+                    rsrcType <= SOCResourceConstants.UNKNOWN; rsrcType++)
+            {
+                key.add(targetResources.getAmount(rsrcType));
+                key.add(etaResources.getAmount(rsrcType));
+            }
+
+            Integer eta = (Integer) etaCache[pn].get(key);
+
+            if (eta != null)
+            {
+                return eta.intValue();
+            }
+        }
 
         int offerBuildingTime = 1000;
 
         try
         {
-            SOCResSetBuildTimePair offerBuildingTimePair = estimate.calculateRollsFast(ourResourcesCopy, targetResources, 1000, player.getPortFlags());
+            SOCResSetBuildTimePair offerBuildingTimePair = estimate.calculateRollsFast(etaResources, targetResources, 1000, player.getPortFlags());
             offerBuildingTime = offerBuildingTimePair.getRolls();
         }
         catch (CutoffExceededException e)
@@ -922,7 +1040,17 @@ public class SOCRobotNegotiator
         }
 
         D.ebugPrintln("*** offerBuildingTime = " + offerBuildingTime);
-        D.ebugPrintln("*** ourResourcesCopy = " + ourResourcesCopy);
+        D.ebugPrintln("*** ourResourcesCopy = " + etaResources);
+
+        if (key != null)
+        {
+            if (etaCache[pn].size() >= ETA_CACHE_SIZE)
+            {
+                etaCache[pn].clear();
+            }
+
+            etaCache[pn].put(key, new Integer(offerBuildingTime));
+        }
 
         return (offerBuildingTime);
     }
@@ -1123,7 +1251,7 @@ public class SOCRobotNegotiator
                     break;
                 }
 
-                SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(receiverPlayerData.getNumbers());
+                SOCBuildingSpeedEstimate estimate = getEstimate(receiverPlayerData);
 
                 SOCTradeOffer receiverBatna = getOfferToBank(targetResources);
                 D.ebugPrintln("*** receiverBatna = " + receiverBatna);
@@ -1624,7 +1752,7 @@ public class SOCRobotNegotiator
         SOCTradeOffer batna = getOfferToBank(targetResources);
         D.ebugPrintln("*** BATNA = " + batna);
 
-        SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = getEstimate(ourPlayerData);
 
         SOCResourceSet giveResourceSet = new SOCResourceSet();
         SOCResourceSet getResourceSet = new SOCResourceSet();
@@ -2263,7 +2391,7 @@ public class SOCRobotNegotiator
             return bankTrade;
         }
 
-        SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = getEstimate(ourPlayerData);
         int[] rollsPerResource = estimate.getRollsPerResource();
         boolean[] ports = ourPlayerData.getPortFlags();
 
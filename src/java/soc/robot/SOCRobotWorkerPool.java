@@ -0,0 +1,353 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import soc.debug.Log;
+
+import java.util.Vector;
+
+
+/**
+ * A pool of worker threads shared by all of the robots
+ * running on this host.  The decision makers use it to
+ * score possible pieces in parallel.
+ *
+ * The number of threads is capped for the whole host, so
+ * a lot of robots thinking at once don't swamp the machine.
+ * The thread that hands the pool a batch of tasks works on
+ * the batch too, so a batch always gets done even when all
+ * of the pool threads are busy with other robots' batches.
+ *
+ * @author agent
+ */
+public class SOCRobotWorkerPool
+{
+    static final Log log = Log.getLog("robot.pool");
+
+    /**
+     * the pool for this host
+     */
+    private static SOCRobotWorkerPool pool = null;
+
+    /**
+     * the most threads that work on a batch at once,
+     * counting the thread that hands in the batch
+     */
+    private static int maxThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * tasks waiting for a thread
+     */
+    private Vector queue;
+
+    /**
+     * the number of pool threads that have been started
+     */
+    private int numWorkers;
+
+    /**
+     * the number of pool threads waiting for a task
+     */
+    private int idleWorkers;
+
+    /**
+     * constructor
+     */
+    protected SOCRobotWorkerPool()
+    {
+        queue = new Vector();
+        numWorkers = 0;
+        idleWorkers = 0;
+    }
+
+    /**
+     * @return the pool for this host
+     */
+    public static synchronized SOCRobotWorkerPool getPool()
+    {
+        if (pool == null)
+        {
+            pool = new SOCRobotWorkerPool();
+        }
+
+        return pool;
+    }
+
+    /**
+     * set the most threads that work on a batch at once.
+     * 1 or less means batches are done by the thread that
+     * hands them in.  Threads that have already been
+     * started are kept.
+     *
+     * @param n  the number of threads
+     */
+    public static synchronized void setMaxThreads(int n)
+    {
+        maxThreads = n;
+    }
+
+    /**
+     * @return the most threads that work on a batch at once
+     */
+    public static synchronized int getMaxThreads()
+    {
+        return maxThreads;
+    }
+
+    /**
+     * run a batch of tasks and wait for them to finish.
+     * The first task is run by the calling thread.  Tasks
+     * that haven't been started by a pool thread by the
+     * time the first task is done are taken back and not
+     * run at all, so the tasks should share their work.
+     *
+     * If any of the tasks throws, the rest of the batch is
+     * still waited for, and then the first exception or error
+     * thrown is thrown again here, so the caller can tell that
+     * the batch's results are incomplete.
+     *
+     * @param tasks  the tasks
+     */
+    public void runAll(Runnable[] tasks)
+    {
+        if (tasks.length == 0)
+        {
+            return;
+        }
+
+        Batch batch = new Batch();
+        BatchTask[] batchTasks = new BatchTask[tasks.length];
+
+        for (int i = 1; i < tasks.length; i++)
+        {
+            batchTasks[i] = new BatchTask(tasks[i], batch);
+            batch.addTask();
+            execute(batchTasks[i]);
+        }
+
+        try
+        {
+            tasks[0].run();
+        }
+        catch (Throwable e)
+        {
+            batch.fail(e);
+        }
+
+        //
+        //  take back the tasks that nobody started
+        //
+        for (int i = 1; i < tasks.length; i++)
+        {
+            if (cancel(batchTasks[i]))
+            {
+                batch.finishTask();
+            }
+        }
+
+        batch.waitForTasks();
+
+        if (batch.failure instanceof Error)
+        {
+            throw (Error) batch.failure;
+        }
+
+        if (batch.failure instanceof RuntimeException)
+        {
+            throw (RuntimeException) batch.failure;
+        }
+
+        if (batch.failure != null)
+        {
+            throw new RuntimeException(batch.failure);
+        }
+    }
+
+    /**
+     * give a task to a pool thread
+     *
+     * @param task  the task
+     */
+    protected synchronized void execute(Runnable task)
+    {
+        queue.addElement(task);
+
+        if ((idleWorkers == 0) && (numWorkers < (getMaxThreads() - 1)))
+        {
+            Worker worker = new Worker(this);
+            worker.setDaemon(true);
+            numWorkers++;
+            worker.start();
+        }
+        else
+        {
+            notify();
+        }
+    }
+
+    /**
+     * take a task off the queue if no thread has started it
+     *
+     * @param task  the task
+     * @return true if the task was taken off the queue
+     */
+    protected synchronized boolean cancel(Runnable task)
+    {
+        return queue.removeElement(task);
+    }
+
+    /**
+     * wait for a task to run
+     *
+     * @return the task
+     */
+    protected synchronized Runnable nextTask()
+    {
+        while (queue.isEmpty())
+        {
+            idleWorkers++;
+
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException e)
+            {
+                ;
+            }
+
+            idleWorkers--;
+        }
+
+        Runnable task = (Runnable) queue.elementAt(0);
+        queue.removeElementAt(0);
+
+        return task;
+    }
+
+    /**
+     * keeps count of the unfinished tasks in a batch,
+     * and the first thing any of them threw
+     */
+    class Batch
+    {
+        int unfinished = 0;
+        Throwable failure = null;
+
+        synchronized void fail(Throwable e)
+        {
+            if (failure == null)
+            {
+                failure = e;
+            }
+        }
+
+        synchronized void addTask()
+        {
+            unfinished++;
+        }
+
+        synchronized void finishTask()
+        {
+            unfinished--;
+
+            if (unfinished == 0)
+            {
+                notifyAll();
+            }
+        }
+
+        synchronized void waitForTasks()
+        {
+            while (unfinished > 0)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    ;
+                }
+            }
+        }
+    }
+
+    /**
+     * a task in a batch
+     */
+    class BatchTask implements Runnable
+    {
+        Runnable task;
+        Batch batch;
+
+        BatchTask(Runnable t, Batch b)
+        {
+            task = t;
+            batch = b;
+        }
+
+        public void run()
+        {
+            try
+            {
+                task.run();
+            }
+            catch (Throwable e)
+            {
+                batch.fail(e);
+            }
+            finally
+            {
+                batch.finishTask();
+            }
+        }
+    }
+
+    /**
+     * a pool thread
+     */
+    class Worker extends Thread
+    {
+        SOCRobotWorkerPool pl;
+
+        Worker(SOCRobotWorkerPool p)
+        {
+            pl = p;
+            setName("robotWorker-" + numWorkers);
+        }
+
+        public void run()
+        {
+            while (true)
+            {
+                Runnable task = pl.nextTask();
+
+                try
+                {
+                    task.run();
+                }
+                catch (Throwable e)
+                {
+                    log.error("Exception in robot worker", e);
+                }
+            }
+        }
+    }
+}
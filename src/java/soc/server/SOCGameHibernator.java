@@ -0,0 +1,132 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+
+/**
+ * Wakes up every so often and has the server hibernate the
+ * games that haven't been used for a while.  The games are
+ * hibernated on the server's command thread.
+ *
+ * @author agent
+ */
+public class SOCGameHibernator extends Thread
+{
+    /**
+     * how long a game can go unused before it hibernates if no
+     * time is given, in seconds
+     */
+    public static final int DEFAULT_IDLE_TIME = 600;
+
+    /**
+     * the server the games are in
+     */
+    protected SOCServer server;
+
+    /**
+     * how long a game can go unused before it hibernates,
+     * in milliseconds
+     */
+    protected long idleTime;
+
+    /**
+     * how often to look for idle games, in milliseconds
+     */
+    protected long checkInterval;
+
+    /**
+     * the number of games hibernated
+     */
+    protected int numHibernated;
+
+    boolean alive;
+
+    /**
+     * Create a game hibernator
+     *
+     * @param srv  the game server
+     * @param it   how long a game can go unused before it
+     *             hibernates, in seconds
+     */
+    public SOCGameHibernator(SOCServer srv, int it)
+    {
+        server = srv;
+        idleTime = it * 1000L;
+        checkInterval = Math.max(1000L, idleTime / 10);
+        numHibernated = 0;
+        alive = true;
+        setName("gameHibernator");
+        setDaemon(true);
+    }
+
+    /**
+     * @return how long a game can go unused before it
+     *         hibernates, in milliseconds
+     */
+    public long getIdleTime()
+    {
+        return idleTime;
+    }
+
+    /**
+     * @return the number of games hibernated
+     */
+    public int getNumHibernated()
+    {
+        return numHibernated;
+    }
+
+    /**
+     * keep looking for idle games
+     */
+    public void run()
+    {
+        HibernateTask task = new HibernateTask();
+
+        while (alive)
+        {
+            try
+            {
+                sleep(checkInterval);
+            }
+            catch (InterruptedException exc) {}
+
+            server.invokeLater(task);
+        }
+    }
+
+    /**
+     * stop looking for idle games
+     */
+    public void stopHibernating()
+    {
+        alive = false;
+    }
+
+    /**
+     * hibernates the idle games on the server's command thread
+     */
+    class HibernateTask implements Runnable
+    {
+        public void run()
+        {
+            numHibernated += server.hibernateIdleGames(System.currentTimeMillis() - idleTime);
+        }
+    }
+}
@@ -0,0 +1,586 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.debug.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.Vector;
+import java.util.zip.CRC32;
+
+
+/**
+ * An append-only journal of everything that changes a game,
+ * kept in a binary file.  Each event is the message that
+ * caused it, who sent it, when, and a sequence number.
+ *
+ * Recording an event only adds it to a buffer in memory.  The
+ * journal writer thread writes the buffers of all the games
+ * to their files every so often, so each write to a file
+ * carries many events.
+ *
+ * The file starts with MAGIC, VERSION, the game name, the
+ * time the journal was started, and the game's random seed.
+ * Each event is its length, the event, and a CRC32 of the
+ * event, so an event that was cut short by a crash can be
+ * told from a good one.  The message in an event is its
+ * length in bytes and its UTF-8 bytes, since a message can
+ * be longer than writeUTF allows.
+ *
+ * @author agent
+ */
+public class SOCGameJournal
+{
+    static final Log log = Log.getLog("server.journal");
+
+    /**
+     * the first four bytes of a journal file
+     */
+    public static final int MAGIC = 0x534f434a;
+
+    /**
+     * the version of the file format
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * the file name extension for journals
+     */
+    public static final String SUFFIX = ".jnl";
+
+    /**
+     * the name of the game
+     */
+    protected String gameName;
+
+    /**
+     * the file
+     */
+    protected File file;
+
+    /**
+     * the sequence number of the next event
+     */
+    protected long nextSeq;
+
+    /**
+     * events that haven't been written to the file
+     */
+    protected ByteArrayOutputStream buffer;
+
+    /**
+     * writes into buffer
+     */
+    protected DataOutputStream bufferOut;
+
+    /**
+     * holds one event while it's being put together
+     */
+    protected ByteArrayOutputStream event;
+
+    /**
+     * writes into event
+     */
+    protected DataOutputStream eventOut;
+
+    /**
+     * works out the check value for each event
+     */
+    protected CRC32 crc;
+
+    /**
+     * the open file, held by whoever is writing it
+     */
+    protected FileOutputStream fileOut;
+
+    /**
+     * true when no more events can be recorded
+     */
+    protected boolean closed;
+
+    /**
+     * Start a journal for a game.  The file is named after the
+     * game and the time, so it never replaces an older one.
+     *
+     * @param dir   the directory for the file
+     * @param gn    the name of the game
+     * @param seed  the game's random seed
+     */
+    public SOCGameJournal(File dir, String gn, long seed) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        gameName = gn;
+        file = new File(dir, fileName(gn) + "-" + now + SUFFIX);
+        nextSeq = 1;
+        buffer = new ByteArrayOutputStream(1024);
+        bufferOut = new DataOutputStream(buffer);
+        event = new ByteArrayOutputStream(256);
+        eventOut = new DataOutputStream(event);
+        crc = new CRC32();
+        closed = false;
+
+        fileOut = new FileOutputStream(file.getPath(), true);
+
+        bufferOut.writeInt(MAGIC);
+        bufferOut.writeShort(VERSION);
+        bufferOut.writeUTF(gameName);
+        bufferOut.writeLong(now);
+        bufferOut.writeLong(seed);
+    }
+
+    /**
+     * Carry on a journal that was read back after the server
+     * stopped.  Anything after the last good event is cut off,
+     * and new events go on the end.
+     *
+     * @param f    the journal file
+     * @param rec  what was read from the file
+     */
+    public SOCGameJournal(File f, Recording rec) throws IOException
+    {
+        gameName = rec.gameName;
+        file = f;
+        nextSeq = rec.lastSeq + 1;
+        buffer = new ByteArrayOutputStream(1024);
+        bufferOut = new DataOutputStream(buffer);
+        event = new ByteArrayOutputStream(256);
+        eventOut = new DataOutputStream(event);
+        crc = new CRC32();
+        closed = false;
+
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+
+        try
+        {
+            raf.setLength(rec.length);
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        fileOut = new FileOutputStream(file.getPath(), true);
+    }
+
+    /**
+     * @return a file name made from a game name, with
+     *         anything but letters, digits, '-' and '_' written
+     *         as '%' and its hex value
+     *
+     * @param gn  the game name
+     */
+    public static String fileName(String gn)
+    {
+        StringBuffer sb = new StringBuffer();
+
+        for (int i = 0; i < gn.length(); i++)
+        {
+            char ch = gn.charAt(i);
+
+            if (((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z')) || ((ch >= '0') && (ch <= '9')) || (ch == '-') || (ch == '_'))
+            {
+                sb.append(ch);
+            }
+            else
+            {
+                sb.append('%');
+                sb.append(Integer.toHexString(ch));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the name of the game
+     */
+    public String getGameName()
+    {
+        return gameName;
+    }
+
+    /**
+     * @return the journal file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return the sequence number the next event will get
+     */
+    public synchronized long getNextSeq()
+    {
+        return nextSeq;
+    }
+
+    /**
+     * record an event
+     *
+     * @param player  who sent the message, or null for the server
+     * @param cmd     the message
+     * @return the event's sequence number, or -1 if the journal is closed
+     */
+    public synchronized long record(String player, String cmd)
+    {
+        if (closed)
+        {
+            return -1;
+        }
+
+        long seq = nextSeq;
+
+        try
+        {
+            event.reset();
+            eventOut.writeLong(seq);
+            eventOut.writeLong(System.currentTimeMillis());
+            eventOut.writeBoolean(player != null);
+
+            if (player != null)
+            {
+                eventOut.writeUTF(player);
+            }
+
+            writeString(eventOut, cmd);
+
+            crc.reset();
+            crc.update(event.toByteArray(), 0, event.size());
+
+            bufferOut.writeInt(event.size());
+            event.writeTo(bufferOut);
+            bufferOut.writeInt((int) crc.getValue());
+        }
+        catch (IOException e)
+        {
+            log.error("Unable to record an event in the journal of " + gameName, e);
+
+            return -1;
+        }
+
+        nextSeq++;
+
+        return seq;
+    }
+
+    /**
+     * @return true if there are events that haven't been written
+     */
+    public synchronized boolean hasUnwritten()
+    {
+        return (buffer.size() > 0);
+    }
+
+    /**
+     * @return the events that haven't been written, and forget them
+     */
+    protected synchronized byte[] takeUnwritten()
+    {
+        byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+
+        return bytes;
+    }
+
+    /**
+     * write the events that haven't been written to the file
+     *
+     * @param sync  true to wait until they're on the disk
+     */
+    public void write(boolean sync) throws IOException
+    {
+        synchronized (file)
+        {
+            if (fileOut == null)
+            {
+                return;
+            }
+
+            byte[] bytes = takeUnwritten();
+
+            if (bytes.length > 0)
+            {
+                fileOut.write(bytes);
+
+                if (sync)
+                {
+                    fileOut.getFD().sync();
+                }
+            }
+        }
+    }
+
+    /**
+     * stop recording, write what's left, and close the file
+     */
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            closed = true;
+        }
+
+        synchronized (file)
+        {
+            if (fileOut != null)
+            {
+                try
+                {
+                    write(false);
+                }
+                finally
+                {
+                    fileOut.close();
+                    fileOut = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the journal has been closed
+     */
+    public synchronized boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Read the events in a journal file.
+     *
+     * @param f  the file
+     * @return the events, as SOCGameJournal.Event objects
+     */
+    public static Vector readEvents(File f) throws IOException
+    {
+        return read(f).events;
+    }
+
+    /**
+     * Read a journal file.  Reading stops at the first
+     * event that was cut short or doesn't match its CRC.
+     *
+     * @param f  the file
+     * @return the game name, time and seed, and the events
+     */
+    public static Recording read(File f) throws IOException
+    {
+        return read(f, 0);
+    }
+
+    /**
+     * Read a journal file, keeping only the events from a
+     * sequence number on.  The events before it are still
+     * checked, but aren't decoded.
+     *
+     * @param f        the file
+     * @param fromSeq  the sequence number of the first event to keep
+     * @return the game name, time and seed, and the events
+     */
+    public static Recording read(File f, long fromSeq) throws IOException
+    {
+        Recording rec = new Recording();
+        Vector events = rec.events;
+        byte[] data = new byte[(int) f.length()];
+        DataInputStream fileIn = new DataInputStream(new FileInputStream(f));
+
+        try
+        {
+            fileIn.readFully(data);
+        }
+        finally
+        {
+            fileIn.close();
+        }
+
+        ByteArrayInputStream dataIn = new ByteArrayInputStream(data);
+        DataInputStream in = new DataInputStream(dataIn);
+
+        try
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(f + " is not a game journal");
+            }
+
+            if (in.readShort() != VERSION)
+            {
+                throw new IOException(f + " is from a different version");
+            }
+
+            rec.gameName = in.readUTF();
+            rec.time = in.readLong();
+            rec.seed = in.readLong();
+
+            CRC32 check = new CRC32();
+            int pos = data.length - dataIn.available();
+            rec.length = pos;
+
+            while ((pos + 4) <= data.length)
+            {
+                int length = getInt(data, pos);
+
+                if ((length < 8) || (length > (data.length - pos - 8)))
+                {
+                    break;
+                }
+
+                check.reset();
+                check.update(data, pos + 4, length);
+
+                if (getInt(data, pos + 4 + length) != (int) check.getValue())
+                {
+                    break;
+                }
+
+                long seq = ((long) getInt(data, pos + 4) << 32) | (getInt(data, pos + 8) & 0xffffffffL);
+
+                if (seq >= fromSeq)
+                {
+                    DataInputStream eventIn = new DataInputStream(new ByteArrayInputStream(data, pos + 12, length - 8));
+                    Event ev = new Event();
+                    ev.seq = seq;
+                    ev.time = eventIn.readLong();
+                    ev.player = eventIn.readBoolean() ? eventIn.readUTF() : null;
+                    ev.cmd = readString(eventIn);
+                    events.addElement(ev);
+                }
+
+                pos += (length + 8);
+                rec.lastSeq = seq;
+                rec.length = pos;
+            }
+        }
+        catch (EOFException e)
+        {
+            // the end of the journal, or an event cut short
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return rec;
+    }
+
+    /**
+     * write a string as its length in bytes and its UTF-8 bytes
+     *
+     * @param out  where to write it
+     * @param s    the string
+     */
+    protected static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return a string written by writeString
+     *
+     * @param in  where to read it from
+     */
+    protected static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+
+        if ((length < 0) || (length > in.available()))
+        {
+            throw new EOFException();
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * @return the int written at a place in a byte array
+     *
+     * @param data  the bytes
+     * @param pos   where the int starts
+     */
+    private static int getInt(byte[] data, int pos)
+    {
+        return ((data[pos] & 0xff) << 24) | ((data[pos + 1] & 0xff) << 16) | ((data[pos + 2] & 0xff) << 8) | (data[pos + 3] & 0xff);
+    }
+
+    /**
+     * what was read back from a journal
+     */
+    public static class Recording
+    {
+        /** the name of the game */
+        public String gameName;
+
+        /** when the journal was started */
+        public long time;
+
+        /** the game's random seed */
+        public long seed;
+
+        /** the events, as SOCGameJournal.Event objects */
+        public Vector events = new Vector();
+
+        /** the sequence number of the last good event, or 0 if there are none */
+        public long lastSeq;
+
+        /** the length of the file up to the end of the last good event */
+        public long length;
+    }
+
+    /**
+     * an event read back from a journal
+     */
+    public static class Event
+    {
+        /** the sequence number */
+        public long seq;
+
+        /** when it was recorded */
+        public long time;
+
+        /** who sent the message, or null for the server */
+        public String player;
+
+        /** the message */
+        public String cmd;
+
+        /**
+         * @return a human readable form of the event
+         */
+        public String toString()
+        {
+            return seq + " " + time + " " + player + " " + cmd;
+        }
+    }
+}
@@ -28,6 +28,9 @@ import soc.server.genericServer.Connection;
 
 import soc.util.MutexFlag;
 
+import java.io.File;
+import java.io.IOException;
+
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
@@ -36,6 +39,11 @@ import java.util.Vector;
 /**
  * A class for tracking the games
  *
+ * A game that hasn't been used for a while can be hibernated:
+ * its data is dropped from memory and only its snapshot file
+ * is kept.  The game is still in the list, with its members,
+ * and is read back in the next time its data is asked for.
+ *
  * @author Robert S. Thomas
  */
 public class SOCGameList
@@ -45,6 +53,29 @@ public class SOCGameList
     protected Hashtable gameData;
     protected boolean inUse;
 
+    /**
+     * the hibernating games, as Hibernating objects, by game name
+     */
+    protected Hashtable hibernating;
+
+    /**
+     * when the games in memory were last used, each as a
+     * long[1], by game name
+     */
+    protected Hashtable lastUsed;
+
+    /**
+     * the names of the games that have been woken up
+     * since takeWoken was last called
+     */
+    protected Vector woken;
+
+    /**
+     * the names of the games that couldn't be woken up
+     * since takeWakeFailures was last called
+     */
+    protected Vector wakeFailures;
+
     /**
      * constructor
      */
@@ -54,6 +85,10 @@ public class SOCGameList
         gameMembers = new Hashtable();
         gameData = new Hashtable();
         inUse = false;
+        hibernating = new Hashtable();
+        lastUsed = new Hashtable();
+        woken = new Vector();
+        wakeFailures = new Vector();
     }
 
     /**
@@ -208,12 +243,186 @@ public class SOCGameList
     }
 
     /**
+     * get the data for a game, waking it up if it's hibernating,
+     * and note that the game has been used
+     *
      * @param   gaName  game name
      * @return the game data
      */
     public SOCGame getGameData(String gaName)
     {
-        return (SOCGame) gameData.get(gaName);
+        SOCGame game = (SOCGame) gameData.get(gaName);
+
+        if ((game == null) && !hibernating.isEmpty())
+        {
+            game = wakeGame(gaName);
+        }
+
+        long[] used = (long[]) lastUsed.get(gaName);
+
+        if (used != null)
+        {
+            used[0] = System.currentTimeMillis();
+        }
+
+        return game;
+    }
+
+    /**
+     * @return true if a game is hibernating
+     *
+     * @param gaName  the name of the game
+     */
+    public boolean isHibernating(String gaName)
+    {
+        return hibernating.containsKey(gaName);
+    }
+
+    /**
+     * @return when a game expires, without waking it up
+     *         or counting it as used
+     *
+     * @param gaName  the name of the game
+     */
+    public synchronized long getExpiration(String gaName)
+    {
+        Hibernating hib = (Hibernating) hibernating.get(gaName);
+
+        if (hib != null)
+        {
+            return hib.expiration;
+        }
+
+        SOCGame game = (SOCGame) gameData.get(gaName);
+
+        return (game == null) ? Long.MAX_VALUE : game.getExpiration();
+    }
+
+    /**
+     * @return the names of the games in memory that haven't
+     *         been used since a given time
+     *
+     * @param since  the time
+     */
+    public synchronized Vector getIdleGames(long since)
+    {
+        Vector idle = new Vector();
+        Enumeration gaEnum = lastUsed.keys();
+
+        while (gaEnum.hasMoreElements())
+        {
+            String gaName = (String) gaEnum.nextElement();
+
+            if (((long[]) lastUsed.get(gaName))[0] < since)
+            {
+                idle.addElement(gaName);
+            }
+        }
+
+        return idle;
+    }
+
+    /**
+     * Drop a game's data from memory.  The game must already
+     * have been written to its snapshot file.
+     *
+     * @param gaName  the name of the game
+     * @param f       the game's snapshot file
+     */
+    public synchronized void hibernate(String gaName, File f)
+    {
+        SOCGame game = (SOCGame) gameData.remove(gaName);
+
+        if (game != null)
+        {
+            lastUsed.remove(gaName);
+            hibernating.put(gaName, new Hibernating(f, game.getExpiration()));
+            game.destroyGame();
+        }
+    }
+
+    /**
+     * read a hibernating game back into memory.  if it can't
+     * be read, it stays hibernating so it can be tried again,
+     * and the first failure is noted for takeWakeFailures.
+     *
+     * @param gaName  the name of the game
+     * @return the game, or null if it isn't hibernating
+     *         or couldn't be read
+     */
+    protected synchronized SOCGame wakeGame(String gaName)
+    {
+        SOCGame game = (SOCGame) gameData.get(gaName);
+
+        if (game != null)
+        {
+            return game;
+        }
+
+        Hibernating hib = (Hibernating) hibernating.get(gaName);
+
+        if (hib == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            game = SOCSnapshotWriter.read(hib.file).game;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to wake " + gaName + ": " + e);
+
+            if (!hib.failed)
+            {
+                hib.failed = true;
+                wakeFailures.addElement(gaName);
+            }
+
+            return null;
+        }
+
+        hibernating.remove(gaName);
+        gameData.put(gaName, game);
+        lastUsed.put(gaName, new long[1]);
+        woken.addElement(gaName);
+
+        return game;
+    }
+
+    /**
+     * @return the names of the games that have been woken up
+     *         since the last call, and forget them
+     */
+    public synchronized Vector takeWoken()
+    {
+        if (woken.isEmpty())
+        {
+            return woken;
+        }
+
+        Vector result = woken;
+        woken = new Vector();
+
+        return result;
+    }
+
+    /**
+     * @return the names of the games that couldn't be woken
+     *         up since the last call, and forget them
+     */
+    public synchronized Vector takeWakeFailures()
+    {
+        if (wakeFailures.isEmpty())
+        {
+            return wakeFailures;
+        }
+
+        Vector result = wakeFailures;
+        wakeFailures = new Vector();
+
+        return result;
     }
 
     /**
@@ -296,6 +505,24 @@ public class SOCGameList
             // set the expiration to 90 min. from now
             game.setExpiration(game.getStartTime().getTime() + 5400000);
             gameData.put(gaName, game);
+            lastUsed.put(gaName, new long[] { System.currentTimeMillis() });
+        }
+    }
+
+    /**
+     * put back a game that was saved before the server was
+     * restarted.  nobody is a member of it yet.
+     *
+     * @param game  the game
+     */
+    public synchronized void restoreGame(SOCGame game)
+    {
+        if (!isGame(game.getName()))
+        {
+            gameMutexes.put(game.getName(), new MutexFlag());
+            gameMembers.put(game.getName(), new Vector());
+            gameData.put(game.getName(), game);
+            lastUsed.put(game.getName(), new long[] { System.currentTimeMillis() });
         }
     }
 
@@ -326,6 +553,8 @@ public class SOCGameList
         gameMutexes.remove(gaName);
         gameMembers.remove(gaName);
         gameData.remove(gaName);
+        hibernating.remove(gaName);
+        lastUsed.remove(gaName);
 
         if (mutex != null)
         {
@@ -335,4 +564,21 @@ public class SOCGameList
             }
         }
     }
+
+    /**
+     * where a hibernating game was written, when it expires,
+     * and whether reading it back has failed
+     */
+    protected static class Hibernating
+    {
+        File file;
+        long expiration;
+        boolean failed;
+
+        Hibernating(File f, long e)
+        {
+            file = f;
+            expiration = e;
+        }
+    }
 }
@@ -0,0 +1,609 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceConstants;
+
+import soc.message.SOCAcceptOffer;
+import soc.message.SOCBankTrade;
+import soc.message.SOCBuildRequest;
+import soc.message.SOCCancelBuildRequest;
+import soc.message.SOCChangeFace;
+import soc.message.SOCChoosePlayer;
+import soc.message.SOCDiscard;
+import soc.message.SOCDiscoveryPick;
+import soc.message.SOCGameTextMsg;
+import soc.message.SOCLeaveGame;
+import soc.message.SOCMakeOffer;
+import soc.message.SOCMessage;
+import soc.message.SOCMonopolyPick;
+import soc.message.SOCMoveRobber;
+import soc.message.SOCPlayDevCardRequest;
+import soc.message.SOCPutPiece;
+import soc.message.SOCSetSeatLock;
+import soc.message.SOCSitDown;
+import soc.message.SOCTurn;
+
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * Replays a game from its journal straight into a SOCGame,
+ * without a server or any connections.  The game is seeded
+ * with the seed from the journal, so the board, the dice, the
+ * development cards and robbing come out the way they did when
+ * the game was played.
+ *
+ * The messages players sent are applied with the same
+ * {@link SOCGameRules} the server's handlers use, checks and all.  Of the events the
+ * server recorded, sitting down, leaving and starting the game
+ * are applied, and turns are used to check that the replay
+ * hasn't gone off course.
+ *
+ * Each message is parsed the first time it is replayed and
+ * kept, so the game can be replayed to any point as many
+ * times as needed.  Replaying to a later point carries on
+ * from where the last replay stopped.
+ *
+ * @author agent
+ */
+public class SOCGameReplayer
+{
+    /**
+     * the name of the game
+     */
+    protected String gameName;
+
+    /**
+     * the game's random seed
+     */
+    protected long seed;
+
+    /**
+     * the number of events
+     */
+    protected int numEvents;
+
+    /**
+     * the sequence number of each event
+     */
+    protected long[] seqs;
+
+    /**
+     * who sent each message, or null for the server
+     */
+    protected String[] players;
+
+    /**
+     * the message for each event, as it was recorded
+     */
+    protected String[] cmds;
+
+    /**
+     * the message for each event once it has been parsed
+     */
+    protected SOCMessage[] messages;
+
+    /**
+     * the game being replayed
+     */
+    protected SOCGame game;
+
+    /**
+     * the index of the next event to apply
+     */
+    protected int next;
+
+    /**
+     * the number of turns that didn't match the journal
+     */
+    protected int numMismatches;
+
+    /**
+     * the sequence number of the first turn that didn't match,
+     * or -1 if they all have
+     */
+    protected long firstMismatch;
+
+    /**
+     * make a replayer for a journal that has been read
+     *
+     * @param rec  what was in the journal
+     */
+    public SOCGameReplayer(SOCGameJournal.Recording rec)
+    {
+        gameName = rec.gameName;
+        seed = rec.seed;
+        numEvents = rec.events.size();
+        seqs = new long[numEvents];
+        players = new String[numEvents];
+        cmds = new String[numEvents];
+        messages = new SOCMessage[numEvents];
+
+        for (int i = 0; i < numEvents; i++)
+        {
+            SOCGameJournal.Event ev = (SOCGameJournal.Event) rec.events.elementAt(i);
+            seqs[i] = ev.seq;
+            players[i] = ev.player;
+            cmds[i] = ev.cmd;
+        }
+
+        reset();
+    }
+
+    /**
+     * make a replayer for a journal file
+     *
+     * @param f  the journal file
+     */
+    public SOCGameReplayer(File f) throws IOException
+    {
+        this(SOCGameJournal.read(f));
+    }
+
+    /**
+     * go back to the start of the game
+     */
+    public void reset()
+    {
+        game = new SOCGame(gameName);
+        game.setSeed(seed);
+        next = 0;
+        numMismatches = 0;
+        firstMismatch = -1;
+    }
+
+    /**
+     * carry on replaying from a snapshot of the game.  the
+     * events before seq are already in the snapshot.
+     *
+     * @param ga   the game from the snapshot
+     * @param seq  the sequence number of the first event
+     *             that isn't in the snapshot
+     */
+    public void resume(SOCGame ga, long seq)
+    {
+        game = ga;
+        next = 0;
+        numMismatches = 0;
+        firstMismatch = -1;
+
+        while ((next < numEvents) && (seqs[next] < seq))
+        {
+            next++;
+        }
+    }
+
+    /**
+     * @return the game as it is after the events replayed so far
+     */
+    public SOCGame getGame()
+    {
+        return game;
+    }
+
+    /**
+     * @return the number of events in the journal
+     */
+    public int getNumEvents()
+    {
+        return numEvents;
+    }
+
+    /**
+     * @return the sequence number of the last event replayed,
+     *         or 0 if none have been
+     */
+    public long getSeq()
+    {
+        return (next == 0) ? 0 : seqs[next - 1];
+    }
+
+    /**
+     * @return the number of turns that didn't match the journal
+     */
+    public int getNumMismatches()
+    {
+        return numMismatches;
+    }
+
+    /**
+     * @return the sequence number of the first turn that didn't
+     *         match the journal, or -1 if they all have
+     */
+    public long getFirstMismatch()
+    {
+        return firstMismatch;
+    }
+
+    /**
+     * replay the next event
+     *
+     * @return false if there are no more events
+     */
+    public boolean step()
+    {
+        if (next >= numEvents)
+        {
+            return false;
+        }
+
+        if ((messages[next] == null) && (cmds[next] != null))
+        {
+            messages[next] = SOCMessage.toMsg(cmds[next]);
+
+            if (messages[next] == null)
+            {
+                // it can't be parsed, so don't try again
+                cmds[next] = null;
+            }
+        }
+
+        if (messages[next] != null)
+        {
+            apply(seqs[next], players[next], messages[next]);
+        }
+
+        next++;
+
+        return true;
+    }
+
+    /**
+     * replay the game up to and including an event
+     *
+     * @param seq  the sequence number of the event
+     * @return the game
+     */
+    public SOCGame replayTo(long seq)
+    {
+        if (getSeq() > seq)
+        {
+            reset();
+        }
+
+        while ((next < numEvents) && (seqs[next] <= seq))
+        {
+            step();
+        }
+
+        return game;
+    }
+
+    /**
+     * replay the whole game
+     *
+     * @return the game
+     */
+    public SOCGame replayAll()
+    {
+        return replayTo(Long.MAX_VALUE);
+    }
+
+    /**
+     * apply one event to the game
+     *
+     * @param seq     the event's sequence number
+     * @param player  who sent the message, or null for the server
+     * @param mes     the message
+     */
+    protected void apply(long seq, String player, SOCMessage mes)
+    {
+        if (player == null)
+        {
+            applyServerEvent(seq, mes);
+
+            return;
+        }
+
+        SOCPlayer pl = game.getPlayer(player);
+
+        switch (mes.getType())
+        {
+        case SOCMessage.GAMETEXTMSG:
+            handleGAMETEXTMSG(player, (SOCGameTextMsg) mes);
+
+            break;
+
+        case SOCMessage.PUTPIECE:
+            SOCGameRules.putPiece(game, pl, ((SOCPutPiece) mes).getPieceType(), ((SOCPutPiece) mes).getCoordinates());
+
+            break;
+
+        case SOCMessage.MOVEROBBER:
+
+            if ((pl != null) && game.canMoveRobber(pl.getPlayerNumber(), ((SOCMoveRobber) mes).getCoordinates()))
+            {
+                game.moveRobber(pl.getPlayerNumber(), ((SOCMoveRobber) mes).getCoordinates());
+            }
+
+            break;
+
+        case SOCMessage.ROLLDICE:
+
+            if ((pl != null) && game.canRollDice(pl.getPlayerNumber()))
+            {
+                game.rollDice();
+            }
+
+            break;
+
+        case SOCMessage.DISCARD:
+
+            if ((pl != null) && game.canDiscard(pl.getPlayerNumber(), ((SOCDiscard) mes).getResources()))
+            {
+                game.discard(pl.getPlayerNumber(), ((SOCDiscard) mes).getResources());
+            }
+
+            break;
+
+        case SOCMessage.ENDTURN:
+
+            SOCGameRules.endTurn(game, pl);
+
+            break;
+
+        case SOCMessage.CHOOSEPLAYER:
+
+            if (SOCGameRules.isTurn(game, pl) && game.canChoosePlayer(((SOCChoosePlayer) mes).getChoice()))
+            {
+                game.stealFromPlayer(((SOCChoosePlayer) mes).getChoice());
+            }
+
+            break;
+
+        case SOCMessage.MAKEOFFER:
+
+            if (pl != null)
+            {
+                SOCGameRules.makeOffer(game, pl, ((SOCMakeOffer) mes).getOffer());
+            }
+
+            break;
+
+        case SOCMessage.CLEAROFFER:
+
+            if (pl != null)
+            {
+                pl.setCurrentOffer(null);
+            }
+
+            break;
+
+        case SOCMessage.ACCEPTOFFER:
+
+            if (pl != null)
+            {
+                SOCGameRules.acceptOffer(game, pl, ((SOCAcceptOffer) mes).getOfferingNumber());
+            }
+
+            break;
+
+        case SOCMessage.BANKTRADE:
+
+            SOCGameRules.bankTrade(game, pl, ((SOCBankTrade) mes).getGiveSet(), ((SOCBankTrade) mes).getGetSet());
+
+            break;
+
+        case SOCMessage.BUILDREQUEST:
+            SOCGameRules.buildRequest(game, pl, ((SOCBuildRequest) mes).getPieceType());
+
+            break;
+
+        case SOCMessage.CANCELBUILDREQUEST:
+            SOCGameRules.cancelBuildRequest(game, pl, ((SOCCancelBuildRequest) mes).getPieceType());
+
+            break;
+
+        case SOCMessage.BUYCARDREQUEST:
+
+            if (SOCGameRules.canBuyDevCard(game, pl) == SOCGameRules.OK)
+            {
+                game.buyDevCard();
+            }
+
+            break;
+
+        case SOCMessage.PLAYDEVCARDREQUEST:
+            SOCGameRules.playDevCard(game, pl, ((SOCPlayDevCardRequest) mes).getDevCard());
+
+            break;
+
+        case SOCMessage.DISCOVERYPICK:
+
+            SOCGameRules.discoveryPick(game, pl, ((SOCDiscoveryPick) mes).getResources());
+
+            break;
+
+        case SOCMessage.MONOPOLYPICK:
+
+            SOCGameRules.monopolyPick(game, pl, ((SOCMonopolyPick) mes).getResource());
+
+            break;
+
+        case SOCMessage.CHANGEFACE:
+
+            if (pl != null)
+            {
+                pl.setFaceId(((SOCChangeFace) mes).getFaceId());
+            }
+
+            break;
+
+        case SOCMessage.SETSEATLOCK:
+
+            if (pl != null)
+            {
+                if (((SOCSetSeatLock) mes).getLockState())
+                {
+                    game.lockSeat(((SOCSetSeatLock) mes).getPlayerNumber());
+                }
+                else
+                {
+                    game.unlockSeat(((SOCSetSeatLock) mes).getPlayerNumber());
+                }
+            }
+
+            break;
+        }
+    }
+
+    /**
+     * apply an event the server recorded
+     *
+     * @param seq  the event's sequence number
+     * @param mes  the message
+     */
+    protected void applyServerEvent(long seq, SOCMessage mes)
+    {
+        switch (mes.getType())
+        {
+        case SOCMessage.SITDOWN:
+
+            SOCSitDown sit = (SOCSitDown) mes;
+            game.addPlayer(sit.getNickname(), sit.getPlayerNumber());
+            game.getPlayer(sit.getPlayerNumber()).setRobotFlag(sit.isRobot());
+
+            break;
+
+        case SOCMessage.LEAVEGAME:
+
+            String nickname = ((SOCLeaveGame) mes).getNickname();
+
+            if (game.getPlayer(nickname) != null)
+            {
+                game.removePlayer(nickname);
+            }
+
+            break;
+
+        case SOCMessage.STARTGAME:
+            game.startGame();
+
+            break;
+
+        case SOCMessage.TURN:
+
+            if (game.getCurrentPlayerNumber() != ((SOCTurn) mes).getPlayerNumber())
+            {
+                if (numMismatches == 0)
+                {
+                    firstMismatch = seq;
+                }
+
+                numMismatches++;
+            }
+
+            break;
+        }
+    }
+
+    /**
+     * replay the debugging commands
+     *
+     * @param player  who sent the message
+     * @param mes     the message
+     */
+    protected void handleGAMETEXTMSG(String player, SOCGameTextMsg mes)
+    {
+        if (!player.equals("debug"))
+        {
+            return;
+        }
+
+        try
+        {
+            if (mes.getText().startsWith("rsrcs:"))
+            {
+                SOCGameRules.giveResources(game, mes.getText(), new int[SOCResourceConstants.WOOD + 1]);
+            }
+            else if (mes.getText().startsWith("dev:"))
+            {
+                SOCGameRules.giveDevCard(game, mes.getText(), new int[1]);
+            }
+        }
+        catch (Exception e)
+        {
+            // the server couldn't do anything with it either
+        }
+    }
+
+    /**
+     * Replay a journal from the command line.  With a sequence
+     * number, the game is replayed up to that event.  With
+     * -bench, the whole game is replayed over and over and the
+     * number of games replayed a second is printed.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("usage: java soc.server.SOCGameReplayer journal_file [seq | -bench count]");
+
+            return;
+        }
+
+        SOCGameReplayer replayer = new SOCGameReplayer(new File(args[0]));
+
+        if ((args.length > 2) && args[1].equals("-bench"))
+        {
+            int count = Integer.parseInt(args[2]);
+            long start = System.currentTimeMillis();
+
+            for (int i = 0; i < count; i++)
+            {
+                replayer.reset();
+                replayer.replayAll();
+            }
+
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            System.out.println(count + " replays of " + replayer.getNumEvents() + " events in " + elapsed + " ms, " + ((count * 1000L) / elapsed) + " games/sec");
+
+            return;
+        }
+
+        SOCGame ga;
+
+        if (args.length > 1)
+        {
+            ga = replayer.replayTo(Long.parseLong(args[1]));
+        }
+        else
+        {
+            ga = replayer.replayAll();
+        }
+
+        System.out.println("game " + ga.getName() + " seed " + ga.getSeed() + " after event " + replayer.getSeq() + " of " + replayer.getNumEvents());
+        System.out.println("state " + ga.getGameState() + " current player " + ga.getCurrentPlayerNumber() + " dice " + ga.getCurrentDice() + " dev cards left " + ga.getNumDevCards());
+
+        for (int i = 0; i < SOCGame.MAXPLAYERS; i++)
+        {
+            SOCPlayer pl = ga.getPlayer(i);
+            System.out.println(i + " " + pl.getName() + " vp " + pl.getTotalVP() + " " + pl.getResources());
+        }
+
+        if (replayer.getNumMismatches() > 0)
+        {
+            System.out.println(replayer.getNumMismatches() + " turns didn't match, the first at event " + replayer.getFirstMismatch());
+        }
+    }
+}
@@ -0,0 +1,599 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.game.SOCCity;
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCDevCardSet;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.game.SOCTradeOffer;
+
+import java.util.StringTokenizer;
+
+
+/**
+ * The checks and game changes for the requests players send.
+ * The server calls these to handle a request before telling
+ * everyone what happened, and the game replayer calls them to
+ * apply the same request from a journal, so a replayed game
+ * changes the same way the game did on the server.
+ *
+ * Each method checks that the player can do it, changes the
+ * game if they can, and returns OK or why they couldn't.
+ * The caller must hold the game's monitor.
+ *
+ * @author agent
+ */
+public class SOCGameRules
+{
+    /**
+     * the request was carried out
+     */
+    public static final int OK = 0;
+
+    /**
+     * it isn't the player's turn
+     */
+    public static final int NOT_YOUR_TURN = 1;
+
+    /**
+     * the game isn't in a state where it can be done
+     */
+    public static final int NOT_NOW = 2;
+
+    /**
+     * the player can't do it, for instance because of where
+     * it is or what they have
+     */
+    public static final int NOT_ALLOWED = 3;
+
+    /**
+     * @return true if it is the player's turn
+     *
+     * @param ga  the game
+     * @param pl  the player, or null
+     */
+    public static boolean isTurn(SOCGame ga, SOCPlayer pl)
+    {
+        return ((pl != null) && (ga.getCurrentPlayerNumber() == pl.getPlayerNumber()));
+    }
+
+    /**
+     * put a piece on the board
+     *
+     * @param ga         the game
+     * @param pl         the player
+     * @param pieceType  the type of piece
+     * @param coord      where to put it
+     * @return OK, NOT_YOUR_TURN, NOT_NOW, or NOT_ALLOWED if
+     *         the piece can't go there
+     */
+    public static int putPiece(SOCGame ga, SOCPlayer pl, int pieceType, int coord)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        int state = ga.getGameState();
+
+        switch (pieceType)
+        {
+        case SOCPlayingPiece.ROAD:
+
+            if (!((state == SOCGame.START1B) || (state == SOCGame.START2B) || (state == SOCGame.PLACING_ROAD) || (state == SOCGame.PLACING_FREE_ROAD1) || (state == SOCGame.PLACING_FREE_ROAD2)))
+            {
+                return NOT_NOW;
+            }
+
+            if (!pl.isPotentialRoad(coord))
+            {
+                return NOT_ALLOWED;
+            }
+
+            ga.putPiece(new SOCRoad(pl, coord));
+
+            return OK;
+
+        case SOCPlayingPiece.SETTLEMENT:
+
+            if (!((state == SOCGame.START1A) || (state == SOCGame.START2A) || (state == SOCGame.PLACING_SETTLEMENT)))
+            {
+                return NOT_NOW;
+            }
+
+            if (!pl.isPotentialSettlement(coord))
+            {
+                return NOT_ALLOWED;
+            }
+
+            ga.putPiece(new SOCSettlement(pl, coord));
+
+            return OK;
+
+        case SOCPlayingPiece.CITY:
+
+            if (state != SOCGame.PLACING_CITY)
+            {
+                return NOT_NOW;
+            }
+
+            if (!pl.isPotentialCity(coord))
+            {
+                return NOT_ALLOWED;
+            }
+
+            ga.putPiece(new SOCCity(pl, coord));
+
+            return OK;
+        }
+
+        return NOT_ALLOWED;
+    }
+
+    /**
+     * buy a piece to build
+     *
+     * @param ga         the game
+     * @param pl         the player
+     * @param pieceType  the type of piece
+     * @return OK, NOT_YOUR_TURN, NOT_NOW, or NOT_ALLOWED if
+     *         the player can't build it
+     */
+    public static int buildRequest(SOCGame ga, SOCPlayer pl, int pieceType)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if (ga.getGameState() != SOCGame.PLAY1)
+        {
+            return NOT_NOW;
+        }
+
+        int pn = pl.getPlayerNumber();
+
+        switch (pieceType)
+        {
+        case SOCPlayingPiece.ROAD:
+
+            if (ga.couldBuildRoad(pn))
+            {
+                ga.buyRoad(pn);
+
+                return OK;
+            }
+
+            break;
+
+        case SOCPlayingPiece.SETTLEMENT:
+
+            if (ga.couldBuildSettlement(pn))
+            {
+                ga.buySettlement(pn);
+
+                return OK;
+            }
+
+            break;
+
+        case SOCPlayingPiece.CITY:
+
+            if (ga.couldBuildCity(pn))
+            {
+                ga.buyCity(pn);
+
+                return OK;
+            }
+
+            break;
+        }
+
+        return NOT_ALLOWED;
+    }
+
+    /**
+     * give back a piece that was bought but not placed
+     *
+     * @param ga         the game
+     * @param pl         the player
+     * @param pieceType  the type of piece
+     * @return OK, NOT_YOUR_TURN, or NOT_NOW if the player
+     *         isn't placing that type of piece
+     */
+    public static int cancelBuildRequest(SOCGame ga, SOCPlayer pl, int pieceType)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        int pn = pl.getPlayerNumber();
+
+        switch (pieceType)
+        {
+        case SOCPlayingPiece.ROAD:
+
+            if (ga.getGameState() == SOCGame.PLACING_ROAD)
+            {
+                ga.cancelBuildRoad(pn);
+
+                return OK;
+            }
+
+            break;
+
+        case SOCPlayingPiece.SETTLEMENT:
+
+            if (ga.getGameState() == SOCGame.PLACING_SETTLEMENT)
+            {
+                ga.cancelBuildSettlement(pn);
+
+                return OK;
+            }
+
+            break;
+
+        case SOCPlayingPiece.CITY:
+
+            if (ga.getGameState() == SOCGame.PLACING_CITY)
+            {
+                ga.cancelBuildCity(pn);
+
+                return OK;
+            }
+
+            break;
+        }
+
+        return NOT_NOW;
+    }
+
+    /**
+     * check that the player can buy a development card.  the
+     * card is bought with {@link SOCGame#buyDevCard()}, which
+     * says which card was drawn.
+     *
+     * @param ga  the game
+     * @param pl  the player
+     * @return OK, NOT_YOUR_TURN, or NOT_NOW
+     */
+    public static int canBuyDevCard(SOCGame ga, SOCPlayer pl)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if ((ga.getGameState() != SOCGame.PLAY1) || !ga.couldBuyDevCard(pl.getPlayerNumber()))
+        {
+            return NOT_NOW;
+        }
+
+        return OK;
+    }
+
+    /**
+     * play a development card
+     *
+     * @param ga    the game
+     * @param pl    the player
+     * @param card  the type of card
+     * @return OK, NOT_YOUR_TURN, or NOT_NOW
+     */
+    public static int playDevCard(SOCGame ga, SOCPlayer pl, int card)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        int pn = pl.getPlayerNumber();
+
+        switch (card)
+        {
+        case SOCDevCardConstants.KNIGHT:
+
+            if (ga.canPlayKnight(pn))
+            {
+                ga.playKnight();
+
+                return OK;
+            }
+
+            break;
+
+        case SOCDevCardConstants.ROADS:
+
+            if (ga.canPlayRoadBuilding(pn))
+            {
+                ga.playRoadBuilding();
+
+                return OK;
+            }
+
+            break;
+
+        case SOCDevCardConstants.DISC:
+
+            if (ga.canPlayDiscovery(pn))
+            {
+                ga.playDiscovery();
+
+                return OK;
+            }
+
+            break;
+
+        case SOCDevCardConstants.MONO:
+
+            if (ga.canPlayMonopoly(pn))
+            {
+                ga.playMonopoly();
+
+                return OK;
+            }
+
+            break;
+        }
+
+        return NOT_NOW;
+    }
+
+    /**
+     * end the player's turn
+     *
+     * @param ga  the game
+     * @param pl  the player
+     * @return OK, NOT_YOUR_TURN, or NOT_NOW
+     */
+    public static int endTurn(SOCGame ga, SOCPlayer pl)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if (!ga.canEndTurn(pl.getPlayerNumber()))
+        {
+            return NOT_NOW;
+        }
+
+        ga.endTurn();
+
+        return OK;
+    }
+
+    /**
+     * trade with the bank
+     *
+     * @param ga    the game
+     * @param pl    the player
+     * @param give  what the player gives
+     * @param get   what the player gets
+     * @return OK, NOT_YOUR_TURN, or NOT_ALLOWED
+     */
+    public static int bankTrade(SOCGame ga, SOCPlayer pl, SOCResourceSet give, SOCResourceSet get)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if (!ga.canMakeBankTrade(give, get))
+        {
+            return NOT_ALLOWED;
+        }
+
+        ga.makeBankTrade(give, get);
+
+        return OK;
+    }
+
+    /**
+     * take the resources picked for a discovery card
+     *
+     * @param ga    the game
+     * @param pl    the player
+     * @param pick  the resources
+     * @return OK, NOT_YOUR_TURN, or NOT_ALLOWED
+     */
+    public static int discoveryPick(SOCGame ga, SOCPlayer pl, SOCResourceSet pick)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if (!ga.canDoDiscoveryAction(pick))
+        {
+            return NOT_ALLOWED;
+        }
+
+        ga.doDiscoveryAction(pick);
+
+        return OK;
+    }
+
+    /**
+     * take everyone's resources of the type picked for a
+     * monopoly card
+     *
+     * @param ga        the game
+     * @param pl        the player
+     * @param resource  the type of resource
+     * @return OK, NOT_YOUR_TURN, or NOT_NOW
+     */
+    public static int monopolyPick(SOCGame ga, SOCPlayer pl, int resource)
+    {
+        if (!isTurn(ga, pl))
+        {
+            return NOT_YOUR_TURN;
+        }
+
+        if (!ga.canDoMonopolyAction())
+        {
+            return NOT_NOW;
+        }
+
+        ga.doMonopolyAction(resource);
+
+        return OK;
+    }
+
+    /**
+     * make a player's trade offer.  the offer is remade so it
+     * comes from the player who sent it.
+     *
+     * @param ga     the game
+     * @param pl     the player
+     * @param offer  the offer that was sent
+     * @return the offer that was made
+     */
+    public static SOCTradeOffer makeOffer(SOCGame ga, SOCPlayer pl, SOCTradeOffer offer)
+    {
+        SOCTradeOffer remadeOffer = new SOCTradeOffer(ga.getName(), pl.getPlayerNumber(), offer.getTo(), offer.getGiveSet(), offer.getGetSet());
+        pl.setCurrentOffer(remadeOffer);
+
+        return remadeOffer;
+    }
+
+    /**
+     * accept another player's offer, and clear all of the
+     * offers if the trade is made
+     *
+     * @param ga        the game
+     * @param pl        the player accepting
+     * @param offering  the number of the player who offered
+     * @return OK, or NOT_ALLOWED
+     */
+    public static int acceptOffer(SOCGame ga, SOCPlayer pl, int offering)
+    {
+        if (!ga.canMakeTrade(offering, pl.getPlayerNumber()))
+        {
+            return NOT_ALLOWED;
+        }
+
+        ga.makeTrade(offering, pl.getPlayerNumber());
+
+        for (int i = 0; i < SOCGame.MAXPLAYERS; i++)
+        {
+            ga.getPlayer(i).setCurrentOffer(null);
+        }
+
+        return OK;
+    }
+
+    /**
+     * give a player resources, for the "rsrcs:" debugging
+     * command, which is "rsrcs: clay ore sheep wheat wood name"
+     *
+     * @param ga         the game
+     * @param text       the command
+     * @param resources  set to the number of each type of
+     *                   resource given, indexed by type
+     * @return the player, or null if there isn't one by that name
+     */
+    public static SOCPlayer giveResources(SOCGame ga, String text, int[] resources)
+    {
+        StringTokenizer st = new StringTokenizer(text.substring(6));
+        int resourceType = SOCResourceConstants.CLAY;
+        String name = "";
+
+        while (st.hasMoreTokens())
+        {
+            String token = st.nextToken();
+
+            if (resourceType <= SOCResourceConstants.WOOD)
+            {
+                resources[resourceType] = Integer.parseInt(token);
+                resourceType++;
+            }
+            else
+            {
+                name = token;
+
+                break;
+            }
+        }
+
+        SOCPlayer pl = ga.getPlayer(name);
+
+        if (pl != null)
+        {
+            for (resourceType = SOCResourceConstants.CLAY;
+                    resourceType <= SOCResourceConstants.WOOD;
+                    resourceType++)
+            {
+                pl.getResources().add(resources[resourceType], resourceType);
+            }
+        }
+
+        return pl;
+    }
+
+    /**
+     * give a player a development card, for the "dev:"
+     * debugging command, which is "dev: type name"
+     *
+     * @param ga    the game
+     * @param text  the command
+     * @param card  card[0] is set to the type of card given
+     * @return the player, or null if there isn't one by that name
+     */
+    public static SOCPlayer giveDevCard(SOCGame ga, String text, int[] card)
+    {
+        StringTokenizer st = new StringTokenizer(text.substring(5));
+        String name = "";
+        int cardType = -1;
+
+        while (st.hasMoreTokens())
+        {
+            String token = st.nextToken();
+
+            if (cardType < 0)
+            {
+                cardType = Integer.parseInt(token);
+            }
+            else
+            {
+                name = token;
+
+                break;
+            }
+        }
+
+        SOCPlayer pl = ga.getPlayer(name);
+        card[0] = cardType;
+
+        if (pl != null)
+        {
+            pl.getDevCards().add(1, SOCDevCardSet.NEW, cardType);
+        }
+
+        return pl;
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Vector;
+
+
+/**
+ * Wakes up every so often and writes what the game journals
+ * have recorded to their files.  Everything recorded since the
+ * last time goes out in one write per game, and, if asked, one
+ * sync to the disk.  Once in a while it also deletes the
+ * journals of games that ended longer ago than they're kept.
+ *
+ * @author agent
+ */
+public class SOCJournalWriter extends Thread
+{
+    /**
+     * how often the journals are written if no time is given,
+     * in milliseconds
+     */
+    public static final int DEFAULT_COMMIT_INTERVAL = 100;
+
+    /**
+     * how long a finished game's journal is kept if no time is
+     * given, in seconds
+     */
+    public static final int DEFAULT_KEEP_TIME = 24 * 60 * 60;
+
+    /**
+     * how often old journals are looked for, in milliseconds
+     */
+    public static final int EXPIRE_INTERVAL = 60 * 1000;
+
+    /**
+     * the directory for the journals
+     */
+    protected File dir;
+
+    /**
+     * how often the journals are written, in milliseconds
+     */
+    protected int commitInterval;
+
+    /**
+     * true to wait for each write to reach the disk
+     */
+    protected boolean sync;
+
+    /**
+     * how long a journal is kept after it's closed, in
+     * milliseconds.  0 deletes it when it's closed, less
+     * than 0 keeps it for good.
+     */
+    protected long keepTime;
+
+    /**
+     * when old journals were last looked for
+     */
+    protected long lastExpire;
+
+    /**
+     * the open journals
+     */
+    protected Vector journals;
+
+    /**
+     * the number of times a journal was written
+     */
+    protected int numWrites;
+
+    boolean alive;
+
+    /**
+     * Create a journal writer
+     *
+     * @param d   the directory for the journals
+     * @param ci  how often to write the journals, in milliseconds
+     * @param s   true to wait for each write to reach the disk
+     */
+    public SOCJournalWriter(String d, int ci, boolean s)
+    {
+        this(d, ci, s, DEFAULT_KEEP_TIME);
+    }
+
+    /**
+     * Create a journal writer
+     *
+     * @param d   the directory for the journals
+     * @param ci  how often to write the journals, in milliseconds
+     * @param s   true to wait for each write to reach the disk
+     * @param kt  how long to keep a finished game's journal, in
+     *            seconds, 0 to delete it when the game ends, or
+     *            less than 0 to keep it for good
+     */
+    public SOCJournalWriter(String d, int ci, boolean s, int kt)
+    {
+        dir = new File(d);
+        commitInterval = Math.max(1, ci);
+        sync = s;
+        keepTime = kt * 1000L;
+        lastExpire = System.currentTimeMillis();
+        journals = new Vector();
+        numWrites = 0;
+        alive = true;
+        setName("journalWriter");
+        setDaemon(true);
+    }
+
+    /**
+     * start a journal for a game
+     *
+     * @param gameName  the name of the game
+     * @param seed      the game's random seed
+     * @return the journal, or null if it couldn't be started
+     */
+    public SOCGameJournal open(String gameName, long seed)
+    {
+        try
+        {
+            dir.mkdirs();
+
+            SOCGameJournal journal = new SOCGameJournal(dir, gameName, seed);
+            journals.addElement(journal);
+
+            return journal;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to start a journal for " + gameName + ": " + e);
+
+            return null;
+        }
+    }
+
+    /**
+     * carry on a journal from before the server was restarted
+     *
+     * @param f    the journal file
+     * @param rec  what was read from the file
+     * @return the journal, or null if it couldn't be carried on
+     */
+    public SOCGameJournal resume(File f, SOCGameJournal.Recording rec)
+    {
+        try
+        {
+            SOCGameJournal journal = new SOCGameJournal(f, rec);
+            journals.addElement(journal);
+
+            return journal;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to carry on " + f + ": " + e);
+
+            return null;
+        }
+    }
+
+    /**
+     * write what's left in a journal and close it
+     *
+     * @param journal  the journal
+     */
+    public void close(SOCGameJournal journal)
+    {
+        journals.removeElement(journal);
+
+        try
+        {
+            journal.close();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to close " + journal.getFile() + ": " + e);
+        }
+    }
+
+    /**
+     * close the journal of a game that's over, and delete it
+     * if finished journals aren't kept.  Otherwise it's
+     * deleted by {@link #expireOld()} once it's old enough.
+     *
+     * @param journal  the journal
+     */
+    public void finish(SOCGameJournal journal)
+    {
+        close(journal);
+
+        if ((keepTime == 0) && !journal.getFile().delete())
+        {
+            System.err.println("Unable to delete " + journal.getFile());
+        }
+    }
+
+    /**
+     * delete the journals that aren't open and haven't
+     * been written to for longer than they're kept
+     */
+    public void expireOld()
+    {
+        if (keepTime < 0)
+        {
+            return;
+        }
+
+        File[] files = dir.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        long oldest = System.currentTimeMillis() - keepTime;
+        Vector open = new Vector();
+
+        synchronized (journals)
+        {
+            for (int i = 0; i < journals.size(); i++)
+            {
+                open.addElement(((SOCGameJournal) journals.elementAt(i)).getFile().getName());
+            }
+        }
+
+        for (int i = 0; i < files.length; i++)
+        {
+            if (files[i].getName().endsWith(SOCGameJournal.SUFFIX) && !open.contains(files[i].getName()) && (files[i].lastModified() < oldest) && !files[i].delete())
+            {
+                System.err.println("Unable to delete " + files[i]);
+            }
+        }
+    }
+
+    /**
+     * write all of the journals now
+     */
+    public void writeAll()
+    {
+        Object[] open;
+
+        synchronized (journals)
+        {
+            open = new Object[journals.size()];
+            journals.copyInto(open);
+        }
+
+        for (int i = 0; i < open.length; i++)
+        {
+            SOCGameJournal journal = (SOCGameJournal) open[i];
+
+            if (journal.hasUnwritten())
+            {
+                try
+                {
+                    journal.write(sync);
+                    numWrites++;
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Unable to write " + journal.getFile() + ": " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of times a journal was written
+     */
+    public int getNumWrites()
+    {
+        return numWrites;
+    }
+
+    /**
+     * keep writing the journals
+     */
+    public void run()
+    {
+        while (alive)
+        {
+            try
+            {
+                sleep(commitInterval);
+            }
+            catch (InterruptedException exc) {}
+
+            writeAll();
+
+            if (System.currentTimeMillis() - lastExpire >= EXPIRE_INTERVAL)
+            {
+                expireOld();
+                lastExpire = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * write the journals one last time and stop
+     */
+    public void stopWriting()
+    {
+        alive = false;
+        writeAll();
+    }
+}
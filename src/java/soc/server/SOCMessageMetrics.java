@@ -0,0 +1,172 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.util.LatencyHistogram;
+
+
+/**
+ * The times the server takes to treat one type of message
+ *
+ * @author agent
+ */
+public class SOCMessageMetrics implements SOCMessageMetricsMBean
+{
+    /**
+     * the message type
+     */
+    protected int type;
+
+    /**
+     * the name of the message type
+     */
+    protected String name;
+
+    /**
+     * how long the messages took
+     */
+    protected LatencyHistogram times;
+
+    /**
+     * the number of messages that failed with an exception
+     */
+    protected long errors;
+
+    /**
+     * make metrics for a message type
+     *
+     * @param t  the message type
+     * @param n  the name of the message type
+     */
+    public SOCMessageMetrics(int t, String n)
+    {
+        type = t;
+        name = n;
+        times = new LatencyHistogram();
+        errors = 0;
+    }
+
+    /**
+     * record that a message was treated
+     *
+     * @param micros  how long it took, in microseconds
+     */
+    public void record(long micros)
+    {
+        times.record(micros);
+    }
+
+    /**
+     * record that a message failed with an exception.  it
+     * is still timed with record().
+     */
+    public void recordError()
+    {
+        errors++;
+    }
+
+    /**
+     * @return the message type
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return the name of the message type
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return the number of messages treated
+     */
+    public long getCount()
+    {
+        return times.getCount();
+    }
+
+    /**
+     * @return the number of messages that failed with an exception
+     */
+    public long getErrors()
+    {
+        return errors;
+    }
+
+    /**
+     * @return the total time spent treating them, in microseconds
+     */
+    public long getTotalMicros()
+    {
+        return times.getTotal();
+    }
+
+    /**
+     * @return the average time, in microseconds
+     */
+    public long getMeanMicros()
+    {
+        return times.getMean();
+    }
+
+    /**
+     * @return the longest time, in microseconds
+     */
+    public long getMaxMicros()
+    {
+        return times.getMax();
+    }
+
+    /**
+     * @return the median time, in microseconds
+     */
+    public long getP50Micros()
+    {
+        return times.getPercentile(50);
+    }
+
+    /**
+     * @return the 90th percentile time, in microseconds
+     */
+    public long getP90Micros()
+    {
+        return times.getPercentile(90);
+    }
+
+    /**
+     * @return the 99th percentile time, in microseconds
+     */
+    public long getP99Micros()
+    {
+        return times.getPercentile(99);
+    }
+
+    /**
+     * forget the times recorded so far
+     */
+    public void reset()
+    {
+        times.clear();
+        errors = 0;
+    }
+}
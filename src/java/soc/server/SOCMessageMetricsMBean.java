@@ -0,0 +1,84 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+
+/**
+ * The management interface for the times the server takes
+ * to treat one type of message
+ *
+ * @author agent
+ */
+public interface SOCMessageMetricsMBean
+{
+    /**
+     * @return the message type
+     */
+    public int getType();
+
+    /**
+     * @return the name of the message type
+     */
+    public String getName();
+
+    /**
+     * @return the number of messages treated
+     */
+    public long getCount();
+
+    /**
+     * @return the number of messages that failed with an exception
+     */
+    public long getErrors();
+
+    /**
+     * @return the total time spent treating them, in microseconds
+     */
+    public long getTotalMicros();
+
+    /**
+     * @return the average time, in microseconds
+     */
+    public long getMeanMicros();
+
+    /**
+     * @return the longest time, in microseconds
+     */
+    public long getMaxMicros();
+
+    /**
+     * @return the median time, in microseconds
+     */
+    public long getP50Micros();
+
+    /**
+     * @return the 90th percentile time, in microseconds
+     */
+    public long getP90Micros();
+
+    /**
+     * @return the 99th percentile time, in microseconds
+     */
+    public long getP99Micros();
+
+    /**
+     * forget the times recorded so far
+     */
+    public void reset();
+}
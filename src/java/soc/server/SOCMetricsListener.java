@@ -0,0 +1,212 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+
+/**
+ * Serves the server's metrics as plain text to anything that
+ * connects to a port on the local machine, so monitoring can
+ * scrape them.  It speaks just enough HTTP for that: whatever
+ * is asked for, the answer is SOCServerMetrics.report().
+ *
+ * Each connection is answered on a thread of its own, so a
+ * client that connects and says nothing only holds up itself.
+ *
+ * @author agent
+ */
+public class SOCMetricsListener extends Thread
+{
+    /**
+     * how long to wait for a request, in milliseconds
+     */
+    protected static final int TIMEOUT = 2000;
+
+    /**
+     * the most connections answered at once; more are
+     * closed straight away
+     */
+    protected static final int MAX_ANSWERS = 4;
+
+    /**
+     * the metrics to serve
+     */
+    protected SOCServerMetrics metrics;
+
+    /**
+     * the socket we listen on
+     */
+    protected ServerSocket ss;
+
+    /**
+     * the number of connections being answered
+     */
+    protected int numAnswers;
+
+    boolean alive;
+
+    /**
+     * Create a metrics listener on a local port
+     *
+     * @param m     the metrics to serve
+     * @param port  the port to listen on
+     * @throws IOException  if we can't listen on the port
+     */
+    public SOCMetricsListener(SOCServerMetrics m, int port) throws IOException
+    {
+        metrics = m;
+        ss = new ServerSocket(port, 10, InetAddress.getByName("127.0.0.1"));
+        numAnswers = 0;
+        alive = true;
+        setName("metricsListener");
+        setDaemon(true);
+    }
+
+    /**
+     * take connections until we're stopped, and start
+     * a thread to answer each one
+     */
+    public void run()
+    {
+        while (alive)
+        {
+            Socket s = null;
+
+            try
+            {
+                s = ss.accept();
+                s.setSoTimeout(TIMEOUT);
+
+                synchronized (this)
+                {
+                    if (numAnswers < MAX_ANSWERS)
+                    {
+                        numAnswers++;
+                        new Answer(s).start();
+                        s = null;
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                if (alive)
+                {
+                    System.err.println("Exception in metrics listener - " + e);
+                }
+            }
+
+            if (s != null)
+            {
+                close(s);
+            }
+        }
+    }
+
+    /**
+     * close a connection, ignoring errors
+     *
+     * @param s  the connection
+     */
+    protected static void close(Socket s)
+    {
+        try
+        {
+            s.close();
+        }
+        catch (IOException e) {}
+    }
+
+    /**
+     * read a request's headers and send back the metrics
+     *
+     * @param s  the connection
+     */
+    protected void answer(Socket s) throws IOException
+    {
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), "US-ASCII"));
+        String line = in.readLine();
+
+        while ((line != null) && (line.length() > 0))
+        {
+            line = in.readLine();
+        }
+
+        byte[] body = metrics.report().getBytes("UTF-8");
+        String header = "HTTP/1.0 200 OK\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n";
+        OutputStream out = s.getOutputStream();
+        out.write(header.getBytes("US-ASCII"));
+        out.write(body);
+        out.flush();
+    }
+
+    /**
+     * answers one connection, then closes it
+     */
+    class Answer extends Thread
+    {
+        Socket s;
+
+        Answer(Socket sock)
+        {
+            s = sock;
+            setName("metricsAnswer");
+            setDaemon(true);
+        }
+
+        public void run()
+        {
+            try
+            {
+                answer(s);
+            }
+            catch (IOException e) {}
+            finally
+            {
+                close(s);
+
+                synchronized (SOCMetricsListener.this)
+                {
+                    numAnswers--;
+                }
+            }
+        }
+    }
+
+    /**
+     * stop listening
+     */
+    public void stopListening()
+    {
+        alive = false;
+
+        try
+        {
+            ss.close();
+        }
+        catch (IOException e) {}
+    }
+}
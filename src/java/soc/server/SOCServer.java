@@ -20,10 +20,9 @@
  **/
 package soc.server;
 
-import soc.disableDebug.D;
+import soc.debug.Log;
 
 import soc.game.SOCBoard;
-import soc.game.SOCCity;
 import soc.game.SOCDevCardConstants;
 import soc.game.SOCDevCardSet;
 import soc.game.SOCGame;
@@ -32,8 +31,6 @@ import soc.game.SOCPlayer;
 import soc.game.SOCPlayingPiece;
 import soc.game.SOCResourceConstants;
 import soc.game.SOCResourceSet;
-import soc.game.SOCRoad;
-import soc.game.SOCSettlement;
 import soc.game.SOCTradeOffer;
 
 import soc.message.SOCAcceptOffer;
@@ -103,21 +100,29 @@ import soc.message.SOCTextMsg;
 import soc.message.SOCTurn;
 import soc.message.SOCUpdateRobotParams;
 
+import soc.server.database.SOCDBCache;
+import soc.server.database.SOCDBExecutor;
 import soc.server.database.SOCDBHelper;
+import soc.server.database.SOCDBRequest;
+import soc.server.database.SOCDBWrite;
+import soc.server.database.SOCDBWriteBehind;
 
 import soc.server.genericServer.Connection;
 import soc.server.genericServer.Server;
 
 import soc.util.IntPair;
+import soc.util.LatencyHistogram;
 import soc.util.SOCRobotParameters;
 import soc.util.Version;
 
+import java.io.File;
+import java.io.IOException;
+
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Random;
-import java.util.StringTokenizer;
 import java.util.Vector;
 
 /**
@@ -130,6 +135,11 @@ import java.util.Vector;
  */
 public class SOCServer extends Server
 {
+    /**
+     * the log for the server
+     */
+    static final Log log = Log.getLog("server");
+
     /**
      * Name used when sending messages from the server.
      */
@@ -176,9 +186,46 @@ public class SOCServer extends Server
     protected Hashtable robotDismissRequests = new Hashtable();
 
     /**
-     * table of game data files
+     * the journals of the games, by game name
+     */
+    protected Hashtable gameJournals = new Hashtable();
+
+    /**
+     * writes the game journals, or null if they aren't kept
+     */
+    protected SOCJournalWriter journalWriter;
+
+    /**
+     * the directory game journals go in if none is given
+     */
+    public static final String DEFAULT_JOURNAL_DIR = "journal";
+
+    /**
+     * writes snapshots of the games, or null if they aren't kept
+     */
+    protected SOCSnapshotWriter snapshotWriter;
+
+    /**
+     * the directory game snapshots go in if none is given
      */
-    protected Hashtable gameDataFiles = new Hashtable();
+    public static final String DEFAULT_SNAPSHOT_DIR = "snapshot";
+
+    /**
+     * hibernates idle games, or null if they aren't hibernated
+     */
+    protected SOCGameHibernator gameHibernator;
+
+    /**
+     * counters and latency histograms for the messages
+     * the server treats
+     */
+    protected SOCServerMetrics metrics;
+
+    /**
+     * serves the metrics as plain text, or null if they
+     * aren't served
+     */
+    protected SOCMetricsListener metricsListener;
 
     /**
      * the current game event record
@@ -218,6 +265,24 @@ public class SOCServer extends Server
     String databaseUserName;
     String databasePassword;
 
+    /**
+     * the threads that make database calls, or null if
+     * there's no database
+     */
+    protected SOCDBExecutor dbExecutor;
+
+    /**
+     * sends game scores and login records to the database
+     * in batches, or null if there's no database
+     */
+    protected SOCDBWriteBehind dbWriter;
+
+    /**
+     * held while a nickname is checked and its account made,
+     * so two requests for the same nickname can't both make it
+     */
+    protected Object accountLock = new Object();
+
     /**
      * Create a Settlers of Catan server listening on port p.
      *
@@ -227,6 +292,160 @@ public class SOCServer extends Server
      * @param databasePassword  the password for the user
      */
     public SOCServer(int p, int mc, String databaseUserName, String databasePassword)
+    {
+        this(p, mc, databaseUserName, databasePassword, SOCDBHelper.DEFAULT_POOL_SIZE, SOCDBHelper.DEFAULT_QUERY_TIMEOUT);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout)
+    {
+        this(p, mc, databaseUserName, databasePassword, dbPoolSize, dbTimeout, DEFAULT_JOURNAL_DIR);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     * @param journalDir  the directory for the game journals, or null
+     *                    to not keep them
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout, String journalDir)
+    {
+        this(p, mc, databaseUserName, databasePassword, dbPoolSize, dbTimeout, journalDir, DEFAULT_SNAPSHOT_DIR);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     * Games that were going on when the server last stopped
+     * are picked up from their snapshots.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     * @param journalDir  the directory for the game journals, or null
+     *                    to not keep them
+     * @param snapshotDir the directory for the game snapshots, or null
+     *                    to not keep them
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout, String journalDir, String snapshotDir)
+    {
+        this(p, mc, databaseUserName, databasePassword, dbPoolSize, dbTimeout, journalDir, snapshotDir, SOCGameHibernator.DEFAULT_IDLE_TIME);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     * Games that were going on when the server last stopped
+     * are picked up from their snapshots, and games that go
+     * unused for a while are hibernated.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     * @param journalDir  the directory for the game journals, or null
+     *                    to not keep them
+     * @param snapshotDir the directory for the game snapshots, or null
+     *                    to not keep them
+     * @param idleTime    how long a game can go unused before it
+     *                    hibernates, in seconds, or 0 to never
+     *                    hibernate games.  Games are hibernated to
+     *                    their snapshots, so this needs snapshotDir.
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout, String journalDir, String snapshotDir, int idleTime)
+    {
+        this(p, mc, databaseUserName, databasePassword, dbPoolSize, dbTimeout, journalDir, snapshotDir, idleTime, 0);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     * Games that were going on when the server last stopped
+     * are picked up from their snapshots, and games that go
+     * unused for a while are hibernated.  The server's metrics
+     * are registered with JMX, and can also be served as plain
+     * text on a local port.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     * @param journalDir  the directory for the game journals, or null
+     *                    to not keep them
+     * @param snapshotDir the directory for the game snapshots, or null
+     *                    to not keep them
+     * @param idleTime    how long a game can go unused before it
+     *                    hibernates, in seconds, or 0 to never
+     *                    hibernate games
+     * @param metricsPort the port on 127.0.0.1 to serve the metrics
+     *                    on, or 0 to not serve them
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout, String journalDir, String snapshotDir, int idleTime, int metricsPort)
+    {
+        this(p, mc, databaseUserName, databasePassword, dbPoolSize, dbTimeout, journalDir, snapshotDir, idleTime, metricsPort, SOCJournalWriter.DEFAULT_KEEP_TIME);
+    }
+
+    /**
+     * Create a Settlers of Catan server listening on port p.
+     * Games that were going on when the server last stopped
+     * are picked up from their snapshots, and games that go
+     * unused for a while are hibernated.  The server's metrics
+     * are registered with JMX, and can also be served as plain
+     * text on a local port.  The journals of finished games
+     * are deleted once they're older than journalKeepTime.
+     *
+     * @param p    the port that the server listens on
+     * @param mc   the maximum number of connections allowed
+     * @param databaseUserName  the user name for accessing the database
+     * @param databasePassword  the password for the user
+     * @param dbPoolSize  the number of database connections, which is
+     *                    also the number of threads making database calls
+     * @param dbTimeout   the number of seconds a database statement can
+     *                    run, 0 for no limit
+     * @param journalDir  the directory for the game journals, or null
+     *                    to not keep them
+     * @param snapshotDir the directory for the game snapshots, or null
+     *                    to not keep them
+     * @param idleTime    how long a game can go unused before it
+     *                    hibernates, in seconds, or 0 to never
+     *                    hibernate games
+     * @param metricsPort the port on 127.0.0.1 to serve the metrics
+     *                    on, or 0 to not serve them
+     * @param journalKeepTime  how long to keep the journal of a game
+     *                    that's over, in seconds, 0 to delete it
+     *                    when the game ends, or less than 0 to keep
+     *                    it for good
+     */
+    public SOCServer(int p, int mc, String databaseUserName, String databasePassword, int dbPoolSize, int dbTimeout, String journalDir, String snapshotDir, int idleTime, int metricsPort, int journalKeepTime)
     {
         super(p);
         maxConnections = mc;
@@ -237,7 +456,10 @@ public class SOCServer extends Server
 
         try
         {
-            SOCDBHelper.initialize(databaseUserName, databasePassword);
+            SOCDBHelper.initialize(databaseUserName, databasePassword, dbPoolSize, dbTimeout);
+            dbExecutor = new SOCDBExecutor(SOCDBHelper.getPoolSize());
+            dbWriter = new SOCDBWriteBehind();
+            dbWriter.start();
             System.err.println("User database initialized.");
         }
         catch (SQLException x) // just a warning
@@ -256,6 +478,49 @@ public class SOCServer extends Server
         serverRobotPinger.start();
         gameTimeoutChecker = new SOCGameTimeoutChecker(this);
         gameTimeoutChecker.start();
+        metrics = new SOCServerMetrics(this);
+        metrics.register();
+
+        if (metricsPort > 0)
+        {
+            try
+            {
+                metricsListener = new SOCMetricsListener(metrics, metricsPort);
+                metricsListener.start();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Unable to serve metrics on port " + metricsPort + ": " + e);
+            }
+        }
+
+        if (journalDir != null)
+        {
+            journalWriter = new SOCJournalWriter(journalDir, SOCJournalWriter.DEFAULT_COMMIT_INTERVAL, false, journalKeepTime);
+        }
+
+        if (snapshotDir != null)
+        {
+            snapshotWriter = new SOCSnapshotWriter(snapshotDir, SOCSnapshotWriter.DEFAULT_INTERVAL, this, journalWriter);
+            recoverGames();
+            snapshotWriter.start();
+
+            if (idleTime > 0)
+            {
+                gameHibernator = new SOCGameHibernator(this, idleTime);
+                gameHibernator.start();
+            }
+        }
+
+        //
+        // start writing the journals after the games are recovered,
+        // so their journals are open before old ones are deleted
+        //
+        if (journalWriter != null)
+        {
+            journalWriter.start();
+        }
+
         this.databaseUserName = databaseUserName;
         this.databasePassword = databasePassword;
     }
@@ -279,7 +544,7 @@ public class SOCServer extends Server
                 if (!channelList.isMember(c, ch))
                 {
                     c.put(SOCMembers.toCmd(ch, channelList.getMembers(ch)));
-                    D.ebugPrintln("*** " + c.data + " joined the channel " + ch);
+                    log.debug("*** {} joined the channel {}", c.data, ch);
                     channelList.addMember(c, ch);
                 }
             }
@@ -299,7 +564,10 @@ public class SOCServer extends Server
      */
     public boolean leaveChannel(Connection c, String ch, boolean channelListLock)
     {
-        D.ebugPrintln("leaveChannel: " + c.data + " " + ch + " " + channelListLock);
+        if (log.isDebugEnabled())
+        {
+            log.debug("leaveChannel: " + c.data + " " + ch + " " + channelListLock);
+        }
 
         boolean result = false;
 
@@ -311,7 +579,7 @@ public class SOCServer extends Server
 
                 SOCLeave leaveMessage = new SOCLeave((String) c.data, c.host(), ch);
                 messageToChannelWithMon(ch, leaveMessage);
-                D.ebugPrintln("*** " + (String) c.data + " left the channel " + ch);
+                log.debug("*** {} left the channel {}", (String) c.data, ch);
             }
 
             if (channelList.isChannelEmpty(ch))
@@ -330,7 +598,7 @@ public class SOCServer extends Server
                     }
                     catch (Exception e)
                     {
-                        D.ebugPrintln("Exception in leaveChannel - " + e);
+                        log.debug("Exception in leaveChannel - {}", e);
                     }
 
                     channelList.releaseMonitor();
@@ -366,7 +634,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Excepetion in connectToGame - " + e);
+                log.debug("Excepetion in connectToGame - {}", e);
             }
 
             gameList.releaseMonitor();
@@ -389,7 +657,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Excepetion in connectToGame (isMember) - " + e);
+                    log.debug("Excepetion in connectToGame (isMember) - {}", e);
                 }
 
                 gameList.releaseMonitorForGame(ga);
@@ -407,6 +675,8 @@ public class SOCServer extends Server
                 {
                     gameList.createGame(ga);
                     gameList.addMember(c, ga);
+                    gameList.getGameData(ga).setSeed(rand.nextLong());
+                    openJournal(ga);
 
                     // must release monitor before we broadcast
                     gameList.releaseMonitor();
@@ -416,7 +686,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Excepetion in connectToGame - " + e);
+                    log.debug("Excepetion in connectToGame - {}", e);
                 }
 
                 if (!monitorReleased)
@@ -483,7 +753,7 @@ public class SOCServer extends Server
                 messageToGameWithMon(gm, leaveMessage);
                 recordGameEvent(gm, leaveMessage.toCmd());
 
-                D.ebugPrintln("*** " + (String) c.data + " left the game " + gm);
+                log.debug("*** {} left the game {}", (String) c.data, gm);
                 messageToGameWithMon(gm, new SOCGameTextMsg(gm, SERVERNAME, (String) c.data + " left the game"));
 
                 /**
@@ -589,11 +859,11 @@ public class SOCServer extends Server
                             }
                         }
 
-                        if (D.ebugOn)
+                        if (log.isDebugEnabled())
                         {
                             for (int i = 0; i < robots.size(); i++)
                             {
-                                D.ebugPrintln("^^^ robotIndexes[" + i + "]=" + robotIndexes[i]);
+                                log.debug("^^^ robotIndexes[" + i + "]=" + robotIndexes[i]);
                             }
                         }
 
@@ -614,7 +884,7 @@ public class SOCServer extends Server
                                     {
                                         String pname = pl.getName();
 
-                                        D.ebugPrintln("CHECKING " + (String) robotConn.data + " == " + pname);
+                                        log.debug("CHECKING {} == {}", (String) robotConn.data, pname);
 
                                         if ((pname != null) && (pname.equals((String) robotConn.data)))
                                         {
@@ -634,7 +904,7 @@ public class SOCServer extends Server
                                 {
                                     Connection tempCon = (Connection) requestsEnum.nextElement();
 
-                                    D.ebugPrintln("CHECKING " + robotConn + " == " + tempCon);
+                                    log.debug("CHECKING {} == {}", robotConn, tempCon);
 
                                     if (tempCon == robotConn)
                                     {
@@ -656,7 +926,7 @@ public class SOCServer extends Server
                             /**
                              * make the request
                              */
-                            D.ebugPrintln("@@@ JOIN GAME REQUEST for " + (String) robotConn.data);
+                            log.debug("@@@ JOIN GAME REQUEST for {}", (String) robotConn.data);
 
                             if (robotConn.put(SOCJoinGameRequest.toCmd(gm, playerNumber)))
                             {
@@ -712,7 +982,7 @@ public class SOCServer extends Server
                     }
                     catch (Exception e)
                     {
-                        D.ebugPrintln("Exception in leaveGame (destroyGame) - " + e);
+                        log.debug("Exception in leaveGame (destroyGame) - {}", e);
                     }
 
                     gameList.releaseMonitor();
@@ -759,7 +1029,7 @@ public class SOCServer extends Server
                writeGameRecord(gm, gr);
              */
 
-            //storeGameScores(cg);
+            storeGameScores(cg);
             ///
             /// tell all robots to leave
             ///
@@ -778,6 +1048,12 @@ public class SOCServer extends Server
             }
 
             gameList.deleteGame(gm);
+            closeJournal(gm);
+
+            if (snapshotWriter != null)
+            {
+                snapshotWriter.remove(gm);
+            }
         }
     }
 
@@ -814,7 +1090,7 @@ public class SOCServer extends Server
                         }
                         catch (Exception e)
                         {
-                            D.ebugPrintln("Exception in leaveAllChannels (leaveChannel) - " + e);
+                            log.debug("Exception in leaveAllChannels (leaveChannel) - {}", e);
                         }
 
                         channelList.releaseMonitorForChannel(ch);
@@ -828,7 +1104,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception in leaveAllChannels - " + e);
+                log.debug("Exception in leaveAllChannels - {}", e);
             }
 
             channelList.releaseMonitor();
@@ -883,7 +1159,7 @@ public class SOCServer extends Server
                         }
                         catch (Exception e)
                         {
-                            D.ebugPrintln("Exception in leaveAllGames (leaveGame) - " + e);
+                            log.debug("Exception in leaveAllGames (leaveGame) - {}", e);
                         }
 
                         gameList.releaseMonitorForGame(ga);
@@ -899,7 +1175,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception in leaveAllGames - " + e);
+                log.debug("Exception in leaveAllGames - {}", e);
             }
 
             gameList.releaseMonitor();
@@ -910,7 +1186,7 @@ public class SOCServer extends Server
             for (Enumeration de = destroyed.elements(); de.hasMoreElements();)
             {
                 String ga = (String) de.nextElement();
-                D.ebugPrintln("** Broadcasting SOCDeleteGame " + ga);
+                log.debug("** Broadcasting SOCDeleteGame {}", ga);
                 broadcast(SOCDeleteGame.toCmd(ga));
             }
 
@@ -953,7 +1229,7 @@ public class SOCServer extends Server
         }
         catch (Exception e)
         {
-            D.ebugPrintln("Exception in messageToChannel - " + e);
+            log.debug("Exception in messageToChannel - {}", e);
         }
 
         channelList.releaseMonitorForChannel(ch);
@@ -1036,7 +1312,7 @@ public class SOCServer extends Server
         }
         catch (Exception e)
         {
-            D.ebugPrintln("Exception in messageToGame - " + e);
+            log.debug("Exception in messageToGame - {}", e);
         }
 
         gameList.releaseMonitorForGame(ga);
@@ -1108,7 +1384,7 @@ public class SOCServer extends Server
         }
         catch (Exception e)
         {
-            D.ebugPrintln("Exception in messageToGameExcept - " + e);
+            log.debug("Exception in messageToGameExcept - {}", e);
         }
 
         gameList.releaseMonitorForGame(gn);
@@ -1157,7 +1433,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Caught exception in SOCServer.newConnection(Connection) - " + e);
+                log.debug("Caught exception in SOCServer.newConnection(Connection) - {}", e);
                 e.printStackTrace(System.out);
 
                 return;
@@ -1202,7 +1478,7 @@ public class SOCServer extends Server
                     }
                     catch (Exception e)
                     {
-                        D.ebugPrintln("Exception in newConnection (channelList) - " + e);
+                        log.debug("Exception in newConnection (channelList) - {}", e);
                     }
 
                     channelList.releaseMonitor();
@@ -1223,7 +1499,7 @@ public class SOCServer extends Server
                     }
                     catch (Exception e)
                     {
-                        D.ebugPrintln("Exception in newConnection (gameList) - " + e);
+                        log.debug("Exception in newConnection (gameList) - {}", e);
                     }
 
                     gameList.releaseMonitor();
@@ -1257,7 +1533,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Caught exception in SOCServer.newConnection(Connection) - " + e);
+                log.debug("Caught exception in SOCServer.newConnection(Connection) - {}", e);
                 e.printStackTrace(System.out);
             }
         }
@@ -1308,14 +1584,24 @@ public class SOCServer extends Server
      */
     public void processCommand(String s, Connection c)
     {
+        long start = LatencyHistogram.nowMicros();
+        SOCMessage mes = null;
+        boolean failed = true;
+
         try
         {
-            SOCMessage mes = (SOCMessage) SOCMessage.toMsg(s);
+            mes = (SOCMessage) SOCMessage.toMsg(s);
 
             //D.ebugPrintln(c.data+" - "+mes);
             if (mes != null)
             {
                 SOCGame ga;
+                String journalGame = getJournalGame(mes);
+
+                if (journalGame != null)
+                {
+                    recordGameEvent(journalGame, (String) c.data, s);
+                }
 
                 switch (mes.getType())
                 {
@@ -1364,7 +1650,7 @@ public class SOCServer extends Server
                             }
                             catch (Exception e)
                             {
-                                D.ebugPrintln("Exception in KILLCHANNEL - " + e);
+                                log.debug("Exception in KILLCHANNEL - {}", e);
                             }
 
                             channelList.releaseMonitor();
@@ -1404,7 +1690,6 @@ public class SOCServer extends Server
                     //createNewGameEventRecord();
                     //currentGameEventRecord.setMessageIn(new SOCMessageRecord(mes, c.data, "SERVER"));
                     SOCGameTextMsg gameTextMsgMes = (SOCGameTextMsg) mes;
-                    recordGameEvent(gameTextMsgMes.getGame(), gameTextMsgMes.toCmd());
 
                     ga = gameList.getGameData(gameTextMsgMes.getGame());
 
@@ -1443,7 +1728,7 @@ public class SOCServer extends Server
                         }
                         catch (Exception e)
                         {
-                            D.ebugPrintln("Exception in *WHO* (gameMembers) - " + e);
+                            log.debug("Exception in *WHO* (gameMembers) - {}", e);
                         }
 
                         gameList.releaseMonitorForGame(gameTextMsgMes.getGame());
@@ -1484,7 +1769,7 @@ public class SOCServer extends Server
                             }
                             catch (Exception e)
                             {
-                                D.ebugPrintln("Exception in KILLGAME - " + e);
+                                log.debug("Exception in KILLGAME - {}", e);
                             }
 
                             gameList.releaseMonitor();
@@ -1503,8 +1788,24 @@ public class SOCServer extends Server
                             messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Total Users: " + numberOfUsers));
                             messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Games started: " + numberOfGamesStarted));
                             messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Games finished: " + numberOfGamesFinished));
+
+                            if (gameHibernator != null)
+                            {
+                                messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Games hibernated: " + gameHibernator.getNumHibernated()));
+                            }
+
+                            messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Messages treated: " + metrics.getMessagesTreated()));
+                            messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Queue wait: " + metrics.getInQueueWaitMeanMicros() + " us average, " + metrics.getInQueueWaitP99Micros() + " us 99th percentile"));
                             messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Total Memory: " + rt.totalMemory()));
                             messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Free Memory: " + rt.freeMemory()));
+
+                            if (dbExecutor != null)
+                            {
+                                SOCDBCache pc = SOCDBHelper.getPasswordCache();
+                                SOCDBCache rpc = SOCDBHelper.getRobotParamsCache();
+                                messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Password cache: " + pc.getHits() + " hits, " + pc.getMisses() + " misses (" + pc.getHitRate() + "%)"));
+                                messageToGame(gameTextMsgMes.getGame(), new SOCGameTextMsg(gameTextMsgMes.getGame(), SERVERNAME, "> Robot params cache: " + rpc.getHits() + " hits, " + rpc.getMisses() + " misses (" + rpc.getHitRate() + "%)"));
+                            }
                         }
                         else if (gameTextMsgMes.getText().startsWith("*GC*"))
                         {
@@ -1515,6 +1816,22 @@ public class SOCServer extends Server
                         }
                         else if (gameTextMsgMes.getText().startsWith("*STOP*"))
                         {
+                            if (dbWriter != null)
+                            {
+                                dbWriter.flush();
+                            }
+
+                            if (journalWriter != null)
+                            {
+                                journalWriter.stopWriting();
+                            }
+
+                            if (snapshotWriter != null)
+                            {
+                                takeSnapshots();
+                                snapshotWriter.stopWriting();
+                            }
+
                             try
                             {
                                 SOCDBHelper.cleanup();
@@ -1552,7 +1869,11 @@ public class SOCServer extends Server
                             while (robotsEnum.hasMoreElements())
                             {
                                 Connection robotConn = (Connection) robotsEnum.nextElement();
-                                D.ebugPrintln("&&& '" + botName + "' == '" + robotConn.data + "' is " + (botName.equals((String) robotConn.data)));
+
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("&&& '" + botName + "' == '" + robotConn.data + "' is " + (botName.equals((String) robotConn.data)));
+                                }
 
                                 if (botName.equals((String) robotConn.data))
                                 {
@@ -1575,7 +1896,11 @@ public class SOCServer extends Server
                             while (robotsEnum.hasMoreElements())
                             {
                                 Connection robotConn = (Connection) robotsEnum.nextElement();
-                                D.ebugPrintln("&&& '" + botName + "' == '" + robotConn.data + "' is " + (botName.equals((String) robotConn.data)));
+
+                                if (log.isDebugEnabled())
+                                {
+                                    log.debug("&&& '" + botName + "' == '" + robotConn.data + "' is " + (botName.equals((String) robotConn.data)));
+                                }
 
                                 if (botName.equals((String) robotConn.data))
                                 {
@@ -1874,12 +2199,60 @@ public class SOCServer extends Server
 
                     break;
                 }
+
+                if (gameHibernator != null)
+                {
+                    requestRobotsForWokenGames();
+                    reportWakeFailures();
+                }
             }
+
+            failed = false;
         }
         catch (Exception e)
         {
-            D.ebugPrintln("ERROR -> " + e);
-            e.printStackTrace();
+            log.warn("Error treating a message", e);
+        }
+        finally
+        {
+            //
+            // messages that fail are timed and counted too
+            //
+            if (mes != null)
+            {
+                if (failed)
+                {
+                    metrics.messageFailed(mes.getType());
+                }
+
+                metrics.messageTreated(mes.getType(), LatencyHistogram.nowMicros() - start);
+            }
+        }
+    }
+
+    /**
+     * make a database call off the command thread.  When the
+     * call is done, the request's done() is run on the command
+     * thread.  If there's no database, both are run right away.
+     *
+     * @param request  the request
+     */
+    protected void queueDBRequest(SOCDBRequest request)
+    {
+        if (dbExecutor == null)
+        {
+            try
+            {
+                request.run();
+            }
+            finally
+            {
+                request.done();
+            }
+        }
+        else
+        {
+            dbExecutor.execute(new DBTask(request));
         }
     }
 
@@ -1890,53 +2263,40 @@ public class SOCServer extends Server
      * then send a message
      * if they're not in the db, and no password, then ok
      *
+     * The password is looked up off the command thread.  If the
+     * user checks out, the message is finished by authenticated().
+     *
      * @param c         the user's connection
+     * @param mes       the message that needs the user authenticated
      * @param userName  the user's nickname
      * @param password  the user's password
-     * @return true if the user has been authenticated
      */
-    private boolean authenticateUser(Connection c, String userName, String password)
+    private void authenticateUser(Connection c, SOCMessage mes, String userName, String password)
     {
-        String userPassword = null;
+        queueDBRequest(new AuthRequest(c, mes, userName, password));
+    }
 
-        try
-        {
-            userPassword = SOCDBHelper.getUserPassword(userName);
-        }
-        catch (SQLException sqle)
+    /**
+     * finish handling a message once the user who sent
+     * it has been authenticated
+     *
+     * @param c    the user's connection
+     * @param mes  the message
+     */
+    private void authenticated(Connection c, SOCMessage mes)
+    {
+        switch (mes.getType())
         {
-            // Indicates a db problem: don't authenticate empty password
-            c.put(SOCStatusMessage.toCmd("Problem connecting to database, please try again later."));
-            return false;
-        }
+        case SOCMessage.JOIN:
+            joinChannel(c, (SOCJoin) mes);
 
-        if (userPassword != null)
-        {
-            if (!userPassword.equals(password))
-            {
-                c.put(SOCStatusMessage.toCmd("Incorrect password for '" + userName + "'."));
+            break;
 
-                return false;
-            }
-        }
-        else if (!password.equals(""))
-        {
-            c.put(SOCStatusMessage.toCmd("No user with the nickname '" + userName + "' is registered with the system."));
+        case SOCMessage.JOINGAME:
+            joinGame(c, (SOCJoinGame) mes);
 
-            return false;
+            break;
         }
-
-        //
-        // Update the last login time
-        //
-        Date currentTime = new Date();
-
-        //SOCDBHelper.updateLastlogin(userName, currentTime.getTime());
-        //
-        // Record the login info for this user
-        //
-        //SOCDBHelper.recordLogin(userName, c.host(), currentTime.getTime());
-        return true;
     }
 
     /**
@@ -1949,7 +2309,7 @@ public class SOCServer extends Server
     {
         if (c != null)
         {
-            D.ebugPrintln("handleJOIN: " + mes);
+            log.debug("handleJOIN: {}", mes);
 
             /**
              * Check that the nickname is ok
@@ -1961,11 +2321,28 @@ public class SOCServer extends Server
                 return;
             }
 
-            if ((c.data == null) && (!authenticateUser(c, mes.getNickname(), mes.getPassword())))
+            if (c.data == null)
             {
-                return;
+                authenticateUser(c, mes, mes.getNickname(), mes.getPassword());
+            }
+            else
+            {
+                joinChannel(c, mes);
             }
+        }
+    }
 
+    /**
+     * Finish handling the "join a channel" message once
+     * the user has been authenticated
+     *
+     * @param c  the connection that sent the message
+     * @param mes  the messsage
+     */
+    private void joinChannel(Connection c, SOCJoin mes)
+    {
+        if (c != null)
+        {
             /**
              * Check that the channel name is ok
              */
@@ -2000,7 +2377,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleJOIN (connectToChannel) - " + e);
+                    log.debug("Exception in handleJOIN (connectToChannel) - {}", e);
                 }
 
                 channelList.releaseMonitorForChannel(ch);
@@ -2018,13 +2395,13 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleJOIN (createChannel) - " + e);
+                    log.debug("Exception in handleJOIN (createChannel) - {}", e);
                 }
 
                 channelList.releaseMonitor();
                 broadcast(SOCNewChannel.toCmd(ch));
                 c.put(SOCMembers.toCmd(ch, channelList.getMembers(ch)));
-                D.ebugPrintln("*** " + c.data + " joined the channel " + ch);
+                log.debug("*** {} joined the channel {}", c.data, ch);
                 channelList.takeMonitorForChannel(ch);
 
                 try
@@ -2033,7 +2410,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleJOIN (addMember) - " + e);
+                    log.debug("Exception in handleJOIN (addMember) - {}", e);
                 }
 
                 channelList.releaseMonitorForChannel(ch);
@@ -2054,7 +2431,7 @@ public class SOCServer extends Server
      */
     private void handleLEAVE(Connection c, SOCLeave mes)
     {
-        D.ebugPrintln("handleLEAVE: " + mes);
+        log.debug("handleLEAVE: {}", mes);
 
         if (c != null)
         {
@@ -2067,7 +2444,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception in handleLEAVE - " + e);
+                log.debug("Exception in handleLEAVE - {}", e);
             }
 
             channelList.releaseMonitorForChannel(mes.getChannel());
@@ -2089,33 +2466,35 @@ public class SOCServer extends Server
     {
         if (c != null)
         {
-            SOCRobotParameters params = null;
             //
-            // send the current robot parameters
+            // look up the robot parameters; the robot is
+            // added to the list when they've been sent
             //
-            try
-            {
-                params = SOCDBHelper.retrieveRobotParams(mes.getNickname());
-                D.ebugPrintln("*** Robot Parameters for " + mes.getNickname() + " = " + params);
-            }
-            catch (SQLException sqle)
-            {
-                System.err.println("Error retrieving robot parameters from db: Using defaults.");
-            }
+            queueDBRequest(new RobotParamsRequest(c, mes.getNickname()));
+        }
+    }
 
-            if (params == null)
-            {
-                params = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, 1, 1);
-            }
+    /**
+     * send a robot its parameters and add it to the robot list
+     *
+     * @param c       the robot's connection
+     * @param name    the robot's nickname
+     * @param params  the parameters from the db, or null to use the defaults
+     */
+    private void addRobot(Connection c, String name, SOCRobotParameters params)
+    {
+        if (params == null)
+        {
+            params = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, 1, 1);
+        }
 
-            c.put(SOCUpdateRobotParams.toCmd(params));
+        c.put(SOCUpdateRobotParams.toCmd(params));
 
-            //
-            // add this connection to the robot list
-            //
-            c.data = mes.getNickname();
-            robots.addElement(c);
-        }
+        //
+        // add this connection to the robot list
+        //
+        c.data = name;
+        robots.addElement(c);
     }
 
     /**
@@ -2128,7 +2507,7 @@ public class SOCServer extends Server
     {
         if (c != null)
         {
-            D.ebugPrintln("handleJOINGAME: " + mes);
+            log.debug("handleJOINGAME: {}", mes);
 
             /**
              * Check that the nickname is ok
@@ -2140,18 +2519,32 @@ public class SOCServer extends Server
                 return;
             }
 
-            if ((c.data == null) && (!authenticateUser(c, mes.getNickname(), mes.getPassword())))
+            if (c.data == null)
             {
-                return;
+                authenticateUser(c, mes, mes.getNickname(), mes.getPassword());
             }
-
-            if (c != null)
+            else
             {
-                if (c.data == null)
-                {
-                    c.data = mes.getNickname();
-                    numberOfUsers++;
-                }
+                joinGame(c, mes);
+            }
+        }
+    }
+
+    /**
+     * Finish handling the "join a game" message once
+     * the user has been authenticated
+     *
+     * @param c  the connection that sent the message
+     * @param mes  the messsage
+     */
+    private void joinGame(Connection c, SOCJoinGame mes)
+    {
+        if (c != null)
+        {
+            if (c.data == null)
+            {
+                c.data = mes.getNickname();
+                numberOfUsers++;
             }
 
             /**
@@ -2170,6 +2563,7 @@ public class SOCServer extends Server
             if (connectToGame(c, mes.getGame()))
             {
                 String gameName = mes.getGame();
+                recordGameEvent(gameName, (String) c.data, SOCJoinGame.toCmd((String) c.data, "", c.host(), gameName));
 
                 /**
                  * send the entire state of the game
@@ -2304,14 +2698,14 @@ public class SOCServer extends Server
                     }
                     catch (Exception e)
                     {
-                        D.ebugPrintln("Exception in handleJOINGAME (gameMembers) - " + e);
+                        log.debug("Exception in handleJOINGAME (gameMembers) - {}", e);
                     }
 
                     gameList.releaseMonitorForGame(gameName);
                     c.put(membersCommand);
                     c.put(SOCSetTurn.toCmd(gameName, gameData.getCurrentPlayerNumber()));
                     c.put(SOCGameState.toCmd(gameName, gameData.getGameState()));
-                    D.ebugPrintln("*** " + c.data + " joined the game " + gameName);
+                    log.debug("*** {} joined the game {}", c.data, gameName);
 
                     //messageToGame(gameName, new SOCGameTextMsg(gameName, SERVERNAME, n+" joined the game"));
                     /**
@@ -2342,7 +2736,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception in handleLEAVEGAME (isMember) - " + e);
+                log.debug("Exception in handleLEAVEGAME (isMember) - {}", e);
             }
 
             gameList.releaseMonitorForGame(mes.getGame());
@@ -2358,7 +2752,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleLEAVEGAME (leaveGame) - " + e);
+                    log.debug("Exception in handleLEAVEGAME (leaveGame) - {}", e);
                 }
 
                 gameList.releaseMonitorForGame(mes.getGame());
@@ -2498,7 +2892,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleSITDOWN - " + e);
+                    log.debug("Exception in handleSITDOWN - {}", e);
                 }
 
                 ga.releaseMonitor();
@@ -2551,144 +2945,64 @@ public class SOCServer extends Server
                 try
                 {
                     SOCPlayer player = ga.getPlayer((String) c.data);
+                    String pieceName = null;
 
-                    /**
-                     * make sure the player can do it
-                     */
-                    if (checkTurn(c, ga))
+                    switch (mes.getPieceType())
                     {
-                        /*
-                           if (D.ebugOn) {
-                           D.ebugPrintln("BEFORE");
-                           for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
-                           SOCPlayer tmpPlayer = ga.getPlayer(pn);
-                           D.ebugPrintln("Player # "+pn);
-                           for (int i = 0x22; i < 0xCC; i++) {
-                           if (tmpPlayer.isPotentialRoad(i))
-                           D.ebugPrintln("### POTENTIAL ROAD AT "+Integer.toHexString(i));
-                           }
-                           }
-                           }
-                         */
-                        switch (mes.getPieceType())
-                        {
-                        case SOCPlayingPiece.ROAD:
+                    case SOCPlayingPiece.ROAD:
+                        pieceName = "road";
 
-                            SOCRoad rd = new SOCRoad(player, mes.getCoordinates());
+                        break;
 
-                            if ((ga.getGameState() == SOCGame.START1B) || (ga.getGameState() == SOCGame.START2B) || (ga.getGameState() == SOCGame.PLACING_ROAD) || (ga.getGameState() == SOCGame.PLACING_FREE_ROAD1) || (ga.getGameState() == SOCGame.PLACING_FREE_ROAD2))
-                            {
-                                if (player.isPotentialRoad(mes.getCoordinates()))
-                                {
-                                    ga.putPiece(rd);
-
-                                    /*
-                                       if (D.ebugOn) {
-                                       D.ebugPrintln("AFTER");
-                                       for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++) {
-                                       SOCPlayer tmpPlayer = ga.getPlayer(pn);
-                                       D.ebugPrintln("Player # "+pn);
-                                       for (int i = 0x22; i < 0xCC; i++) {
-                                       if (tmpPlayer.isPotentialRoad(i))
-                                       D.ebugPrintln("### POTENTIAL ROAD AT "+Integer.toHexString(i));
-                                       }
-                                       }
-                                       }
-                                     */
-                                    messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, (String) c.data + " built a road."));
-                                    messageToGame(ga.getName(), new SOCPutPiece(mes.getGame(), player.getPlayerNumber(), SOCPlayingPiece.ROAD, mes.getCoordinates()));
-                                    broadcastGameStats(ga);
-                                    sendGameState(ga);
+                    case SOCPlayingPiece.SETTLEMENT:
+                        pieceName = "settlement";
 
-                                    if (!checkTurn(c, ga))
-                                    {
-                                        sendTurn(ga);
-                                    }
-                                }
-                                else
-                                {
-                                    D.ebugPrintln("ILLEGAL ROAD");
-                                    c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a road there."));
-                                }
-                            }
-                            else
-                            {
-                                c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a road right now."));
-                            }
+                        break;
 
-                            break;
+                    case SOCPlayingPiece.CITY:
+                        pieceName = "city";
 
-                        case SOCPlayingPiece.SETTLEMENT:
+                        break;
+                    }
 
-                            SOCSettlement se = new SOCSettlement(player, mes.getCoordinates());
+                    switch (SOCGameRules.putPiece(ga, player, mes.getPieceType(), mes.getCoordinates()))
+                    {
+                    case SOCGameRules.OK:
+                        messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, (String) c.data + " built a " + pieceName + "."));
+                        messageToGame(ga.getName(), new SOCPutPiece(mes.getGame(), player.getPlayerNumber(), mes.getPieceType(), mes.getCoordinates()));
+                        broadcastGameStats(ga);
+                        sendGameState(ga);
 
-                            if ((ga.getGameState() == SOCGame.START1A) || (ga.getGameState() == SOCGame.START2A) || (ga.getGameState() == SOCGame.PLACING_SETTLEMENT))
-                            {
-                                if (player.isPotentialSettlement(mes.getCoordinates()))
-                                {
-                                    ga.putPiece(se);
-                                    messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, (String) c.data + " built a settlement."));
-                                    messageToGame(ga.getName(), new SOCPutPiece(mes.getGame(), player.getPlayerNumber(), SOCPlayingPiece.SETTLEMENT, mes.getCoordinates()));
-                                    broadcastGameStats(ga);
-                                    sendGameState(ga);
+                        if (!checkTurn(c, ga))
+                        {
+                            sendTurn(ga);
+                        }
 
-                                    if (!checkTurn(c, ga))
-                                    {
-                                        sendTurn(ga);
-                                    }
-                                }
-                                else
-                                {
-                                    c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a settlement there."));
-                                }
-                            }
-                            else
-                            {
-                                c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a settlement right now."));
-                            }
+                        break;
 
-                            break;
+                    case SOCGameRules.NOT_YOUR_TURN:
+                        c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "It's not your turn."));
 
-                        case SOCPlayingPiece.CITY:
+                        break;
 
-                            SOCCity ci = new SOCCity(player, mes.getCoordinates());
+                    case SOCGameRules.NOT_NOW:
+                        c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a " + pieceName + " right now."));
 
-                            if (ga.getGameState() == SOCGame.PLACING_CITY)
-                            {
-                                if (player.isPotentialCity(mes.getCoordinates()))
-                                {
-                                    ga.putPiece(ci);
-                                    messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, (String) c.data + " built a city."));
-                                    messageToGame(ga.getName(), new SOCPutPiece(mes.getGame(), player.getPlayerNumber(), SOCPlayingPiece.CITY, mes.getCoordinates()));
-                                    broadcastGameStats(ga);
-                                    sendGameState(ga);
+                        break;
 
-                                    if (!checkTurn(c, ga))
-                                    {
-                                        sendTurn(ga);
-                                    }
-                                }
-                                else
-                                {
-                                    c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a city there."));
-                                }
-                            }
-                            else
-                            {
-                                c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a city right now."));
-                            }
+                    case SOCGameRules.NOT_ALLOWED:
 
-                            break;
+                        if (pieceName != null)
+                        {
+                            c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "You can't build a " + pieceName + " there."));
                         }
-                    }
-                    else
-                    {
-                        c.put(SOCGameTextMsg.toCmd(ga.getName(), SERVERNAME, "It's not your turn."));
+
+                        break;
                     }
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -2751,7 +3065,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -2853,12 +3167,12 @@ public class SOCServer extends Server
                                         }
                                     }
 
-                                    if (D.ebugOn)
+                                    if (log.isDebugEnabled())
                                     {
                                         for (int i = 0; i < robots.size();
                                                 i++)
                                         {
-                                            D.ebugPrintln("^^^ robotIndexes[" + i + "]=" + robotIndexes[i]);
+                                            log.debug("^^^ robotIndexes[" + i + "]=" + robotIndexes[i]);
                                         }
                                     }
 
@@ -2887,7 +3201,7 @@ public class SOCServer extends Server
                                                     /**
                                                      * record the request
                                                      */
-                                                    D.ebugPrintln("@@@ JOIN GAME REQUEST for " + (String) robotConn.data);
+                                                    log.debug("@@@ JOIN GAME REQUEST for {}", (String) robotConn.data);
                                                     requests.addElement(robotConn);
                                                 }
                                                 else
@@ -2921,7 +3235,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3117,7 +3431,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception in handleROLLDICE - " + e);
+                    log.debug("Exception in handleROLLDICE - {}", e);
                 }
 
                 ga.releaseMonitor();
@@ -3224,7 +3538,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3251,11 +3565,12 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
+                    int result = SOCGameRules.endTurn(ga, ga.getPlayer((String) c.data));
+
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
                     {
-                        if (ga.canEndTurn(ga.getPlayer((String) c.data).getPlayerNumber()))
+                        if (result == SOCGameRules.OK)
                         {
-                            ga.endTurn();
                             sendGameState(ga);
 
                             /**
@@ -3283,7 +3598,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3330,7 +3645,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3367,8 +3682,7 @@ public class SOCServer extends Server
 
                     if (player != null)
                     {
-                        SOCTradeOffer remadeOffer = new SOCTradeOffer(ga.getName(), player.getPlayerNumber(), offer.getTo(), offer.getGiveSet(), offer.getGetSet());
-                        player.setCurrentOffer(remadeOffer);
+                        SOCTradeOffer remadeOffer = SOCGameRules.makeOffer(ga, player, offer);
                         messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, (String) c.data + " made an offer to trade."));
 
                         SOCMakeOffer makeOfferMessage = new SOCMakeOffer(ga.getName(), remadeOffer);
@@ -3387,7 +3701,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3428,7 +3742,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3488,19 +3802,17 @@ public class SOCServer extends Server
                     {
                         int acceptingNumber = player.getPlayerNumber();
 
-                        if (ga.canMakeTrade(mes.getOfferingNumber(), acceptingNumber))
+                        if (SOCGameRules.acceptOffer(ga, player, mes.getOfferingNumber()) == SOCGameRules.OK)
                         {
-                            ga.makeTrade(mes.getOfferingNumber(), acceptingNumber);
                             reportTrade(ga, mes.getOfferingNumber(), acceptingNumber);
 
                             recordGameEvent(mes.getGame(), mes.toCmd());
 
                             /**
-                             * clear all offers
+                             * the offers were cleared
                              */
                             for (int i = 0; i < SOCGame.MAXPLAYERS; i++)
                             {
-                                ga.getPlayer(i).setCurrentOffer(null);
                                 messageToGame(ga.getName(), new SOCClearOffer(ga.getName(), i));
                             }
 
@@ -3517,7 +3829,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3544,11 +3856,12 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
+                    int result = SOCGameRules.bankTrade(ga, ga.getPlayer((String) c.data), mes.getGiveSet(), mes.getGetSet());
+
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
                     {
-                        if (ga.canMakeBankTrade(mes.getGiveSet(), mes.getGetSet()))
+                        if (result == SOCGameRules.OK)
                         {
-                            ga.makeBankTrade(mes.getGiveSet(), mes.getGetSet());
                             reportBankTrade(ga, mes.getGiveSet(), mes.getGetSet());
                         }
                         else
@@ -3563,7 +3876,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3590,19 +3903,19 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
+                    SOCPlayer player = ga.getPlayer((String) c.data);
+                    int result = SOCGameRules.buildRequest(ga, player, mes.getPieceType());
+
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
                     {
-                        if (ga.getGameState() == SOCGame.PLAY1)
+                        if (result != SOCGameRules.NOT_NOW)
                         {
-                            SOCPlayer player = ga.getPlayer((String) c.data);
-
                             switch (mes.getPieceType())
                             {
                             case SOCPlayingPiece.ROAD:
 
-                                if (ga.couldBuildRoad(player.getPlayerNumber()))
+                                if (result == SOCGameRules.OK)
                                 {
-                                    ga.buyRoad(player.getPlayerNumber());
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.CLAY, 1));
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.WOOD, 1));
                                     sendGameState(ga);
@@ -3616,9 +3929,8 @@ public class SOCServer extends Server
 
                             case SOCPlayingPiece.SETTLEMENT:
 
-                                if (ga.couldBuildSettlement(player.getPlayerNumber()))
+                                if (result == SOCGameRules.OK)
                                 {
-                                    ga.buySettlement(player.getPlayerNumber());
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.CLAY, 1));
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.SHEEP, 1));
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.WHEAT, 1));
@@ -3634,9 +3946,8 @@ public class SOCServer extends Server
 
                             case SOCPlayingPiece.CITY:
 
-                                if (ga.couldBuildCity(player.getPlayerNumber()))
+                                if (result == SOCGameRules.OK)
                                 {
-                                    ga.buyCity(player.getPlayerNumber());
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.ORE, 3));
                                     messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.WHEAT, 2));
                                     sendGameState(ga);
@@ -3661,7 +3972,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3688,17 +3999,17 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
-                    {
-                        SOCPlayer player = ga.getPlayer((String) c.data);
+                    SOCPlayer player = ga.getPlayer((String) c.data);
+                    int result = SOCGameRules.cancelBuildRequest(ga, player, mes.getPieceType());
 
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
+                    {
                         switch (mes.getPieceType())
                         {
                         case SOCPlayingPiece.ROAD:
 
-                            if (ga.getGameState() == SOCGame.PLACING_ROAD)
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.cancelBuildRoad(player.getPlayerNumber());
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.CLAY, 1));
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.WOOD, 1));
                                 sendGameState(ga);
@@ -3712,9 +4023,8 @@ public class SOCServer extends Server
 
                         case SOCPlayingPiece.SETTLEMENT:
 
-                            if (ga.getGameState() == SOCGame.PLACING_SETTLEMENT)
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.cancelBuildSettlement(player.getPlayerNumber());
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.CLAY, 1));
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.SHEEP, 1));
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.WHEAT, 1));
@@ -3730,9 +4040,8 @@ public class SOCServer extends Server
 
                         case SOCPlayingPiece.CITY:
 
-                            if (ga.getGameState() == SOCGame.PLACING_CITY)
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.cancelBuildCity(player.getPlayerNumber());
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.ORE, 3));
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.WHEAT, 2));
                                 sendGameState(ga);
@@ -3752,7 +4061,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3779,11 +4088,12 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
-                    {
-                        SOCPlayer player = ga.getPlayer((String) c.data);
+                    SOCPlayer player = ga.getPlayer((String) c.data);
+                    int result = SOCGameRules.canBuyDevCard(ga, player);
 
-                        if ((ga.getGameState() == SOCGame.PLAY1) && (ga.couldBuyDevCard(player.getPlayerNumber())))
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
+                    {
+                        if (result == SOCGameRules.OK)
                         {
                             int card = ga.buyDevCard();
                             messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.LOSE, SOCPlayerElement.ORE, 1));
@@ -3831,7 +4141,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3858,17 +4168,17 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
-                    {
-                        SOCPlayer player = ga.getPlayer((String) c.data);
+                    SOCPlayer player = ga.getPlayer((String) c.data);
+                    int result = SOCGameRules.playDevCard(ga, player, mes.getDevCard());
 
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
+                    {
                         switch (mes.getDevCard())
                         {
                         case SOCDevCardConstants.KNIGHT:
 
-                            if (ga.canPlayKnight(player.getPlayerNumber()))
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.playKnight();
                                 messageToGame(ga.getName(), new SOCDevCard(ga.getName(), player.getPlayerNumber(), SOCDevCard.PLAY, SOCDevCardConstants.KNIGHT));
                                 messageToGame(ga.getName(), new SOCSetPlayedDevCard(ga.getName(), player.getPlayerNumber(), true));
                                 messageToGame(ga.getName(), new SOCPlayerElement(ga.getName(), player.getPlayerNumber(), SOCPlayerElement.GAIN, SOCPlayerElement.NUMKNIGHTS, 1));
@@ -3885,9 +4195,8 @@ public class SOCServer extends Server
 
                         case SOCDevCardConstants.ROADS:
 
-                            if (ga.canPlayRoadBuilding(player.getPlayerNumber()))
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.playRoadBuilding();
                                 messageToGame(ga.getName(), new SOCDevCard(ga.getName(), player.getPlayerNumber(), SOCDevCard.PLAY, SOCDevCardConstants.ROADS));
                                 messageToGame(ga.getName(), new SOCSetPlayedDevCard(ga.getName(), player.getPlayerNumber(), true));
                                 messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, player.getName() + " played a Road Building card."));
@@ -3902,9 +4211,8 @@ public class SOCServer extends Server
 
                         case SOCDevCardConstants.DISC:
 
-                            if (ga.canPlayDiscovery(player.getPlayerNumber()))
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.playDiscovery();
                                 messageToGame(ga.getName(), new SOCDevCard(ga.getName(), player.getPlayerNumber(), SOCDevCard.PLAY, SOCDevCardConstants.DISC));
                                 messageToGame(ga.getName(), new SOCSetPlayedDevCard(ga.getName(), player.getPlayerNumber(), true));
                                 messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, player.getName() + " played a Discovery card."));
@@ -3919,9 +4227,8 @@ public class SOCServer extends Server
 
                         case SOCDevCardConstants.MONO:
 
-                            if (ga.canPlayMonopoly(player.getPlayerNumber()))
+                            if (result == SOCGameRules.OK)
                             {
-                                ga.playMonopoly();
                                 messageToGame(ga.getName(), new SOCDevCard(ga.getName(), player.getPlayerNumber(), SOCDevCard.PLAY, SOCDevCardConstants.MONO));
                                 messageToGame(ga.getName(), new SOCSetPlayedDevCard(ga.getName(), player.getPlayerNumber(), true));
                                 messageToGame(ga.getName(), new SOCGameTextMsg(ga.getName(), SERVERNAME, player.getName() + " played a Monopoly card."));
@@ -3942,7 +4249,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -3969,13 +4276,13 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
-                    {
-                        SOCPlayer player = ga.getPlayer((String) c.data);
+                    SOCPlayer player = ga.getPlayer((String) c.data);
+                    int result = SOCGameRules.discoveryPick(ga, player, mes.getResources());
 
-                        if (ga.canDoDiscoveryAction(mes.getResources()))
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
+                    {
+                        if (result == SOCGameRules.OK)
                         {
-                            ga.doDiscoveryAction(mes.getResources());
 
                             String message = (String) c.data + " received ";
                             int cl;
@@ -4055,7 +4362,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -4082,11 +4389,12 @@ public class SOCServer extends Server
 
                 try
                 {
-                    if (checkTurn(c, ga))
+                    int result = SOCGameRules.monopolyPick(ga, ga.getPlayer((String) c.data), mes.getResource());
+
+                    if (result != SOCGameRules.NOT_YOUR_TURN)
                     {
-                        if (ga.canDoMonopolyAction())
+                        if (result == SOCGameRules.OK)
                         {
-                            ga.doMonopolyAction(mes.getResource());
 
                             String message = (String) c.data + " monopolized ";
 
@@ -4146,7 +4454,7 @@ public class SOCServer extends Server
                 }
                 catch (Exception e)
                 {
-                    D.ebugPrintln("Exception caught - " + e);
+                    log.debug("Exception caught - {}", e);
                     e.printStackTrace();
                 }
 
@@ -4223,52 +4531,10 @@ public class SOCServer extends Server
     {
         //
         // check to see if there is an account with
-        // the requested nickname
-        //
-        String userPassword = null;
-
-        try
-        {
-            userPassword = SOCDBHelper.getUserPassword(mes.getNickname());
-        }
-        catch (SQLException sqle)
-        {
-            // Indicates a db problem: don't continue
-            c.put(SOCStatusMessage.toCmd("Problem connecting to database, please try again later."));
-            return;
-        }
-
-        if (userPassword != null)
-        {
-            c.put(SOCStatusMessage.toCmd("The nickname '" + mes.getNickname() + "' is already in use."));
-
-            return;
-        }
-
-        //
-        // create the account
+        // the requested nickname, and if not create it
         //
         Date currentTime = new Date();
-
-        boolean success = false;
-
-        try
-        {
-            success = SOCDBHelper.createAccount(mes.getNickname(), c.host(), mes.getPassword(), mes.getEmail(), currentTime.getTime());
-        }
-        catch (SQLException sqle)
-        {
-            System.err.println("Error creating account in db.");
-        }
-
-        if (success)
-        {
-            c.put(SOCStatusMessage.toCmd("Account created for '" + mes.getNickname() + "'."));
-        }
-        else
-        {
-            c.put(SOCStatusMessage.toCmd("Account not created due to error."));
-        }
+        queueDBRequest(new CreateAccountRequest(c, mes, currentTime.getTime()));
     }
 
     /**
@@ -4296,7 +4562,7 @@ public class SOCServer extends Server
                 SOCSitDown sitMessage = new SOCSitDown(ga.getName(), (String) c.data, pn, robot);
                 messageToGame(ga.getName(), sitMessage);
 
-                D.ebugPrintln("*** sent SOCSitDown message to game ***");
+                log.debug("*** sent SOCSitDown message to game ***");
 
                 recordGameEvent(ga.getName(), sitMessage.toCmd());
 
@@ -4490,7 +4756,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception caught - " + e);
+                log.debug("Exception caught - {}", e);
                 e.printStackTrace();
             }
 
@@ -5154,6 +5420,7 @@ public class SOCServer extends Server
         if (ga != null)
         {
             numberOfGamesStarted++;
+            recordGameEvent(ga.getName(), SOCStartGame.toCmd(ga.getName()));
             ga.startGame();
 
             /**
@@ -5309,18 +5576,58 @@ public class SOCServer extends Server
             if ((ga.getGameState() == SOCGame.OVER) && (ga.allOriginalPlayers()))
             {
                 //if (ga.allOriginalPlayers()) {				
-                try
-                {
-                    SOCDBHelper.saveGameScores(ga.getName(), ga.getPlayer(0).getName(), ga.getPlayer(1).getName(), ga.getPlayer(2).getName(), ga.getPlayer(3).getName(), (short) ga.getPlayer(0).getTotalVP(), (short) ga.getPlayer(1).getTotalVP(), (short) ga.getPlayer(2).getTotalVP(), (short) ga.getPlayer(3).getTotalVP(), ga.getStartTime());
-                }
-                catch (SQLException sqle)
+                if (dbWriter != null)
                 {
-                    System.err.println("Error saving game scores in db.");
+                    String[] names = new String[SOCGame.MAXPLAYERS];
+                    short[] scores = new short[SOCGame.MAXPLAYERS];
+
+                    for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+                    {
+                        names[pn] = ga.getPlayer(pn).getName();
+                        scores[pn] = (short) ga.getPlayer(pn).getTotalVP();
+                    }
+
+                    dbWriter.add(SOCDBWrite.saveGameScores(ga.getName(), names, scores, ga.getStartTime()));
                 }
             }
         }
     }
 
+    /**
+     * start the journal for a new game.  The game's seed goes in
+     * the journal so that the game can be replayed.
+     *
+     * @param gameName  the name of the game
+     */
+    protected void openJournal(String gameName)
+    {
+        if (journalWriter != null)
+        {
+            SOCGameJournal journal = journalWriter.open(gameName, gameList.getGameData(gameName).getSeed());
+
+            if (journal != null)
+            {
+                gameJournals.put(gameName, journal);
+            }
+        }
+    }
+
+    /**
+     * finish the journal for a game that's being destroyed.
+     * it's deleted when the journal writer stops keeping it.
+     *
+     * @param gameName  the name of the game
+     */
+    protected void closeJournal(String gameName)
+    {
+        SOCGameJournal journal = (SOCGameJournal) gameJournals.remove(gameName);
+
+        if (journal != null)
+        {
+            journalWriter.finish(journal);
+        }
+    }
+
     /**
      * record events that happen during the game
      *
@@ -5329,96 +5636,519 @@ public class SOCServer extends Server
      */
     protected void recordGameEvent(String gameName, String event)
     {
-        /*
-           FileWriter fw = (FileWriter)gameDataFiles.get(gameName);
-           if (fw != null) {
-           try {
-           fw.write(event+"\n");
-           //D.ebugPrintln("WROTE |"+event+"|");
-           } catch (Exception e) {
-           D.ebugPrintln(e.toString());
-           D.ebugPrintln("Unable to write to disk.");
-           }
-           }
-         */
+        recordGameEvent(gameName, null, event);
     }
 
     /**
-     * this is a debugging command that gives resources to a player
+     * record events that happen during the game in its journal
+     *
+     * @param gameName   the name of the game
+     * @param player     who caused the event, or null for the server
+     * @param event      the event
      */
-    protected void giveResources(String mes, SOCGame game)
+    protected void recordGameEvent(String gameName, String player, String event)
     {
-        StringTokenizer st = new StringTokenizer(mes.substring(6));
-        int[] resources = new int[SOCResourceConstants.WOOD + 1];
-        int resourceType = SOCResourceConstants.CLAY;
-        String name = "";
+        SOCGameJournal journal = (SOCGameJournal) gameJournals.get(gameName);
 
-        while (st.hasMoreTokens())
+        if (journal != null)
         {
-            String token = st.nextToken();
+            journal.record(player, event);
+        }
 
-            if (resourceType <= SOCResourceConstants.WOOD)
-            {
-                resources[resourceType] = Integer.parseInt(token);
-                resourceType++;
-            }
-            else
+        if (snapshotWriter != null)
+        {
+            snapshotWriter.changed(gameName);
+        }
+    }
+
+    /**
+     * take snapshots of the games that have changed since
+     * their last snapshot and hand them to the snapshot writer.
+     * this is called on the command thread, so each snapshot
+     * matches the game's journal.
+     */
+    protected void takeSnapshots()
+    {
+        Vector names = snapshotWriter.takeChanged();
+
+        gameList.takeMonitor();
+
+        try
+        {
+            for (int i = 0; i < names.size(); i++)
             {
-                name = token;
+                String gameName = (String) names.elementAt(i);
 
-                break;
+                if (gameList.isHibernating(gameName))
+                {
+                    continue;
+                }
+
+                SOCGame ga = gameList.getGameData(gameName);
+
+                if (ga != null)
+                {
+                    snapshotWriter.put(gameName, SOCSnapshotWriter.makeSnapshot(ga, (SOCGameJournal) gameJournals.get(gameName)));
+                }
             }
         }
+        catch (Exception e)
+        {
+            log.warn("Exception in takeSnapshots", e);
+        }
 
-        SOCResourceSet rset = game.getPlayer(name).getResources();
-        int pnum = game.getPlayer(name).getPlayerNumber();
-        String outMes = "### " + name + " got";
+        gameList.releaseMonitor();
+    }
 
-        for (resourceType = SOCResourceConstants.CLAY;
-                resourceType <= SOCResourceConstants.WOOD; resourceType++)
-        {
-            rset.add(resources[resourceType], resourceType);
-            outMes += (" " + resources[resourceType]);
+    /**
+     * Pick up the games that were going on when the server last
+     * stopped.  Each game is read from its snapshot, then the
+     * events its journal recorded after the snapshot are
+     * replayed, and the journal is carried on.  Everyone's seat
+     * is left empty with their pieces and cards still there, so
+     * they can join the game and sit back down.
+     */
+    protected void recoverGames()
+    {
+        long start = System.currentTimeMillis();
+        File[] files = snapshotWriter.listFiles();
+        int numRecovered = 0;
 
-            switch (resourceType)
+        for (int i = 0; i < files.length; i++)
+        {
+            try
             {
-            case SOCResourceConstants.CLAY:
-                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.CLAY, resources[resourceType]));
+                SOCSnapshotWriter.Snapshot snap = SOCSnapshotWriter.read(files[i]);
+                SOCGame ga = snap.game;
+                String gameName = ga.getName();
+                SOCGameJournal journal = null;
 
-                break;
+                if ((snap.journalFile != null) && snap.journalFile.exists())
+                {
+                    SOCGameJournal.Recording rec = SOCGameJournal.read(snap.journalFile, snap.seq);
+                    SOCGameReplayer replayer = new SOCGameReplayer(rec);
+                    replayer.resume(ga, snap.seq);
+                    replayer.replayAll();
 
-            case SOCResourceConstants.ORE:
-                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.ORE, resources[resourceType]));
+                    if (journalWriter != null)
+                    {
+                        journal = journalWriter.resume(snap.journalFile, rec);
+                    }
+                }
 
-                break;
+                if (gameList.isGame(gameName) || (ga.getGameState() == SOCGame.OVER))
+                {
+                    if (journal != null)
+                    {
+                        journalWriter.finish(journal);
+                    }
 
-            case SOCResourceConstants.SHEEP:
-                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.SHEEP, resources[resourceType]));
+                    files[i].delete();
 
-                break;
+                    continue;
+                }
 
-            case SOCResourceConstants.WHEAT:
-                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.WHEAT, resources[resourceType]));
+                gameList.restoreGame(ga);
 
-                break;
+                if (journal != null)
+                {
+                    gameJournals.put(gameName, journal);
+                }
 
-            case SOCResourceConstants.WOOD:
-                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.WOOD, resources[resourceType]));
+                for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+                {
+                    if (!ga.isSeatVacant(pn))
+                    {
+                        String nickname = ga.getPlayer(pn).getName();
+                        ga.removePlayer(nickname);
+                        recordGameEvent(gameName, SOCLeaveGame.toCmd(nickname, SERVERNAME, gameName));
+                    }
+                }
 
-                break;
+                numRecovered++;
+            }
+            catch (Exception e)
+            {
+                System.err.println("Unable to recover a game from " + files[i] + ": " + e);
             }
         }
 
-        messageToGame(game.getName(), new SOCGameTextMsg(game.getName(), SERVERNAME, outMes));
+        if (files.length > 0)
+        {
+            System.err.println("Recovered " + numRecovered + " of " + files.length + " games in " + (System.currentTimeMillis() - start) + " ms.");
+        }
     }
 
     /**
-     * this broadcasts game information to all people connected
-     * used to display the scores on the player client
+     * Hibernate the games that haven't been used since a given
+     * time.  Only games that are waiting on people are
+     * hibernated: games that haven't started, games that are
+     * over, and games where it's a person's turn to play.  The
+     * robots in the game are sent away, so they can drop their
+     * brains for it, and are asked back when it wakes up.
+     *
+     * @param since  the time
+     * @return the number of games hibernated
      */
-    protected void broadcastGameStats(SOCGame ga)
+    protected int hibernateIdleGames(long since)
     {
-        /*
+        Vector idle = gameList.getIdleGames(since);
+        int numHibernated = 0;
+
+        if (idle.isEmpty())
+        {
+            return 0;
+        }
+
+        gameList.takeMonitor();
+
+        for (int i = 0; i < idle.size(); i++)
+        {
+            String gameName = (String) idle.elementAt(i);
+            SOCGame ga = gameList.getGameData(gameName);
+
+            if ((ga == null) || !canHibernate(ga))
+            {
+                continue;
+            }
+
+            try
+            {
+                for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+                {
+                    if (!ga.isSeatVacant(pn) && ga.getPlayer(pn).isRobot())
+                    {
+                        dismissRobot(ga, pn);
+                    }
+                }
+
+                snapshotWriter.writeNow(gameName, SOCSnapshotWriter.makeSnapshot(ga, (SOCGameJournal) gameJournals.get(gameName)));
+                gameList.hibernate(gameName, snapshotWriter.getFile(gameName));
+                numHibernated++;
+            }
+            catch (Exception e)
+            {
+                // the game stays awake, so it needs its robots back
+                log.warn("Unable to hibernate game " + gameName, e);
+                requestRobots(ga);
+            }
+        }
+
+        gameList.releaseMonitor();
+
+        return numHibernated;
+    }
+
+    /**
+     * @return true if a game is only waiting on people, so it
+     *         can be hibernated
+     *
+     * @param ga  the game
+     */
+    protected static boolean canHibernate(SOCGame ga)
+    {
+        int gameState = ga.getGameState();
+
+        if ((gameState < SOCGame.START1A) || (gameState == SOCGame.OVER))
+        {
+            return true;
+        }
+
+        if ((gameState != SOCGame.PLAY) && (gameState != SOCGame.PLAY1))
+        {
+            return false;
+        }
+
+        int cpn = ga.getCurrentPlayerNumber();
+
+        return ga.isSeatVacant(cpn) || !ga.getPlayer(cpn).isRobot();
+    }
+
+    /**
+     * Send a robot away from a game that's going to hibernate.
+     * Its seat is left empty with the robot flag still set, so
+     * the seat can be filled by a robot when the game wakes up.
+     *
+     * WARNING: MUST HAVE THE gameList.takeMonitor() before
+     * calling this method
+     *
+     * @param ga  the game
+     * @param pn  the robot's seat
+     */
+    protected void dismissRobot(SOCGame ga, int pn)
+    {
+        String gameName = ga.getName();
+        String robotName = ga.getPlayer(pn).getName();
+        Connection robotCon = null;
+        Enumeration conEnum = gameList.getMembers(gameName).elements();
+
+        while (conEnum.hasMoreElements())
+        {
+            Connection con = (Connection) conEnum.nextElement();
+
+            if (robotName.equals((String) con.data))
+            {
+                robotCon = con;
+
+                break;
+            }
+        }
+
+        ga.removePlayer(robotName);
+
+        SOCLeaveGame leaveMessage;
+
+        if (robotCon != null)
+        {
+            gameList.removeMember(robotCon, gameName);
+            robotCon.put(SOCRobotDismiss.toCmd(gameName));
+            leaveMessage = new SOCLeaveGame(robotName, robotCon.host(), gameName);
+        }
+        else
+        {
+            leaveMessage = new SOCLeaveGame(robotName, SERVERNAME, gameName);
+        }
+
+        messageToGame(gameName, leaveMessage);
+        recordGameEvent(gameName, leaveMessage.toCmd());
+    }
+
+    /**
+     * ask robots to come back to the seats they left in
+     * games that have woken up
+     */
+    protected void requestRobotsForWokenGames()
+    {
+        Vector woken = gameList.takeWoken();
+
+        for (int i = 0; i < woken.size(); i++)
+        {
+            SOCGame ga = gameList.getGameData((String) woken.elementAt(i));
+
+            if (ga != null)
+            {
+                requestRobots(ga);
+            }
+        }
+    }
+
+    /**
+     * ask robots to come back to the seats they left in a game,
+     * if it has started and isn't over
+     *
+     * @param ga  the game
+     */
+    protected void requestRobots(SOCGame ga)
+    {
+        if ((ga.getGameState() < SOCGame.START1A) || (ga.getGameState() == SOCGame.OVER))
+        {
+            return;
+        }
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            if (ga.isSeatVacant(pn) && ga.getPlayer(pn).isRobot())
+            {
+                requestRobot(ga, pn);
+            }
+        }
+    }
+
+    /**
+     * tell the members of games that couldn't be woken up
+     * that their game can't be played right now.  the game
+     * stays hibernating, so it's tried again the next time
+     * it's used.
+     */
+    protected void reportWakeFailures()
+    {
+        Vector failed = gameList.takeWakeFailures();
+
+        for (int i = 0; i < failed.size(); i++)
+        {
+            String gameName = (String) failed.elementAt(i);
+            log.error("Unable to wake game {}", gameName);
+            messageToGame(gameName, new SOCGameTextMsg(gameName, SERVERNAME, ">>> This game couldn't be read back in from its snapshot.  It can't be played until it is."));
+        }
+    }
+
+    /**
+     * ask a robot that isn't in a game or already asked to join
+     * it to sit down in one of its seats
+     *
+     * @param ga  the game
+     * @param pn  the seat
+     * @return true if a robot was asked
+     */
+    protected boolean requestRobot(SOCGame ga, int pn)
+    {
+        String gameName = ga.getName();
+        Vector requests = (Vector) robotJoinRequests.get(gameName);
+        int numRobots = robots.size();
+        int start = (numRobots == 0) ? 0 : Math.abs(rand.nextInt() % numRobots);
+
+        for (int i = 0; i < numRobots; i++)
+        {
+            Connection robotConn = (Connection) robots.elementAt((start + i) % numRobots);
+
+            if ((ga.getPlayer((String) robotConn.data) != null) || ((requests != null) && requests.contains(robotConn)))
+            {
+                continue;
+            }
+
+            if (robotConn.put(SOCJoinGameRequest.toCmd(gameName, pn)))
+            {
+                if (requests == null)
+                {
+                    requests = new Vector();
+                    robotJoinRequests.put(gameName, requests);
+                }
+
+                requests.addElement(robotConn);
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the game a message changes, if it's one that goes
+     *         in the game's journal, or null if it isn't.  Joining
+     *         and leaving games are recorded where they happen.
+     *
+     * @param mes  the message
+     */
+    protected static String getJournalGame(SOCMessage mes)
+    {
+        switch (mes.getType())
+        {
+        case SOCMessage.GAMETEXTMSG:
+            return ((SOCGameTextMsg) mes).getGame();
+
+        case SOCMessage.SITDOWN:
+            return ((SOCSitDown) mes).getGame();
+
+        case SOCMessage.PUTPIECE:
+            return ((SOCPutPiece) mes).getGame();
+
+        case SOCMessage.MOVEROBBER:
+            return ((SOCMoveRobber) mes).getGame();
+
+        case SOCMessage.STARTGAME:
+            return ((SOCStartGame) mes).getGame();
+
+        case SOCMessage.ROLLDICE:
+            return ((SOCRollDice) mes).getGame();
+
+        case SOCMessage.DISCARD:
+            return ((SOCDiscard) mes).getGame();
+
+        case SOCMessage.ENDTURN:
+            return ((SOCEndTurn) mes).getGame();
+
+        case SOCMessage.CHOOSEPLAYER:
+            return ((SOCChoosePlayer) mes).getGame();
+
+        case SOCMessage.MAKEOFFER:
+            return ((SOCMakeOffer) mes).getGame();
+
+        case SOCMessage.CLEAROFFER:
+            return ((SOCClearOffer) mes).getGame();
+
+        case SOCMessage.REJECTOFFER:
+            return ((SOCRejectOffer) mes).getGame();
+
+        case SOCMessage.ACCEPTOFFER:
+            return ((SOCAcceptOffer) mes).getGame();
+
+        case SOCMessage.BANKTRADE:
+            return ((SOCBankTrade) mes).getGame();
+
+        case SOCMessage.BUILDREQUEST:
+            return ((SOCBuildRequest) mes).getGame();
+
+        case SOCMessage.CANCELBUILDREQUEST:
+            return ((SOCCancelBuildRequest) mes).getGame();
+
+        case SOCMessage.BUYCARDREQUEST:
+            return ((SOCBuyCardRequest) mes).getGame();
+
+        case SOCMessage.PLAYDEVCARDREQUEST:
+            return ((SOCPlayDevCardRequest) mes).getGame();
+
+        case SOCMessage.DISCOVERYPICK:
+            return ((SOCDiscoveryPick) mes).getGame();
+
+        case SOCMessage.MONOPOLYPICK:
+            return ((SOCMonopolyPick) mes).getGame();
+
+        case SOCMessage.CHANGEFACE:
+            return ((SOCChangeFace) mes).getGame();
+
+        case SOCMessage.SETSEATLOCK:
+            return ((SOCSetSeatLock) mes).getGame();
+
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * this is a debugging command that gives resources to a player
+     */
+    protected void giveResources(String mes, SOCGame game)
+    {
+        int[] resources = new int[SOCResourceConstants.WOOD + 1];
+        SOCPlayer player = SOCGameRules.giveResources(game, mes, resources);
+        int pnum = player.getPlayerNumber();
+        String outMes = "### " + player.getName() + " got";
+
+        for (int resourceType = SOCResourceConstants.CLAY;
+                resourceType <= SOCResourceConstants.WOOD; resourceType++)
+        {
+            outMes += (" " + resources[resourceType]);
+
+            switch (resourceType)
+            {
+            case SOCResourceConstants.CLAY:
+                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.CLAY, resources[resourceType]));
+
+                break;
+
+            case SOCResourceConstants.ORE:
+                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.ORE, resources[resourceType]));
+
+                break;
+
+            case SOCResourceConstants.SHEEP:
+                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.SHEEP, resources[resourceType]));
+
+                break;
+
+            case SOCResourceConstants.WHEAT:
+                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.WHEAT, resources[resourceType]));
+
+                break;
+
+            case SOCResourceConstants.WOOD:
+                messageToGame(game.getName(), new SOCPlayerElement(game.getName(), pnum, SOCPlayerElement.GAIN, SOCPlayerElement.WOOD, resources[resourceType]));
+
+                break;
+            }
+        }
+
+        messageToGame(game.getName(), new SOCGameTextMsg(game.getName(), SERVERNAME, outMes));
+    }
+
+    /**
+     * this broadcasts game information to all people connected
+     * used to display the scores on the player client
+     */
+    protected void broadcastGameStats(SOCGame ga)
+    {
+        /*
            if (ga != null) {
            int scores[] = new int[SOCGame.MAXPLAYERS];
            boolean robots[] = new boolean[SOCGame.MAXPLAYERS];
@@ -5457,9 +6187,9 @@ public class SOCServer extends Server
             for (Enumeration k = gameList.getGames(); k.hasMoreElements();)
             {
                 String gameName = (String) k.nextElement();
-                SOCGame gameData = gameList.getGameData(gameName);
+                long expiration = gameList.getExpiration(gameName);
 
-                if (gameData.getExpiration() <= System.currentTimeMillis())
+                if (expiration <= System.currentTimeMillis())
                 {
                     expired.addElement(gameName);
                     messageToGame(gameName, new SOCGameTextMsg(gameName, SERVERNAME, ">>> The time limit on this game has expired and will now be destroyed."));
@@ -5468,16 +6198,16 @@ public class SOCServer extends Server
                 //
                 //  Give people a 5 minute warning
                 //
-                if ((gameData.getExpiration() - 300000) <= System.currentTimeMillis())
+                if ((expiration - 300000) <= System.currentTimeMillis())
                 {
-                    gameData.setExpiration(System.currentTimeMillis() + 300000);
+                    gameList.getGameData(gameName).setExpiration(System.currentTimeMillis() + 300000);
                     messageToGame(gameName, new SOCGameTextMsg(gameName, SERVERNAME, ">>> Less than 5 minutes remaining.  Type *ADDTIME* to extend this game another 30 minutes."));
                 }
             }
         }
         catch (Exception e)
         {
-            D.ebugPrintln("Exception in checkForExpiredGames - " + e);
+            log.debug("Exception in checkForExpiredGames - {}", e);
         }
 
         gameList.releaseMonitor();
@@ -5496,7 +6226,7 @@ public class SOCServer extends Server
             }
             catch (Exception e)
             {
-                D.ebugPrintln("Exception in checkForExpired - " + e);
+                log.debug("Exception in checkForExpired - {}", e);
             }
 
             gameList.releaseMonitor();
@@ -5508,33 +6238,245 @@ public class SOCServer extends Server
      */
     protected void giveDevCard(String mes, SOCGame game)
     {
-        StringTokenizer st = new StringTokenizer(mes.substring(5));
-        String name = "";
-        int cardType = -1;
+        int[] card = new int[1];
+        SOCPlayer player = SOCGameRules.giveDevCard(game, mes, card);
+        int cardType = card[0];
+        int pnum = player.getPlayerNumber();
+        String outMes = "### " + player.getName() + " got a " + cardType + " card.";
+        messageToGame(game.getName(), new SOCDevCard(game.getName(), pnum, SOCDevCard.DRAW, cardType));
+        messageToGame(game.getName(), new SOCGameTextMsg(game.getName(), SERVERNAME, outMes));
+    }
+
+    /**
+     * runs a database request on a database thread, then
+     * hands it to the command thread to be finished, even
+     * if the request failed
+     */
+    class DBTask implements Runnable
+    {
+        SOCDBRequest request;
+        boolean queried;
 
-        while (st.hasMoreTokens())
+        DBTask(SOCDBRequest r)
         {
-            String token = st.nextToken();
+            request = r;
+            queried = false;
+        }
 
-            if (cardType < 0)
+        public void run()
+        {
+            if (!queried)
             {
-                cardType = Integer.parseInt(token);
+                try
+                {
+                    request.run();
+                }
+                finally
+                {
+                    queried = true;
+                    invokeLater(this);
+                }
             }
             else
             {
-                name = token;
+                request.done();
+            }
+        }
+    }
 
-                break;
+    /**
+     * looks up a user's password to authenticate them
+     */
+    class AuthRequest extends SOCDBRequest
+    {
+        Connection c;
+        SOCMessage mes;
+        String userName;
+        String password;
+        String userPassword;
+
+        AuthRequest(Connection con, SOCMessage m, String un, String pw)
+        {
+            c = con;
+            mes = m;
+            userName = un;
+            password = pw;
+            userPassword = null;
+        }
+
+        protected void query() throws SQLException
+        {
+            userPassword = SOCDBHelper.getUserPassword(userName);
+        }
+
+        public void done()
+        {
+            if (!c.isConnected())
+            {
+                return;
+            }
+
+            if (getError() != null)
+            {
+                // Indicates a db problem: don't authenticate empty password
+                c.put(SOCStatusMessage.toCmd("Problem connecting to database, please try again later."));
+
+                return;
+            }
+
+            if (userPassword != null)
+            {
+                if (!userPassword.equals(password))
+                {
+                    c.put(SOCStatusMessage.toCmd("Incorrect password for '" + userName + "'."));
+
+                    return;
+                }
+            }
+            else if (!password.equals(""))
+            {
+                c.put(SOCStatusMessage.toCmd("No user with the nickname '" + userName + "' is registered with the system."));
+
+                return;
             }
+
+            /**
+             * someone may have taken the nickname while
+             * we were looking it up
+             */
+            if ((c.data == null) && (!checkNickname(userName)))
+            {
+                c.put(SOCStatusMessage.toCmd("Someone with that nickname is already logged into the system."));
+
+                return;
+            }
+
+            if (dbWriter != null)
+            {
+                //
+                // Update the last login time
+                //
+                Date currentTime = new Date();
+
+                dbWriter.add(SOCDBWrite.updateLastlogin(userName, currentTime.getTime()));
+                //
+                // Record the login info for this user
+                //
+                dbWriter.add(SOCDBWrite.recordLogin(userName, c.host(), currentTime.getTime()));
+            }
+
+            authenticated(c, mes);
         }
+    }
 
-        SOCDevCardSet dcSet = game.getPlayer(name).getDevCards();
-        dcSet.add(1, SOCDevCardSet.NEW, cardType);
+    /**
+     * looks up a robot's parameters
+     */
+    class RobotParamsRequest extends SOCDBRequest
+    {
+        Connection c;
+        String name;
+        SOCRobotParameters params;
 
-        int pnum = game.getPlayer(name).getPlayerNumber();
-        String outMes = "### " + name + " got a " + cardType + " card.";
-        messageToGame(game.getName(), new SOCDevCard(game.getName(), pnum, SOCDevCard.DRAW, cardType));
-        messageToGame(game.getName(), new SOCGameTextMsg(game.getName(), SERVERNAME, outMes));
+        RobotParamsRequest(Connection con, String n)
+        {
+            c = con;
+            name = n;
+            params = null;
+        }
+
+        protected void query() throws SQLException
+        {
+            params = SOCDBHelper.retrieveRobotParams(name);
+        }
+
+        public void done()
+        {
+            if (!c.isConnected())
+            {
+                return;
+            }
+
+            if (getError() != null)
+            {
+                System.err.println("Error retrieving robot parameters from db: Using defaults.");
+            }
+            else
+            {
+                log.debug("*** Robot Parameters for {} = {}", name, params);
+            }
+
+            addRobot(c, name, params);
+        }
+    }
+
+    /**
+     * creates an account if the nickname isn't taken
+     */
+    class CreateAccountRequest extends SOCDBRequest
+    {
+        Connection c;
+        String host;
+        SOCCreateAccount mes;
+        long time;
+        boolean inUse;
+        boolean success;
+
+        CreateAccountRequest(Connection con, SOCCreateAccount m, long t)
+        {
+            c = con;
+            host = con.host();
+            mes = m;
+            time = t;
+            inUse = true;
+            success = false;
+        }
+
+        protected void query() throws SQLException
+        {
+            synchronized (accountLock)
+            {
+                if (SOCDBHelper.getUserPassword(mes.getNickname()) != null)
+                {
+                    return;
+                }
+
+                inUse = false;
+                success = SOCDBHelper.createAccount(mes.getNickname(), host, mes.getPassword(), mes.getEmail(), time);
+            }
+        }
+
+        public void done()
+        {
+            if (inUse)
+            {
+                if (getError() != null)
+                {
+                    // Indicates a db problem: don't continue
+                    c.put(SOCStatusMessage.toCmd("Problem connecting to database, please try again later."));
+                }
+                else
+                {
+                    c.put(SOCStatusMessage.toCmd("The nickname '" + mes.getNickname() + "' is already in use."));
+                }
+
+                return;
+            }
+
+            if (getError() != null)
+            {
+                System.err.println("Error creating account in db.");
+            }
+
+            if (success)
+            {
+                c.put(SOCStatusMessage.toCmd("Account created for '" + mes.getNickname() + "'."));
+            }
+            else
+            {
+                c.put(SOCStatusMessage.toCmd("Account not created due to error."));
+            }
+        }
     }
 
     /**
@@ -5546,10 +6488,19 @@ public class SOCServer extends Server
     {
         int port;
         int mc;
+        int dbPoolSize = SOCDBHelper.DEFAULT_POOL_SIZE;
+        int dbTimeout = SOCDBHelper.DEFAULT_QUERY_TIMEOUT;
+        int dbCacheTTL = SOCDBHelper.DEFAULT_CACHE_TTL;
+        int dbCacheSize = SOCDBHelper.DEFAULT_CACHE_SIZE;
+        String journalDir = DEFAULT_JOURNAL_DIR;
+        String snapshotDir = DEFAULT_SNAPSHOT_DIR;
+        int idleTime = SOCGameHibernator.DEFAULT_IDLE_TIME;
+        int metricsPort = 0;
+        int journalKeepTime = SOCJournalWriter.DEFAULT_KEEP_TIME;
 
         if (args.length < 4)
         {
-            System.err.println("usage: java soc.server.SOCServer port_number max_connections dbUser dbPass");
+            System.err.println("usage: java soc.server.SOCServer port_number max_connections dbUser dbPass [dbPoolSize [dbTimeout [dbCacheTTL [dbCacheSize [journalDir [snapshotDir [idleSecs [metricsPort [journalKeepSecs]]]]]]]]]");
 
             return;
         }
@@ -5558,15 +6509,78 @@ public class SOCServer extends Server
         {
             port = Integer.parseInt(args[0]);
             mc = Integer.parseInt(args[1]);
+
+            if (args.length > 4)
+            {
+                dbPoolSize = Integer.parseInt(args[4]);
+            }
+
+            if (args.length > 5)
+            {
+                dbTimeout = Integer.parseInt(args[5]);
+            }
+
+            if (args.length > 6)
+            {
+                dbCacheTTL = Integer.parseInt(args[6]);
+            }
+
+            if (args.length > 7)
+            {
+                dbCacheSize = Integer.parseInt(args[7]);
+            }
+
+            //
+            // "-" means don't keep journals
+            //
+            if (args.length > 8)
+            {
+                journalDir = args[8].equals("-") ? null : args[8];
+            }
+
+            //
+            // "-" means don't keep snapshots
+            //
+            if (args.length > 9)
+            {
+                snapshotDir = args[9].equals("-") ? null : args[9];
+            }
+
+            //
+            // 0 means don't hibernate idle games
+            //
+            if (args.length > 10)
+            {
+                idleTime = Integer.parseInt(args[10]);
+            }
+
+            //
+            // 0 means don't serve the metrics as text
+            //
+            if (args.length > 11)
+            {
+                metricsPort = Integer.parseInt(args[11]);
+            }
+
+            //
+            // 0 means delete a game's journal when it ends,
+            // less than 0 means keep journals for good
+            //
+            if (args.length > 12)
+            {
+                journalKeepTime = Integer.parseInt(args[12]);
+            }
         }
         catch (Exception e)
         {
-            System.err.println("usage: java soc.server.SOCServer port_number max_connections dbUser dbPass");
+            System.err.println("usage: java soc.server.SOCServer port_number max_connections dbUser dbPass [dbPoolSize [dbTimeout [dbCacheTTL [dbCacheSize [journalDir [snapshotDir [idleSecs [metricsPort [journalKeepSecs]]]]]]]]]");
 
             return;
         }
 
-        SOCServer server = new SOCServer(port, mc, args[2], args[3]);
+        SOCDBHelper.setCacheLimits(dbCacheTTL, dbCacheSize);
+
+        SOCServer server = new SOCServer(port, mc, args[2], args[3], dbPoolSize, dbTimeout, journalDir, snapshotDir, idleTime, metricsPort, journalKeepTime);
         server.setPriority(5);
         server.start();
     }
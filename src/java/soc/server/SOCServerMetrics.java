@@ -0,0 +1,533 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.message.SOCMessage;
+
+import soc.server.genericServer.Connection;
+
+import soc.util.LatencyHistogram;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+
+/**
+ * Counters and latency histograms for the server: how long
+ * each type of message takes to treat, how long requests wait
+ * in the server's inQueue, and how many messages are waiting
+ * to go out to each connection.
+ *
+ * The metrics can be looked at through JMX, where the server is
+ * soc.server:type=Server and each message type is
+ * soc.server:type=Message,name=<type name>, or as plain text
+ * through a SOCMetricsListener.  JMX is found by reflection, so
+ * the server still runs on a Java runtime without it, and the
+ * metrics are then only served as text.
+ *
+ * Messages are timed on the command thread; the times are read
+ * from other threads.
+ *
+ * @author agent
+ */
+public class SOCServerMetrics implements SOCServerMetricsMBean
+{
+    /**
+     * the JMX domain the metrics are registered in
+     */
+    public static final String DOMAIN = "soc.server";
+
+    /**
+     * the number of message types, starting from
+     * SOCMessage.NULLMESSAGE, kept in an array; the others
+     * are kept in a hashtable
+     */
+    protected static final int NUM_DENSE_TYPES = 256;
+
+    /**
+     * the server
+     */
+    protected SOCServer server;
+
+    /**
+     * the metrics for each message type that fits in the array,
+     * by type - SOCMessage.NULLMESSAGE
+     */
+    protected SOCMessageMetrics[] denseTypes;
+
+    /**
+     * the metrics for the other message types, by type
+     */
+    protected Hashtable otherTypes;
+
+    /**
+     * all the message metrics, in the order they were made
+     */
+    protected Vector allTypes;
+
+    /**
+     * the number of messages treated, of all types
+     */
+    protected long messagesTreated;
+
+    /**
+     * the number of messages that failed with an exception,
+     * of all types
+     */
+    protected long messagesFailed;
+
+    /**
+     * the JMX server the metrics are registered with,
+     * or null if they aren't
+     */
+    protected Object mbeanServer;
+
+    /**
+     * MBeanServer.registerMBean(Object, ObjectName)
+     */
+    protected Method registerMBean;
+
+    /**
+     * the ObjectName(String) constructor
+     */
+    protected Constructor objectName;
+
+    /**
+     * make the metrics for a server, with an entry for each
+     * message type in SOCMessage
+     *
+     * @param srv  the server
+     */
+    public SOCServerMetrics(SOCServer srv)
+    {
+        server = srv;
+        denseTypes = new SOCMessageMetrics[NUM_DENSE_TYPES];
+        otherTypes = new Hashtable();
+        allTypes = new Vector();
+        messagesTreated = 0;
+        messagesFailed = 0;
+        mbeanServer = null;
+
+        Field[] fields = SOCMessage.class.getFields();
+
+        for (int i = 0; i < fields.length; i++)
+        {
+            int mods = fields[i].getModifiers();
+
+            if (Modifier.isStatic(mods) && Modifier.isFinal(mods) && (fields[i].getType() == Integer.TYPE))
+            {
+                try
+                {
+                    addType(fields[i].getInt(null), fields[i].getName());
+                }
+                catch (IllegalAccessException e) {}
+            }
+        }
+    }
+
+    /**
+     * make the metrics for a message type
+     *
+     * @param type  the message type
+     * @param name  the name of the message type
+     * @return the metrics
+     */
+    protected synchronized SOCMessageMetrics addType(int type, String name)
+    {
+        SOCMessageMetrics mm = new SOCMessageMetrics(type, name);
+        int idx = type - SOCMessage.NULLMESSAGE;
+
+        if ((idx >= 0) && (idx < NUM_DENSE_TYPES))
+        {
+            denseTypes[idx] = mm;
+        }
+        else
+        {
+            otherTypes.put(new Integer(type), mm);
+        }
+
+        allTypes.addElement(mm);
+
+        if (mbeanServer != null)
+        {
+            registerType(mm);
+        }
+
+        return mm;
+    }
+
+    /**
+     * @return the metrics for a message type, making them
+     *         if it's a type we haven't seen
+     *
+     * @param type  the message type
+     */
+    public SOCMessageMetrics getMessageMetrics(int type)
+    {
+        int idx = type - SOCMessage.NULLMESSAGE;
+        SOCMessageMetrics mm;
+
+        if ((idx >= 0) && (idx < NUM_DENSE_TYPES))
+        {
+            mm = denseTypes[idx];
+        }
+        else
+        {
+            mm = (SOCMessageMetrics) otherTypes.get(new Integer(type));
+        }
+
+        if (mm == null)
+        {
+            mm = addType(type, "TYPE" + type);
+        }
+
+        return mm;
+    }
+
+    /**
+     * record that a message was treated
+     *
+     * @param type    the message type
+     * @param micros  how long it took, in microseconds
+     */
+    public void messageTreated(int type, long micros)
+    {
+        getMessageMetrics(type).record(micros);
+        messagesTreated++;
+    }
+
+    /**
+     * record that treating a message failed with an exception.
+     * the message is still timed with messageTreated.
+     *
+     * @param type  the message type
+     */
+    public void messageFailed(int type)
+    {
+        getMessageMetrics(type).recordError();
+        messagesFailed++;
+    }
+
+    /**
+     * register the metrics with the platform's JMX server
+     */
+    public synchronized void register()
+    {
+        try
+        {
+            Class factory = Class.forName("java.lang.management.ManagementFactory");
+            Class nameClass = Class.forName("javax.management.ObjectName");
+            Object mbs = factory.getMethod("getPlatformMBeanServer", new Class[0]).invoke(null, new Object[0]);
+            registerMBean = Class.forName("javax.management.MBeanServer").getMethod("registerMBean", new Class[] { Object.class, nameClass });
+            objectName = nameClass.getConstructor(new Class[] { String.class });
+            registerMBean.invoke(mbs, new Object[] { this, objectName.newInstance(new Object[] { DOMAIN + ":type=Server" }) });
+            mbeanServer = mbs;
+        }
+        catch (ClassNotFoundException e)
+        {
+            System.err.println("No JMX in this Java runtime, so the server metrics are only served as text.");
+
+            return;
+        }
+        catch (Exception e)
+        {
+            System.err.println("Unable to register the server metrics with JMX: " + e);
+
+            return;
+        }
+
+        for (int i = 0; i < allTypes.size(); i++)
+        {
+            registerType((SOCMessageMetrics) allTypes.elementAt(i));
+        }
+    }
+
+    /**
+     * register a message type's metrics with JMX
+     *
+     * @param mm  the metrics
+     */
+    protected void registerType(SOCMessageMetrics mm)
+    {
+        try
+        {
+            registerMBean.invoke(mbeanServer, new Object[] { mm, objectName.newInstance(new Object[] { DOMAIN + ":type=Message,name=" + mm.getName() }) });
+        }
+        catch (Exception e)
+        {
+            System.err.println("Unable to register the metrics for " + mm.getName() + " with JMX: " + e);
+        }
+    }
+
+    /**
+     * @return how long the server has been up, in seconds
+     */
+    public long getUptime()
+    {
+        return (System.currentTimeMillis() - server.startTime) / 1000;
+    }
+
+    /**
+     * @return the number of connections now
+     */
+    public int getCurrentConnections()
+    {
+        return server.getConnectionList().size();
+    }
+
+    /**
+     * @return the number of connections made since the
+     *         server started
+     */
+    public int getTotalConnections()
+    {
+        return server.getTotalConnections();
+    }
+
+    /**
+     * @return the number of games started
+     */
+    public int getGamesStarted()
+    {
+        return server.numberOfGamesStarted;
+    }
+
+    /**
+     * @return the number of games finished
+     */
+    public int getGamesFinished()
+    {
+        return server.numberOfGamesFinished;
+    }
+
+    /**
+     * @return the number of messages treated, of all types
+     */
+    public long getMessagesTreated()
+    {
+        return messagesTreated;
+    }
+
+    /**
+     * @return the number of messages that failed with an
+     *         exception, of all types
+     */
+    public long getMessagesFailed()
+    {
+        return messagesFailed;
+    }
+
+    /**
+     * @return the number of requests waiting to be treated
+     */
+    public int getInQueueSize()
+    {
+        return server.getInQueueSize();
+    }
+
+    /**
+     * @return the average time requests wait to be treated,
+     *         in microseconds
+     */
+    public long getInQueueWaitMeanMicros()
+    {
+        return server.getInQueueWaits().getMean();
+    }
+
+    /**
+     * @return the 99th percentile time requests wait to be
+     *         treated, in microseconds
+     */
+    public long getInQueueWaitP99Micros()
+    {
+        return server.getInQueueWaits().getPercentile(99);
+    }
+
+    /**
+     * @return the longest time a request has waited to be
+     *         treated, in microseconds
+     */
+    public long getInQueueWaitMaxMicros()
+    {
+        return server.getInQueueWaits().getMax();
+    }
+
+    /**
+     * @return the number of messages waiting to be sent,
+     *         over all connections
+     */
+    public int getOutQueueTotal()
+    {
+        Enumeration conEnum = server.getConnectionList().elements();
+        int total = 0;
+
+        while (conEnum.hasMoreElements())
+        {
+            total += ((Connection) conEnum.nextElement()).getOutQueueSize();
+        }
+
+        return total;
+    }
+
+    /**
+     * @return the most messages waiting to be sent to any
+     *         one connection now
+     */
+    public int getOutQueueMax()
+    {
+        Enumeration conEnum = server.getConnectionList().elements();
+        int max = 0;
+
+        while (conEnum.hasMoreElements())
+        {
+            max = Math.max(max, ((Connection) conEnum.nextElement()).getOutQueueSize());
+        }
+
+        return max;
+    }
+
+    /**
+     * @return the most messages that have ever been waiting
+     *         to be sent to any one connection
+     */
+    public int getOutQueueHighWater()
+    {
+        Enumeration conEnum = server.getConnectionList().elements();
+        int max = 0;
+
+        while (conEnum.hasMoreElements())
+        {
+            max = Math.max(max, ((Connection) conEnum.nextElement()).getMaxOutQueueSize());
+        }
+
+        return max;
+    }
+
+    /**
+     * @return all the metrics as plain text, one
+     *         "name{labels} value" line each.  Times are in
+     *         microseconds.  Only message types that have been
+     *         seen are listed.
+     */
+    public String report()
+    {
+        StringBuffer sb = new StringBuffer();
+
+        sb.append("soc_uptime_seconds ").append(getUptime()).append('\n');
+        sb.append("soc_connections ").append(getCurrentConnections()).append('\n');
+        sb.append("soc_connections_total ").append(getTotalConnections()).append('\n');
+        sb.append("soc_games_started_total ").append(getGamesStarted()).append('\n');
+        sb.append("soc_games_finished_total ").append(getGamesFinished()).append('\n');
+        sb.append("soc_messages_total ").append(getMessagesTreated()).append('\n');
+        sb.append("soc_message_errors_total ").append(getMessagesFailed()).append('\n');
+        sb.append("soc_inqueue_size ").append(getInQueueSize()).append('\n');
+        appendHistogram(sb, "soc_inqueue_wait_micros", "", server.getInQueueWaits());
+
+        SOCMessageMetrics[] types;
+
+        synchronized (this)
+        {
+            types = new SOCMessageMetrics[allTypes.size()];
+            allTypes.copyInto(types);
+        }
+
+        for (int i = 0; i < types.length; i++)
+        {
+            if (types[i].times.getCount() > 0)
+            {
+                appendHistogram(sb, "soc_message_micros", "type=\"" + types[i].getName() + "\"", types[i].times);
+            }
+
+            if (types[i].getErrors() > 0)
+            {
+                sb.append("soc_message_errors{type=\"").append(types[i].getName()).append("\"} ").append(types[i].getErrors()).append('\n');
+            }
+        }
+
+        Enumeration conEnum = server.getConnectionList().elements();
+
+        while (conEnum.hasMoreElements())
+        {
+            Connection con = (Connection) conEnum.nextElement();
+            String label = "connection=\"" + quote((con.data != null) ? con.data.toString() : con.host()) + "\"";
+            sb.append("soc_outqueue_size{").append(label).append("} ").append(con.getOutQueueSize()).append('\n');
+            sb.append("soc_outqueue_high_water{").append(label).append("} ").append(con.getMaxOutQueueSize()).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * add the lines for a histogram to a report
+     *
+     * @param sb      the report
+     * @param name    the name of the histogram
+     * @param labels  the labels, or "" for none
+     * @param h       the histogram
+     */
+    protected static void appendHistogram(StringBuffer sb, String name, String labels, LatencyHistogram h)
+    {
+        String sep = (labels.length() > 0) ? "," : "";
+        String braced = (labels.length() > 0) ? ("{" + labels + "}") : "";
+
+        sb.append(name).append("_count").append(braced).append(' ').append(h.getCount()).append('\n');
+        sb.append(name).append("_sum").append(braced).append(' ').append(h.getTotal()).append('\n');
+        sb.append(name).append('{').append(labels).append(sep).append("quantile=\"0.5\"} ").append(h.getPercentile(50)).append('\n');
+        sb.append(name).append('{').append(labels).append(sep).append("quantile=\"0.9\"} ").append(h.getPercentile(90)).append('\n');
+        sb.append(name).append('{').append(labels).append(sep).append("quantile=\"0.99\"} ").append(h.getPercentile(99)).append('\n');
+        sb.append(name).append("_max").append(braced).append(' ').append(h.getMax()).append('\n');
+    }
+
+    /**
+     * @return a string with its backslashes, quotes and
+     *         newlines escaped, for use as a label value
+     *
+     * @param s  the string
+     */
+    protected static String quote(String s)
+    {
+        StringBuffer sb = new StringBuffer(s.length());
+
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+
+            if ((c == '\\') || (c == '"'))
+            {
+                sb.append('\\').append(c);
+            }
+            else if (c == '\n')
+            {
+                sb.append("\\n");
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+}
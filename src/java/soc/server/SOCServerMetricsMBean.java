@@ -0,0 +1,113 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+
+/**
+ * The management interface for the server's counters and
+ * queues
+ *
+ * @author agent
+ */
+public interface SOCServerMetricsMBean
+{
+    /**
+     * @return how long the server has been up, in seconds
+     */
+    public long getUptime();
+
+    /**
+     * @return the number of connections now
+     */
+    public int getCurrentConnections();
+
+    /**
+     * @return the number of connections made since the
+     *         server started
+     */
+    public int getTotalConnections();
+
+    /**
+     * @return the number of games started
+     */
+    public int getGamesStarted();
+
+    /**
+     * @return the number of games finished
+     */
+    public int getGamesFinished();
+
+    /**
+     * @return the number of messages treated, of all types
+     */
+    public long getMessagesTreated();
+
+    /**
+     * @return the number of messages that failed with an
+     *         exception, of all types
+     */
+    public long getMessagesFailed();
+
+    /**
+     * @return the number of requests waiting to be treated
+     */
+    public int getInQueueSize();
+
+    /**
+     * @return the average time requests wait to be treated,
+     *         in microseconds
+     */
+    public long getInQueueWaitMeanMicros();
+
+    /**
+     * @return the 99th percentile time requests wait to be
+     *         treated, in microseconds
+     */
+    public long getInQueueWaitP99Micros();
+
+    /**
+     * @return the longest time a request has waited to be
+     *         treated, in microseconds
+     */
+    public long getInQueueWaitMaxMicros();
+
+    /**
+     * @return the number of messages waiting to be sent,
+     *         over all connections
+     */
+    public int getOutQueueTotal();
+
+    /**
+     * @return the most messages waiting to be sent to any
+     *         one connection now
+     */
+    public int getOutQueueMax();
+
+    /**
+     * @return the most messages that have ever been waiting
+     *         to be sent to any one connection
+     */
+    public int getOutQueueHighWater();
+
+    /**
+     * @return all the metrics, in the plain text format
+     *         that SOCMetricsListener serves
+     */
+    public String report();
+}
@@ -0,0 +1,505 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import soc.game.SOCGame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.zip.CRC32;
+
+
+/**
+ * Keeps a snapshot of each game on disk so that games can be
+ * picked up again if the server stops.
+ *
+ * Every so often the writer asks the server, on its command
+ * thread, for snapshots of the games that have changed.  A
+ * snapshot is just bytes in memory, so that doesn't take long.
+ * The snapshots are then written to their files on this
+ * thread, each to a new file that replaces the old one, so a
+ * crash never leaves a half written snapshot behind.
+ *
+ * A snapshot file is MAGIC, VERSION, the game's journal file,
+ * the sequence number of the first journal event that isn't in
+ * the snapshot, then the length of the game, the game as
+ * SOCGame.writeSnapshot writes it, and a CRC32 of the game.
+ * The events after the snapshot are replayed from the journal
+ * when the game is picked up again.
+ *
+ * @author agent
+ */
+public class SOCSnapshotWriter extends Thread
+{
+    /**
+     * the first four bytes of a snapshot file, "SOCS"
+     */
+    public static final int MAGIC = 0x534f4353;
+
+    /**
+     * the version of the snapshot format.  version 2 writes
+     * the players' counts as shorts instead of bytes.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * the end of a snapshot file's name
+     */
+    public static final String SUFFIX = ".snap";
+
+    /**
+     * how often snapshots are taken if no time is given,
+     * in milliseconds
+     */
+    public static final int DEFAULT_INTERVAL = 5000;
+
+    /**
+     * the directory for the snapshots
+     */
+    protected File dir;
+
+    /**
+     * how often snapshots are taken, in milliseconds
+     */
+    protected int interval;
+
+    /**
+     * the server the games are in
+     */
+    protected SOCServer server;
+
+    /**
+     * the journal writer, or null if journals aren't kept
+     */
+    protected SOCJournalWriter journalWriter;
+
+    /**
+     * the names of the games that have changed since
+     * their last snapshot
+     */
+    protected Hashtable changed;
+
+    /**
+     * snapshots that haven't been written, by game name
+     */
+    protected Hashtable unwritten;
+
+    /**
+     * true if the server has been asked for snapshots
+     * and hasn't taken them yet
+     */
+    protected boolean requested;
+
+    /**
+     * the number of snapshots written
+     */
+    protected int numWrites;
+
+    boolean alive;
+
+    /**
+     * Create a snapshot writer
+     *
+     * @param d   the directory for the snapshots
+     * @param i   how often to take snapshots, in milliseconds
+     * @param s   the server the games are in
+     * @param jw  the journal writer, or null if journals aren't kept
+     */
+    public SOCSnapshotWriter(String d, int i, SOCServer s, SOCJournalWriter jw)
+    {
+        dir = new File(d);
+        interval = Math.max(1, i);
+        server = s;
+        journalWriter = jw;
+        changed = new Hashtable();
+        unwritten = new Hashtable();
+        requested = false;
+        numWrites = 0;
+        alive = true;
+        setName("snapshotWriter");
+        setDaemon(true);
+    }
+
+    /**
+     * @return the snapshot file for a game
+     *
+     * @param gameName  the name of the game
+     */
+    public File getFile(String gameName)
+    {
+        return new File(dir, SOCGameJournal.fileName(gameName) + SUFFIX);
+    }
+
+    /**
+     * @return the snapshot files in the directory
+     */
+    public File[] listFiles()
+    {
+        String[] names = dir.list();
+
+        if (names == null)
+        {
+            return new File[0];
+        }
+
+        Vector files = new Vector();
+
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].endsWith(SUFFIX))
+            {
+                files.addElement(new File(dir, names[i]));
+            }
+        }
+
+        File[] result = new File[files.size()];
+        files.copyInto(result);
+
+        return result;
+    }
+
+    /**
+     * note that a game has changed since its last snapshot
+     *
+     * @param gameName  the name of the game
+     */
+    public void changed(String gameName)
+    {
+        changed.put(gameName, gameName);
+    }
+
+    /**
+     * @return the names of the games that have changed since
+     *         their last snapshot, and forget them
+     */
+    public Vector takeChanged()
+    {
+        Vector names = new Vector();
+
+        synchronized (changed)
+        {
+            Enumeration gnEnum = changed.keys();
+
+            while (gnEnum.hasMoreElements())
+            {
+                names.addElement(gnEnum.nextElement());
+            }
+
+            changed.clear();
+            requested = false;
+        }
+
+        return names;
+    }
+
+    /**
+     * hand over a snapshot to be written
+     *
+     * @param gameName  the name of the game
+     * @param snapshot  the snapshot, from makeSnapshot
+     */
+    public void put(String gameName, byte[] snapshot)
+    {
+        unwritten.put(gameName, snapshot);
+    }
+
+    /**
+     * write a snapshot now, in place of any that's waiting
+     * to be written
+     *
+     * @param gameName  the name of the game
+     * @param snapshot  the snapshot, from makeSnapshot
+     */
+    public void writeNow(String gameName, byte[] snapshot) throws IOException
+    {
+        changed.remove(gameName);
+
+        synchronized (unwritten)
+        {
+            unwritten.remove(gameName);
+            write(gameName, snapshot);
+            numWrites++;
+        }
+    }
+
+    /**
+     * forget a game and delete its snapshot
+     *
+     * @param gameName  the name of the game
+     */
+    public void remove(String gameName)
+    {
+        changed.remove(gameName);
+
+        synchronized (unwritten)
+        {
+            unwritten.remove(gameName);
+            getFile(gameName).delete();
+        }
+    }
+
+    /**
+     * Make a snapshot of a game.  This has to be called on
+     * the server's command thread, so that the game and its
+     * journal agree.
+     *
+     * @param ga       the game
+     * @param journal  the game's journal, or null if it has none
+     * @return the snapshot
+     */
+    public static byte[] makeSnapshot(SOCGame ga, SOCGameJournal journal) throws IOException
+    {
+        ByteArrayOutputStream gameBytes = new ByteArrayOutputStream(1024);
+        ga.writeSnapshot(new DataOutputStream(gameBytes));
+
+        CRC32 crc = new CRC32();
+        crc.update(gameBytes.toByteArray(), 0, gameBytes.size());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(gameBytes.size() + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF((journal == null) ? "" : journal.getFile().getPath());
+        out.writeLong((journal == null) ? 0 : journal.getNextSeq());
+        out.writeInt(gameBytes.size());
+        gameBytes.writeTo(out);
+        out.writeInt((int) crc.getValue());
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read a snapshot file.
+     *
+     * @param f  the file
+     * @return what was in it
+     */
+    public static Snapshot read(File f) throws IOException
+    {
+        byte[] data = new byte[(int) f.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(f));
+
+        try
+        {
+            in.readFully(data);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        in = new DataInputStream(new ByteArrayInputStream(data));
+
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException(f + " is not a game snapshot");
+        }
+
+        if (in.readShort() != VERSION)
+        {
+            throw new IOException(f + " is from a different version");
+        }
+
+        Snapshot snap = new Snapshot();
+        String journalPath = in.readUTF();
+        snap.journalFile = (journalPath.length() == 0) ? null : new File(journalPath);
+        snap.seq = in.readLong();
+
+        byte[] gameBytes = new byte[in.readInt()];
+        in.readFully(gameBytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(gameBytes, 0, gameBytes.length);
+
+        if (in.readInt() != (int) crc.getValue())
+        {
+            throw new IOException(f + " is damaged");
+        }
+
+        snap.game = SOCGame.readSnapshot(new DataInputStream(new ByteArrayInputStream(gameBytes)));
+
+        return snap;
+    }
+
+    /**
+     * write the snapshots that haven't been written
+     */
+    public void writeAll()
+    {
+        /**
+         * write the journals first, so that a snapshot on
+         * the disk is never ahead of its journal
+         */
+        if (journalWriter != null)
+        {
+            journalWriter.writeAll();
+        }
+
+        Vector names = new Vector();
+
+        synchronized (unwritten)
+        {
+            Enumeration gnEnum = unwritten.keys();
+
+            while (gnEnum.hasMoreElements())
+            {
+                names.addElement(gnEnum.nextElement());
+            }
+        }
+
+        for (int i = 0; i < names.size(); i++)
+        {
+            String gameName = (String) names.elementAt(i);
+
+            synchronized (unwritten)
+            {
+                byte[] snapshot = (byte[]) unwritten.remove(gameName);
+
+                if (snapshot != null)
+                {
+                    try
+                    {
+                        write(gameName, snapshot);
+                        numWrites++;
+                    }
+                    catch (IOException e)
+                    {
+                        System.err.println("Unable to write the snapshot of " + gameName + ": " + e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * write a snapshot to a new file and put it in place
+     * of the old one
+     *
+     * @param gameName  the name of the game
+     * @param snapshot  the snapshot
+     */
+    protected void write(String gameName, byte[] snapshot) throws IOException
+    {
+        dir.mkdirs();
+
+        File f = getFile(gameName);
+        File tmp = new File(dir, f.getName() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+
+        try
+        {
+            out.write(snapshot);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        if (!tmp.renameTo(f))
+        {
+            f.delete();
+
+            if (!tmp.renameTo(f))
+            {
+                throw new IOException("can't rename " + tmp + " to " + f);
+            }
+        }
+    }
+
+    /**
+     * @return the number of snapshots written
+     */
+    public int getNumWrites()
+    {
+        return numWrites;
+    }
+
+    /**
+     * keep taking snapshots
+     */
+    public void run()
+    {
+        SnapshotTask task = new SnapshotTask();
+
+        while (alive)
+        {
+            try
+            {
+                sleep(interval);
+            }
+            catch (InterruptedException exc) {}
+
+            synchronized (changed)
+            {
+                if (!changed.isEmpty() && !requested)
+                {
+                    requested = true;
+                    server.invokeLater(task);
+                }
+            }
+
+            writeAll();
+        }
+    }
+
+    /**
+     * write the snapshots one last time and stop
+     */
+    public void stopWriting()
+    {
+        alive = false;
+        writeAll();
+    }
+
+    /**
+     * takes the snapshots on the server's command thread
+     */
+    class SnapshotTask implements Runnable
+    {
+        public void run()
+        {
+            server.takeSnapshots();
+        }
+    }
+
+    /**
+     * what was read back from a snapshot file
+     */
+    public static class Snapshot
+    {
+        /** the game */
+        public SOCGame game;
+
+        /** the game's journal file, or null if it had none */
+        public File journalFile;
+
+        /** the sequence number of the first journal event that isn't in the snapshot */
+        public long seq;
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server.database;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+
+/**
+ * Keeps the results of database lookups for a while, so
+ * the same lookup made again soon doesn't go to the database.
+ * A result is dropped when it's older than the time to live,
+ * or when the cache is full and it's the one that was used
+ * longest ago.  A lookup that found nothing is kept too.
+ *
+ * A result that was looked up while its key was being removed
+ * is out of date, so the caller takes the key's generation
+ * before the lookup and hands it to put(), which drops the
+ * result if the key was removed in the meantime.
+ *
+ * @author agent
+ */
+public class SOCDBCache
+{
+    /**
+     * what lookup() returns when the cache doesn't have a result
+     */
+    public static final Object MISS = new Object();
+
+    /**
+     * stands in for a result of null
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * the entries, the one used longest ago first
+     */
+    private LinkedHashMap entries;
+
+    /**
+     * for each key removed lately, the removal count when
+     * it was last removed, the one removed longest ago first
+     */
+    private LinkedHashMap generations;
+
+    /**
+     * the number of removals so far
+     */
+    private long removals;
+
+    /**
+     * the highest generation dropped from the generations table;
+     * a key that isn't in the table has this generation
+     */
+    private long oldestGeneration;
+
+    /**
+     * how long a result is kept, in milliseconds.  0 means
+     * nothing is kept.
+     */
+    private long timeToLive;
+
+    /**
+     * the most results kept
+     */
+    private int maxSize;
+
+    /**
+     * the number of lookups that found a result
+     */
+    private int hits;
+
+    /**
+     * the number of lookups that didn't
+     */
+    private int misses;
+
+    /**
+     * constructor
+     *
+     * @param ttl   how long a result is kept, in seconds
+     * @param size  the most results kept
+     */
+    public SOCDBCache(int ttl, int size)
+    {
+        entries = new LinkedHashMap(16, 0.75f, true);
+        generations = new LinkedHashMap();
+        setLimits(ttl, size);
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * change how long results are kept and how many
+     *
+     * @param ttl   how long a result is kept, in seconds, 0 to keep nothing
+     * @param size  the most results kept
+     */
+    public synchronized void setLimits(int ttl, int size)
+    {
+        timeToLive = Math.max(0, ttl) * 1000L;
+        maxSize = Math.max(0, size);
+        trim();
+    }
+
+    /**
+     * look up a result
+     *
+     * @param key  what was looked up
+     * @return the result, which may be null, or MISS if there isn't one
+     */
+    public synchronized Object lookup(Object key)
+    {
+        Entry entry = (Entry) entries.get(key);
+
+        if ((entry != null) && (entry.expires <= System.currentTimeMillis()))
+        {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null)
+        {
+            misses++;
+
+            return MISS;
+        }
+
+        hits++;
+
+        return (entry.value == NULL_VALUE) ? null : entry.value;
+    }
+
+    /**
+     * @return the key's generation, to be handed to put()
+     *         with the result of looking it up
+     *
+     * @param key  what is about to be looked up
+     */
+    public synchronized long generation(Object key)
+    {
+        Long gen = (Long) generations.get(key);
+
+        return (gen == null) ? oldestGeneration : gen.longValue();
+    }
+
+    /**
+     * keep a result
+     *
+     * @param key    what was looked up
+     * @param value  the result, which may be null
+     */
+    public synchronized void put(Object key, Object value)
+    {
+        put(key, value, generation(key));
+    }
+
+    /**
+     * keep a result, unless the key has been removed since
+     * the lookup started
+     *
+     * @param key    what was looked up
+     * @param value  the result, which may be null
+     * @param gen    the key's generation from before the lookup
+     */
+    public synchronized void put(Object key, Object value, long gen)
+    {
+        if ((timeToLive == 0) || (maxSize == 0) || (generation(key) != gen))
+        {
+            return;
+        }
+
+        Entry entry = new Entry();
+        entry.value = (value == null) ? NULL_VALUE : value;
+        entry.expires = System.currentTimeMillis() + timeToLive;
+        entries.put(key, entry);
+        trim();
+    }
+
+    /**
+     * forget a result, because what it came from has changed
+     *
+     * @param key  what was looked up
+     */
+    public synchronized void remove(Object key)
+    {
+        entries.remove(key);
+
+        removals++;
+        generations.remove(key);
+        generations.put(key, new Long(removals));
+
+        if (generations.size() > Math.max(maxSize, 16))
+        {
+            Iterator iter = generations.keySet().iterator();
+            Object oldest = iter.next();
+            oldestGeneration = ((Long) generations.get(oldest)).longValue();
+            iter.remove();
+        }
+    }
+
+    /**
+     * forget all of the results
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * drop the results used longest ago until there's room
+     */
+    private void trim()
+    {
+        Iterator iter = entries.keySet().iterator();
+
+        while ((entries.size() > maxSize) && iter.hasNext())
+        {
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    /**
+     * @return the number of results kept
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups that found a result
+     */
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a result
+     */
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return the percentage of lookups that found a result
+     */
+    public synchronized int getHitRate()
+    {
+        int lookups = hits + misses;
+
+        return (lookups == 0) ? 0 : ((100 * hits) / lookups);
+    }
+
+    /**
+     * a result and when it expires
+     */
+    class Entry
+    {
+        Object value;
+        long expires;
+    }
+}
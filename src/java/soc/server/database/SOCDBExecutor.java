@@ -0,0 +1,134 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server.database;
+
+import java.util.Vector;
+
+
+/**
+ * Threads that make database calls for the server, so a slow
+ * database doesn't hold up the thread that handles commands.
+ * Requests are run in the order they're handed in, by as many
+ * threads as there are connections in the database pool.
+ *
+ * @author agent
+ */
+public class SOCDBExecutor
+{
+    /**
+     * requests waiting for a thread
+     */
+    private Vector queue;
+
+    /**
+     * the threads
+     */
+    private Worker[] workers;
+
+    /**
+     * Start the threads.
+     *
+     * @param numThreads  the number of threads
+     */
+    public SOCDBExecutor(int numThreads)
+    {
+        queue = new Vector();
+        workers = new Worker[Math.max(1, numThreads)];
+
+        for (int i = 0; i < workers.length; i++)
+        {
+            workers[i] = new Worker(i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * hand a request to the threads
+     *
+     * @param request  the request
+     */
+    public synchronized void execute(Runnable request)
+    {
+        queue.addElement(request);
+        notify();
+    }
+
+    /**
+     * @return the number of requests waiting for a thread
+     */
+    public synchronized int getQueueSize()
+    {
+        return queue.size();
+    }
+
+    /**
+     * wait for a request to run
+     *
+     * @return the request
+     */
+    protected synchronized Runnable nextRequest()
+    {
+        while (queue.isEmpty())
+        {
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException e)
+            {
+                ;
+            }
+        }
+
+        Runnable request = (Runnable) queue.elementAt(0);
+        queue.removeElementAt(0);
+
+        return request;
+    }
+
+    /**
+     * a database thread
+     */
+    class Worker extends Thread
+    {
+        Worker(int i)
+        {
+            setName("dbWorker-" + i);
+        }
+
+        public void run()
+        {
+            while (true)
+            {
+                Runnable request = nextRequest();
+
+                try
+                {
+                    request.run();
+                }
+                catch (Throwable e)
+                {
+                    System.err.println("Exception in database thread - " + e);
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
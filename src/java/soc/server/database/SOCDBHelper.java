@@ -31,6 +31,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 
 import java.util.Calendar;
+import java.util.Vector;
 
 
 /**
@@ -54,14 +55,46 @@ import java.util.Calendar;
  */
 public class SOCDBHelper
 {
-    private static Connection connection = null;
+    /**
+     * the number of connections in the pool if none is given
+     */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    /**
+     * the number of seconds a statement can run if no
+     * timeout is given.  0 means no limit.
+     */
+    public static final int DEFAULT_QUERY_TIMEOUT = 10;
+
+    /**
+     * the connections that aren't being used.  null if the
+     * database hasn't been initialized.
+     */
+    private static Vector pool = null;
+
+    /** the number of connections in the pool */
+    private static int poolSize = DEFAULT_POOL_SIZE;
+
+    /** the number of seconds a statement can run, 0 for no limit */
+    private static int queryTimeout = DEFAULT_QUERY_TIMEOUT;
 
     /**
-     * This flag indicates that the connection should be valid, yet the last
-     * operation failed. Methods will attempt to reconnect prior to their
-     * operation if this is set.
+     * how many seconds a looked up password or set of robot
+     * parameters is kept if no time is given
      */
-    private static boolean errorCondition = false;
+    public static final int DEFAULT_CACHE_TTL = 300;
+
+    /**
+     * the most passwords, and the most sets of robot parameters,
+     * kept if no size is given
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    /** passwords that have been looked up, by nickname */
+    private static SOCDBCache passwordCache = new SOCDBCache(DEFAULT_CACHE_TTL, DEFAULT_CACHE_SIZE);
+
+    /** robot parameters that have been looked up, by robot name */
+    private static SOCDBCache robotParamsCache = new SOCDBCache(DEFAULT_CACHE_TTL, DEFAULT_CACHE_SIZE);
 
     /** Cached username used when reconnecting on error */
     private static String userName;
@@ -77,32 +110,57 @@ public class SOCDBHelper
     private static String SAVE_GAME_COMMAND = "INSERT INTO games VALUES (?,?,?,?,?,?,?,?,?,?);";
     private static String ROBOT_PARAMS_QUERY = "SELECT * FROM robotparams WHERE robotname = ?;";
 
-    private static PreparedStatement createAccountCommand = null;
-    private static PreparedStatement recordLoginCommand = null;
-    private static PreparedStatement userPasswordQuery = null;
-    private static PreparedStatement hostQuery = null;
-    private static PreparedStatement lastloginUpdate = null;
-    private static PreparedStatement saveGameCommand = null;
-    private static PreparedStatement robotParamsQuery = null;
-
     /**
-     * This makes a connection to the database
-     * and initializes the prepared statements.
+     * This makes the pool of connections to the database
+     * using the default pool size and statement timeout.
      *
      * @param user  the user name for accessing the database
      * @param pswd  the password for the user
-     * @return true if the database was initialized
      * @throws SQLException if an SQL command fails, or the db couldn't be
      * initialied
      */
     public static void initialize(String user, String pswd) throws SQLException
+    {
+        initialize(user, pswd, DEFAULT_POOL_SIZE, DEFAULT_QUERY_TIMEOUT);
+    }
+
+    /**
+     * This makes the pool of connections to the database
+     * and initializes the prepared statements for each one.
+     *
+     * @param user  the user name for accessing the database
+     * @param pswd  the password for the user
+     * @param size  the number of connections in the pool
+     * @param timeout  the number of seconds a statement can run,
+     *                 0 for no limit
+     * @throws SQLException if an SQL command fails, or the db couldn't be
+     * initialied
+     */
+    public static void initialize(String user, String pswd, int size, int timeout) throws SQLException
     {
         try
         {
             // Load the mysql driver. Revisit exceptions when /any/ JDBC allowed
             Class.forName("org.gjt.mm.mysql.Driver").newInstance();
 
-            connect(user, pswd);
+            userName = user;
+            password = pswd;
+            poolSize = Math.max(1, size);
+            queryTimeout = Math.max(0, timeout);
+
+            Vector newPool = new Vector(poolSize);
+
+            for (int i = 0; i < poolSize; i++)
+            {
+                PooledConnection pc = new PooledConnection();
+                pc.connect();
+                newPool.addElement(pc);
+            }
+
+            synchronized (SOCDBHelper.class)
+            {
+                pool = newPool;
+            }
         }
         catch (ClassNotFoundException x)
         {
@@ -111,6 +169,10 @@ public class SOCDBHelper
             sx.initCause(x);
             throw sx;
         }
+        catch (SQLException x)
+        {
+            throw x;
+        }
         catch (Exception x) // everything else
         {
             // InstantiationException & IllegalAccessException
@@ -123,46 +185,126 @@ public class SOCDBHelper
     }
 
     /**
-     * Checks if connection is supposed to be present and attempts to reconnect
-     * if there was previously an error.  Reconnecting closes the current
-     * conection, opens a new one, and re-initializes the prepared statements.
+     * @return true if the pool of connections has been made
+     */
+    public static synchronized boolean isInitialized()
+    {
+        return (pool != null);
+    }
+
+    /**
+     * change how long looked up passwords and robot parameters
+     * are kept, and how many
+     *
+     * @param ttl   how many seconds they're kept, 0 to not keep them
+     * @param size  the most of each that are kept
+     */
+    public static void setCacheLimits(int ttl, int size)
+    {
+        passwordCache.setLimits(ttl, size);
+        robotParamsCache.setLimits(ttl, size);
+    }
+
+    /**
+     * @return the passwords that have been looked up
+     */
+    public static SOCDBCache getPasswordCache()
+    {
+        return passwordCache;
+    }
+
+    /**
+     * @return the robot parameters that have been looked up
+     */
+    public static SOCDBCache getRobotParamsCache()
+    {
+        return robotParamsCache;
+    }
+
+    /**
+     * @return the number of connections in the pool
+     */
+    public static int getPoolSize()
+    {
+        return poolSize;
+    }
+
+    /**
+     * Takes a connection from the pool, waiting for one if they're
+     * all being used.  If the last operation on the connection
+     * failed, it is reconnected first.  Every connection that is
+     * taken must be given back with releaseConnection.
+     *
+     * @return the connection, or null if there's no database
+     */
+    private static PooledConnection getConnection() throws SQLException
+    {
+        PooledConnection pc = takeConnection();
+
+        if ((pc != null) && pc.errorCondition)
+        {
+            try
+            {
+                pc.closeQuietly();
+                pc.connect();
+            }
+            catch (SQLException sqlE)
+            {
+                releaseConnection(pc);
+                throw sqlE;
+            }
+        }
+
+        return pc;
+    }
+
+    /**
+     * wait for a connection in the pool and take it out
      *
-     * @return true if the connection is established upon return
+     * @return the connection, or null if there's no database
      */
-    private static boolean checkConnection() throws SQLException
+    private static synchronized PooledConnection takeConnection()
     {
-        if (connection != null)
+        while ((pool != null) && pool.isEmpty())
+        {
+            try
+            {
+                SOCDBHelper.class.wait();
+            }
+            catch (InterruptedException e)
+            {
+                ;
+            }
+        }
+
+        if (pool == null)
         {
-            return (! errorCondition) || connect(userName, password);
+            return null;
         }
 
-        return false;
+        PooledConnection pc = (PooledConnection) pool.lastElement();
+        pool.removeElementAt(pool.size() - 1);
+
+        return pc;
     }
 
     /**
-     * initialize and checkConnection use this to get ready.
+     * give a connection back to the pool.  If the pool has been
+     * cleaned up, the connection is closed instead.
+     *
+     * @param pc  the connection
      */
-    private static boolean connect(String user, String pswd)
-        throws SQLException
+    private static synchronized void releaseConnection(PooledConnection pc)
     {
-        String url = "jdbc:mysql://localhost/socdata";
-
-        connection = DriverManager.getConnection(url, user, pswd);
-
-        errorCondition = false;
-        userName = user;
-        password = pswd;
-        
-        // prepare PreparedStatements for queries
-        createAccountCommand = connection.prepareStatement(CREATE_ACCOUNT_COMMAND);
-        recordLoginCommand = connection.prepareStatement(RECORD_LOGIN_COMMAND);
-        userPasswordQuery = connection.prepareStatement(USER_PASSWORD_QUERY);
-        hostQuery = connection.prepareStatement(HOST_QUERY);
-        lastloginUpdate = connection.prepareStatement(LASTLOGIN_UPDATE);
-        saveGameCommand = connection.prepareStatement(SAVE_GAME_COMMAND);
-        robotParamsQuery = connection.prepareStatement(ROBOT_PARAMS_QUERY);
-
-        return true;
+        if (pool != null)
+        {
+            pool.addElement(pc);
+            SOCDBHelper.class.notify();
+        }
+        else
+        {
+            pc.closeQuietly();
+        }
     }
     
     /**
@@ -177,17 +319,26 @@ public class SOCDBHelper
     public static String getUserPassword(String sUserName) throws SQLException
     {
         String password = null;
+        long gen = passwordCache.generation(sUserName);
+        Object cached = passwordCache.lookup(sUserName);
 
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        if (cached != SOCDBCache.MISS)
+        {
+            return (String) cached;
+        }
+
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
                 // fill in the data values to the Prepared statement
-                userPasswordQuery.setString(1, sUserName);
+                pc.userPasswordQuery.setString(1, sUserName);
 
                 // execute the Query
-                ResultSet resultSet = userPasswordQuery.executeQuery();
+                ResultSet resultSet = pc.userPasswordQuery.executeQuery();
 
                 // if no results, user is not authenticated
                 if (resultSet.next())
@@ -196,13 +347,18 @@ public class SOCDBHelper
                 }
 
                 resultSet.close();
+                passwordCache.put(sUserName, password, gen);
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return password;
@@ -221,16 +377,18 @@ public class SOCDBHelper
     {
         String nickname = null;
 
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
                 // fill in the data values to the Prepared statement
-                hostQuery.setString(1, host);
+                pc.hostQuery.setString(1, host);
 
                 // execute the Query
-                ResultSet resultSet = hostQuery.executeQuery();
+                ResultSet resultSet = pc.hostQuery.executeQuery();
 
                 // if no results, user is not authenticated
                 if (resultSet.next())
@@ -242,10 +400,14 @@ public class SOCDBHelper
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return nickname;
@@ -266,8 +428,10 @@ public class SOCDBHelper
      */
     public static boolean createAccount(String userName, String host, String password, String email, long time) throws SQLException
     {
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
@@ -275,23 +439,29 @@ public class SOCDBHelper
                 Calendar cal = Calendar.getInstance();
 
                 // fill in the data values to the Prepared statement
-                createAccountCommand.setString(1, userName);
-                createAccountCommand.setString(2, host);
-                createAccountCommand.setString(3, password);
-                createAccountCommand.setString(4, email);
-                createAccountCommand.setDate(5, sqlDate, cal);
+                pc.createAccountCommand.setString(1, userName);
+                pc.createAccountCommand.setString(2, host);
+                pc.createAccountCommand.setString(3, password);
+                pc.createAccountCommand.setString(4, email);
+                pc.createAccountCommand.setDate(5, sqlDate, cal);
 
                 // execute the Command
-                createAccountCommand.executeUpdate();
+                pc.createAccountCommand.executeUpdate();
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                // the cached password for this nickname is out of date
+                passwordCache.remove(userName);
+                releaseConnection(pc);
+            }
         }
 
         return false;
@@ -310,8 +480,10 @@ public class SOCDBHelper
      */
     public static boolean recordLogin(String userName, String host, long time) throws SQLException
     {
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
@@ -319,21 +491,25 @@ public class SOCDBHelper
                 Calendar cal = Calendar.getInstance();
 
                 // fill in the data values to the Prepared statement
-                recordLoginCommand.setString(1, userName);
-                recordLoginCommand.setString(2, host);
-                recordLoginCommand.setDate(3, sqlDate, cal);
+                pc.recordLoginCommand.setString(1, userName);
+                pc.recordLoginCommand.setString(2, host);
+                pc.recordLoginCommand.setDate(3, sqlDate, cal);
 
                 // execute the Command
-                recordLoginCommand.executeUpdate();
+                pc.recordLoginCommand.executeUpdate();
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return false;
@@ -351,8 +527,10 @@ public class SOCDBHelper
      */
     public static boolean updateLastlogin(String userName, long time) throws SQLException
     {
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
@@ -360,20 +538,24 @@ public class SOCDBHelper
                 Calendar cal = Calendar.getInstance();
 
                 // fill in the data values to the Prepared statement
-                lastloginUpdate.setDate(1, sqlDate, cal);
-                lastloginUpdate.setString(2, userName);
+                pc.lastloginUpdate.setDate(1, sqlDate, cal);
+                pc.lastloginUpdate.setString(2, userName);
 
                 // execute the Command
-                lastloginUpdate.executeUpdate();
+                pc.lastloginUpdate.executeUpdate();
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return false;
@@ -399,34 +581,146 @@ public class SOCDBHelper
      */
     public static boolean saveGameScores(String gameName, String player1, String player2, String player3, String player4, short score1, short score2, short score3, short score4, java.util.Date startTime) throws SQLException
     {
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
                 // fill in the data values to the Prepared statement
-                saveGameCommand.setString(1, gameName);
-                saveGameCommand.setString(2, player1);
-                saveGameCommand.setString(3, player2);
-                saveGameCommand.setString(4, player3);
-                saveGameCommand.setString(5, player4);
-                saveGameCommand.setShort(6, score1);
-                saveGameCommand.setShort(7, score2);
-                saveGameCommand.setShort(8, score3);
-                saveGameCommand.setShort(9, score4);
-                saveGameCommand.setTimestamp(10, new Timestamp(startTime.getTime()));
+                pc.saveGameCommand.setString(1, gameName);
+                pc.saveGameCommand.setString(2, player1);
+                pc.saveGameCommand.setString(3, player2);
+                pc.saveGameCommand.setString(4, player3);
+                pc.saveGameCommand.setString(5, player4);
+                pc.saveGameCommand.setShort(6, score1);
+                pc.saveGameCommand.setShort(7, score2);
+                pc.saveGameCommand.setShort(8, score3);
+                pc.saveGameCommand.setShort(9, score4);
+                pc.saveGameCommand.setTimestamp(10, new Timestamp(startTime.getTime()));
 
                 // execute the Command
-                saveGameCommand.executeUpdate();
+                pc.saveGameCommand.executeUpdate();
+
+                return true;
+            }
+            catch (SQLException sqlE)
+            {
+                pc.errorCondition = true;
+                sqlE.printStackTrace();
+                throw sqlE;
+            }
+            finally
+            {
+                releaseConnection(pc);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Makes a batch of writes in one transaction.  The game
+     * scores, logins and last login times are each sent to the
+     * database as one JDBC batch, in that order, so writes of
+     * the same kind keep their order but different kinds don't.
+     * If anything fails, none of the writes are kept.
+     *
+     * @param writes  the SOCDBWrite objects
+     *
+     * @return true if the writes were made, false if there's no database
+     *
+     * @throws SQLException if the writes failed
+     */
+    public static boolean writeBatch(Vector writes) throws SQLException
+    {
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
+        {
+            try
+            {
+                Calendar cal = Calendar.getInstance();
+                int numGames = 0;
+                int numLogins = 0;
+                int numLastlogins = 0;
+
+                pc.connection.setAutoCommit(false);
+
+                for (int i = 0; i < writes.size(); i++)
+                {
+                    SOCDBWrite write = (SOCDBWrite) writes.elementAt(i);
+
+                    switch (write.type)
+                    {
+                    case SOCDBWrite.SAVE_GAME:
+                        pc.saveGameCommand.setString(1, write.names[0]);
+                        pc.saveGameCommand.setString(2, write.names[1]);
+                        pc.saveGameCommand.setString(3, write.names[2]);
+                        pc.saveGameCommand.setString(4, write.names[3]);
+                        pc.saveGameCommand.setString(5, write.names[4]);
+                        pc.saveGameCommand.setShort(6, write.scores[0]);
+                        pc.saveGameCommand.setShort(7, write.scores[1]);
+                        pc.saveGameCommand.setShort(8, write.scores[2]);
+                        pc.saveGameCommand.setShort(9, write.scores[3]);
+                        pc.saveGameCommand.setTimestamp(10, new Timestamp(write.time));
+                        pc.saveGameCommand.addBatch();
+                        numGames++;
+
+                        break;
+
+                    case SOCDBWrite.RECORD_LOGIN:
+                        pc.recordLoginCommand.setString(1, write.names[0]);
+                        pc.recordLoginCommand.setString(2, write.names[1]);
+                        pc.recordLoginCommand.setDate(3, new java.sql.Date(write.time), cal);
+                        pc.recordLoginCommand.addBatch();
+                        numLogins++;
+
+                        break;
+
+                    case SOCDBWrite.UPDATE_LASTLOGIN:
+                        pc.lastloginUpdate.setDate(1, new java.sql.Date(write.time), cal);
+                        pc.lastloginUpdate.setString(2, write.names[0]);
+                        pc.lastloginUpdate.addBatch();
+                        numLastlogins++;
+
+                        break;
+                    }
+                }
+
+                if (numGames > 0)
+                {
+                    pc.saveGameCommand.executeBatch();
+                }
+
+                if (numLogins > 0)
+                {
+                    pc.recordLoginCommand.executeBatch();
+                }
+
+                if (numLastlogins > 0)
+                {
+                    pc.lastloginUpdate.executeBatch();
+                }
+
+                pc.connection.commit();
+                pc.connection.setAutoCommit(true);
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.rollbackQuietly();
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return false;
@@ -444,17 +738,25 @@ public class SOCDBHelper
     public static SOCRobotParameters retrieveRobotParams(String robotName) throws SQLException
     {
         SOCRobotParameters robotParams = null;
+        Object cached = robotParamsCache.lookup(robotName);
 
-        // ensure that the JDBC connection is still valid
-        if (checkConnection())
+        if (cached != SOCDBCache.MISS)
+        {
+            return (SOCRobotParameters) cached;
+        }
+
+        // get a connection from the pool, reconnecting if needed
+        PooledConnection pc = getConnection();
+
+        if (pc != null)
         {
             try
             {
                 // fill in the data values to the Prepared statement
-                robotParamsQuery.setString(1, robotName);
+                pc.robotParamsQuery.setString(1, robotName);
 
                 // execute the Query
-                ResultSet resultSet = robotParamsQuery.executeQuery();
+                ResultSet resultSet = pc.robotParamsQuery.executeQuery();
 
                 // if no results, user is not authenticated
                 if (resultSet.next())
@@ -473,40 +775,58 @@ public class SOCDBHelper
                 }
                 
                 resultSet.close();
+                robotParamsCache.put(robotName, robotParams);
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
+                pc.errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releaseConnection(pc);
+            }
         }
 
         return robotParams;
     }
 
     /**
-     * DOCUMENT ME!
+     * Closes the connections in the pool.  Connections that are
+     * being used are closed when they're given back.
      */
     public static void cleanup() throws SQLException
     {
-        if (checkConnection())
+        Vector oldPool;
+
+        synchronized (SOCDBHelper.class)
         {
-            try
+            oldPool = pool;
+            pool = null;
+            SOCDBHelper.class.notifyAll();
+        }
+
+        if (oldPool != null)
+        {
+            SQLException error = null;
+
+            for (int i = 0; i < oldPool.size(); i++)
             {
-                createAccountCommand.close();
-                userPasswordQuery.close();
-                hostQuery.close();
-                lastloginUpdate.close();
-                saveGameCommand.close();
-                robotParamsQuery.close();
-                connection.close();
+                try
+                {
+                    ((PooledConnection) oldPool.elementAt(i)).close();
+                }
+                catch (SQLException sqlE)
+                {
+                    sqlE.printStackTrace();
+                    error = sqlE;
+                }
             }
-            catch (SQLException sqlE)
+
+            if (error != null)
             {
-                errorCondition = true;
-                sqlE.printStackTrace();
-                throw sqlE;
+                throw error;
             }
         }
     }
@@ -564,4 +884,111 @@ public class SOCDBHelper
             more = rs.next();
         }
     }
+
+    /**
+     * A connection in the pool and its prepared statements.
+     * Only the thread that took it from the pool uses it.
+     */
+    private static class PooledConnection
+    {
+        Connection connection = null;
+
+        /**
+         * This flag indicates that the connection should be valid, yet the last
+         * operation failed. It is reconnected before it is used again.
+         */
+        boolean errorCondition = false;
+
+        PreparedStatement createAccountCommand = null;
+        PreparedStatement recordLoginCommand = null;
+        PreparedStatement userPasswordQuery = null;
+        PreparedStatement hostQuery = null;
+        PreparedStatement lastloginUpdate = null;
+        PreparedStatement saveGameCommand = null;
+        PreparedStatement robotParamsQuery = null;
+
+        /**
+         * open the connection and prepare the statements
+         */
+        void connect() throws SQLException
+        {
+            String url = "jdbc:mysql://localhost/socdata";
+
+            connection = DriverManager.getConnection(url, userName, password);
+
+            errorCondition = false;
+
+            // prepare PreparedStatements for queries
+            createAccountCommand = prepare(CREATE_ACCOUNT_COMMAND);
+            recordLoginCommand = prepare(RECORD_LOGIN_COMMAND);
+            userPasswordQuery = prepare(USER_PASSWORD_QUERY);
+            hostQuery = prepare(HOST_QUERY);
+            lastloginUpdate = prepare(LASTLOGIN_UPDATE);
+            saveGameCommand = prepare(SAVE_GAME_COMMAND);
+            robotParamsQuery = prepare(ROBOT_PARAMS_QUERY);
+        }
+
+        /**
+         * @return a prepared statement with the pool's timeout
+         *
+         * @param sql  the statement
+         */
+        PreparedStatement prepare(String sql) throws SQLException
+        {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setQueryTimeout(queryTimeout);
+
+            return statement;
+        }
+
+        /**
+         * close the connection, and with it the statements
+         */
+        void close() throws SQLException
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.close();
+                }
+                finally
+                {
+                    connection = null;
+                }
+            }
+        }
+
+        /**
+         * throw away what hasn't been committed, ignoring errors
+         * from a connection that has already failed
+         */
+        void rollbackQuietly()
+        {
+            try
+            {
+                connection.rollback();
+            }
+            catch (SQLException sqlE)
+            {
+                ;
+            }
+        }
+
+        /**
+         * close the connection, ignoring errors from one
+         * that has already failed
+         */
+        void closeQuietly()
+        {
+            try
+            {
+                close();
+            }
+            catch (SQLException sqlE)
+            {
+                ;
+            }
+        }
+    }
 }
@@ -0,0 +1,85 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server.database;
+
+import java.sql.SQLException;
+
+
+/**
+ * A database call made for the server.  query() makes the
+ * call on a database thread, then done() is called on the
+ * server's command thread, so it can use what query() found
+ * without locking anything.
+ *
+ * @author agent
+ */
+public abstract class SOCDBRequest implements Runnable
+{
+    /**
+     * what went wrong in query(), or null
+     */
+    private Throwable error = null;
+
+    /**
+     * make the database call
+     */
+    protected abstract void query() throws SQLException;
+
+    /**
+     * use the results of the call
+     */
+    public abstract void done();
+
+    /**
+     * run query() and keep any error for done().  Anything other
+     * than an SQLException is thrown again after it's kept, so the
+     * thread running us can report it.
+     */
+    public void run()
+    {
+        try
+        {
+            query();
+        }
+        catch (SQLException sqlE)
+        {
+            error = sqlE;
+        }
+        catch (RuntimeException e)
+        {
+            error = e;
+
+            throw e;
+        }
+        catch (Error e)
+        {
+            error = e;
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return what went wrong in query(), or null if nothing did
+     */
+    public Throwable getError()
+    {
+        return error;
+    }
+}
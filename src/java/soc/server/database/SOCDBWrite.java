@@ -0,0 +1,237 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server.database;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+
+/**
+ * A write to the database that can wait: the scores of a
+ * finished game, a login, or a user's last login time.
+ * Writes can be saved to a file and read back, for when the
+ * database can't be reached.
+ *
+ * @author agent
+ */
+public class SOCDBWrite
+{
+    /** save the scores of a game */
+    public static final int SAVE_GAME = 0;
+
+    /** record a login */
+    public static final int RECORD_LOGIN = 1;
+
+    /** update a user's last login time */
+    public static final int UPDATE_LASTLOGIN = 2;
+
+    /**
+     * the number of names and scores each type of write has
+     */
+    static final int[] NUM_NAMES = { 5, 2, 1 };
+    static final int[] NUM_SCORES = { 4, 0, 0 };
+
+    /** what kind of write this is */
+    int type;
+
+    /**
+     * the game name and player names for SAVE_GAME,
+     * the nickname and host for RECORD_LOGIN, and the
+     * nickname for UPDATE_LASTLOGIN
+     */
+    String[] names;
+
+    /** the scores for SAVE_GAME */
+    short[] scores;
+
+    /** the game's start time, or the login time */
+    long time;
+
+    /**
+     * constructor
+     *
+     * @param t   the type of write
+     * @param n   the names
+     * @param s   the scores
+     * @param tm  the time
+     */
+    protected SOCDBWrite(int t, String[] n, short[] s, long tm)
+    {
+        type = t;
+        names = n;
+        scores = s;
+        time = tm;
+    }
+
+    /**
+     * @return a write that saves the scores of a game
+     *
+     * @param gameName   the name of the game
+     * @param players    the names of the players
+     * @param scores     their scores
+     * @param startTime  when the game started
+     */
+    public static SOCDBWrite saveGameScores(String gameName, String[] players, short[] scores, java.util.Date startTime)
+    {
+        String[] names = new String[players.length + 1];
+        names[0] = gameName;
+        System.arraycopy(players, 0, names, 1, players.length);
+
+        return new SOCDBWrite(SAVE_GAME, names, (short[]) scores.clone(), startTime.getTime());
+    }
+
+    /**
+     * @return a write that records a login
+     *
+     * @param userName  the user's nickname
+     * @param host      the host they logged in from
+     * @param time      the time they logged in
+     */
+    public static SOCDBWrite recordLogin(String userName, String host, long time)
+    {
+        String[] names = { userName, host };
+
+        return new SOCDBWrite(RECORD_LOGIN, names, new short[0], time);
+    }
+
+    /**
+     * @return a write that updates a user's last login time
+     *
+     * @param userName  the user's nickname
+     * @param time      the time they logged in
+     */
+    public static SOCDBWrite updateLastlogin(String userName, long time)
+    {
+        String[] names = { userName };
+
+        return new SOCDBWrite(UPDATE_LASTLOGIN, names, new short[0], time);
+    }
+
+    /**
+     * @return what kind of write this is
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * save this write to a file
+     *
+     * @param out  the file
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        out.writeByte(type);
+        out.writeLong(time);
+        out.writeByte(names.length);
+
+        for (int i = 0; i < names.length; i++)
+        {
+            out.writeBoolean(names[i] != null);
+
+            if (names[i] != null)
+            {
+                out.writeUTF(names[i]);
+            }
+        }
+
+        out.writeByte(scores.length);
+
+        for (int i = 0; i < scores.length; i++)
+        {
+            out.writeShort(scores[i]);
+        }
+    }
+
+    /**
+     * read a write that was saved with writeTo
+     *
+     * @param in  the file
+     * @return the write
+     * @throws EOFException if the file ends partway through the write
+     * @throws IOException if the file can't be read, or doesn't
+     *         hold a write here
+     */
+    public static SOCDBWrite readFrom(DataInputStream in) throws IOException
+    {
+        int type = in.readUnsignedByte();
+
+        if (type >= NUM_NAMES.length)
+        {
+            throw new IOException("Unknown db write type " + type);
+        }
+
+        long time = in.readLong();
+        int numNames = in.readUnsignedByte();
+
+        if (numNames != NUM_NAMES[type])
+        {
+            throw new IOException("Bad name count " + numNames + " for db write type " + type);
+        }
+
+        String[] names = new String[numNames];
+
+        for (int i = 0; i < names.length; i++)
+        {
+            if (in.readBoolean())
+            {
+                names[i] = in.readUTF();
+            }
+        }
+
+        int numScores = in.readUnsignedByte();
+
+        if (numScores != NUM_SCORES[type])
+        {
+            throw new IOException("Bad score count " + numScores + " for db write type " + type);
+        }
+
+        short[] scores = new short[numScores];
+
+        for (int i = 0; i < scores.length; i++)
+        {
+            scores[i] = in.readShort();
+        }
+
+        return new SOCDBWrite(type, names, scores, time);
+    }
+
+    /**
+     * @return a human readable form of the write
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer("SOCDBWrite:type=" + type + "|time=" + time);
+
+        for (int i = 0; i < names.length; i++)
+        {
+            sb.append("|" + names[i]);
+        }
+
+        for (int i = 0; i < scores.length; i++)
+        {
+            sb.append("|" + scores[i]);
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,572 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server.database;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.sql.SQLException;
+
+import java.util.Vector;
+
+
+/**
+ * Holds on to database writes that can wait, and sends them
+ * to the database in batches, so logging in and finishing a
+ * game never wait for the database.  A batch is sent when
+ * enough writes have piled up, or when the oldest has waited
+ * long enough.
+ *
+ * If a batch can't be written, it is added to the end of a
+ * spill file.  Before the next batch is written, the spill
+ * file is written to the database, so batches get there in
+ * the order they were made.  Within a batch, SOCDBHelper.writeBatch
+ * keeps the order of each kind of write, but sends the kinds
+ * one after another; they go to different tables, so nothing
+ * depends on the order between kinds.
+ *
+ * After the database fails, it isn't tried again, and the
+ * spill file isn't read, until the flush interval has gone by;
+ * until then new batches go straight to the spill file.
+ *
+ * If the end of the spill file can't be read, because a write
+ * was cut short or the file is damaged, that part is moved to
+ * a file with ".bad" on the end of its name, and the rest is
+ * sent as usual.
+ *
+ * @author agent
+ */
+public class SOCDBWriteBehind extends Thread
+{
+    /** the number of writes that are sent right away */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** the longest a write waits to be sent, in milliseconds */
+    public static final int DEFAULT_FLUSH_INTERVAL = 5000;
+
+    /** the file that writes go to when the database is down */
+    public static final String DEFAULT_SPILL_FILE = "socdb.spill";
+
+    /**
+     * the writes waiting to be sent
+     */
+    private Vector pending;
+
+    /**
+     * the number of writes that are sent right away
+     */
+    private int batchSize;
+
+    /**
+     * the longest a write waits to be sent, in milliseconds
+     */
+    private int flushInterval;
+
+    /**
+     * where writes go when the database is down
+     */
+    private File spillFile;
+
+    /**
+     * held while writing to the database or the spill file
+     */
+    private Object writeLock;
+
+    /**
+     * when a write to the database last failed, or 0
+     */
+    private long lastFailure;
+
+    /**
+     * the number of writes sent to the database
+     */
+    private int numWritten;
+
+    /**
+     * the number of writes put in the spill file
+     */
+    private int numSpilled;
+
+    /**
+     * constructor
+     *
+     * @param bs  the number of writes that are sent right away
+     * @param fi  the longest a write waits to be sent, in milliseconds
+     * @param sf  the name of the spill file
+     */
+    public SOCDBWriteBehind(int bs, int fi, String sf)
+    {
+        pending = new Vector();
+        batchSize = Math.max(1, bs);
+        flushInterval = Math.max(1, fi);
+        spillFile = new File(sf);
+        writeLock = new Object();
+        numWritten = 0;
+        numSpilled = 0;
+        setName("dbWriteBehind");
+        setDaemon(true);
+    }
+
+    /**
+     * constructor using the default batch size, flush interval
+     * and spill file
+     */
+    public SOCDBWriteBehind()
+    {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_SPILL_FILE);
+    }
+
+    /**
+     * add a write to be sent later
+     *
+     * @param write  the write
+     */
+    public synchronized void add(SOCDBWrite write)
+    {
+        pending.addElement(write);
+
+        if (pending.size() >= batchSize)
+        {
+            notify();
+        }
+    }
+
+    /**
+     * @return the number of writes waiting to be sent
+     */
+    public synchronized int getNumPending()
+    {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of writes sent to the database
+     */
+    public int getNumWritten()
+    {
+        synchronized (writeLock)
+        {
+            return numWritten;
+        }
+    }
+
+    /**
+     * @return the number of writes put in the spill file
+     */
+    public int getNumSpilled()
+    {
+        synchronized (writeLock)
+        {
+            return numSpilled;
+        }
+    }
+
+    /**
+     * send the waiting writes now, and wait for them to
+     * be written
+     */
+    public void flush()
+    {
+        write(takeAll());
+    }
+
+    /**
+     * keep sending batches
+     */
+    public void run()
+    {
+        while (true)
+        {
+            Vector batch = takeBatch();
+
+            try
+            {
+                write(batch);
+            }
+            catch (RuntimeException e)
+            {
+                System.err.println("Error in db write-behind, " + batch.size() + " db writes lost: " + e);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * wait until there's a full batch, or until there are
+     * writes and the flush interval has gone by
+     *
+     * @return the writes to send
+     */
+    protected synchronized Vector takeBatch()
+    {
+        long flushTime = System.currentTimeMillis() + flushInterval;
+
+        while (pending.size() < batchSize)
+        {
+            long waitTime = flushTime - System.currentTimeMillis();
+
+            if (waitTime <= 0)
+            {
+                if (!pending.isEmpty())
+                {
+                    break;
+                }
+
+                flushTime = System.currentTimeMillis() + flushInterval;
+                waitTime = flushInterval;
+            }
+
+            try
+            {
+                wait(waitTime);
+            }
+            catch (InterruptedException e)
+            {
+                ;
+            }
+        }
+
+        return takeAll();
+    }
+
+    /**
+     * @return all of the waiting writes
+     */
+    protected synchronized Vector takeAll()
+    {
+        Vector batch = pending;
+        pending = new Vector();
+
+        return batch;
+    }
+
+    /**
+     * send a batch to the database, or to the spill file if
+     * the database is down or there are older writes that
+     * haven't been sent yet
+     *
+     * @param batch  the writes
+     */
+    protected void write(Vector batch)
+    {
+        synchronized (writeLock)
+        {
+            boolean retry = (System.currentTimeMillis() - lastFailure) >= flushInterval;
+
+            if (retry && spillFile.exists())
+            {
+                writeSpillFile();
+            }
+
+            if (batch.isEmpty())
+            {
+                return;
+            }
+
+            if (retry && !spillFile.exists() && writeToDB(batch))
+            {
+                return;
+            }
+
+            spill(batch);
+        }
+    }
+
+    /**
+     * @return true if the writes got to the database
+     *
+     * @param batch  the writes
+     */
+    protected boolean writeToDB(Vector batch)
+    {
+        try
+        {
+            if (SOCDBHelper.writeBatch(batch))
+            {
+                numWritten += batch.size();
+
+                return true;
+            }
+        }
+        catch (SQLException sqlE)
+        {
+            System.err.println("Error writing to db, saving to " + spillFile + ": " + sqlE);
+        }
+
+        lastFailure = System.currentTimeMillis();
+
+        return false;
+    }
+
+    /**
+     * add writes to the end of the spill file
+     *
+     * @param batch  the writes
+     */
+    protected void spill(Vector batch)
+    {
+        try
+        {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile.getPath(), true)));
+
+            try
+            {
+                for (int i = 0; i < batch.size(); i++)
+                {
+                    ((SOCDBWrite) batch.elementAt(i)).writeTo(out);
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+
+            numSpilled += batch.size();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to write to " + spillFile + ", " + batch.size() + " db writes lost: " + e);
+        }
+    }
+
+    /**
+     * send the writes in the spill file to the database, a
+     * batch at a time.  The file is removed once they've all
+     * been sent; if the database goes down partway, it is
+     * replaced by a file of just the writes that weren't sent,
+     * so the file is never without them.  Anything
+     * after the last write that can be read is set aside first.
+     */
+    protected void writeSpillFile()
+    {
+        byte[] data;
+
+        try
+        {
+            data = readSpillFile();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to read " + spillFile + ": " + e);
+
+            return;
+        }
+
+        Vector writes = new Vector();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int good = 0;
+
+        try
+        {
+            while (good < data.length)
+            {
+                writes.addElement(SOCDBWrite.readFrom(in));
+                good = data.length - in.available();
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unreadable db write at byte " + good + " of " + spillFile + ": " + e);
+        }
+
+        if ((good < data.length) && !setAside(data, good))
+        {
+            return;
+        }
+
+        int sent = 0;
+
+        while (sent < writes.size())
+        {
+            Vector batch = new Vector();
+
+            for (int i = sent; (i < writes.size()) && (batch.size() < batchSize);
+                    i++)
+            {
+                batch.addElement(writes.elementAt(i));
+            }
+
+            if (!writeToDB(batch))
+            {
+                break;
+            }
+
+            sent += batch.size();
+        }
+
+        if ((sent == 0) && !writes.isEmpty())
+        {
+            return;
+        }
+
+        if (!spillFile.exists())
+        {
+            return;
+        }
+
+        if (sent == writes.size())
+        {
+            if (!spillFile.delete())
+            {
+                System.err.println("Unable to remove " + spillFile);
+            }
+
+            return;
+        }
+
+        Vector rest = new Vector();
+
+        for (int i = sent; i < writes.size(); i++)
+        {
+            rest.addElement(writes.elementAt(i));
+        }
+
+        try
+        {
+            replaceSpillFile(rest);
+        }
+        catch (IOException e)
+        {
+            // the old file is still there, so the writes that were
+            // sent will be sent again; that's better than losing some
+            System.err.println("Unable to replace " + spillFile + ", " + sent + " db writes will be sent again: " + e);
+        }
+    }
+
+    /**
+     * write the writes to a new file and put it in place
+     * of the spill file
+     *
+     * @param writes  the writes
+     */
+    protected void replaceSpillFile(Vector writes) throws IOException
+    {
+        File tmp = new File(spillFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+
+        try
+        {
+            for (int i = 0; i < writes.size(); i++)
+            {
+                ((SOCDBWrite) writes.elementAt(i)).writeTo(out);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        if (!tmp.renameTo(spillFile))
+        {
+            spillFile.delete();
+
+            if (!tmp.renameTo(spillFile))
+            {
+                throw new IOException("can't rename " + tmp + " to " + spillFile);
+            }
+        }
+    }
+
+    /**
+     * @return everything in the spill file
+     */
+    protected byte[] readSpillFile() throws IOException
+    {
+        DataInputStream in = new DataInputStream(new FileInputStream(spillFile));
+
+        try
+        {
+            byte[] data = new byte[(int) spillFile.length()];
+            in.readFully(data);
+
+            return data;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * move the part of the spill file that can't be read to the
+     * end of the ".bad" file, and cut the spill file off at the
+     * last write that can be, so later writes added to it can
+     * be read back.  If none of it can be read, it's removed.
+     *
+     * @param data  everything in the spill file
+     * @param good  how many bytes at the start can be read
+     * @return true if the spill file now ends at the last good write
+     */
+    protected boolean setAside(byte[] data, int good)
+    {
+        File badFile = new File(spillFile.getPath() + ".bad");
+
+        try
+        {
+            FileOutputStream out = new FileOutputStream(badFile.getPath(), true);
+
+            try
+            {
+                out.write(data, good, data.length - good);
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (good == 0)
+            {
+                if (!spillFile.delete())
+                {
+                    throw new IOException("can't remove " + spillFile);
+                }
+            }
+            else
+            {
+                RandomAccessFile raf = new RandomAccessFile(spillFile, "rw");
+
+                try
+                {
+                    raf.setLength(good);
+                }
+                finally
+                {
+                    raf.close();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Unable to set aside the end of " + spillFile + ": " + e);
+
+            return false;
+        }
+
+        System.err.println("Moved " + (data.length - good) + " unreadable bytes from " + spillFile + " to " + badFile);
+
+        return true;
+    }
+}
@@ -20,7 +20,7 @@
  **/
 package soc.server.genericServer;
 
-import soc.disableDebug.D;
+import soc.debug.Log;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -40,6 +40,11 @@ import java.util.Vector;
  */
 public final class Connection extends Thread implements Runnable, Serializable, Cloneable
 {
+    /**
+     * the log for connections
+     */
+    static final Log log = Log.getLog("server.net");
+
     static int putters = 0;
     static Object puttersMonitor = new Object();
     protected final static int TIMEOUT_VALUE = 3600000; // approx. 1 hour
@@ -58,6 +63,11 @@ public final class Connection extends Thread implements Runnable, Serializable,
     protected boolean connected = false;
     public Vector outQueue = new Vector();
 
+    /**
+     * the most messages that have been waiting in the outQueue
+     */
+    protected int maxOutQueueSize = 0;
+
     /** initialize the connection data */
     Connection(Socket so, Server sve)
     {
@@ -97,12 +107,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         }
         catch (Exception e)
         {
-            D.ebugPrintln("IOException in Connection.connect (" + hst + ") - " + e);
-
-            if (D.ebugOn)
-            {
-                e.printStackTrace(System.out);
-            }
+            log.log(Log.DEBUG, "IOException in Connection.connect ({}) - {}", hst, e, e);
 
             error = e;
             disconnect();
@@ -127,12 +132,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         }
         catch (IOException e)
         {
-            D.ebugPrintln("IOException in Connection.run (" + hst + ") - " + e);
-
-            if (D.ebugOn)
-            {
-                e.printStackTrace(System.out);
-            }
+            log.log(Log.DEBUG, "IOException in Connection.run ({}) - {}", hst, e, e);
 
             if (!connected)
             {
@@ -155,8 +155,14 @@ public final class Connection extends Thread implements Runnable, Serializable,
     {
         synchronized (outQueue)
         {
-            D.ebugPrintln("Adding " + str + " to outQueue for " + data);
+            log.debug("Adding {} to outQueue for {}", str, data);
             outQueue.addElement(str);
+
+            if (outQueue.size() > maxOutQueueSize)
+            {
+                maxOutQueueSize = outQueue.size();
+            }
+
             outQueue.notify();
         }
 
@@ -210,12 +216,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         }
         catch (IOException e)
         {
-            D.ebugPrintln("IOException in Connection.putAux (" + hst + ") - " + e);
-
-            if (D.ebugOn)
-            {
-                e.printStackTrace(System.out);
-            }
+            log.log(Log.DEBUG, "IOException in Connection.putAux ({}) - {}", hst, e, e);
 
             error = e;
 
@@ -223,12 +224,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         }
         catch (Exception ex)
         {
-            D.ebugPrintln("generic exception in connection putaux");
-
-            if (D.ebugOn)
-            {
-                ex.printStackTrace(System.out);
-            }
+            log.debug("generic exception in connection putaux", ex);
 
             return false;
         }
@@ -239,7 +235,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
     /** close the socket, stop the reader */
     void disconnect()
     {
-        D.ebugPrintln("DISCONNECTING " + data);
+        log.debug("DISCONNECTING {}", data);
         connected = false;
 
         /*                if(Thread.currentThread()!=reader && reader!=null && reader.isAlive())
@@ -250,12 +246,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         }
         catch (IOException e)
         {
-            D.ebugPrintln("IOException in Connection.disconnect (" + hst + ") - " + e);
-
-            if (D.ebugOn)
-            {
-                e.printStackTrace(System.out);
-            }
+            log.log(Log.DEBUG, "IOException in Connection.disconnect ({}) - {}", hst, e, e);
 
             error = e;
         }
@@ -265,6 +256,23 @@ public final class Connection extends Thread implements Runnable, Serializable,
         out = null;
     }
 
+    /**
+     * @return the number of messages waiting to be sent
+     */
+    public int getOutQueueSize()
+    {
+        return outQueue.size();
+    }
+
+    /**
+     * @return the most messages that have been waiting
+     *         to be sent at once
+     */
+    public int getMaxOutQueueSize()
+    {
+        return maxOutQueueSize;
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -283,7 +291,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
         public Putter(Connection c)
         {
             con = c;
-            D.ebugPrintln("NEW PUTTER CREATED FOR " + data);
+            log.debug("NEW PUTTER CREATED FOR {}", data);
         }
 
         public void run()
@@ -292,7 +300,7 @@ public final class Connection extends Thread implements Runnable, Serializable,
             {
                 String c = null;
 
-                D.ebugPrintln("** " + data + " is at the top of the putter loop");
+                log.debug("** {} is at the top of the putter loop", data);
 
                 synchronized (outQueue)
                 {
@@ -321,13 +329,13 @@ public final class Connection extends Thread implements Runnable, Serializable,
                         }
                         catch (Exception ex)
                         {
-                            D.ebugPrintln("Exception while waiting for outQueue in " + data + ". - " + ex);
+                            log.debug("Exception while waiting for outQueue in {}. - {}", data, ex);
                         }
                     }
                 }
             }
 
-            D.ebugPrintln("putter not putting connected==false : " + data);
+            log.debug("putter not putting connected==false : {}", data);
         }
     }
 }
@@ -22,6 +22,8 @@ package soc.server.genericServer;
 
 import soc.disableDebug.D;
 
+import soc.util.LatencyHistogram;
+
 import java.io.IOException;
 import java.io.Serializable;
 
@@ -55,6 +57,12 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     protected Vector conns = new Vector();
     public Vector inQueue = new Vector();
 
+    /**
+     * how long requests and tasks wait in the inQueue
+     * before they're treated, in microseconds
+     */
+    protected LatencyHistogram inQueueWaits = new LatencyHistogram();
+
     /** start listening to the given port */
     public Server(int port)
     {
@@ -82,6 +90,40 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         return conns.size();
     }
 
+    /**
+     * @return a copy of the list of connections
+     */
+    public synchronized Vector getConnectionList()
+    {
+        return (Vector) conns.clone();
+    }
+
+    /**
+     * @return the total number of connections made
+     */
+    public int getTotalConnections()
+    {
+        return numberOfConnections;
+    }
+
+    /**
+     * @return the number of requests and tasks waiting
+     *         to be treated
+     */
+    public int getInQueueSize()
+    {
+        return inQueue.size();
+    }
+
+    /**
+     * @return how long requests and tasks have waited to be
+     *         treated, in microseconds
+     */
+    public LatencyHistogram getInQueueWaits()
+    {
+        return inQueueWaits;
+    }
+
     protected synchronized boolean isUp()
     {
         return up;
@@ -146,6 +188,22 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         }
     }
 
+    /**
+     * run a task on the thread that treats requests, after
+     * the requests that are already waiting.  Other threads use
+     * this to hand results back to the server.
+     *
+     * @param task  the task
+     */
+    public void invokeLater(Runnable task)
+    {
+        synchronized (inQueue)
+        {
+            inQueue.addElement(new Command(task));
+            inQueue.notify();
+        }
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -221,11 +279,23 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     {
         public String str;
         public Connection con;
+        public Runnable task;
+        public long queued;
 
         public Command(String s, Connection c)
         {
             str = s;
             con = c;
+            task = null;
+            queued = LatencyHistogram.nowMicros();
+        }
+
+        public Command(Runnable t)
+        {
+            str = null;
+            con = null;
+            task = t;
+            queued = LatencyHistogram.nowMicros();
         }
     }
 
@@ -259,7 +329,16 @@ public abstract class Server extends Thread implements Serializable, Cloneable
                 {
                     if (c != null)
                     {
-                        svr.processCommand(c.str, c.con);
+                        inQueueWaits.record(LatencyHistogram.nowMicros() - c.queued);
+
+                        if (c.task != null)
+                        {
+                            c.task.run();
+                        }
+                        else
+                        {
+                            svr.processCommand(c.str, c.con);
+                        }
                     }
                 }
                 catch (Exception e)
@@ -120,4 +120,12 @@ public class CappedQueue
     {
         return vec.isEmpty();
     }
+
+    /**
+     * @return the number of objects waiting in the queue
+     */
+    synchronized public int size()
+    {
+        return vec.size();
+    }
 }
@@ -20,26 +20,94 @@
  **/
 package soc.util;
 
-import java.util.Collections;
+import soc.debug.Log;
+
+import java.text.DecimalFormat;
+
+import java.util.Enumeration;
 import java.util.Hashtable;
-import java.util.Map;
 import java.util.Vector;
 
 
 /**
  * This class is used to record debugging information
  * that can be accessed during run-time through a client.
- * The debugging information is in the form of a vector
- * of strings.  Each debugging vector is stored in a
- * table under a key that is supplied by the user.
+ * Each recording is stored under a key that is supplied
+ * by the user, and is given back as a vector of strings.
+ *
+ * Lines are kept in a fixed-size ring, so a recorder that
+ * is left on for a whole game never holds more than its
+ * capacity.  When the ring is full the oldest lines are
+ * written over, and a recording that has lost any of its
+ * lines is gone.
+ *
+ * A line is kept as a message with up to two "{}" slots
+ * and its arguments, and only turned into a string when the
+ * recording is asked for, so
+ *
+ *   recorder.record("ETA = {}", new Integer(eta));
+ *
+ * doesn't build the string at all unless someone looks.
+ * Arguments are kept as they are, so they should be values
+ * that won't change, such as Integers and Strings.  Floats
+ * and Doubles are shown with two decimal places.
+ *
+ * @author Robert S Thomas
  */
 public class DebugRecorder
 {
     public static final int NOT_RECORDING = 0;
     public static final int RECORDING = 1;
-    private Map records;
+
+    /**
+     * how many lines a recorder holds if not told otherwise
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * for showing Float and Double arguments; each recorder
+     * has its own, since a DecimalFormat can't be shared
+     * between threads
+     */
+    private DecimalFormat df1 = new DecimalFormat("###0.00");
+
+    /**
+     * the number of lines in the ring
+     */
+    private int capacity;
+
+    /**
+     * the ring of lines; for each slot, the message,
+     * its arguments, and the recording it belongs to
+     */
+    private String[] messages;
+    private Object[] firstArgs;
+    private Object[] secondArgs;
+    private int[] recordings;
+
+    /**
+     * the next slot to write, and how many slots are in use
+     */
+    private int next;
+    private int count;
+
+    /**
+     * the finished recordings; for each key, an int[]
+     * of the recording's number and how many lines it has
+     */
+    private Hashtable records;
+
+    /**
+     * the recording in progress
+     */
     private Object currentKey;
-    private Vector currentRecord;
+    private int currentRecording;
+    private int currentSize;
+
+    /**
+     * the number of the last recording started
+     */
+    private int lastRecording;
     private int state;
     private boolean on;
 
@@ -48,6 +116,17 @@ public class DebugRecorder
      */
     public DebugRecorder()
     {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructor
+     *
+     * @param cap  how many lines to hold
+     */
+    public DebugRecorder(int cap)
+    {
+        capacity = cap;
         state = NOT_RECORDING;
         on = false;
     }
@@ -55,11 +134,15 @@ public class DebugRecorder
     /**
      * turn the recorder on
      */
-    public void turnOn()
+    public synchronized void turnOn()
     {
         if (records == null)
         {
-            records = Collections.synchronizedMap(new Hashtable());
+            messages = new String[capacity];
+            firstArgs = new Object[capacity];
+            secondArgs = new Object[capacity];
+            recordings = new int[capacity];
+            records = new Hashtable();
         }
 
         on = true;
@@ -68,13 +151,12 @@ public class DebugRecorder
     /**
      * turn the recorder off
      */
-    public void turnOff()
+    public synchronized void turnOff()
     {
         on = false;
-        currentRecord = null;
         currentKey = null;
-        records.clear();
         state = NOT_RECORDING;
+        eraseAllRecords();
     }
 
     /**
@@ -85,28 +167,44 @@ public class DebugRecorder
         return on;
     }
 
+    /**
+     * @return how many lines this recorder holds
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
     /**
      * Start recording the current plan information
      *
      * @param key  the key to use to index this recording
      */
-    public void startRecording(Object key)
+    public synchronized void startRecording(Object key)
     {
         state = RECORDING;
         currentKey = key;
-        currentRecord = new Vector();
+        currentRecording = ++lastRecording;
+        currentSize = 0;
     }
 
     /**
-     * stop recording and store the vector in the table
+     * stop recording and store the recording in the table
      */
-    public void stopRecording()
+    public synchronized void stopRecording()
     {
         state = NOT_RECORDING;
 
-        if ((currentKey != null) && (currentRecord != null))
+        if ((currentKey != null) && (records != null))
         {
-            records.put(currentKey, currentRecord);
+            int[] rec = { currentRecording, currentSize };
+            records.put(currentKey, rec);
+            currentKey = null;
+
+            if (records.size() > capacity)
+            {
+                removeLostRecords();
+            }
         }
     }
 
@@ -127,15 +225,57 @@ public class DebugRecorder
     }
 
     /**
-     * Add a string to the current record
+     * Add a line to the current record
      *
-     * @param s  the string to add
+     * @param s  the line to add
      */
     public void record(String s)
     {
-        if (state == RECORDING)
+        record(s, null, null);
+    }
+
+    /**
+     * Add a line to the current record
+     *
+     * @param s  the line to add, with a "{}" slot
+     * @param a  what goes in the slot
+     */
+    public void record(String s, Object a)
+    {
+        record(s, a, null);
+    }
+
+    /**
+     * Add a line to the current record
+     *
+     * @param s  the line to add, with up to two "{}" slots
+     * @param a  what goes in the first slot
+     * @param b  what goes in the second slot
+     */
+    public synchronized void record(String s, Object a, Object b)
+    {
+        if ((state == RECORDING) && (currentKey != null))
+        {
+            add(currentRecording, s, a, b);
+            currentSize++;
+        }
+    }
+
+    /**
+     * put a line in the next slot of the ring,
+     * writing over the oldest line if it is full
+     */
+    private void add(int recording, String s, Object a, Object b)
+    {
+        messages[next] = s;
+        firstArgs[next] = a;
+        secondArgs[next] = b;
+        recordings[next] = recording;
+        next = (next + 1) % capacity;
+
+        if (count < capacity)
         {
-            currentRecord.addElement(s);
+            count++;
         }
     }
 
@@ -143,32 +283,170 @@ public class DebugRecorder
      * Get a record from the table
      *
      * @param key  the key for the record
-     * @return the record
+     * @return the record as a vector of strings, or null
+     *         if there isn't one or it has been written over
      */
-    public Vector getRecord(Object key)
+    public synchronized Vector getRecord(Object key)
     {
-        return (Vector) records.get(key);
+        if (records == null)
+        {
+            return null;
+        }
+
+        int[] rec = (int[]) records.get(key);
+
+        if (rec == null)
+        {
+            return null;
+        }
+
+        Vector lines = new Vector(rec[1]);
+
+        if (rec[1] > 0)
+        {
+            int slot = (next - count + capacity) % capacity;
+
+            for (int i = 0; i < count; i++)
+            {
+                if (recordings[slot] == rec[0])
+                {
+                    lines.addElement(format(slot));
+                }
+
+                slot = (slot + 1) % capacity;
+            }
+        }
+
+        if (lines.size() != rec[1])
+        {
+            records.remove(key);
+
+            return null;
+        }
+
+        return lines;
+    }
+
+    /**
+     * @return the line in a slot of the ring as a string
+     */
+    private String format(int slot)
+    {
+        String s = messages[slot];
+
+        if ((s == null) || (s.indexOf("{}") < 0))
+        {
+            return s;
+        }
+
+        return Log.format(s, show(firstArgs[slot]), show(secondArgs[slot]));
+    }
+
+    /**
+     * @return an argument the way it should be shown
+     */
+    private Object show(Object a)
+    {
+        if ((a instanceof Float) || (a instanceof Double))
+        {
+            return df1.format(((Number) a).doubleValue());
+        }
+
+        return a;
+    }
+
+    /**
+     * @return how many lines of a recording are still in the ring
+     */
+    private int linesLeft(int recording)
+    {
+        int left = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            if (recordings[i] == recording)
+            {
+                left++;
+            }
+        }
+
+        return left;
+    }
+
+    /**
+     * take the recordings that have lost lines out of the table
+     */
+    private void removeLostRecords()
+    {
+        Enumeration keys = records.keys();
+
+        while (keys.hasMoreElements())
+        {
+            Object key = keys.nextElement();
+            int[] rec = (int[]) records.get(key);
+
+            if (linesLeft(rec[0]) != rec[1])
+            {
+                records.remove(key);
+            }
+        }
     }
 
     /**
-     * Store a record in the table
+     * Store a record in the table.  A record with more lines
+     * than the ring holds is cut short: its first line says
+     * how many lines were left out, and the rest are its last
+     * lines.
      *
      * @param key  the key for the record
      * @param rec  the record (a vector of strings)
      */
-    public void putRecord(Object key, Vector rec)
+    public synchronized void putRecord(Object key, Vector rec)
     {
-        if ((key != null) && (rec != null))
+        if ((key != null) && (rec != null) && (records != null))
         {
-            records.put(key, rec);
+            int recording = ++lastRecording;
+            int size = rec.size();
+            int first = 0;
+
+            if (size > capacity)
+            {
+                first = size - (capacity - 1);
+                add(recording, "({} earlier lines left out)", new Integer(first), null);
+                size = capacity;
+            }
+
+            for (int i = first; i < rec.size(); i++)
+            {
+                add(recording, (String) rec.elementAt(i), null, null);
+            }
+
+            int[] r = { recording, size };
+            records.put(key, r);
         }
     }
 
     /**
      * Clear the record table
      */
-    public void eraseAllRecords()
+    public synchronized void eraseAllRecords()
     {
+        if (records == null)
+        {
+            return;
+        }
+
         records.clear();
+
+        for (int i = 0; i < capacity; i++)
+        {
+            messages[i] = null;
+            firstArgs[i] = null;
+            secondArgs[i] = null;
+            recordings[i] = 0;
+        }
+
+        next = 0;
+        count = 0;
     }
 }
@@ -0,0 +1,136 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.util;
+
+
+/**
+ * A list of ints that can be used as a hash table key.
+ * Two keys are equal if they hold the same ints in the
+ * same order.  Build the key with add() before using
+ * it as a key; don't add to it after that.
+ *
+ * @author agent
+ */
+public class IntArrayKey
+{
+    /**
+     * the ints
+     */
+    private int[] ints;
+
+    /**
+     * how many ints have been added
+     */
+    private int size;
+
+    /**
+     * the hash code of the ints so far
+     */
+    private int hash;
+
+    /**
+     * make an empty key
+     *
+     * @param capacity  how many ints to make room for
+     */
+    public IntArrayKey(int capacity)
+    {
+        ints = new int[Math.max(capacity, 4)];
+        size = 0;
+        hash = 1;
+    }
+
+    /**
+     * add an int to the end of the key
+     *
+     * @param i  the int
+     */
+    public void add(int i)
+    {
+        if (size == ints.length)
+        {
+            int[] newInts = new int[ints.length * 2];
+            System.arraycopy(ints, 0, newInts, 0, size);
+            ints = newInts;
+        }
+
+        ints[size] = i;
+        size++;
+        hash = (31 * hash) + i;
+    }
+
+    /**
+     * add all of the ints in another key to the end of this one
+     *
+     * @param key  the other key
+     */
+    public void addAll(IntArrayKey key)
+    {
+        for (int i = 0; i < key.size; i++)
+        {
+            add(key.ints[i]);
+        }
+    }
+
+    /**
+     * @return the number of ints in the key
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the hash code
+     */
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    /**
+     * @return true if the other object is a key with the same ints
+     *
+     * @param o  the other object
+     */
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof IntArrayKey))
+        {
+            return false;
+        }
+
+        IntArrayKey key = (IntArrayKey) o;
+
+        if ((key.size != size) || (key.hash != hash))
+        {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            if (key.ints[i] != ints[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
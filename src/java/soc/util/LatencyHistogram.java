@@ -0,0 +1,248 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.util;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Counts how long things take, in microseconds, in buckets
+ * that double in size.  Bucket 0 holds times of 0, and bucket
+ * n holds times from 2^(n-1) up to 2^n - 1, so recording a time
+ * is a few shifts and an increment, and percentiles are good to
+ * within a factor of two.
+ *
+ * @author agent
+ */
+public class LatencyHistogram
+{
+    /**
+     * the number of buckets; the last one also holds
+     * everything too big for the others
+     */
+    public static final int NUM_BUCKETS = 32;
+
+    /**
+     * System.nanoTime(), or null if this Java runtime
+     * doesn't have it
+     */
+    private static Method nanoTime;
+
+    static
+    {
+        try
+        {
+            nanoTime = System.class.getMethod("nanoTime", new Class[0]);
+        }
+        catch (NoSuchMethodException e)
+        {
+            nanoTime = null;
+        }
+    }
+
+    /**
+     * how many times fell in each bucket
+     */
+    private long[] buckets;
+
+    /**
+     * the number of times recorded
+     */
+    private long count;
+
+    /**
+     * the sum of the times recorded
+     */
+    private long total;
+
+    /**
+     * the longest time recorded
+     */
+    private long max;
+
+    /**
+     * make an empty histogram
+     */
+    public LatencyHistogram()
+    {
+        buckets = new long[NUM_BUCKETS];
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * @return the time now, in microseconds since an arbitrary
+     *         start, for timing things.  It comes from
+     *         System.nanoTime() when the Java runtime has it,
+     *         and from the millisecond clock when it doesn't.
+     */
+    public static long nowMicros()
+    {
+        if (nanoTime != null)
+        {
+            try
+            {
+                return ((Long) nanoTime.invoke(null, new Object[0])).longValue() / 1000;
+            }
+            catch (Exception e) {}
+        }
+
+        return System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * record a time
+     *
+     * @param micros  the time, in microseconds
+     */
+    public synchronized void record(long micros)
+    {
+        if (micros < 0)
+        {
+            micros = 0;
+        }
+
+        buckets[bucketFor(micros)]++;
+        count++;
+        total += micros;
+
+        if (micros > max)
+        {
+            max = micros;
+        }
+    }
+
+    /**
+     * @return the bucket a time goes in
+     *
+     * @param micros  the time
+     */
+    public static int bucketFor(long micros)
+    {
+        int b = 0;
+
+        while ((micros != 0) && (b < (NUM_BUCKETS - 1)))
+        {
+            micros >>>= 1;
+            b++;
+        }
+
+        return b;
+    }
+
+    /**
+     * @return the longest time that goes in a bucket
+     *
+     * @param b  the bucket
+     */
+    public static long bucketLimit(int b)
+    {
+        return (b == (NUM_BUCKETS - 1)) ? Long.MAX_VALUE : ((1L << b) - 1);
+    }
+
+    /**
+     * @return the number of times recorded
+     */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return the sum of the times recorded
+     */
+    public synchronized long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * @return the longest time recorded
+     */
+    public synchronized long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * @return the average time recorded, or 0 if there
+     *         aren't any
+     */
+    public synchronized long getMean()
+    {
+        return (count == 0) ? 0 : (total / count);
+    }
+
+    /**
+     * @return a time that the given percent of the recorded
+     *         times are no longer than, rounded up to the end
+     *         of its bucket but never more than the longest
+     *
+     * @param percent  the percentile, from 0 to 100
+     */
+    public synchronized long getPercentile(int percent)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long rank = ((count * percent) + 99) / 100;
+        long seen = 0;
+
+        for (int b = 0; b < NUM_BUCKETS; b++)
+        {
+            seen += buckets[b];
+
+            if ((seen >= rank) && (seen > 0))
+            {
+                return Math.min(bucketLimit(b), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * @return a copy of the bucket counts
+     */
+    public synchronized long[] getBuckets()
+    {
+        long[] copy = new long[NUM_BUCKETS];
+        System.arraycopy(buckets, 0, copy, 0, NUM_BUCKETS);
+
+        return copy;
+    }
+
+    /**
+     * forget all the times recorded
+     */
+    public synchronized void clear()
+    {
+        for (int b = 0; b < NUM_BUCKETS; b++)
+        {
+            buckets[b] = 0;
+        }
+
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+}
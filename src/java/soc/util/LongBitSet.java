@@ -0,0 +1,428 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+
+/**
+ * A fixed-size set of bits packed into a long[].
+ * Used for things like board coordinate sets, where a
+ * boolean[] would waste space and take a long time to copy.
+ * Copy, union and scan operations work a whole word at a time.
+ *
+ * Unlike java.util.BitSet this never grows, and does no
+ * bounds checking beyond what the array does.
+ *
+ * @author agent
+ */
+public class LongBitSet implements Serializable, Cloneable
+{
+    /**
+     * the bits, 64 to a word
+     */
+    private long[] words;
+
+    /**
+     * the number of bits in this set
+     */
+    private int size;
+
+    /**
+     * make an empty bit set
+     *
+     * @param nbits  the number of bits
+     */
+    public LongBitSet(int nbits)
+    {
+        size = nbits;
+        words = new long[(nbits + 63) >> 6];
+    }
+
+    /**
+     * make a copy of a bit set
+     *
+     * @param bs  the set to copy
+     */
+    public LongBitSet(LongBitSet bs)
+    {
+        size = bs.size;
+        words = new long[bs.words.length];
+        System.arraycopy(bs.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * @return the number of bits in this set
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return true if bit i is set
+     *
+     * @param i  the bit index
+     */
+    public final boolean get(int i)
+    {
+        return (words[i >> 6] & (1L << (i & 63))) != 0;
+    }
+
+    /**
+     * set bit i
+     *
+     * @param i  the bit index
+     */
+    public final void set(int i)
+    {
+        words[i >> 6] |= (1L << (i & 63));
+    }
+
+    /**
+     * clear bit i
+     *
+     * @param i  the bit index
+     */
+    public final void clear(int i)
+    {
+        words[i >> 6] &= ~(1L << (i & 63));
+    }
+
+    /**
+     * set bit i to a value
+     *
+     * @param i      the bit index
+     * @param value  true to set, false to clear
+     */
+    public final void set(int i, boolean value)
+    {
+        if (value)
+        {
+            words[i >> 6] |= (1L << (i & 63));
+        }
+        else
+        {
+            words[i >> 6] &= ~(1L << (i & 63));
+        }
+    }
+
+    /**
+     * clear all of the bits
+     */
+    public void clear()
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] = 0L;
+        }
+    }
+
+    /**
+     * make this set the same as another one of the same size
+     *
+     * @param bs  the set to copy from
+     */
+    public void copyFrom(LongBitSet bs)
+    {
+        System.arraycopy(bs.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * set all bits that are set in another set of the same size
+     *
+     * @param bs  the other set
+     */
+    public void or(LongBitSet bs)
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] |= bs.words[w];
+        }
+    }
+
+    /**
+     * clear all bits that aren't set in another set of the same size
+     *
+     * @param bs  the other set
+     */
+    public void and(LongBitSet bs)
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] &= bs.words[w];
+        }
+    }
+
+    /**
+     * clear all bits that are set in another set of the same size
+     *
+     * @param bs  the other set
+     */
+    public void andNot(LongBitSet bs)
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] &= ~bs.words[w];
+        }
+    }
+
+    /**
+     * @return true if no bits are set
+     */
+    public boolean isEmpty()
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            if (words[w] != 0L)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the index of the first set bit at or after from,
+     *         or -1 if there isn't one
+     *
+     * @param from  where to start looking
+     */
+    public int nextSetBit(int from)
+    {
+        if (from < 0)
+        {
+            from = 0;
+        }
+
+        int w = from >> 6;
+
+        if (w >= words.length)
+        {
+            return -1;
+        }
+
+        long word = words[w] & (-1L << (from & 63));
+
+        while (true)
+        {
+            if (word != 0L)
+            {
+                return (w << 6) + trailingZeros(word);
+            }
+
+            w++;
+
+            if (w == words.length)
+            {
+                return -1;
+            }
+
+            word = words[w];
+        }
+    }
+
+    /**
+     * @return true if any bit between lo and hi (inclusive) is set
+     *
+     * @param lo  the lowest bit index
+     * @param hi  the highest bit index
+     */
+    public boolean anySet(int lo, int hi)
+    {
+        int i = nextSetBit(lo);
+
+        return (i != -1) && (i <= hi);
+    }
+
+    /**
+     * @return the number of bits that are set
+     */
+    public int cardinality()
+    {
+        int count = 0;
+
+        for (int w = 0; w < words.length; w++)
+        {
+            long word = words[w];
+
+            while (word != 0L)
+            {
+                word &= (word - 1);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the number of trailing zero bits in a nonzero word
+     *
+     * @param word  the word
+     */
+    private static final int trailingZeros(long word)
+    {
+        int n = 0;
+
+        if ((word & 0xFFFFFFFFL) == 0L)
+        {
+            n += 32;
+            word >>>= 32;
+        }
+
+        if ((word & 0xFFFFL) == 0L)
+        {
+            n += 16;
+            word >>>= 16;
+        }
+
+        if ((word & 0xFFL) == 0L)
+        {
+            n += 8;
+            word >>>= 8;
+        }
+
+        if ((word & 0xFL) == 0L)
+        {
+            n += 4;
+            word >>>= 4;
+        }
+
+        if ((word & 0x3L) == 0L)
+        {
+            n += 2;
+            word >>>= 2;
+        }
+
+        if ((word & 0x1L) == 0L)
+        {
+            n += 1;
+        }
+
+        return n;
+    }
+
+    /**
+     * @return true if the other object is a bit set with the same bits
+     *
+     * @param o  the other object
+     */
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof LongBitSet))
+        {
+            return false;
+        }
+
+        LongBitSet bs = (LongBitSet) o;
+
+        if ((bs.size != size) || (bs.words.length != words.length))
+        {
+            return false;
+        }
+
+        for (int w = 0; w < words.length; w++)
+        {
+            if (words[w] != bs.words[w])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return a hash code for the bits
+     */
+    public int hashCode()
+    {
+        long h = 1234;
+
+        for (int w = words.length; --w >= 0;)
+        {
+            h ^= (words[w] * (w + 1));
+        }
+
+        return (int) ((h >> 32) ^ h);
+    }
+
+    /**
+     * write the bits, a word at a time
+     *
+     * @param out  where to write them
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            out.writeLong(words[w]);
+        }
+    }
+
+    /**
+     * read bits written by writeTo into a set of the same size
+     *
+     * @param in  where to read them from
+     */
+    public void readFrom(DataInput in) throws IOException
+    {
+        for (int w = 0; w < words.length; w++)
+        {
+            words[w] = in.readLong();
+        }
+    }
+
+    /**
+     * @return a copy of this set
+     */
+    public Object clone()
+    {
+        return new LongBitSet(this);
+    }
+
+    /**
+     * @return a human readable form of the set
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer("{");
+        boolean first = true;
+
+        for (int i = nextSetBit(0); i != -1; i = nextSetBit(i + 1))
+        {
+            if (!first)
+            {
+                sb.append(",");
+            }
+
+            sb.append(Integer.toHexString(i));
+            first = false;
+        }
+
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
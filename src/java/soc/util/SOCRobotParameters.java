@@ -41,6 +41,37 @@ public class SOCRobotParameters
     protected int strategyType;
     protected int tradeFlag;
 
+    /**
+     * the default time in milliseconds for the
+     * Monte Carlo strategy to make a decision
+     */
+    public static final int DEFAULT_PLAYOUT_TIME = 500;
+
+    /**
+     * how long the Monte Carlo strategy plays games out
+     * for each decision, in milliseconds
+     */
+    protected int playoutTime;
+
+    /**
+     * how many threads the Monte Carlo strategy uses,
+     * or 0 for as many as the robot's worker pool has
+     */
+    protected int playoutThreads;
+
+    /**
+     * the default time in milliseconds for the
+     * smart strategy to make a decision
+     */
+    public static final int DEFAULT_DECISION_TIME = 2000;
+
+    /**
+     * how long the smart strategy has to make a decision, in
+     * milliseconds, or 0 for no limit.  when time is up, it goes
+     * with the best plan from the pieces it has scored so far.
+     */
+    protected int decisionTime;
+
     /**
      * constructor
      *
@@ -65,6 +96,53 @@ public class SOCRobotParameters
         threatMultiplier = tm;
         strategyType = st;
         tradeFlag = tf;
+        playoutTime = DEFAULT_PLAYOUT_TIME;
+        playoutThreads = 0;
+        decisionTime = DEFAULT_DECISION_TIME;
+    }
+
+    /**
+     * constructor
+     *
+     * @param mgl  the max game length
+     * @param me   the max eta
+     * @param ebf  the eta bonus factor
+     * @param af   the adversarial factor
+     * @param laf  the leader adversarial factor
+     * @param dcm  the dev card multiplier
+     * @param tm   the threat multiplier
+     * @param st   the strategy type
+     * @param tf   the trade flag
+     * @param pt   the playout time
+     * @param pth  the number of playout threads
+     */
+    public SOCRobotParameters(int mgl, int me, float ebf, float af, float laf, float dcm, float tm, int st, int tf, int pt, int pth)
+    {
+        this(mgl, me, ebf, af, laf, dcm, tm, st, tf);
+        playoutTime = pt;
+        playoutThreads = pth;
+    }
+
+    /**
+     * constructor
+     *
+     * @param mgl  the max game length
+     * @param me   the max eta
+     * @param ebf  the eta bonus factor
+     * @param af   the adversarial factor
+     * @param laf  the leader adversarial factor
+     * @param dcm  the dev card multiplier
+     * @param tm   the threat multiplier
+     * @param st   the strategy type
+     * @param tf   the trade flag
+     * @param pt   the playout time
+     * @param pth  the number of playout threads
+     * @param dt   the decision time
+     */
+    public SOCRobotParameters(int mgl, int me, float ebf, float af, float laf, float dcm, float tm, int st, int tf, int pt, int pth, int dt)
+    {
+        this(mgl, me, ebf, af, laf, dcm, tm, st, tf, pt, pth);
+        decisionTime = dt;
     }
 
     /**
@@ -83,6 +161,9 @@ public class SOCRobotParameters
         threatMultiplier = params.getThreatMultiplier();
         strategyType = params.getStrategyType();
         tradeFlag = params.getTradeFlag();
+        playoutTime = params.getPlayoutTime();
+        playoutThreads = params.getPlayoutThreads();
+        decisionTime = params.getDecisionTime();
     }
 
     /**
@@ -157,12 +238,36 @@ public class SOCRobotParameters
         return tradeFlag;
     }
 
+    /**
+     * @return playoutTime
+     */
+    public int getPlayoutTime()
+    {
+        return playoutTime;
+    }
+
+    /**
+     * @return playoutThreads
+     */
+    public int getPlayoutThreads()
+    {
+        return playoutThreads;
+    }
+
+    /**
+     * @return decisionTime
+     */
+    public int getDecisionTime()
+    {
+        return decisionTime;
+    }
+
     /**
      * @return a human readable form of the data
      */
     public String toString()
     {
-        String s = "mgl=" + maxGameLength + "|me=" + maxETA + "|ebf=" + etaBonusFactor + "|af=" + adversarialFactor + "|laf=" + leaderAdversarialFactor + "|dcm=" + devCardMultiplier + "|tm=" + threatMultiplier + "|st=" + strategyType + "|tf=" + tradeFlag;
+        String s = "mgl=" + maxGameLength + "|me=" + maxETA + "|ebf=" + etaBonusFactor + "|af=" + adversarialFactor + "|laf=" + leaderAdversarialFactor + "|dcm=" + devCardMultiplier + "|tm=" + threatMultiplier + "|st=" + strategyType + "|tf=" + tradeFlag + "|pt=" + playoutTime + "|pth=" + playoutThreads + "|dt=" + decisionTime;
 
         return s;
     }
@@ -0,0 +1,448 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+import junit.framework.TestCase;
+
+import soc.util.IntPair;
+import soc.util.NodeLenVis;
+
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.Stack;
+import java.util.Vector;
+
+
+/**
+ * Checks SOCLRCalculator against the full depth first search that
+ * SOCPlayer.calcLongestRoad2 used to do, over random games.
+ *
+ * Run main() to time the two against each other.
+ *
+ * @author agent
+ */
+public class TestLRCalculator extends TestCase
+{
+    /**
+     * how many random games to check
+     */
+    private static final int GAMES = 40;
+
+    /**
+     * how many moves to make in each game after the initial placement
+     */
+    private static final int MOVES = 60;
+
+    private Random rand;
+
+    /**
+     * every road placement and blocking settlement in a run of games
+     * should give the same longest road, and the same longest paths,
+     * as the full search
+     */
+    public void testSameAsFullSearch()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                makeMove(ga, move % SOCGame.MAXPLAYERS);
+
+                for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+                {
+                    checkPlayer(ga.getPlayer(pn), "game " + g + " move " + move);
+                }
+            }
+        }
+    }
+
+    /**
+     * putting and taking back temporary roads, the way the robots
+     * do, should leave the same results as the full search
+     */
+    public void testTempRoads()
+    {
+        for (int g = 0; g < GAMES / 4; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                makeMove(ga, move % SOCGame.MAXPLAYERS);
+            }
+
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+
+                for (int e = SOCBoard.MINEDGE; e <= SOCBoard.MAXEDGE; e++)
+                {
+                    if (pl.isPotentialRoad(e))
+                    {
+                        SOCRoad rd = new SOCRoad(pl, e);
+                        ga.putTempPiece(rd);
+                        checkPlayer(pl, "game " + g + " temp road " + Integer.toHexString(e));
+                        ga.undoPutTempPiece(rd);
+                        checkPlayer(pl, "game " + g + " undo road " + Integer.toHexString(e));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * compare a player's longest road with the full search.
+     * The game doesn't recalculate everyone's longest road after
+     * every piece, so this asks for it directly.
+     */
+    private void checkPlayer(SOCPlayer pl, String where)
+    {
+        Vector paths = new Vector();
+        int longest = fullSearch(pl, paths);
+
+        assertEquals(where + " player " + pl.getPlayerNumber() + " length", longest, pl.calcLongestRoad2());
+        assertEquals(where + " player " + pl.getPlayerNumber() + " paths", pathsToString(paths), pathsToString(pl.getLRPaths()));
+    }
+
+    /**
+     * @return the paths as a string that doesn't depend on their order
+     */
+    private static String pathsToString(Vector paths)
+    {
+        Vector strs = new Vector();
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            SOCLRPathData pd = (SOCLRPathData) paths.elementAt(i);
+            String s = Integer.toHexString(pd.getBeginning()) + "-" + Integer.toHexString(pd.getEnd()) + ":" + pd.getLength();
+            int j = 0;
+
+            while ((j < strs.size()) && (((String) strs.elementAt(j)).compareTo(s) < 0))
+            {
+                j++;
+            }
+
+            strs.insertElementAt(s, j);
+        }
+
+        return strs.toString();
+    }
+
+    /**
+     * @return a new game with a seeded board and everyone's
+     *         first two settlements and roads down
+     */
+    private SOCGame newGame(int seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test", false);
+        ga.getBoard().makeNewBoard();
+        ga.setGameState(SOCGame.START1A);
+
+        for (int round = 0; round < 2; round++)
+        {
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                int node = pick(pl, false);
+                ga.putPiece(new SOCSettlement(pl, node));
+
+                Enumeration edges = SOCBoard.getAdjacentEdgesToNode(node).elements();
+
+                while (edges.hasMoreElements())
+                {
+                    int edge = ((Integer) edges.nextElement()).intValue();
+
+                    if (pl.isPotentialRoad(edge))
+                    {
+                        ga.putPiece(new SOCRoad(pl, edge));
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        ga.setGameState(SOCGame.PLAY);
+
+        return ga;
+    }
+
+    /**
+     * put down a random road, or now and then a settlement
+     */
+    private void makeMove(SOCGame ga, int pn)
+    {
+        SOCPlayer pl = ga.getPlayer(pn);
+
+        if ((rand.nextInt(4) == 0) && (pl.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0))
+        {
+            int node = pick(pl, false);
+
+            if (node != -1)
+            {
+                ga.putPiece(new SOCSettlement(pl, node));
+            }
+        }
+        else if (pl.getNumPieces(SOCPlayingPiece.ROAD) > 0)
+        {
+            int edge = pick(pl, true);
+
+            if (edge != -1)
+            {
+                ga.putPiece(new SOCRoad(pl, edge));
+            }
+        }
+    }
+
+    /**
+     * @return a random potential road or settlement spot, or -1
+     */
+    private int pick(SOCPlayer pl, boolean road)
+    {
+        Vector spots = new Vector();
+
+        int min = road ? SOCBoard.MINEDGE : SOCBoard.MINNODE;
+        int max = road ? SOCBoard.MAXEDGE : SOCBoard.MAXNODE;
+
+        for (int i = min; i <= max; i++)
+        {
+            if (road ? pl.isPotentialRoad(i) : pl.isPotentialSettlement(i))
+            {
+                spots.addElement(new Integer(i));
+            }
+        }
+
+        if (spots.isEmpty())
+        {
+            return -1;
+        }
+
+        return ((Integer) spots.elementAt(rand.nextInt(spots.size()))).intValue();
+    }
+
+    /**
+     * The full search that calcLongestRoad2 did before SOCLRCalculator:
+     * a depth first search from every road node, keeping the longest
+     * path for each set of edges.
+     *
+     * @param pl     the player
+     * @param paths  filled in with the longest paths
+     * @return the longest road length
+     */
+    static int fullSearch(SOCPlayer pl, Vector paths)
+    {
+        SOCBoard board = pl.getGame().getBoard();
+        Stack pending = new Stack();
+        int longest = 0;
+
+        for (Enumeration e = pl.getRoadNodes().elements(); e.hasMoreElements();)
+        {
+            int pathStartCoord = ((Integer) e.nextElement()).intValue();
+            pending.push(new NodeLenVis(pathStartCoord, 0, new Vector()));
+
+            while (!pending.isEmpty())
+            {
+                NodeLenVis curNode = (NodeLenVis) pending.pop();
+                int coord = curNode.node;
+                int len = curNode.len;
+                Vector visited = curNode.vis;
+                boolean pathEnd = false;
+
+                if (len > 0)
+                {
+                    Enumeration pEnum = board.getPieces().elements();
+
+                    while (pEnum.hasMoreElements())
+                    {
+                        SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
+
+                        if ((p.getPlayer().getPlayerNumber() != pl.getPlayerNumber()) && ((p.getType() == SOCPlayingPiece.SETTLEMENT) || (p.getType() == SOCPlayingPiece.CITY)) && (p.getCoordinates() == coord))
+                        {
+                            pathEnd = true;
+
+                            break;
+                        }
+                    }
+                }
+
+                if (!pathEnd)
+                {
+                    int[] next = { coord - 0x11, coord + 0x11, (coord + 0x10) - 0x01, (coord - 0x10) + 0x01 };
+                    pathEnd = true;
+
+                    for (int i = 0; i < next.length; i++)
+                    {
+                        int j = next[i];
+                        IntPair pair = new IntPair(coord, j);
+
+                        if ((j >= SOCBoard.MINNODE) && (j < SOCBoard.MAXNODEPLUSONE) && pl.isConnectedByRoad(coord, j) && !contains(visited, pair))
+                        {
+                            Vector newVis = (Vector) visited.clone();
+                            newVis.addElement(pair);
+                            pending.push(new NodeLenVis(j, len + 1, newVis));
+                            pathEnd = false;
+                        }
+                    }
+                }
+
+                if (pathEnd)
+                {
+                    if (len > longest)
+                    {
+                        longest = len;
+                    }
+
+                    addPath(paths, new SOCLRPathData(pathStartCoord, coord, len, visited));
+                }
+            }
+        }
+
+        return longest;
+    }
+
+    /**
+     * keep only the longer of two paths that share an edge
+     */
+    private static void addPath(Vector paths, SOCLRPathData path)
+    {
+        Vector trash = new Vector();
+        boolean addNewPath = true;
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            SOCLRPathData old = (SOCLRPathData) paths.elementAt(i);
+            boolean intersection = false;
+
+            for (int v = 0; (v < path.getNodePairs().size()) && !intersection; v++)
+            {
+                intersection = contains(old.getNodePairs(), (IntPair) path.getNodePairs().elementAt(v));
+            }
+
+            if (intersection)
+            {
+                if (old.getLength() < path.getLength())
+                {
+                    trash.addElement(old);
+                }
+                else
+                {
+                    addNewPath = false;
+                }
+            }
+        }
+
+        for (int i = 0; i < trash.size(); i++)
+        {
+            paths.removeElement(trash.elementAt(i));
+        }
+
+        if (addNewPath)
+        {
+            paths.addElement(path);
+        }
+    }
+
+    /**
+     * @return true if the vector holds an equal pair
+     */
+    private static boolean contains(Vector pairs, IntPair pair)
+    {
+        for (int i = 0; i < pairs.size(); i++)
+        {
+            if (pair.equals((IntPair) pairs.elementAt(i)))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Time the full search against SOCLRCalculator on the temporary
+     * road updates a robot makes late in a game.
+     *
+     * @param args  ignored
+     */
+    public static void main(String[] args)
+    {
+        TestLRCalculator t = new TestLRCalculator();
+        long full = 0;
+        long incr = 0;
+        int calls = 0;
+
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = t.newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                t.makeMove(ga, move % SOCGame.MAXPLAYERS);
+            }
+
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                long start = System.currentTimeMillis();
+
+                for (int rep = 0; rep < 20; rep++)
+                {
+                    for (int e = SOCBoard.MINEDGE; e <= SOCBoard.MAXEDGE; e++)
+                    {
+                        if (pl.isPotentialRoad(e))
+                        {
+                            SOCRoad rd = new SOCRoad(pl, e);
+                            ga.putTempPiece(rd);
+                            ga.undoPutTempPiece(rd);
+                            calls++;
+                        }
+                    }
+                }
+
+                incr += System.currentTimeMillis() - start;
+                start = System.currentTimeMillis();
+
+                for (int rep = 0; rep < 20; rep++)
+                {
+                    for (int e = SOCBoard.MINEDGE; e <= SOCBoard.MAXEDGE; e++)
+                    {
+                        if (pl.isPotentialRoad(e))
+                        {
+                            SOCRoad rd = new SOCRoad(pl, e);
+                            ga.putTempPiece(rd);
+                            fullSearch(pl, new Vector());
+                            ga.undoPutTempPiece(rd);
+                            fullSearch(pl, new Vector());
+                        }
+                    }
+                }
+
+                full += System.currentTimeMillis() - start;
+            }
+        }
+
+        System.out.println(calls + " temporary roads put down and taken back");
+        System.out.println("with SOCLRCalculator:         " + incr + " ms");
+        System.out.println("with the full search as well: " + full + " ms");
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.game;
+
+import junit.framework.TestCase;
+
+import java.util.Enumeration;
+import java.util.Random;
+
+
+/**
+ * Plays random games and checks the hash that SOCGame keeps up
+ * to date against one worked out from scratch after every move,
+ * and after every temporary move and undo the robots make.
+ *
+ * @author agent
+ */
+public class TestZobristHash extends TestCase
+{
+    /**
+     * how many random games to play
+     */
+    private static final int GAMES = 20;
+
+    /**
+     * the most moves to make in each game
+     */
+    private static final int MOVES = 400;
+
+    /**
+     * how many temporary moves to try from each position
+     */
+    private static final int TEMP_MOVES = 8;
+
+    private Random rand;
+
+    private int[] actions = new int[SOCGameAction.MAX_ACTIONS];
+
+    /**
+     * the hash should match one from scratch after every move
+     * in a run of random games
+     */
+    public void testSameAsFromScratch()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; (move < MOVES) && (ga.getGameState() != SOCGame.OVER); move++)
+            {
+                if (!makeMove(ga))
+                {
+                    break;
+                }
+
+                checkHash(ga, "game " + g + " move " + move);
+            }
+
+            SOCGame copy = new SOCGame(ga);
+            assertEquals("game " + g + " copy", ga.getStateHash(), copy.getStateHash());
+            checkHash(copy, "game " + g + " copy");
+        }
+    }
+
+    /**
+     * the doTemp methods, putTempPiece and the undos should keep
+     * the hash right, and undoing should give the old hash back
+     */
+    public void testTempMovesAndUndo()
+    {
+        for (int g = 0; g < GAMES / 2; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; (move < MOVES) && (ga.getGameState() != SOCGame.OVER); move++)
+            {
+                if (!makeMove(ga))
+                {
+                    break;
+                }
+
+                String where = "game " + g + " move " + move;
+                long before = ga.getStateHash();
+                int mark = ga.getTempMark();
+
+                for (int i = 0; i < TEMP_MOVES; i++)
+                {
+                    makeTempMove(ga);
+                    checkHash(ga, where + " temp " + i);
+                }
+
+                ga.undoTempToMark(mark);
+                checkHash(ga, where + " undo");
+                assertEquals(where + " undo", before, ga.getStateHash());
+
+                SOCPlayer pl = ga.getPlayer(rand.nextInt(SOCGame.MAXPLAYERS));
+                int edge = pick(pl, SOCPlayingPiece.ROAD);
+
+                if (edge != -1)
+                {
+                    SOCRoad rd = new SOCRoad(pl, edge);
+                    ga.putTempPiece(rd);
+                    checkHash(ga, where + " temp road");
+                    ga.undoPutTempPiece(rd);
+                    assertEquals(where + " undo road", before, ga.getStateHash());
+                }
+            }
+        }
+    }
+
+    /**
+     * check the game's hash against one worked out from scratch
+     */
+    private static void checkHash(SOCGame ga, String where)
+    {
+        assertEquals(where, fromScratch(ga), ga.getStateHash());
+    }
+
+    /**
+     * @return the hash of a game worked out from the pieces,
+     *         the robber, the hands and the game state
+     */
+    private static long fromScratch(SOCGame ga)
+    {
+        SOCBoard board = ga.getBoard();
+        long hash = SOCZobristKeys.getRobberKey(board.getRobberHex());
+        Enumeration pEnum = board.getPieces().elements();
+
+        while (pEnum.hasMoreElements())
+        {
+            hash ^= SOCZobristKeys.getPieceKey((SOCPlayingPiece) pEnum.nextElement());
+        }
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            SOCPlayer pl = ga.getPlayer(pn);
+            long resourceHash = 0L;
+            long devCardHash = 0L;
+
+            for (int rtype = SOCResourceConstants.MIN;
+                    rtype < SOCResourceConstants.MAXPLUSONE; rtype++)
+            {
+                resourceHash += (pl.getResources().getAmount(rtype) * SOCZobristKeys.getResourceKey(rtype));
+            }
+
+            for (int age = SOCDevCardSet.OLD; age <= SOCDevCardSet.NEW; age++)
+            {
+                for (int ctype = SOCDevCardConstants.MIN;
+                        ctype < SOCDevCardConstants.MAXPLUSONE; ctype++)
+                {
+                    devCardHash += (pl.getDevCards().getAmount(age, ctype) * SOCZobristKeys.getDevCardKey(age, ctype));
+                }
+            }
+
+            hash += SOCZobristKeys.getPlayerHash(pn, resourceHash, devCardHash);
+        }
+
+        return hash ^ SOCZobristKeys.getStateHash(ga.getGameState(), ga.getCurrentPlayerNumber(), ga.getNumDevCards());
+    }
+
+    /**
+     * start a game with four players
+     */
+    private SOCGame newGame(long seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test");
+        ga.setSeed(seed);
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            ga.addPlayer("p" + pn, pn);
+        }
+
+        ga.startGame();
+        checkHash(ga, "start");
+
+        return ga;
+    }
+
+    /**
+     * have everyone discard if they have to, or else have
+     * the current player make a random legal move
+     *
+     * @return false if there was nothing to do
+     */
+    private boolean makeMove(SOCGame ga)
+    {
+        if (ga.getGameState() == SOCGame.WAITING_FOR_DISCARDS)
+        {
+            discard(ga);
+
+            return true;
+        }
+
+        int n = ga.getLegalActions(actions);
+
+        if (n == 0)
+        {
+            return false;
+        }
+
+        int action = actions[rand.nextInt(n)];
+        int pn = ga.getCurrentPlayerNumber();
+        SOCPlayer pl = ga.getPlayer(pn);
+        int arg1 = SOCGameAction.getArg1(action);
+        int arg2 = SOCGameAction.getArg2(action);
+
+        switch (SOCGameAction.getType(action))
+        {
+        case SOCGameAction.ROLL_DICE:
+            ga.rollDice();
+
+            break;
+
+        case SOCGameAction.END_TURN:
+            ga.endTurn();
+
+            break;
+
+        case SOCGameAction.BUY_ROAD:
+            ga.buyRoad(pn);
+
+            break;
+
+        case SOCGameAction.BUY_SETTLEMENT:
+            ga.buySettlement(pn);
+
+            break;
+
+        case SOCGameAction.BUY_CITY:
+            ga.buyCity(pn);
+
+            break;
+
+        case SOCGameAction.BUY_DEV_CARD:
+            ga.buyDevCard();
+
+            break;
+
+        case SOCGameAction.CANCEL_BUILD:
+
+            switch (ga.getGameState())
+            {
+            case SOCGame.PLACING_ROAD:
+                ga.cancelBuildRoad(pn);
+
+                break;
+
+            case SOCGame.PLACING_SETTLEMENT:
+                ga.cancelBuildSettlement(pn);
+
+                break;
+
+            default:
+                ga.cancelBuildCity(pn);
+
+                break;
+            }
+
+            break;
+
+        case SOCGameAction.PLACE_ROAD:
+            ga.putPiece(new SOCRoad(pl, arg1));
+
+            break;
+
+        case SOCGameAction.PLACE_SETTLEMENT:
+            ga.putPiece(new SOCSettlement(pl, arg1));
+
+            break;
+
+        case SOCGameAction.PLACE_CITY:
+            ga.putPiece(new SOCCity(pl, arg1));
+
+            break;
+
+        case SOCGameAction.PLAY_KNIGHT:
+            ga.playKnight();
+
+            break;
+
+        case SOCGameAction.PLAY_ROAD_BUILDING:
+            ga.playRoadBuilding();
+
+            break;
+
+        case SOCGameAction.PLAY_DISCOVERY:
+            ga.playDiscovery();
+
+            break;
+
+        case SOCGameAction.PLAY_MONOPOLY:
+            ga.playMonopoly();
+
+            break;
+
+        case SOCGameAction.MOVE_ROBBER:
+            ga.moveRobber(pn, arg1);
+
+            break;
+
+        case SOCGameAction.CHOOSE_PLAYER:
+            ga.stealFromPlayer(arg1);
+
+            break;
+
+        case SOCGameAction.BANK_TRADE:
+
+            SOCResourceSet give = new SOCResourceSet();
+            SOCResourceSet get = new SOCResourceSet();
+            give.add(SOCGameAction.getArg3(action), arg1);
+            get.add(1, arg2);
+            ga.makeBankTrade(give, get);
+
+            break;
+
+        case SOCGameAction.DISCOVERY_PICK:
+
+            SOCResourceSet pick = new SOCResourceSet();
+            pick.add(1, arg1);
+            pick.add(1, arg2);
+            ga.doDiscoveryAction(pick);
+
+            break;
+
+        case SOCGameAction.MONOPOLY_PICK:
+            ga.doMonopolyAction(arg1);
+
+            break;
+
+        default:
+            fail("unknown action " + SOCGameAction.toString(action));
+        }
+
+        return true;
+    }
+
+    /**
+     * have everyone who has to discard throw away half
+     * of their resources
+     */
+    private static void discard(SOCGame ga)
+    {
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            SOCPlayer pl = ga.getPlayer(pn);
+
+            if (!pl.getNeedToDiscard())
+            {
+                continue;
+            }
+
+            SOCResourceSet rs = new SOCResourceSet();
+            int left = pl.getResources().getTotal() / 2;
+
+            for (int rtype = SOCResourceConstants.CLAY;
+                    (rtype <= SOCResourceConstants.WOOD) && (left > 0);
+                    rtype++)
+            {
+                int amount = Math.min(left, pl.getResources().getAmount(rtype));
+                rs.add(amount, rtype);
+                left -= amount;
+            }
+
+            ga.discard(pn, rs);
+        }
+    }
+
+    /**
+     * make one of the temporary moves the robots make
+     * when they look ahead, picked at random
+     */
+    private void makeTempMove(SOCGame ga)
+    {
+        int pn = rand.nextInt(SOCGame.MAXPLAYERS);
+        SOCPlayer pl = ga.getPlayer(pn);
+
+        switch (rand.nextInt(8))
+        {
+        case 0:
+
+            int edge = pick(pl, SOCPlayingPiece.ROAD);
+
+            if (edge != -1)
+            {
+                ga.doTempPutPiece(new SOCRoad(pl, edge));
+                ga.doTempUpdateLongestRoad(pn);
+            }
+
+            break;
+
+        case 1:
+
+            int node = pick(pl, SOCPlayingPiece.SETTLEMENT);
+
+            if (node != -1)
+            {
+                ga.doTempPutPiece(new SOCSettlement(pl, node));
+            }
+
+            break;
+
+        case 2:
+
+            int city = pick(pl, SOCPlayingPiece.CITY);
+
+            if (city != -1)
+            {
+                ga.doTempPutPiece(new SOCCity(pl, city));
+            }
+
+            break;
+
+        case 3:
+
+            int rtype = SOCResourceConstants.CLAY + rand.nextInt(5);
+            int amt = rand.nextInt(3) - pl.getResources().getAmount(rtype);
+            ga.doTempResourceChange(pn, rtype, Math.max(amt, -1));
+
+            break;
+
+        case 4:
+
+            if (ga.getNumDevCards() > 0)
+            {
+                ga.doTempBuyDevCard(pn, rand.nextInt(SOCDevCardConstants.UNKNOWN));
+            }
+
+            break;
+
+        case 5:
+
+            if (pl.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) > 0)
+            {
+                ga.doTempPlayKnight(pn);
+            }
+
+            ga.doTempMoveRobber(ga.getBoard().getHexCoordFromNumber(rand.nextInt(ga.getBoard().getNumHexes())));
+
+            break;
+
+        case 6:
+            ga.doTempSetGameState((rand.nextInt(2) == 0) ? SOCGame.PLAY : SOCGame.PLAY1);
+
+            break;
+
+        default:
+            ga.doTempSetCurrentPlayer(pn);
+
+            break;
+        }
+    }
+
+    /**
+     * @return a random spot where a player could put a piece,
+     *         or -1 if there isn't one
+     */
+    private int pick(SOCPlayer pl, int pieceType)
+    {
+        int count = 0;
+        int start = (pieceType == SOCPlayingPiece.ROAD) ? SOCBoard.MINEDGE : SOCBoard.MINNODE;
+        int end = (pieceType == SOCPlayingPiece.ROAD) ? SOCBoard.MAXEDGE : SOCBoard.MAXNODE;
+        int chosen = -1;
+
+        for (int co = start; co <= end; co++)
+        {
+            if (isPotential(pl, pieceType, co))
+            {
+                count++;
+
+                if (rand.nextInt(count) == 0)
+                {
+                    chosen = co;
+                }
+            }
+        }
+
+        return chosen;
+    }
+
+    /**
+     * @return true if a player could put a type of piece somewhere
+     */
+    private static boolean isPotential(SOCPlayer pl, int pieceType, int co)
+    {
+        switch (pieceType)
+        {
+        case SOCPlayingPiece.ROAD:
+            return pl.isPotentialRoad(co);
+
+        case SOCPlayingPiece.SETTLEMENT:
+            return pl.isPotentialSettlement(co);
+
+        default:
+            return pl.isPotentialCity(co);
+        }
+    }
+}
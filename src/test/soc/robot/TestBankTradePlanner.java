@@ -0,0 +1,310 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCSettlement;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Vector;
+
+
+/**
+ * Checks that SOCBankTradePlanner finds the same hands and the
+ * same best score as the trade tree search the brain used to do,
+ * and that its trades get to a hand with that score.
+ *
+ * @author agent
+ */
+public class TestBankTradePlanner extends TestCase
+{
+    /**
+     * how many random hands to check
+     */
+    private static final int HANDS = 400;
+
+    /**
+     * how many big hands to check; the old search is
+     * quadratic in the number of hands, so keep this small
+     */
+    private static final int BIG_HANDS = 12;
+
+    /**
+     * on random hands of up to 30 cards, with random ports
+     */
+    public void testSameAsTradeTree()
+    {
+        Random rand = new Random(33);
+
+        for (int i = 0; i < HANDS; i++)
+        {
+            check("hand " + i, randomPlayer(rand, 7), rand);
+        }
+    }
+
+    /**
+     * on hands with more of a resource than fits in six bits,
+     * which used to get no trades at all
+     */
+    public void testBigHands()
+    {
+        Random rand = new Random(34);
+
+        for (int i = 0; i < BIG_HANDS; i++)
+        {
+            SOCPlayer player = randomPlayer(rand, 2);
+            int rsrc = SOCResourceConstants.CLAY + rand.nextInt(5);
+            player.getResources().add(32 + rand.nextInt(8), rsrc);
+
+            int numTrades = check("big hand " + i, player, rand);
+            assertTrue("big hand " + i + " made no trades", numTrades > 0);
+        }
+    }
+
+    /**
+     * plan the trades for a player, and check them against
+     * the old search
+     *
+     * @return the number of trades planned
+     */
+    private int check(String where, SOCPlayer player, Random rand)
+    {
+        SOCBankTradePlanner planner = new SOCBankTradePlanner();
+        int numTrades = planner.planTrades(player);
+
+        HashSet found = new HashSet();
+
+        for (int i = 0; i < planner.numHands; i++)
+        {
+            found.add(toResourceSet(planner.hands[i]).toString());
+        }
+
+        Vector oldHands = oldSearch(player);
+        HashSet oldFound = new HashSet();
+        int oldBest = -1;
+
+        for (int i = 0; i < oldHands.size(); i++)
+        {
+            SOCResourceSet hand = (SOCResourceSet) oldHands.elementAt(i);
+            oldFound.add(hand.toString());
+            oldBest = Math.max(oldBest, oldScore(player, hand));
+        }
+
+        assertEquals(where, oldFound, found);
+
+        /**
+         * make the trades, and check that each one is one the
+         * bank would take and that we end up with the best score
+         */
+        SOCResourceSet hand = player.getResources().copy();
+        SOCResourceSet give = new SOCResourceSet();
+        SOCResourceSet get = new SOCResourceSet();
+
+        for (int i = 0; i < numTrades; i++)
+        {
+            planner.getTrade(i, give, get);
+            assertEquals(where, 1, get.getTotal());
+
+            int giveRsrc = -1;
+
+            for (int rsrc = SOCResourceConstants.CLAY;
+                    rsrc <= SOCResourceConstants.WOOD; rsrc++)
+            {
+                if (give.getAmount(rsrc) > 0)
+                {
+                    giveRsrc = rsrc;
+                }
+            }
+
+            assertEquals(where, tradeRatio(player, giveRsrc), give.getTotal());
+            assertTrue(where, hand.contains(give));
+            hand.subtract(give);
+            hand.add(get);
+        }
+
+        assertEquals(where, oldBest, oldScore(player, hand));
+
+        return numTrades;
+    }
+
+    /**
+     * @return a player in a new game with a random hand of up to
+     *         max of each resource, random ports, and, half of the
+     *         time, a settlement so they can build a city
+     */
+    private static SOCPlayer randomPlayer(Random rand, int max)
+    {
+        SOCGame ga = new SOCGame("test", false);
+        ga.getBoard().makeNewBoard();
+
+        SOCPlayer player = ga.getPlayer(0);
+
+        for (int rsrc = SOCResourceConstants.CLAY;
+                rsrc <= SOCResourceConstants.WOOD; rsrc++)
+        {
+            player.getResources().add(rand.nextInt(max), rsrc);
+        }
+
+        for (int port = SOCBoard.MISC_PORT; port <= SOCBoard.WOOD_PORT; port++)
+        {
+            player.setPortFlag(port, rand.nextInt(4) == 0);
+        }
+
+        if (rand.nextBoolean())
+        {
+            ga.putPiece(new SOCSettlement(player, 0x67));
+        }
+
+        return player;
+    }
+
+    private static SOCResourceSet toResourceSet(long hand)
+    {
+        SOCResourceSet set = new SOCResourceSet();
+
+        for (int rsrc = SOCResourceConstants.CLAY;
+                rsrc <= SOCResourceConstants.WOOD; rsrc++)
+        {
+            set.setAmount(SOCBankTradePlanner.getAmount(hand, rsrc), rsrc);
+        }
+
+        return set;
+    }
+
+    private static int tradeRatio(SOCPlayer player, int rsrc)
+    {
+        if (player.getPortFlag(rsrc))
+        {
+            return 2;
+        }
+        else if (player.getPortFlag(SOCBoard.MISC_PORT))
+        {
+            return 3;
+        }
+        else
+        {
+            return 4;
+        }
+    }
+
+    /**
+     * @return every hand the brain's old trade tree kept, the
+     *         first hand first.  a hand is kept unless it is no
+     *         better than one already kept; the hands made from
+     *         the same hand aren't checked against each other.
+     */
+    private static Vector oldSearch(SOCPlayer player)
+    {
+        Vector table = new Vector();
+        table.addElement(player.getResources().copy());
+
+        for (int current = 0; current < table.size(); current++)
+        {
+            SOCResourceSet rSet = (SOCResourceSet) table.elementAt(current);
+            Vector children = new Vector();
+
+            for (int giveRsrc = SOCResourceConstants.CLAY;
+                    giveRsrc <= SOCResourceConstants.WOOD; giveRsrc++)
+            {
+                int ratio = tradeRatio(player, giveRsrc);
+
+                if (rSet.getAmount(giveRsrc) < ratio)
+                {
+                    continue;
+                }
+
+                for (int getRsrc = SOCResourceConstants.CLAY;
+                        getRsrc <= SOCResourceConstants.WOOD; getRsrc++)
+                {
+                    if (getRsrc == giveRsrc)
+                    {
+                        continue;
+                    }
+
+                    SOCResourceSet newSet = rSet.copy();
+                    newSet.subtract(ratio, giveRsrc);
+                    newSet.add(1, getRsrc);
+
+                    boolean covered = false;
+
+                    for (int i = 0; (i < table.size()) && !covered; i++)
+                    {
+                        covered = SOCResourceSet.lte(newSet, (SOCResourceSet) table.elementAt(i));
+                    }
+
+                    if (!covered)
+                    {
+                        children.addElement(newSet);
+                    }
+                }
+            }
+
+            table.addAll(children);
+        }
+
+        return table;
+    }
+
+    /**
+     * @return a hand's score, the way the brain's old
+     *         scoreTradeOutcome worked it out
+     */
+    private static int oldScore(SOCPlayer player, SOCResourceSet hand)
+    {
+        int score = 0;
+        SOCResourceSet left = hand.copy();
+
+        if ((player.getNumPieces(SOCPlayingPiece.SETTLEMENT) >= 1) && player.hasPotentialSettlement())
+        {
+            while (left.contains(SOCGame.SETTLEMENT_SET))
+            {
+                score += 2;
+                left.subtract(SOCGame.SETTLEMENT_SET);
+            }
+        }
+
+        if ((player.getNumPieces(SOCPlayingPiece.ROAD) >= 1) && player.hasPotentialRoad())
+        {
+            while (left.contains(SOCGame.ROAD_SET))
+            {
+                score += 1;
+                left.subtract(SOCGame.ROAD_SET);
+            }
+        }
+
+        if ((player.getNumPieces(SOCPlayingPiece.CITY) >= 1) && player.hasPotentialCity())
+        {
+            while (left.contains(SOCGame.CITY_SET))
+            {
+                score += 2;
+                left.subtract(SOCGame.CITY_SET);
+            }
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayerNumbers;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+
+import soc.util.CappedQueue;
+import soc.util.CutoffExceededException;
+import soc.util.SOCRobotParameters;
+
+import java.util.Enumeration;
+import java.util.Random;
+
+
+/**
+ * Checks that the robot picks the same first and second
+ * settlements with SOCInitialPlacementPlanner as it did
+ * with the old scan over every pair of nodes.
+ *
+ * @author agent
+ */
+public class TestInitialPlacementPlanner extends TestCase
+{
+    /**
+     * how many random boards to check
+     */
+    private static final int BOARDS = 20;
+
+    private static final SOCRobotParameters PARAMS = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1, 0, 0, 0);
+
+    private int oldMaxThreads;
+
+    protected void setUp()
+    {
+        oldMaxThreads = SOCRobotWorkerPool.getMaxThreads();
+        SOCRobotWorkerPool.setMaxThreads(4);
+    }
+
+    protected void tearDown()
+    {
+        SOCRobotWorkerPool.setMaxThreads(oldMaxThreads);
+    }
+
+    /**
+     * place the settlements of a whole initial placement round
+     * on random boards, with each player picking where the old
+     * scan would have, and check that the planner picks the
+     * same nodes in the same order at every step
+     */
+    public void testSameAsOldScan()
+    {
+        for (int b = 0; b < BOARDS; b++)
+        {
+            Random rand = new Random(b);
+            SOCGame ga = new SOCGame("test", false);
+            ga.getBoard().makeNewBoard();
+            ga.setGameState(SOCGame.START1A);
+
+            SOCRobotBrain now = new SOCRobotBrain(null, PARAMS, ga, new CappedQueue());
+            SOCRobotBrain old = new OldPlacementBrain(ga);
+            int[] firstNodes = new int[SOCGame.MAXPLAYERS];
+
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                now.ourPlayerData = ga.getPlayer(pn);
+                old.ourPlayerData = ga.getPlayer(pn);
+                now.planInitialSettlements();
+                old.planInitialSettlements();
+
+                String where = "board " + b + " player " + pn;
+                assertEquals(where, old.firstSettlement, now.firstSettlement);
+                assertEquals(where, old.secondSettlement, now.secondSettlement);
+
+                firstNodes[pn] = now.firstSettlement;
+                place(ga, ga.getPlayer(pn), now.firstSettlement, rand);
+            }
+
+            for (int pn = SOCGame.MAXPLAYERS - 1; pn >= 0; pn--)
+            {
+                now.ourPlayerData = ga.getPlayer(pn);
+                old.ourPlayerData = ga.getPlayer(pn);
+                now.firstSettlement = firstNodes[pn];
+                old.firstSettlement = firstNodes[pn];
+                now.planSecondSettlement();
+                old.planSecondSettlement();
+
+                String where = "board " + b + " player " + pn + " second";
+                assertEquals(where, old.firstSettlement, now.firstSettlement);
+                assertEquals(where, old.secondSettlement, now.secondSettlement);
+
+                place(ga, ga.getPlayer(pn), now.secondSettlement, rand);
+            }
+        }
+    }
+
+    /**
+     * put a settlement and a road next to it in the game
+     */
+    private static void place(SOCGame ga, SOCPlayer pl, int node, Random rand)
+    {
+        ga.putPiece(new SOCSettlement(pl, node));
+
+        Enumeration edges = SOCBoard.getAdjacentEdgesToNode(node).elements();
+
+        while (edges.hasMoreElements())
+        {
+            int edge = ((Integer) edges.nextElement()).intValue();
+
+            if (pl.isPotentialRoad(edge) && rand.nextBoolean())
+            {
+                ga.putPiece(new SOCRoad(pl, edge));
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * plans the initial settlements with the scan the brain
+     * used before SOCInitialPlacementPlanner
+     */
+    private static class OldPlacementBrain extends SOCRobotBrain
+    {
+        OldPlacementBrain(SOCGame ga)
+        {
+            super(null, PARAMS, ga, new CappedQueue());
+        }
+
+        /**
+         * set the numbers and ports for one or two nodes,
+         * the first node first
+         *
+         * @return the prob total of the nodes
+         */
+        private int setNumbers(SOCPlayerNumbers playerNumbers, boolean[] ports, int firstNode, int secondNode)
+        {
+            SOCBoard board = game.getBoard();
+            int[] prob = SOCNumberProbabilities.INT_VALUES;
+            int probTotal = 0;
+            int[] nodes = (secondNode < 0) ? new int[] { firstNode } : new int[] { firstNode, secondNode };
+
+            playerNumbers.clear();
+
+            for (int i = 0; i < nodes.length; i++)
+            {
+                Enumeration hexes = SOCBoard.getAdjacentHexesToNode(nodes[i]).elements();
+
+                while (hexes.hasMoreElements())
+                {
+                    int hex = ((Integer) hexes.nextElement()).intValue();
+                    int number = board.getNumberOnHexFromCoord(hex);
+                    playerNumbers.addNumberForResource(number, board.getHexTypeFromCoord(hex), hex);
+                    probTotal += prob[number];
+                }
+            }
+
+            for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT;
+                    portType++)
+            {
+                ports[portType] = false;
+
+                for (int i = 0; i < nodes.length; i++)
+                {
+                    if (board.getPortCoordinates(portType).contains(new Integer(nodes[i])))
+                    {
+                        ports[portType] = true;
+                    }
+                }
+            }
+
+            return probTotal;
+        }
+
+        /**
+         * @return the rolls to get each of the four sets from
+         *         nothing, stopping once it reaches bestSpeed, or
+         *         -1 - bestSpeed if it was cut off before the end
+         */
+        private static int pairSpeed(SOCBuildingSpeedEstimate estimate, boolean[] ports, int bestSpeed)
+        {
+            SOCResourceSet emptySet = new SOCResourceSet();
+            int speed = 0;
+
+            try
+            {
+                speed += estimate.calculateRollsFast(emptySet, SOCGame.SETTLEMENT_SET, bestSpeed, ports).getRolls();
+
+                if (speed < bestSpeed)
+                {
+                    speed += estimate.calculateRollsFast(emptySet, SOCGame.CITY_SET, bestSpeed, ports).getRolls();
+
+                    if (speed < bestSpeed)
+                    {
+                        speed += estimate.calculateRollsFast(emptySet, SOCGame.CARD_SET, bestSpeed, ports).getRolls();
+
+                        if (speed < bestSpeed)
+                        {
+                            return speed + estimate.calculateRollsFast(emptySet, SOCGame.ROAD_SET, bestSpeed, ports).getRolls();
+                        }
+                    }
+                }
+
+                return -1 - speed;
+            }
+            catch (CutoffExceededException e)
+            {
+                return -1 - bestSpeed;
+            }
+        }
+
+        /**
+         * @return the rolls to get each of the four sets from
+         *         nothing, adding penalty for each one cut off
+         */
+        private static int nodeSpeed(SOCBuildingSpeedEstimate estimate, boolean[] ports, int limit, int penalty)
+        {
+            SOCResourceSet emptySet = new SOCResourceSet();
+            SOCResourceSet[] sets = { SOCGame.SETTLEMENT_SET, SOCGame.CITY_SET, SOCGame.CARD_SET, SOCGame.ROAD_SET };
+            int speed = 0;
+
+            for (int i = 0; i < sets.length; i++)
+            {
+                try
+                {
+                    speed += estimate.calculateRollsFast(emptySet, sets[i], limit, ports).getRolls();
+                }
+                catch (CutoffExceededException e)
+                {
+                    speed += penalty;
+                }
+            }
+
+            return speed;
+        }
+
+        protected void planInitialSettlements()
+        {
+            SOCPlayerNumbers playerNumbers = new SOCPlayerNumbers();
+            boolean[] ports = new boolean[SOCBoard.WOOD_PORT + 1];
+            SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate();
+            int bestSpeed = 4 * SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT;
+            int bestProbTotal = 0;
+
+            firstSettlement = 0;
+            secondSettlement = 0;
+
+            for (int firstNode = 0x23; firstNode < 0xDC; firstNode++)
+            {
+                if (!ourPlayerData.isPotentialSettlement(firstNode))
+                {
+                    continue;
+                }
+
+                for (int secondNode = firstNode + 1; secondNode < 0xDC;
+                        secondNode++)
+                {
+                    if (!ourPlayerData.isPotentialSettlement(secondNode) || SOCBoard.getAdjacentNodesToNode(secondNode).contains(new Integer(firstNode)))
+                    {
+                        continue;
+                    }
+
+                    int probTotal = setNumbers(playerNumbers, ports, firstNode, secondNode);
+                    estimate.recalculateEstimates(playerNumbers);
+
+                    int speed = pairSpeed(estimate, ports, bestSpeed);
+                    boolean allTheWay = (speed >= 0);
+
+                    if (!allTheWay)
+                    {
+                        speed = -1 - speed;
+                    }
+
+                    if ((speed < bestSpeed) || ((speed == bestSpeed) && allTheWay && (probTotal > bestProbTotal)))
+                    {
+                        firstSettlement = firstNode;
+                        secondSettlement = secondNode;
+                        bestSpeed = speed;
+                        bestProbTotal = probTotal;
+                    }
+                }
+            }
+
+            /**
+             * choose which settlement to place first
+             */
+            setNumbers(playerNumbers, ports, firstSettlement, -1);
+            estimate.recalculateEstimates(playerNumbers);
+
+            int firstSpeed = nodeSpeed(estimate, ports, 100, 100);
+
+            setNumbers(playerNumbers, ports, secondSettlement, -1);
+            estimate.recalculateEstimates(playerNumbers);
+
+            int secondSpeed = nodeSpeed(estimate, ports, bestSpeed, 100);
+
+            if (firstSpeed > secondSpeed)
+            {
+                int tmp = firstSettlement;
+                firstSettlement = secondSettlement;
+                secondSettlement = tmp;
+            }
+        }
+
+        protected void planSecondSettlement()
+        {
+            SOCPlayerNumbers playerNumbers = new SOCPlayerNumbers();
+            boolean[] ports = new boolean[SOCBoard.WOOD_PORT + 1];
+            SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate();
+            int bestSpeed = 4 * SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT;
+            int bestProbTotal = 0;
+            int firstNode = firstSettlement;
+
+            secondSettlement = -1;
+
+            for (int secondNode = 0x23; secondNode < 0xDC; secondNode++)
+            {
+                if (!ourPlayerData.isPotentialSettlement(secondNode) || SOCBoard.getAdjacentNodesToNode(secondNode).contains(new Integer(firstNode)))
+                {
+                    continue;
+                }
+
+                int probTotal = setNumbers(playerNumbers, ports, firstNode, secondNode);
+                estimate.recalculateEstimates(playerNumbers);
+
+                int speed = pairSpeed(estimate, ports, bestSpeed);
+
+                if (speed < 0)
+                {
+                    speed = -1 - speed;
+                }
+
+                if ((speed < bestSpeed) || (secondSettlement < 0) || ((speed == bestSpeed) && (probTotal > bestProbTotal)))
+                {
+                    secondSettlement = secondNode;
+                    bestSpeed = speed;
+                    bestProbTotal = probTotal;
+                }
+            }
+        }
+    }
+}
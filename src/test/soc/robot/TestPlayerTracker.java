@@ -0,0 +1,389 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCCity;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+
+import soc.util.IntArrayKey;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Vector;
+
+
+/**
+ * Checks that the win game ETA pieces key a SOCPlayerTracker keeps
+ * between calls is always the one a full walk of its pieces would make,
+ * both for the robot's own trackers and for trackers in a snapshot,
+ * and that memoized longest road ETAs match freshly worked out ones.
+ *
+ * @author agent
+ */
+public class TestPlayerTracker extends TestCase
+{
+    /**
+     * how many random games to check
+     */
+    private static final int GAMES = 10;
+
+    /**
+     * how many moves to make in each game after the initial placement
+     */
+    private static final int MOVES = 40;
+
+    private Random rand;
+
+    /**
+     * trackers for every player in the game, the way a robot keeps them
+     */
+    private HashMap trackers;
+
+    /**
+     * real moves should leave every tracker with the right key
+     */
+    public void testKeyAfterMoves()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                makeMove(ga, trackers, move % SOCGame.MAXPLAYERS);
+                checkKeys(trackers, "game " + g + " move " + move);
+            }
+        }
+    }
+
+    /**
+     * trying pieces out in snapshots, and in snapshots of snapshots,
+     * should give the right keys there and leave the real trackers alone
+     */
+    public void testKeyInSnapshots()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                int pn = move % SOCGame.MAXPLAYERS;
+                String where = "game " + g + " move " + move;
+                Vector pieces = candidates((SOCPlayerTracker) trackers.get(new Integer(pn)));
+                checkKeys(trackers, where);
+
+                for (int i = 0; i < pieces.size(); i++)
+                {
+                    SOCPlayingPiece pp = (SOCPlayingPiece) pieces.elementAt(i);
+                    HashMap snapshot = SOCPlayerTracker.tryPutPiece(pp, ga, trackers);
+                    checkKeys(snapshot, where + " try " + pp);
+
+                    Vector more = candidates((SOCPlayerTracker) snapshot.get(new Integer(pn)));
+
+                    if (!more.isEmpty())
+                    {
+                        SOCPlayingPiece pp2 = (SOCPlayingPiece) more.elementAt(rand.nextInt(more.size()));
+                        HashMap snapshot2 = SOCPlayerTracker.tryPutPiece(pp2, ga, snapshot);
+                        checkKeys(snapshot2, where + " try " + pp + " then " + pp2);
+                        SOCPlayerTracker.undoTryPutPiece(pp2, ga);
+                        checkKeys(snapshot, where + " back from " + pp2);
+                    }
+
+                    SOCPlayerTracker.undoTryPutPiece(pp, ga);
+                    checkKeys(trackers, where + " back from " + pp);
+                }
+
+                makeMove(ga, trackers, pn);
+            }
+        }
+    }
+
+    /**
+     * a longest road ETA taken from the memo should be the same as
+     * one worked out again, for the real board and with each road
+     * the player could build put down for a moment
+     */
+    public void testLongestRoadETAMemo()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                int pn = move % SOCGame.MAXPLAYERS;
+                String where = "game " + g + " move " + move;
+                checkLongestRoadETAs(trackers, where);
+
+                Vector pieces = candidates((SOCPlayerTracker) trackers.get(new Integer(pn)));
+
+                for (int i = 0; i < pieces.size(); i++)
+                {
+                    SOCPlayingPiece pp = (SOCPlayingPiece) pieces.elementAt(i);
+
+                    if (pp.getType() == SOCPlayingPiece.ROAD)
+                    {
+                        HashMap snapshot = SOCPlayerTracker.tryPutPiece(pp, ga, trackers);
+                        checkLongestRoadETAs(snapshot, where + " try " + pp);
+                        SOCPlayerTracker.undoTryPutPiece(pp, ga);
+                    }
+                }
+
+                makeMove(ga, trackers, pn);
+            }
+        }
+    }
+
+    /**
+     * work out each tracker's longest road ETA twice through the
+     * memo, then without it, and check they all agree
+     */
+    private void checkLongestRoadETAs(HashMap trackers, String where)
+    {
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+            String who = where + " player " + tracker.getPlayer().getPlayerNumber();
+            tracker.recalcLongestRoadETA();
+            tracker.recalcLongestRoadETA();
+
+            int eta = tracker.getLongestRoadETA();
+            int roadsToGo = tracker.getRoadsToGo();
+            tracker.computeLongestRoadETA();
+            assertEquals(who + " eta", tracker.getLongestRoadETA(), eta);
+            assertEquals(who + " roads to go", tracker.getRoadsToGo(), roadsToGo);
+        }
+    }
+
+    /**
+     * updating threats doesn't change any pieces, so it
+     * shouldn't make the key again
+     */
+    public void testThreatsKeepKey()
+    {
+        SOCGame ga = newGame(0);
+
+        for (int move = 0; move < MOVES; move++)
+        {
+            makeMove(ga, trackers, move % SOCGame.MAXPLAYERS);
+        }
+
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+            IntArrayKey key = tracker.getWinGameETAPiecesKey();
+            tracker.updateThreats(trackers);
+            assertSame("player " + tracker.getPlayer().getPlayerNumber(), key, tracker.getWinGameETAPiecesKey());
+        }
+    }
+
+    /**
+     * compare each tracker's kept key with a freshly made one
+     */
+    private void checkKeys(HashMap trackers, String where)
+    {
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+            IntArrayKey kept = tracker.getWinGameETAPiecesKey();
+            tracker.piecesChanged();
+
+            IntArrayKey fresh = tracker.getWinGameETAPiecesKey();
+
+            // a key shared from the tracker we were copied from is
+            // rebuilt by that tracker, so walk this one's own pieces too
+            SOCPlayerTracker source = tracker.cowSource;
+            tracker.cowSource = null;
+            tracker.piecesChanged();
+
+            IntArrayKey walked = tracker.getWinGameETAPiecesKey();
+            tracker.cowSource = source;
+
+            assertEquals(where + " player " + tracker.getPlayer().getPlayerNumber(), walked, kept);
+            assertEquals(where + " player " + tracker.getPlayer().getPlayerNumber(), walked, fresh);
+        }
+    }
+
+    /**
+     * @return the pieces a tracker's player could build right now
+     */
+    private static Vector candidates(SOCPlayerTracker tracker)
+    {
+        Vector pieces = new Vector();
+        SOCPlayer pl = tracker.getPlayer();
+        Iterator iter = tracker.getPossibleRoads().values().iterator();
+
+        while (iter.hasNext())
+        {
+            SOCPossibleRoad pr = (SOCPossibleRoad) iter.next();
+
+            if (pr.getNecessaryRoads().isEmpty() && pl.isPotentialRoad(pr.getCoordinates()))
+            {
+                pieces.addElement(new SOCRoad(pl, pr.getCoordinates()));
+            }
+        }
+
+        iter = tracker.getPossibleSettlements().values().iterator();
+
+        while (iter.hasNext())
+        {
+            SOCPossibleSettlement ps = (SOCPossibleSettlement) iter.next();
+
+            if (ps.getNecessaryRoads().isEmpty() && pl.isPotentialSettlement(ps.getCoordinates()))
+            {
+                pieces.addElement(new SOCSettlement(pl, ps.getCoordinates()));
+            }
+        }
+
+        iter = tracker.getPossibleCities().values().iterator();
+
+        while (iter.hasNext())
+        {
+            pieces.addElement(new SOCCity(pl, ((SOCPossibleCity) iter.next()).getCoordinates()));
+        }
+
+        return pieces;
+    }
+
+    /**
+     * build a random piece for a player and tell the trackers,
+     * the way the robot brain does
+     */
+    private void makeMove(SOCGame ga, HashMap trackers, int pn)
+    {
+        Vector pieces = candidates((SOCPlayerTracker) trackers.get(new Integer(pn)));
+
+        if (pieces.isEmpty())
+        {
+            return;
+        }
+
+        put(ga, trackers, (SOCPlayingPiece) pieces.elementAt(rand.nextInt(pieces.size())));
+    }
+
+    /**
+     * put a piece in the game and tell the trackers
+     */
+    private static void put(SOCGame ga, HashMap trackers, SOCPlayingPiece pp)
+    {
+        ga.putPiece(pp);
+
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+
+            switch (pp.getType())
+            {
+            case SOCPlayingPiece.ROAD:
+                tracker.addNewRoad((SOCRoad) pp, trackers);
+
+                break;
+
+            case SOCPlayingPiece.SETTLEMENT:
+                tracker.addNewSettlement((SOCSettlement) pp, trackers);
+
+                break;
+
+            case SOCPlayingPiece.CITY:
+
+                if (tracker.getPlayer() == pp.getPlayer())
+                {
+                    tracker.addOurNewCity((SOCCity) pp);
+                }
+
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return a new game with two settlements and roads for each
+     *         player, and trackers that have seen them built
+     */
+    private SOCGame newGame(int seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test", false);
+        ga.getBoard().makeNewBoard();
+        ga.setGameState(SOCGame.START1A);
+        trackers = new HashMap();
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            trackers.put(new Integer(pn), new SOCPlayerTracker(ga.getPlayer(pn), null));
+        }
+
+        for (int round = 0; round < 2; round++)
+        {
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                Vector nodes = new Vector();
+
+                for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+                {
+                    if (pl.isPotentialSettlement(node))
+                    {
+                        nodes.addElement(new Integer(node));
+                    }
+                }
+
+                int node = ((Integer) nodes.elementAt(rand.nextInt(nodes.size()))).intValue();
+                put(ga, trackers, new SOCSettlement(pl, node));
+
+                Enumeration edges = SOCBoard.getAdjacentEdgesToNode(node).elements();
+
+                while (edges.hasMoreElements())
+                {
+                    int edge = ((Integer) edges.nextElement()).intValue();
+
+                    if (pl.isPotentialRoad(edge))
+                    {
+                        put(ga, trackers, new SOCRoad(pl, edge));
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        ga.setGameState(SOCGame.PLAY);
+
+        return ga;
+    }
+}
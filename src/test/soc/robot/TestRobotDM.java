@@ -0,0 +1,378 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCCity;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+
+import soc.util.CappedQueue;
+import soc.util.SOCRobotParameters;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Stack;
+import java.util.Vector;
+
+
+/**
+ * Checks that smartGameStrategy makes the same plans now that it
+ * scores cities first as it did when it scored settlements, then
+ * roads, then cities, and the same plans with or without the
+ * player trackers' memos.
+ *
+ * @author agent
+ */
+public class TestRobotDM extends TestCase
+{
+    /**
+     * how many random games to check
+     */
+    private static final int GAMES = 6;
+
+    /**
+     * how many moves to make in each game after the initial placement
+     */
+    private static final int MOVES = 24;
+
+    /**
+     * the smart strategy with no deadline, so every piece is scored
+     */
+    private static final SOCRobotParameters PARAMS = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1, 0, 0, 0);
+
+    private Random rand;
+
+    private SOCRobotBrain brain;
+
+    private HashMap trackers;
+
+    private int oldMaxThreads;
+
+    protected void setUp()
+    {
+        oldMaxThreads = SOCRobotWorkerPool.getMaxThreads();
+        SOCRobotWorkerPool.setMaxThreads(1);
+    }
+
+    protected void tearDown()
+    {
+        SOCRobotWorkerPool.setMaxThreads(oldMaxThreads);
+    }
+
+    /**
+     * before every move in a run of games, the player to move
+     * should get the same plan and scores either way
+     */
+    public void testSamePlanAsOldOrder()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                int pn = move % SOCGame.MAXPLAYERS;
+                SOCPlayer pl = ga.getPlayer(pn);
+                pl.getResources().clear();
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.CLAY);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.WOOD);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.ORE);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.WHEAT);
+
+                String now = plan(ga, new SOCRobotDM(PARAMS, trackers, tracker(pn), pl, new Stack()));
+                String old = plan(ga, new OldOrderDM(PARAMS, trackers, tracker(pn), pl, new Stack()));
+                assertEquals("game " + g + " move " + move, old, now);
+
+                makeMove(ga, pn);
+            }
+        }
+    }
+
+    /**
+     * the trackers' win game and longest road ETA memos shouldn't
+     * change any plans.  With the debug recorder on the trackers
+     * work everything out again instead of using them.
+     */
+    public void testSamePlanWithoutMemos()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; move < MOVES; move++)
+            {
+                int pn = move % SOCGame.MAXPLAYERS;
+                SOCPlayer pl = ga.getPlayer(pn);
+                pl.getResources().clear();
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.CLAY);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.WOOD);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.SHEEP);
+                pl.getResources().add(rand.nextInt(3), SOCResourceConstants.WHEAT);
+
+                String memo = plan(ga, new SOCRobotDM(PARAMS, trackers, tracker(pn), pl, new Stack()));
+                brain.turnOnDRecorder();
+
+                String noMemo = plan(ga, new SOCRobotDM(PARAMS, trackers, tracker(pn), pl, new Stack()));
+                brain.turnOffDRecorder();
+                assertEquals("game " + g + " move " + move, noMemo, memo);
+
+                makeMove(ga, pn);
+            }
+        }
+    }
+
+    /**
+     * run the smart strategy and leave the game as it was
+     *
+     * @return the plan, and the score of every piece the player could build
+     */
+    private String plan(SOCGame ga, SOCRobotDM dm)
+    {
+        Vector[] lrPaths = new Vector[SOCGame.MAXPLAYERS];
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            lrPaths[pn] = (Vector) ga.getPlayer(pn).getLRPaths().clone();
+        }
+
+        SOCPlayerTracker tracker = dm.ourPlayerTracker;
+        resetScores(tracker);
+        SOCPlayerTracker.updateWinGameETAs(trackers);
+        dm.planStuff(SOCRobotDM.SMART_STRATEGY);
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("plan ").append(dm.buildingPlan);
+        appendScores(sb, tracker.getPossibleCities().values().iterator());
+        appendScores(sb, tracker.getPossibleSettlements().values().iterator());
+        appendScores(sb, tracker.getPossibleRoads().values().iterator());
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            ga.getPlayer(pn).setLRPaths(lrPaths[pn]);
+        }
+
+        return sb.toString();
+    }
+
+    private static void resetScores(SOCPlayerTracker tracker)
+    {
+        Iterator iter = tracker.getPossibleCities().values().iterator();
+
+        while (iter.hasNext())
+        {
+            ((SOCPossiblePiece) iter.next()).resetScore();
+        }
+
+        iter = tracker.getPossibleSettlements().values().iterator();
+
+        while (iter.hasNext())
+        {
+            ((SOCPossiblePiece) iter.next()).resetScore();
+        }
+
+        iter = tracker.getPossibleRoads().values().iterator();
+
+        while (iter.hasNext())
+        {
+            ((SOCPossiblePiece) iter.next()).resetScore();
+        }
+    }
+
+    private static void appendScores(StringBuffer sb, Iterator iter)
+    {
+        while (iter.hasNext())
+        {
+            SOCPossiblePiece pp = (SOCPossiblePiece) iter.next();
+            sb.append(' ').append(pp.getType()).append(':').append(Integer.toHexString(pp.getCoordinates())).append('=').append(pp.getScore());
+        }
+    }
+
+    private SOCPlayerTracker tracker(int pn)
+    {
+        return (SOCPlayerTracker) trackers.get(new Integer(pn));
+    }
+
+    /**
+     * build a random piece for a player and tell the trackers
+     */
+    private void makeMove(SOCGame ga, int pn)
+    {
+        SOCPlayerTracker tracker = tracker(pn);
+        SOCPlayer pl = tracker.getPlayer();
+        Vector pieces = new Vector();
+        Iterator iter = tracker.getPossibleRoads().values().iterator();
+
+        while (iter.hasNext())
+        {
+            SOCPossibleRoad pr = (SOCPossibleRoad) iter.next();
+
+            if (pr.getNecessaryRoads().isEmpty() && pl.isPotentialRoad(pr.getCoordinates()))
+            {
+                pieces.addElement(new SOCRoad(pl, pr.getCoordinates()));
+            }
+        }
+
+        iter = tracker.getPossibleSettlements().values().iterator();
+
+        while (iter.hasNext())
+        {
+            SOCPossibleSettlement ps = (SOCPossibleSettlement) iter.next();
+
+            if (ps.getNecessaryRoads().isEmpty() && pl.isPotentialSettlement(ps.getCoordinates()))
+            {
+                pieces.addElement(new SOCSettlement(pl, ps.getCoordinates()));
+            }
+        }
+
+        iter = tracker.getPossibleCities().values().iterator();
+
+        while (iter.hasNext())
+        {
+            pieces.addElement(new SOCCity(pl, ((SOCPossibleCity) iter.next()).getCoordinates()));
+        }
+
+        if (!pieces.isEmpty())
+        {
+            put(ga, (SOCPlayingPiece) pieces.elementAt(rand.nextInt(pieces.size())));
+        }
+    }
+
+    /**
+     * put a piece in the game and tell the trackers
+     */
+    private void put(SOCGame ga, SOCPlayingPiece pp)
+    {
+        ga.putPiece(pp);
+
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+
+            switch (pp.getType())
+            {
+            case SOCPlayingPiece.ROAD:
+                tracker.addNewRoad((SOCRoad) pp, trackers);
+
+                break;
+
+            case SOCPlayingPiece.SETTLEMENT:
+                tracker.addNewSettlement((SOCSettlement) pp, trackers);
+
+                break;
+
+            case SOCPlayingPiece.CITY:
+
+                if (tracker.getPlayer() == pp.getPlayer())
+                {
+                    tracker.addOurNewCity((SOCCity) pp);
+                }
+
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return a new game with two settlements and roads for each
+     *         player, and trackers that have seen them built
+     */
+    private SOCGame newGame(int seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test", false);
+        ga.getBoard().makeNewBoard();
+        ga.setGameState(SOCGame.START1A);
+
+        brain = new SOCRobotBrain(null, PARAMS, ga, new CappedQueue());
+        trackers = new HashMap();
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            trackers.put(new Integer(pn), new SOCPlayerTracker(ga.getPlayer(pn), brain));
+        }
+
+        for (int round = 0; round < 2; round++)
+        {
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                Vector nodes = new Vector();
+
+                for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+                {
+                    if (pl.isPotentialSettlement(node))
+                    {
+                        nodes.addElement(new Integer(node));
+                    }
+                }
+
+                int node = ((Integer) nodes.elementAt(rand.nextInt(nodes.size()))).intValue();
+                put(ga, new SOCSettlement(pl, node));
+
+                Enumeration edges = SOCBoard.getAdjacentEdgesToNode(node).elements();
+
+                while (edges.hasMoreElements())
+                {
+                    int edge = ((Integer) edges.nextElement()).intValue();
+
+                    if (pl.isPotentialRoad(edge))
+                    {
+                        put(ga, new SOCRoad(pl, edge));
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        ga.setGameState(SOCGame.PLAY);
+
+        return ga;
+    }
+
+    /**
+     * scores the pieces in the order smartGameStrategy used to
+     */
+    private static class OldOrderDM extends SOCRobotDM
+    {
+        OldOrderDM(SOCRobotParameters params, HashMap pt, SOCPlayerTracker opt, SOCPlayer opd, Stack bp)
+        {
+            super(params, pt, opt, opd, bp);
+        }
+
+        protected void scorePieces(int[] buildingETAs, int leadersCurrentWGETA)
+        {
+            scoreSettlements(buildingETAs, leadersCurrentWGETA);
+            scoreRoads(buildingETAs, leadersCurrentWGETA);
+            scoreCities(buildingETAs, leadersCurrentWGETA);
+        }
+    }
+}
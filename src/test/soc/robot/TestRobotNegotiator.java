@@ -0,0 +1,370 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.game.SOCTradeOffer;
+
+import soc.util.CappedQueue;
+import soc.util.SOCRobotParameters;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Vector;
+
+
+/**
+ * Checks that the negotiator makes the same offers, responses
+ * and counter offers with its estimates and ETAs kept for the
+ * turn as it did when it worked them all out every time.
+ *
+ * @author agent
+ */
+public class TestRobotNegotiator extends TestCase
+{
+    /**
+     * how many random games to check
+     */
+    private static final int GAMES = 8;
+
+    /**
+     * how many turns to play in each game
+     */
+    private static final int TURNS = 12;
+
+    /**
+     * how many offers to try in each turn
+     */
+    private static final int OFFERS = 6;
+
+    private static final SOCRobotParameters PARAMS = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1, 0, 0, 0);
+
+    private Random rand;
+
+    private SOCRobotBrain brain;
+
+    private HashMap trackers;
+
+    /**
+     * in every turn, the negotiator that keeps its estimates
+     * should answer the same as one that doesn't, for the
+     * same hands, targets and offers
+     */
+    public void testSameAsWithoutCache()
+    {
+        int numOffers = 0;
+
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+            SOCPlayer us = brain.ourPlayerData;
+            int ourNum = us.getPlayerNumber();
+
+            for (int turn = 0; turn < TURNS; turn++)
+            {
+                ga.setCurrentPlayerNumber(turn % SOCGame.MAXPLAYERS);
+
+                SOCRobotNegotiator now = new SOCRobotNegotiator(brain);
+                SOCRobotNegotiator old = new OldNegotiator(brain);
+
+                for (int i = 0; i < OFFERS; i++)
+                {
+                    String where = "game " + g + " turn " + turn + " offer " + i;
+
+                    for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+                    {
+                        randomHand(ga.getPlayer(pn));
+                    }
+
+                    int pn = rand.nextInt(SOCGame.MAXPLAYERS);
+                    int rsrc = SOCResourceConstants.CLAY + rand.nextInt(5);
+
+                    if ((pn != ourNum) && rand.nextBoolean())
+                    {
+                        now.markAsNotSelling(pn, rsrc);
+                        old.markAsNotSelling(pn, rsrc);
+                    }
+
+                    SOCPossiblePiece target = randomTarget(us);
+                    SOCTradeOffer offer = now.makeOffer(target);
+                    assertEquals(where, String.valueOf(old.makeOffer(target)), String.valueOf(offer));
+
+                    if (offer != null)
+                    {
+                        numOffers++;
+                    }
+
+                    SOCTradeOffer theirs = randomOffer(ga, ourNum);
+
+                    if (theirs == null)
+                    {
+                        continue;
+                    }
+
+                    now.setTargetPiece(ourNum, target);
+                    old.setTargetPiece(ourNum, target);
+                    assertEquals(where, String.valueOf(old.makeCounterOffer(theirs)), String.valueOf(now.makeCounterOffer(theirs)));
+                    assertEquals(where, old.considerOffer2(theirs, ourNum), now.considerOffer2(theirs, ourNum));
+                }
+
+                makeMove(ga, ga.getCurrentPlayerNumber());
+            }
+        }
+
+        assertTrue("no offers were made", numOffers > 0);
+    }
+
+    /**
+     * give a player a random hand
+     */
+    private void randomHand(SOCPlayer pl)
+    {
+        SOCResourceSet hand = pl.getResources();
+        hand.clear();
+
+        for (int rsrc = SOCResourceConstants.CLAY;
+                rsrc <= SOCResourceConstants.WOOD; rsrc++)
+        {
+            hand.add(rand.nextInt(4), rsrc);
+        }
+    }
+
+    /**
+     * @return a city, settlement or road we could plan
+     *         for, or a dev card
+     */
+    private SOCPossiblePiece randomTarget(SOCPlayer us)
+    {
+        SOCPlayerTracker tracker = tracker(us.getPlayerNumber());
+        Vector pieces = new Vector();
+        pieces.addAll(tracker.getPossibleCities().values());
+        pieces.addAll(tracker.getPossibleSettlements().values());
+        pieces.addAll(tracker.getPossibleRoads().values());
+        pieces.addElement(new SOCPossibleCard(us, 1));
+
+        return (SOCPossiblePiece) pieces.elementAt(rand.nextInt(pieces.size()));
+    }
+
+    /**
+     * @return an offer to us from another player of one or two
+     *         resources they have for one or two that we have,
+     *         or null if one of us has nothing
+     */
+    private SOCTradeOffer randomOffer(SOCGame ga, int ourNum)
+    {
+        int from = (ourNum + 1 + rand.nextInt(SOCGame.MAXPLAYERS - 1)) % SOCGame.MAXPLAYERS;
+        SOCResourceSet give = randomPart(ga.getPlayer(from).getResources());
+        SOCResourceSet get = randomPart(ga.getPlayer(ourNum).getResources());
+
+        if ((give.getTotal() == 0) || (get.getTotal() == 0))
+        {
+            return null;
+        }
+
+        boolean[] to = new boolean[SOCGame.MAXPLAYERS];
+        to[ourNum] = true;
+
+        return new SOCTradeOffer(ga.getName(), from, to, give, get);
+    }
+
+    /**
+     * @return one or two resources out of a hand
+     */
+    private SOCResourceSet randomPart(SOCResourceSet hand)
+    {
+        SOCResourceSet part = new SOCResourceSet();
+        int num = 1 + rand.nextInt(2);
+
+        for (int i = 0; (i < 20) && (part.getTotal() < num); i++)
+        {
+            int rsrc = SOCResourceConstants.CLAY + rand.nextInt(5);
+
+            if (hand.getAmount(rsrc) > part.getAmount(rsrc))
+            {
+                part.add(1, rsrc);
+            }
+        }
+
+        return part;
+    }
+
+    private SOCPlayerTracker tracker(int pn)
+    {
+        return (SOCPlayerTracker) trackers.get(new Integer(pn));
+    }
+
+    /**
+     * build a road or settlement for a player, where they can,
+     * and tell the trackers
+     */
+    private void makeMove(SOCGame ga, int pn)
+    {
+        SOCPlayer pl = ga.getPlayer(pn);
+        Vector nodes = new Vector();
+
+        for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+        {
+            if (pl.isPotentialSettlement(node))
+            {
+                nodes.addElement(new Integer(node));
+            }
+        }
+
+        if (!nodes.isEmpty())
+        {
+            int node = ((Integer) nodes.elementAt(rand.nextInt(nodes.size()))).intValue();
+            put(ga, new SOCSettlement(pl, node));
+
+            return;
+        }
+
+        Vector edges = new Vector();
+
+        for (int edge = SOCBoard.MINEDGE; edge <= SOCBoard.MAXEDGE; edge++)
+        {
+            if (pl.isPotentialRoad(edge))
+            {
+                edges.addElement(new Integer(edge));
+            }
+        }
+
+        if (!edges.isEmpty())
+        {
+            int edge = ((Integer) edges.elementAt(rand.nextInt(edges.size()))).intValue();
+            put(ga, new SOCRoad(pl, edge));
+        }
+    }
+
+    /**
+     * put a road or settlement in the game and tell the trackers
+     */
+    private void put(SOCGame ga, SOCPlayingPiece pp)
+    {
+        ga.putPiece(pp);
+
+        Iterator trackersIter = trackers.values().iterator();
+
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker tracker = (SOCPlayerTracker) trackersIter.next();
+
+            if (pp instanceof SOCRoad)
+            {
+                tracker.addNewRoad((SOCRoad) pp, trackers);
+            }
+            else
+            {
+                tracker.addNewSettlement((SOCSettlement) pp, trackers);
+            }
+        }
+    }
+
+    /**
+     * @return a new game with two settlements and roads for each
+     *         player, and a brain for player 0 with trackers that
+     *         have seen them built
+     */
+    private SOCGame newGame(int seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test", false);
+        ga.getBoard().makeNewBoard();
+        ga.setGameState(SOCGame.START1A);
+
+        brain = new SOCRobotBrain(null, PARAMS, ga, new CappedQueue());
+        trackers = new HashMap();
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            trackers.put(new Integer(pn), new SOCPlayerTracker(ga.getPlayer(pn), brain));
+        }
+
+        for (int round = 0; round < 2; round++)
+        {
+            for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                Vector nodes = new Vector();
+
+                for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+                {
+                    if (pl.isPotentialSettlement(node))
+                    {
+                        nodes.addElement(new Integer(node));
+                    }
+                }
+
+                int node = ((Integer) nodes.elementAt(rand.nextInt(nodes.size()))).intValue();
+                put(ga, new SOCSettlement(pl, node));
+
+                Enumeration edges = SOCBoard.getAdjacentEdgesToNode(node).elements();
+
+                while (edges.hasMoreElements())
+                {
+                    int edge = ((Integer) edges.nextElement()).intValue();
+
+                    if (pl.isPotentialRoad(edge))
+                    {
+                        put(ga, new SOCRoad(pl, edge));
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        ga.setGameState(SOCGame.PLAY);
+
+        brain.ourPlayerData = ga.getPlayer(0);
+        brain.ourPlayerTracker = tracker(0);
+        brain.playerTrackers = trackers;
+        brain.decisionMaker = new SOCRobotDM(PARAMS, trackers, tracker(0), ga.getPlayer(0), brain.getBuildingPlan());
+
+        return ga;
+    }
+
+    /**
+     * works out a new estimate every time it's asked for one,
+     * as the negotiator used to, so no ETAs are kept
+     */
+    private static class OldNegotiator extends SOCRobotNegotiator
+    {
+        OldNegotiator(SOCRobotBrain br)
+        {
+            super(br);
+        }
+
+        protected SOCBuildingSpeedEstimate getEstimate(SOCPlayer player)
+        {
+            return new SOCBuildingSpeedEstimate(player.getNumbers());
+        }
+    }
+}
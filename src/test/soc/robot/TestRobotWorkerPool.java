@@ -0,0 +1,146 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.robot;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that SOCRobotWorkerPool hands failures back to
+ * whoever ran the batch.
+ *
+ * @author agent
+ */
+public class TestRobotWorkerPool extends TestCase
+{
+    private int oldMaxThreads;
+
+    protected void setUp()
+    {
+        oldMaxThreads = SOCRobotWorkerPool.getMaxThreads();
+        SOCRobotWorkerPool.setMaxThreads(4);
+    }
+
+    protected void tearDown()
+    {
+        SOCRobotWorkerPool.setMaxThreads(oldMaxThreads);
+    }
+
+    /**
+     * a task that throws on a pool thread makes runAll throw,
+     * after the rest of the batch is done
+     */
+    public void testWorkerFailureIsThrown()
+    {
+        int[] done = new int[1];
+        Runnable[] tasks = new Runnable[4];
+        tasks[0] = new SlowTask(done);
+        tasks[1] = new FailingTask();
+        tasks[2] = new SlowTask(done);
+        tasks[3] = new SlowTask(done);
+
+        try
+        {
+            SOCRobotWorkerPool.getPool().runAll(tasks);
+            fail("runAll didn't throw");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("task failed", e.getMessage());
+        }
+
+        //
+        //  the first task always runs, and runAll doesn't
+        //  come back until every task that was started is done
+        //
+        synchronized (done)
+        {
+            assertTrue(done[0] >= 1);
+        }
+    }
+
+    /**
+     * a task that throws on the calling thread makes runAll throw
+     */
+    public void testCallerFailureIsThrown()
+    {
+        Runnable[] tasks = { new FailingTask(), new SlowTask(new int[1]) };
+
+        try
+        {
+            SOCRobotWorkerPool.getPool().runAll(tasks);
+            fail("runAll didn't throw");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("task failed", e.getMessage());
+        }
+    }
+
+    /**
+     * a batch with no failures runs every task that gets started
+     */
+    public void testBatchFinishes()
+    {
+        int[] done = new int[1];
+        Runnable[] tasks = { new SlowTask(done), new SlowTask(done), new SlowTask(done) };
+        SOCRobotWorkerPool.getPool().runAll(tasks);
+
+        synchronized (done)
+        {
+            assertTrue(done[0] >= 1);
+            assertTrue(done[0] <= 3);
+        }
+    }
+
+    static class FailingTask implements Runnable
+    {
+        public void run()
+        {
+            throw new IllegalStateException("task failed");
+        }
+    }
+
+    static class SlowTask implements Runnable
+    {
+        int[] done;
+
+        SlowTask(int[] d)
+        {
+            done = d;
+        }
+
+        public void run()
+        {
+            try
+            {
+                Thread.sleep(100);
+            }
+            catch (InterruptedException e)
+            {
+                ;
+            }
+
+            synchronized (done)
+            {
+                done[0]++;
+            }
+        }
+    }
+}
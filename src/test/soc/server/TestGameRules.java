@@ -0,0 +1,418 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCGame;
+import soc.game.SOCGameAction;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+import soc.message.SOCBankTrade;
+import soc.message.SOCBuildRequest;
+import soc.message.SOCBuyCardRequest;
+import soc.message.SOCCancelBuildRequest;
+import soc.message.SOCChoosePlayer;
+import soc.message.SOCDiscard;
+import soc.message.SOCDiscoveryPick;
+import soc.message.SOCEndTurn;
+import soc.message.SOCMonopolyPick;
+import soc.message.SOCMoveRobber;
+import soc.message.SOCPlayDevCardRequest;
+import soc.message.SOCPutPiece;
+import soc.message.SOCRollDice;
+import soc.message.SOCSitDown;
+import soc.message.SOCStartGame;
+import soc.message.SOCTurn;
+
+import java.util.Random;
+
+
+/**
+ * Plays random games through SOCGameRules the way the server's
+ * handlers do, records what was sent, and checks that
+ * SOCGameReplayer ends up with the same game.
+ *
+ * @author agent
+ */
+public class TestGameRules extends TestCase
+{
+    /**
+     * how many random games to play
+     */
+    private static final int GAMES = 20;
+
+    /**
+     * the most moves to make in each game
+     */
+    private static final int MOVES = 400;
+
+    private static final String GAME = "test";
+
+    private Random rand;
+
+    /**
+     * what the server would have recorded for the game
+     */
+    private SOCGameJournal.Recording rec;
+
+    /**
+     * a replayed game should end up the same as the game played
+     */
+    public void testReplaySameAsPlayed()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+            int[] actions = new int[SOCGameAction.MAX_ACTIONS];
+
+            for (int move = 0; (move < MOVES) && (ga.getGameState() != SOCGame.OVER); move++)
+            {
+                int current = ga.getCurrentPlayerNumber();
+
+                if (ga.getGameState() == SOCGame.WAITING_FOR_DISCARDS)
+                {
+                    discard(ga);
+                }
+                else
+                {
+                    int n = ga.getLegalActions(actions);
+
+                    if (n == 0)
+                    {
+                        break;
+                    }
+
+                    play(ga, actions[rand.nextInt(n)]);
+                }
+
+                if (ga.getCurrentPlayerNumber() != current)
+                {
+                    record(null, SOCTurn.toCmd(GAME, ga.getCurrentPlayerNumber()));
+                }
+            }
+
+            SOCGameReplayer replayer = new SOCGameReplayer(rec);
+            SOCGame replayed = replayer.replayAll();
+
+            assertEquals("game " + g + " turns", 0, replayer.getNumMismatches());
+            assertSameGame("game " + g, ga, replayed);
+        }
+    }
+
+    /**
+     * a request from someone whose turn it isn't should be
+     * turned down and leave the game alone
+     */
+    public void testNotYourTurn()
+    {
+        SOCGame ga = newGame(0);
+        SOCPlayer other = ga.getPlayer((ga.getCurrentPlayerNumber() + 1) % SOCGame.MAXPLAYERS);
+        int coord = other.nextPotentialSettlement(0);
+        int state = ga.getGameState();
+
+        assertEquals(SOCGameRules.NOT_YOUR_TURN, SOCGameRules.putPiece(ga, other, SOCPlayingPiece.SETTLEMENT, coord));
+        assertEquals(SOCGameRules.NOT_YOUR_TURN, SOCGameRules.endTurn(ga, other));
+        assertEquals(SOCGameRules.NOT_YOUR_TURN, SOCGameRules.buildRequest(ga, other, SOCPlayingPiece.ROAD));
+        assertEquals(state, ga.getGameState());
+        assertEquals(0, other.getPieces().size());
+
+        SOCPlayer pl = ga.getPlayer(ga.getCurrentPlayerNumber());
+        assertEquals(SOCGameRules.NOT_NOW, SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.ROAD, 0x67));
+        assertEquals(SOCGameRules.NOT_NOW, SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.ROAD));
+        assertEquals(SOCGameRules.OK, SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.SETTLEMENT, pl.nextPotentialSettlement(0)));
+        assertEquals(1, pl.getPieces().size());
+    }
+
+    /**
+     * start a game with four players, recording it the way
+     * the server does
+     */
+    private SOCGame newGame(long seed)
+    {
+        rand = new Random(seed);
+        rec = new SOCGameJournal.Recording();
+        rec.gameName = GAME;
+        rec.seed = seed;
+
+        SOCGame ga = new SOCGame(GAME);
+        ga.setSeed(seed);
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            ga.addPlayer("p" + pn, pn);
+            record(null, SOCSitDown.toCmd(GAME, "p" + pn, pn, false));
+        }
+
+        ga.startGame();
+        record(null, SOCStartGame.toCmd(GAME));
+
+        return ga;
+    }
+
+    /**
+     * add an event to the recording
+     */
+    private void record(String player, String cmd)
+    {
+        SOCGameJournal.Event ev = new SOCGameJournal.Event();
+        ev.seq = rec.events.size() + 1;
+        ev.player = player;
+        ev.cmd = cmd;
+        rec.events.addElement(ev);
+        rec.lastSeq = ev.seq;
+    }
+
+    /**
+     * have the current player make a move, the way the
+     * server handles the request for it
+     */
+    private void play(SOCGame ga, int action)
+    {
+        SOCPlayer pl = ga.getPlayer(ga.getCurrentPlayerNumber());
+        int pn = pl.getPlayerNumber();
+        int arg1 = SOCGameAction.getArg1(action);
+        int arg2 = SOCGameAction.getArg2(action);
+        String cmd = null;
+        int result = SOCGameRules.OK;
+
+        switch (SOCGameAction.getType(action))
+        {
+        case SOCGameAction.ROLL_DICE:
+            assertTrue(ga.canRollDice(pn));
+            ga.rollDice();
+            cmd = SOCRollDice.toCmd(GAME);
+
+            break;
+
+        case SOCGameAction.END_TURN:
+            result = SOCGameRules.endTurn(ga, pl);
+            cmd = SOCEndTurn.toCmd(GAME);
+
+            break;
+
+        case SOCGameAction.BUY_ROAD:
+            result = SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.ROAD);
+            cmd = SOCBuildRequest.toCmd(GAME, SOCPlayingPiece.ROAD);
+
+            break;
+
+        case SOCGameAction.BUY_SETTLEMENT:
+            result = SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.SETTLEMENT);
+            cmd = SOCBuildRequest.toCmd(GAME, SOCPlayingPiece.SETTLEMENT);
+
+            break;
+
+        case SOCGameAction.BUY_CITY:
+            result = SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.CITY);
+            cmd = SOCBuildRequest.toCmd(GAME, SOCPlayingPiece.CITY);
+
+            break;
+
+        case SOCGameAction.BUY_DEV_CARD:
+            result = SOCGameRules.canBuyDevCard(ga, pl);
+
+            if (result == SOCGameRules.OK)
+            {
+                ga.buyDevCard();
+            }
+
+            cmd = SOCBuyCardRequest.toCmd(GAME);
+
+            break;
+
+        case SOCGameAction.CANCEL_BUILD:
+
+            int pieceType;
+
+            switch (ga.getGameState())
+            {
+            case SOCGame.PLACING_ROAD:
+                pieceType = SOCPlayingPiece.ROAD;
+
+                break;
+
+            case SOCGame.PLACING_SETTLEMENT:
+                pieceType = SOCPlayingPiece.SETTLEMENT;
+
+                break;
+
+            default:
+                pieceType = SOCPlayingPiece.CITY;
+
+                break;
+            }
+
+            result = SOCGameRules.cancelBuildRequest(ga, pl, pieceType);
+            cmd = SOCCancelBuildRequest.toCmd(GAME, pieceType);
+
+            break;
+
+        case SOCGameAction.PLACE_ROAD:
+            result = SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.ROAD, arg1);
+            cmd = SOCPutPiece.toCmd(GAME, pn, SOCPlayingPiece.ROAD, arg1);
+
+            break;
+
+        case SOCGameAction.PLACE_SETTLEMENT:
+            result = SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.SETTLEMENT, arg1);
+            cmd = SOCPutPiece.toCmd(GAME, pn, SOCPlayingPiece.SETTLEMENT, arg1);
+
+            break;
+
+        case SOCGameAction.PLACE_CITY:
+            result = SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.CITY, arg1);
+            cmd = SOCPutPiece.toCmd(GAME, pn, SOCPlayingPiece.CITY, arg1);
+
+            break;
+
+        case SOCGameAction.PLAY_KNIGHT:
+            result = SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.KNIGHT);
+            cmd = SOCPlayDevCardRequest.toCmd(GAME, SOCDevCardConstants.KNIGHT);
+
+            break;
+
+        case SOCGameAction.PLAY_ROAD_BUILDING:
+            result = SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.ROADS);
+            cmd = SOCPlayDevCardRequest.toCmd(GAME, SOCDevCardConstants.ROADS);
+
+            break;
+
+        case SOCGameAction.PLAY_DISCOVERY:
+            result = SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.DISC);
+            cmd = SOCPlayDevCardRequest.toCmd(GAME, SOCDevCardConstants.DISC);
+
+            break;
+
+        case SOCGameAction.PLAY_MONOPOLY:
+            result = SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.MONO);
+            cmd = SOCPlayDevCardRequest.toCmd(GAME, SOCDevCardConstants.MONO);
+
+            break;
+
+        case SOCGameAction.MOVE_ROBBER:
+            assertTrue(ga.canMoveRobber(pn, arg1));
+            ga.moveRobber(pn, arg1);
+            cmd = SOCMoveRobber.toCmd(GAME, pn, arg1);
+
+            break;
+
+        case SOCGameAction.CHOOSE_PLAYER:
+            assertTrue(ga.canChoosePlayer(arg1));
+            ga.stealFromPlayer(arg1);
+            cmd = SOCChoosePlayer.toCmd(GAME, arg1);
+
+            break;
+
+        case SOCGameAction.BANK_TRADE:
+
+            SOCResourceSet give = new SOCResourceSet();
+            SOCResourceSet get = new SOCResourceSet();
+            give.add(SOCGameAction.getArg3(action), arg1);
+            get.add(1, arg2);
+            result = SOCGameRules.bankTrade(ga, pl, give, get);
+            cmd = SOCBankTrade.toCmd(GAME, give, get);
+
+            break;
+
+        case SOCGameAction.DISCOVERY_PICK:
+
+            SOCResourceSet pick = new SOCResourceSet();
+            pick.add(1, arg1);
+            pick.add(1, arg2);
+            result = SOCGameRules.discoveryPick(ga, pl, pick);
+            cmd = SOCDiscoveryPick.toCmd(GAME, pick);
+
+            break;
+
+        case SOCGameAction.MONOPOLY_PICK:
+            result = SOCGameRules.monopolyPick(ga, pl, arg1);
+            cmd = SOCMonopolyPick.toCmd(GAME, arg1);
+
+            break;
+
+        default:
+            fail("unknown action " + SOCGameAction.toString(action));
+        }
+
+        assertEquals(SOCGameAction.toString(action), SOCGameRules.OK, result);
+        record(pl.getName(), cmd);
+    }
+
+    /**
+     * have everyone who has to discard throw away half
+     * of their resources
+     */
+    private void discard(SOCGame ga)
+    {
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            SOCPlayer pl = ga.getPlayer(pn);
+
+            if (!pl.getNeedToDiscard())
+            {
+                continue;
+            }
+
+            SOCResourceSet rs = new SOCResourceSet();
+            int left = pl.getResources().getTotal() / 2;
+
+            for (int rtype = SOCResourceConstants.CLAY;
+                    (rtype <= SOCResourceConstants.WOOD) && (left > 0);
+                    rtype++)
+            {
+                int amount = Math.min(left, pl.getResources().getAmount(rtype));
+                rs.add(amount, rtype);
+                left -= amount;
+            }
+
+            assertTrue(ga.canDiscard(pn, rs));
+            ga.discard(pn, rs);
+            record(pl.getName(), SOCDiscard.toCmd(GAME, rs));
+        }
+    }
+
+    /**
+     * check that two games are in the same state
+     */
+    private void assertSameGame(String where, SOCGame expected, SOCGame actual)
+    {
+        assertEquals(where + " state", expected.getGameState(), actual.getGameState());
+        assertEquals(where + " current player", expected.getCurrentPlayerNumber(), actual.getCurrentPlayerNumber());
+        assertEquals(where + " dice", expected.getCurrentDice(), actual.getCurrentDice());
+        assertEquals(where + " dev cards", expected.getNumDevCards(), actual.getNumDevCards());
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            SOCPlayer ep = expected.getPlayer(pn);
+            SOCPlayer ap = actual.getPlayer(pn);
+            String who = where + " player " + pn;
+
+            assertEquals(who + " vp", ep.getTotalVP(), ap.getTotalVP());
+            assertEquals(who + " resources", ep.getResources().toString(), ap.getResources().toString());
+            assertEquals(who + " dev cards", ep.getDevCards().getTotal(), ap.getDevCards().getTotal());
+            assertEquals(who + " pieces", ep.getPieces().size(), ap.getPieces().size());
+            assertEquals(who + " knights", ep.getNumKnights(), ap.getNumKnights());
+        }
+    }
+}
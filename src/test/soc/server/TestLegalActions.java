@@ -0,0 +1,445 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * Copyright (C) 2026  agent
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ **/
+package soc.server;
+
+import junit.framework.TestCase;
+
+import soc.game.SOCBoard;
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCGame;
+import soc.game.SOCGameAction;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+import java.util.Random;
+
+
+/**
+ * Checks SOCGame.getLegalActions against SOCGameRules over random
+ * positions: every action listed should be accepted, and every
+ * action the rules accept should be listed.
+ *
+ * @author agent
+ */
+public class TestLegalActions extends TestCase
+{
+    /**
+     * how many random games to play
+     */
+    private static final int GAMES = 10;
+
+    /**
+     * the most moves to make in each game
+     */
+    private static final int MOVES = 400;
+
+    /**
+     * room for everything allActions lists: each edge, two
+     * actions for each node, and under a hundred others
+     */
+    private static final int MAX_ALL_ACTIONS = 1024;
+
+    private Random rand;
+
+    private int[] actions = new int[SOCGameAction.MAX_ACTIONS];
+
+    /**
+     * each listed action, tried on a copy of the game,
+     * should be accepted by the rules
+     */
+    public void testListedAreAccepted()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; (move < MOVES) && (ga.getGameState() != SOCGame.OVER); move++)
+            {
+                int n = ga.getLegalActions(actions);
+
+                for (int i = 0; i < n; i++)
+                {
+                    SOCGame copy = new SOCGame(ga);
+                    SOCPlayer pl = copy.getPlayer(copy.getCurrentPlayerNumber());
+
+                    assertEquals("game " + g + " move " + move + " " + SOCGameAction.toString(actions[i]), SOCGameRules.OK, apply(copy, pl, actions[i]));
+                }
+
+                if (!makeMove(ga, n))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * no action that's left out of the list should be accepted
+     * by the rules, for the current player or anyone else.
+     * bank trades are only tried at the best rate the player
+     * can get, since that's the only rate that's listed.
+     */
+    public void testRejectedAreNotListed()
+    {
+        for (int g = 0; g < GAMES; g++)
+        {
+            SOCGame ga = newGame(g);
+
+            for (int move = 0; (move < MOVES) && (ga.getGameState() != SOCGame.OVER); move++)
+            {
+                int n = ga.getLegalActions(actions);
+                SOCPlayer current = ga.getPlayer(ga.getCurrentPlayerNumber());
+                SOCPlayer other = ga.getPlayer((current.getPlayerNumber() + 1 + rand.nextInt(SOCGame.MAXPLAYERS - 1)) % SOCGame.MAXPLAYERS);
+                int[] all = allActions(ga, current);
+
+                for (int i = 0; i < all.length; i++)
+                {
+                    String where = "game " + g + " move " + move + " " + SOCGameAction.toString(all[i]);
+
+                    assertTrue(where + " from another player", apply(ga, other, all[i]) != SOCGameRules.OK);
+
+                    if (!isListed(all[i], n))
+                    {
+                        assertTrue(where + " not listed", apply(ga, current, all[i]) != SOCGameRules.OK);
+                    }
+                }
+
+                if (!makeMove(ga, n))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * start a game with four players
+     */
+    private SOCGame newGame(long seed)
+    {
+        rand = new Random(seed);
+
+        SOCGame ga = new SOCGame("test");
+        ga.setSeed(seed);
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            ga.addPlayer("p" + pn, pn);
+        }
+
+        ga.startGame();
+
+        return ga;
+    }
+
+    /**
+     * have everyone discard if they have to, or else have
+     * the current player make one of the listed actions
+     *
+     * @param n  how many actions are listed
+     * @return false if there was nothing to do
+     */
+    private boolean makeMove(SOCGame ga, int n)
+    {
+        if (ga.getGameState() == SOCGame.WAITING_FOR_DISCARDS)
+        {
+            discard(ga);
+
+            return true;
+        }
+
+        if (n == 0)
+        {
+            return false;
+        }
+
+        int action = actions[rand.nextInt(n)];
+        assertEquals(SOCGameAction.toString(action), SOCGameRules.OK, apply(ga, ga.getPlayer(ga.getCurrentPlayerNumber()), action));
+
+        return true;
+    }
+
+    /**
+     * @return true if an action is in the first n listed actions
+     */
+    private boolean isListed(int action, int n)
+    {
+        for (int i = 0; i < n; i++)
+        {
+            if (actions[i] == action)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return every action a player might ask for, listed
+     *         or not, in the same form getLegalActions uses
+     */
+    private static int[] allActions(SOCGame ga, SOCPlayer pl)
+    {
+        int[] all = new int[MAX_ALL_ACTIONS];
+        int n = 0;
+
+        for (int type = SOCGameAction.ROLL_DICE;
+                type <= SOCGameAction.CANCEL_BUILD; type++)
+        {
+            all[n++] = SOCGameAction.make(type);
+        }
+
+        for (int type = SOCGameAction.PLAY_KNIGHT;
+                type <= SOCGameAction.PLAY_MONOPOLY; type++)
+        {
+            all[n++] = SOCGameAction.make(type);
+        }
+
+        for (int edge = SOCBoard.MINEDGE; edge <= SOCBoard.MAXEDGE; edge++)
+        {
+            all[n++] = SOCGameAction.make(SOCGameAction.PLACE_ROAD, edge);
+        }
+
+        for (int node = SOCBoard.MINNODE; node <= SOCBoard.MAXNODE; node++)
+        {
+            all[n++] = SOCGameAction.make(SOCGameAction.PLACE_SETTLEMENT, node);
+            all[n++] = SOCGameAction.make(SOCGameAction.PLACE_CITY, node);
+        }
+
+        for (int i = 0; i < ga.getBoard().getNumHexes(); i++)
+        {
+            all[n++] = SOCGameAction.make(SOCGameAction.MOVE_ROBBER, ga.getBoard().getHexCoordFromNumber(i));
+        }
+
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            all[n++] = SOCGameAction.make(SOCGameAction.CHOOSE_PLAYER, pn);
+        }
+
+        for (int r1 = SOCResourceConstants.CLAY; r1 <= SOCResourceConstants.WOOD;
+                r1++)
+        {
+            all[n++] = SOCGameAction.make(SOCGameAction.MONOPOLY_PICK, r1);
+
+            for (int r2 = SOCResourceConstants.CLAY;
+                    r2 <= SOCResourceConstants.WOOD; r2++)
+            {
+                if (r2 >= r1)
+                {
+                    all[n++] = SOCGameAction.make(SOCGameAction.DISCOVERY_PICK, r1, r2, 0);
+                }
+
+                if (r2 != r1)
+                {
+                    all[n++] = SOCGameAction.make(SOCGameAction.BANK_TRADE, r1, r2, tradeRatio(pl, r1));
+                }
+            }
+        }
+
+        int[] result = new int[n];
+        System.arraycopy(all, 0, result, 0, n);
+
+        return result;
+    }
+
+    /**
+     * @return the best rate a player can trade a resource at
+     */
+    private static int tradeRatio(SOCPlayer pl, int rtype)
+    {
+        if (pl.getPortFlag(rtype))
+        {
+            return 2;
+        }
+        else if (pl.getPortFlag(SOCBoard.MISC_PORT))
+        {
+            return 3;
+        }
+
+        return 4;
+    }
+
+    /**
+     * ask for an action the way the server's handlers do.
+     * rolling, moving the robber and choosing a victim aren't
+     * in SOCGameRules, so those use the game's own checks.
+     *
+     * @return the result from SOCGameRules
+     */
+    private static int apply(SOCGame ga, SOCPlayer pl, int action)
+    {
+        int pn = pl.getPlayerNumber();
+        int arg1 = SOCGameAction.getArg1(action);
+        int arg2 = SOCGameAction.getArg2(action);
+
+        switch (SOCGameAction.getType(action))
+        {
+        case SOCGameAction.ROLL_DICE:
+
+            if (!ga.canRollDice(pn))
+            {
+                return SOCGameRules.NOT_NOW;
+            }
+
+            ga.rollDice();
+
+            return SOCGameRules.OK;
+
+        case SOCGameAction.END_TURN:
+            return SOCGameRules.endTurn(ga, pl);
+
+        case SOCGameAction.BUY_ROAD:
+            return SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.ROAD);
+
+        case SOCGameAction.BUY_SETTLEMENT:
+            return SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.SETTLEMENT);
+
+        case SOCGameAction.BUY_CITY:
+            return SOCGameRules.buildRequest(ga, pl, SOCPlayingPiece.CITY);
+
+        case SOCGameAction.BUY_DEV_CARD:
+
+            int result = SOCGameRules.canBuyDevCard(ga, pl);
+
+            if (result == SOCGameRules.OK)
+            {
+                ga.buyDevCard();
+            }
+
+            return result;
+
+        case SOCGameAction.CANCEL_BUILD:
+
+            switch (ga.getGameState())
+            {
+            case SOCGame.PLACING_ROAD:
+                return SOCGameRules.cancelBuildRequest(ga, pl, SOCPlayingPiece.ROAD);
+
+            case SOCGame.PLACING_SETTLEMENT:
+                return SOCGameRules.cancelBuildRequest(ga, pl, SOCPlayingPiece.SETTLEMENT);
+
+            default:
+                return SOCGameRules.cancelBuildRequest(ga, pl, SOCPlayingPiece.CITY);
+            }
+
+        case SOCGameAction.PLACE_ROAD:
+            return SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.ROAD, arg1);
+
+        case SOCGameAction.PLACE_SETTLEMENT:
+            return SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.SETTLEMENT, arg1);
+
+        case SOCGameAction.PLACE_CITY:
+            return SOCGameRules.putPiece(ga, pl, SOCPlayingPiece.CITY, arg1);
+
+        case SOCGameAction.PLAY_KNIGHT:
+            return SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.KNIGHT);
+
+        case SOCGameAction.PLAY_ROAD_BUILDING:
+            return SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.ROADS);
+
+        case SOCGameAction.PLAY_DISCOVERY:
+            return SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.DISC);
+
+        case SOCGameAction.PLAY_MONOPOLY:
+            return SOCGameRules.playDevCard(ga, pl, SOCDevCardConstants.MONO);
+
+        case SOCGameAction.MOVE_ROBBER:
+
+            if (!SOCGameRules.isTurn(ga, pl) || !ga.canMoveRobber(pn, arg1))
+            {
+                return SOCGameRules.NOT_NOW;
+            }
+
+            ga.moveRobber(pn, arg1);
+
+            return SOCGameRules.OK;
+
+        case SOCGameAction.CHOOSE_PLAYER:
+
+            if (!SOCGameRules.isTurn(ga, pl) || !ga.canChoosePlayer(arg1))
+            {
+                return SOCGameRules.NOT_NOW;
+            }
+
+            ga.stealFromPlayer(arg1);
+
+            return SOCGameRules.OK;
+
+        case SOCGameAction.BANK_TRADE:
+
+            SOCResourceSet give = new SOCResourceSet();
+            SOCResourceSet get = new SOCResourceSet();
+            give.add(SOCGameAction.getArg3(action), arg1);
+            get.add(1, arg2);
+
+            return SOCGameRules.bankTrade(ga, pl, give, get);
+
+        case SOCGameAction.DISCOVERY_PICK:
+
+            SOCResourceSet pick = new SOCResourceSet();
+            pick.add(1, arg1);
+            pick.add(1, arg2);
+
+            return SOCGameRules.discoveryPick(ga, pl, pick);
+
+        case SOCGameAction.MONOPOLY_PICK:
+            return SOCGameRules.monopolyPick(ga, pl, arg1);
+
+        default:
+            fail("unknown action " + SOCGameAction.toString(action));
+
+            return SOCGameRules.NOT_ALLOWED;
+        }
+    }
+
+    /**
+     * have everyone who has to discard throw away half
+     * of their resources
+     */
+    private static void discard(SOCGame ga)
+    {
+        for (int pn = 0; pn < SOCGame.MAXPLAYERS; pn++)
+        {
+            SOCPlayer pl = ga.getPlayer(pn);
+
+            if (!pl.getNeedToDiscard())
+            {
+                continue;
+            }
+
+            SOCResourceSet rs = new SOCResourceSet();
+            int left = pl.getResources().getTotal() / 2;
+
+            for (int rtype = SOCResourceConstants.CLAY;
+                    (rtype <= SOCResourceConstants.WOOD) && (left > 0);
+                    rtype++)
+            {
+                int amount = Math.min(left, pl.getResources().getAmount(rtype));
+                rs.add(amount, rtype);
+                left -= amount;
+            }
+
+            assertTrue(ga.canDiscard(pn, rs));
+            ga.discard(pn, rs);
+        }
+    }
+}